@@ -19,7 +19,10 @@ import cn.hutool.json.JSONUtil;
 import cn.universal.admin.common.service.BaseServiceImpl;
 import cn.universal.admin.system.service.IIoTUserApplicationService;
 import cn.universal.common.constant.IoTConstant;
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.EventPublisher;
 import cn.universal.common.exception.IoTException;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.persistence.entity.IoTUser;
 import cn.universal.persistence.entity.IoTUserApplication;
 import cn.universal.persistence.entity.OAuth2ClientDetails;
@@ -54,6 +57,8 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
 
   @Resource private OauthClientDetailsMapper oauthClientDetailsMapper;
 
+  @Resource private EventPublisher eventPublisher;
+
   @Value("${mqtt.cfg.enable:true}")
   private boolean sysMqttEnabled;
 
@@ -91,6 +96,7 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
         oauthClientDetailsMapper.updateByExampleSelective(build, example);
       }
     }
+    mqttAuthChanged();
     return true;
   }
 
@@ -170,7 +176,9 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
       },
       allEntries = true)
   public int updateIotUserApplication(IoTUserApplication iotUserApplication) {
-    return iotUserApplicationMapper.updateIotUserApplication(iotUserApplication);
+    int count = iotUserApplicationMapper.updateIotUserApplication(iotUserApplication);
+    mqttAuthChanged();
+    return count;
   }
 
   /**
@@ -190,7 +198,9 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
       },
       allEntries = true)
   public int deleteIotUserApplicationByIds(String[] appUniqueId) {
-    return iotUserApplicationMapper.deleteIotUserApplicationByIds(appUniqueId);
+    int count = iotUserApplicationMapper.deleteIotUserApplicationByIds(appUniqueId);
+    mqttAuthChanged();
+    return count;
   }
 
   @Override
@@ -216,7 +226,9 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
       },
       allEntries = true)
   public int deleteIotUserApplicationById(String appUniqueId) {
-    return iotUserApplicationMapper.deleteIotUserApplicationById(appUniqueId);
+    int count = iotUserApplicationMapper.deleteIotUserApplicationById(appUniqueId);
+    mqttAuthChanged();
+    return count;
   }
 
   @Override
@@ -332,6 +344,13 @@ public class IoTUserApplicationServiceImpl extends BaseServiceImpl
         }
       }
     }
+    mqttAuthChanged();
     return true;
   }
+
+  /** 应用变更同时影响应用和所属用户的 MQTT 认证，提交后通知集群清除全部 EMQX 决策缓存 */
+  private void mqttAuthChanged() {
+    TransactionUtils.afterCommit(
+        () -> eventPublisher.publishEvent(EventTopics.MQTT_AUTH_CHANGED, null));
+  }
 }
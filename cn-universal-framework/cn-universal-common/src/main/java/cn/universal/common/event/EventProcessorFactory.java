@@ -3,7 +3,11 @@ package cn.universal.common.event;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.extra.spring.SpringUtil;
 import cn.universal.common.event.processer.FenceEventProcessor;
+import cn.universal.common.event.processer.FenceUpdatedProcessor;
+import cn.universal.common.event.processer.MqttAuthChangedProcessor;
 import cn.universal.common.event.processer.ProductConfigProcessor;
+import cn.universal.common.event.processer.RuleUpdatedProcessor;
+import cn.universal.common.event.processer.SceneLinkageUpdatedProcessor;
 import cn.universal.common.event.processer.TcpDownProcessor;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +46,22 @@ public class EventProcessorFactory {
     }
   }
 
+  /** 处理电子围栏变更事件 */
+  public void handleFenceUpdated(EventMessage message) {
+    try {
+      Map<String, FenceUpdatedProcessor> beans =
+          SpringUtil.getBeansOfType(FenceUpdatedProcessor.class);
+      if (MapUtil.isNotEmpty(beans)) {
+        beans.forEach(
+            (k, v) -> {
+              v.handleFenceUpdated(message);
+            });
+      }
+    } catch (Exception e) {
+      log.error("[事件处理器] 电子围栏变更处理失败", e);
+    }
+  }
+
   /** 处理TCP下行指令事件 */
   public void handleTcpDown(EventMessage message) {
     if (tcpDownProcessor != null) {
@@ -86,4 +106,52 @@ public class EventProcessorFactory {
       log.error("[事件处理器] 产品协议更新处理失败", e);
     }
   }
+
+  /** 处理规则变更事件 */
+  public void handleRuleUpdated(EventMessage message) {
+    try {
+      Map<String, RuleUpdatedProcessor> beans =
+          SpringUtil.getBeansOfType(RuleUpdatedProcessor.class);
+      if (MapUtil.isNotEmpty(beans)) {
+        beans.forEach(
+            (k, v) -> {
+              v.handleRuleUpdated(message);
+            });
+      }
+    } catch (Exception e) {
+      log.error("[事件处理器] 规则变更处理失败", e);
+    }
+  }
+
+  /** 处理场景联动变更事件 */
+  public void handleSceneLinkageUpdated(EventMessage message) {
+    try {
+      Map<String, SceneLinkageUpdatedProcessor> beans =
+          SpringUtil.getBeansOfType(SceneLinkageUpdatedProcessor.class);
+      if (MapUtil.isNotEmpty(beans)) {
+        beans.forEach(
+            (k, v) -> {
+              v.handleSceneLinkageUpdated(message);
+            });
+      }
+    } catch (Exception e) {
+      log.error("[事件处理器] 场景联动变更处理失败", e);
+    }
+  }
+
+  /** 处理MQTT认证信息变更事件 */
+  public void handleMqttAuthChanged(EventMessage message) {
+    try {
+      Map<String, MqttAuthChangedProcessor> beans =
+          SpringUtil.getBeansOfType(MqttAuthChangedProcessor.class);
+      if (MapUtil.isNotEmpty(beans)) {
+        beans.forEach(
+            (k, v) -> {
+              v.handleMqttAuthChanged(message);
+            });
+      }
+    } catch (Exception e) {
+      log.error("[事件处理器] MQTT认证信息变更处理失败", e);
+    }
+  }
 }
@@ -30,6 +30,9 @@ public class EventTopics {
   /** 电子围栏事件 用于处理电子围栏触发事件 */
   public static final String FENCE_EVENT = "fence:event";
 
+  /** 电子围栏变更事件 用于通知集群内其他实例失效设备围栏索引 */
+  public static final String FENCE_UPDATED = "fence:updated";
+
   // ==================== TCP相关事件 ====================
 
   /** TCP下行指令事件（模式匹配） 用于处理TCP下行指令 */
@@ -45,6 +48,24 @@ public class EventTopics {
   /** 产品配置更新事件 用于通知产品配置变更 */
   public static final String PRODUCT_CONFIG_UPDATED = "product:config:updated";
 
+  // ==================== 规则引擎相关事件 ====================
+
+  /** 规则变更事件 用于通知集群内其他实例刷新规则索引 */
+  public static final String RULE_UPDATED = "rule:updated";
+
+  /** 场景联动变更事件 用于通知集群内其他实例刷新场景联动触发索引 */
+  public static final String SCENE_LINKAGE_UPDATED = "scene:linkage:updated";
+
+  // ==================== MQTT认证相关事件 ====================
+
+  /** MQTT认证信息变更事件 用于通知集群内各实例（含本实例）清除EMQX认证和ACL决策缓存 */
+  public static final String MQTT_AUTH_CHANGED = "mqtt:auth:changed";
+
+  // ==================== 缓存相关事件 ====================
+
+  /** 多级缓存失效事件 用于通知集群内其他实例驱逐本地L1缓存 */
+  public static final String CACHE_INVALIDATED = "cache:invalidated";
+
   // ==================== 测试相关事件 ====================
 
   /** 测试TCP事件 用于测试TCP相关功能 */
@@ -72,6 +72,12 @@ public class RedisEventSubscriber {
     fenceAdapter.setDefaultListenerMethod("handleFenceEvent");
     container.addMessageListener(fenceAdapter, new ChannelTopic(EventTopics.FENCE_EVENT));
 
+    // 电子围栏变更事件
+    MessageListenerAdapter fenceUpdatedAdapter = createAdapter(this, "handleFenceUpdated");
+    fenceUpdatedAdapter.setDefaultListenerMethod("handleFenceUpdated");
+    container.addMessageListener(
+        fenceUpdatedAdapter, new ChannelTopic(EventTopics.FENCE_UPDATED));
+
     // TCP下行指令事件（使用Pattern订阅）
     MessageListenerAdapter tcpDownAdapter = createAdapter(this, "handleTcpDownEvent");
     tcpDownAdapter.setDefaultListenerMethod("handleTcpDownEvent");
@@ -87,6 +93,22 @@ public class RedisEventSubscriber {
     MessageListenerAdapter protocolAdapter = createAdapter(this, "handleProtocolUpdated");
     protocolAdapter.setDefaultListenerMethod("handleProtocolUpdated");
     container.addMessageListener(protocolAdapter, new ChannelTopic(EventTopics.PROTOCOL_UPDATED));
+
+    // 规则变更事件
+    MessageListenerAdapter ruleAdapter = createAdapter(this, "handleRuleUpdated");
+    ruleAdapter.setDefaultListenerMethod("handleRuleUpdated");
+    container.addMessageListener(ruleAdapter, new ChannelTopic(EventTopics.RULE_UPDATED));
+
+    // 场景联动变更事件
+    MessageListenerAdapter sceneAdapter = createAdapter(this, "handleSceneLinkageUpdated");
+    sceneAdapter.setDefaultListenerMethod("handleSceneLinkageUpdated");
+    container.addMessageListener(
+        sceneAdapter, new ChannelTopic(EventTopics.SCENE_LINKAGE_UPDATED));
+
+    // MQTT认证信息变更事件
+    MessageListenerAdapter mqttAuthAdapter = createAdapter(this, "handleMqttAuthChanged");
+    mqttAuthAdapter.setDefaultListenerMethod("handleMqttAuthChanged");
+    container.addMessageListener(mqttAuthAdapter, new ChannelTopic(EventTopics.MQTT_AUTH_CHANGED));
     log.info("[Redis事件订阅] 已启动事件监听器");
   }
 
@@ -105,6 +127,20 @@ public class RedisEventSubscriber {
     }
   }
 
+  /** 处理电子围栏变更事件 */
+  public void handleFenceUpdated(EventMessage message) {
+    if (isOwnMessage(message)) {
+      return;
+    }
+    log.info("[Redis事件] 收到电子围栏变更事件: {}", message);
+
+    try {
+      eventProcessorFactory.handleFenceUpdated(message);
+    } catch (Exception e) {
+      log.error("[Redis事件] 处理电子围栏变更事件失败", e);
+    }
+  }
+
   /** 处理TCP下行指令事件 */
   public void handleTcpDownEvent(EventMessage message) {
     if (isOwnMessage(message)) {
@@ -150,6 +186,45 @@ public class RedisEventSubscriber {
     }
   }
 
+  /** 处理规则变更事件 */
+  public void handleRuleUpdated(EventMessage message) {
+    if (isOwnMessage(message)) {
+      return;
+    }
+    log.info("[Redis事件] 收到规则变更事件: {}", message);
+
+    try {
+      eventProcessorFactory.handleRuleUpdated(message);
+    } catch (Exception e) {
+      log.error("[Redis事件] 处理规则变更事件失败", e);
+    }
+  }
+
+  /** 处理场景联动变更事件 */
+  public void handleSceneLinkageUpdated(EventMessage message) {
+    if (isOwnMessage(message)) {
+      return;
+    }
+    log.info("[Redis事件] 收到场景联动变更事件: {}", message);
+
+    try {
+      eventProcessorFactory.handleSceneLinkageUpdated(message);
+    } catch (Exception e) {
+      log.error("[Redis事件] 处理场景联动变更事件失败", e);
+    }
+  }
+
+  /** 处理MQTT认证信息变更事件，本实例发出的也要处理，发布方无需再单独清除本地缓存 */
+  public void handleMqttAuthChanged(EventMessage message) {
+    log.info("[Redis事件] 收到MQTT认证信息变更事件: {}", message);
+
+    try {
+      eventProcessorFactory.handleMqttAuthChanged(message);
+    } catch (Exception e) {
+      log.error("[Redis事件] 处理MQTT认证信息变更事件失败", e);
+    }
+  }
+
   /** 判断是否是自己发送的消息 */
   private boolean isOwnMessage(EventMessage message) {
     try {
@@ -0,0 +1,20 @@
+package cn.universal.common.event.processer;
+
+import cn.universal.common.event.EventMessage;
+
+/**
+ * 电子围栏变更事件处理器接口
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+public interface FenceUpdatedProcessor {
+
+  /**
+   * 处理电子围栏变更事件
+   *
+   * @param message 事件消息，data为设备iotId，为空时表示围栏本身变更
+   */
+  void handleFenceUpdated(EventMessage message);
+}
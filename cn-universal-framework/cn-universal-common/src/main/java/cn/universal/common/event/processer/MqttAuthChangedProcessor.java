@@ -0,0 +1,20 @@
+package cn.universal.common.event.processer;
+
+import cn.universal.common.event.EventMessage;
+
+/**
+ * MQTT认证信息变更事件处理器接口
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+public interface MqttAuthChangedProcessor {
+
+  /**
+   * 处理MQTT认证信息变更事件
+   *
+   * @param message 事件消息，data为变更的用户名（productKey、appId或用户名），为空时表示全部失效
+   */
+  void handleMqttAuthChanged(EventMessage message);
+}
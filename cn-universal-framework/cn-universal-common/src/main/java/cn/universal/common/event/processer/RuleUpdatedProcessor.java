@@ -0,0 +1,20 @@
+package cn.universal.common.event.processer;
+
+import cn.universal.common.event.EventMessage;
+
+/**
+ * 规则变更事件处理器接口
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+public interface RuleUpdatedProcessor {
+
+  /**
+   * 处理规则变更事件
+   *
+   * @param message 事件消息，data为规则id
+   */
+  void handleRuleUpdated(EventMessage message);
+}
@@ -0,0 +1,20 @@
+package cn.universal.common.event.processer;
+
+import cn.universal.common.event.EventMessage;
+
+/**
+ * 场景联动变更事件处理器接口
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+public interface SceneLinkageUpdatedProcessor {
+
+  /**
+   * 处理场景联动变更事件
+   *
+   * @param message 事件消息，data为场景联动id
+   */
+  void handleSceneLinkageUpdated(EventMessage message);
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.common.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/12/10
+ */
+public final class TransactionUtils {
+
+  private TransactionUtils() {}
+
+  /**
+   * 在当前事务提交后执行，没有事务时立即执行
+   *
+   * <p>用于变更通知（刷新本地索引、广播集群事件），避免其他节点在提交前读到旧数据，回滚时也不会误发
+   *
+   * @param action 提交后执行的动作
+   */
+  public static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -42,10 +42,10 @@ public class MagicScript extends CompiledScript {
   private final Set<VarIndex> varIndices;
 
   /** 编译后的类 */
-  private MagicScriptVariableAccessRuntime accessRuntime;
+  private volatile MagicScriptVariableAccessRuntime accessRuntime;
 
-  /** 构造函数 */
-  private Constructor<MagicScriptRuntime> constructor;
+  /** 构造函数，非空表示已编译，之后每次执行只创建运行实例 */
+  private volatile Constructor<MagicScriptRuntime> constructor;
 
   private final boolean debug;
 
@@ -53,7 +53,7 @@ public class MagicScript extends CompiledScript {
 
   private String[] varNames;
 
-  private static CompileCache compileCache;
+  private static volatile CompileCache compileCache;
 
   private MagicScript(
       List<Node> nodes, Set<VarIndex> varIndices, ScriptEngine scriptEngine, boolean debug) {
@@ -67,6 +67,19 @@ public class MagicScript extends CompiledScript {
     compileCache = new CompileCache(capacity);
   }
 
+  public static CompileCache getCompileCache() {
+    CompileCache cache = compileCache;
+    if (cache == null) {
+      synchronized (MagicScript.class) {
+        cache = compileCache;
+        if (cache == null) {
+          compileCache = cache = new CompileCache(500);
+        }
+      }
+    }
+    return cache;
+  }
+
   /** 创建MagicScript */
   public static MagicScript create(String source, ScriptEngine scriptEngine) {
     return create(false, source, scriptEngine);
@@ -74,10 +87,7 @@ public class MagicScript extends CompiledScript {
 
   /** 创建MagicScript */
   public static MagicScript create(boolean expression, String source, ScriptEngine scriptEngine) {
-    if (compileCache == null) {
-      compileCache = new CompileCache(500);
-    }
-    return compileCache.get(
+    return getCompileCache().get(
         source,
         () -> {
           Parser parser = new Parser();
@@ -92,15 +102,18 @@ public class MagicScript extends CompiledScript {
   public Object execute(MagicScriptContext context) {
     MagicScriptRuntime runtime = null;
     try {
-      MagicScriptEngine.getDefaultImports()
-          .forEach(
-              (name, value) -> {
-                if (value instanceof DynamicModuleImport) {
-                  context.set(name, ((DynamicModuleImport) value).getDynamicModule(context));
-                } else {
-                  context.set(name, value);
-                }
-              });
+      // 复用的上下文按需从默认导入中取值，不再每次整体拷贝
+      if (!context.isLazyDefaultImports()) {
+        MagicScriptEngine.getDefaultImports()
+            .forEach(
+                (name, value) -> {
+                  if (value instanceof DynamicModuleImport) {
+                    context.set(name, ((DynamicModuleImport) value).getDynamicModule(context));
+                  } else {
+                    context.set(name, value);
+                  }
+                });
+      }
       runtime = compile();
       return runtime.execute(context);
     } catch (MagicExitException e) {
@@ -113,11 +126,23 @@ public class MagicScript extends CompiledScript {
     return null;
   }
 
-  /** 编译 */
+  /** 编译，字节码只生成一次 */
   public MagicScriptRuntime compile() throws MagicScriptCompileException {
     if (this.accessRuntime != null) {
       return this.accessRuntime;
     }
+    if (this.constructor != null) {
+      return buildRuntime();
+    }
+    synchronized (this) {
+      if (this.constructor != null) {
+        return buildRuntime();
+      }
+      return doCompile();
+    }
+  }
+
+  private MagicScriptRuntime doCompile() throws MagicScriptCompileException {
     if (nodes.size() == 1 && nodes.getFirst() instanceof Return returnNode) {
         if (returnNode.getReturnValue() instanceof VariableAccess) {
         return this.accessRuntime =
@@ -150,11 +175,12 @@ public class MagicScript extends CompiledScript {
       Class<MagicScriptRuntime> clazz =
           new MagicScriptClassLoader(Thread.currentThread().getContextClassLoader())
               .load(compiler.getClassName(), compiler.bytecode());
-      this.constructor = clazz.getConstructor();
       // 设置变量名字
       this.varNames = varIndices.stream().map(VarIndex::getName).toArray(String[]::new);
       // 设置所有Span
       this.spans = compiler.getSpans();
+      // 最后发布构造函数，其他线程看到时变量名和Span已就绪
+      this.constructor = clazz.getConstructor();
       return buildRuntime();
     } catch (MagicScriptException mse) {
       throw new MagicScriptCompileException(mse.getSimpleMessage(), mse);
@@ -1,10 +1,12 @@
 package cn.universal.core.engine;
 
 import cn.universal.core.engine.exception.MagicScriptException;
+import cn.universal.core.engine.functions.DynamicModuleImport;
 import cn.universal.core.engine.runtime.MagicScriptRuntime;
 import cn.universal.core.engine.runtime.RuntimeContext;
 import cn.universal.core.engine.runtime.Variables;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,9 +15,19 @@ import java.util.Objects;
 /** 脚本环境上下文 编译后的类每个方法的第一个参数都是本类。 此类主要用于辅助读写变量以及设置/读取/ */
 public class MagicScriptContext {
 
+  private static final String[] NO_SLOTS = new String[0];
+
   /** 保存手动设置的环境变量 */
   private final Map<String, Object> rootVariables = new LinkedHashMap<>();
 
+  /** 固定绑定的变量名（如 payload、context），按下标赋值，避免每次调用写 Map */
+  private final String[] slotNames;
+
+  private final Object[] slotValues;
+
+  /** 默认导入按需获取，而非执行前整体拷贝 */
+  private final boolean lazyDefaultImports;
+
   /** 代码执行时，存放 import "xx.xx.xx.*" 的包 */
   private final List<String> importPackages = new ArrayList<>();
 
@@ -25,12 +37,58 @@ public class MagicScriptContext {
 
   private String scriptName;
 
-  public MagicScriptContext() {}
+  public MagicScriptContext() {
+    this(NO_SLOTS, false);
+  }
 
   public MagicScriptContext(Map<String, Object> variables) {
+    this(NO_SLOTS, false);
     putMapIntoContext(variables);
   }
 
+  private MagicScriptContext(String[] slotNames, boolean lazyDefaultImports) {
+    this.slotNames = slotNames;
+    this.slotValues = slotNames.length == 0 ? null : new Object[slotNames.length];
+    this.lazyDefaultImports = lazyDefaultImports;
+  }
+
+  /**
+   * 创建可复用上下文：slotNames 按下标绑定，默认导入按需获取，执行后调用 {@link #reset()} 复用
+   *
+   * <p>上下文非线程安全，需线程独占使用
+   *
+   * @param slotNames 固定绑定的变量名
+   */
+  public static MagicScriptContext withSlots(String... slotNames) {
+    return new MagicScriptContext(slotNames.clone(), true);
+  }
+
+  /** 按下标设置固定绑定变量 */
+  public MagicScriptContext setSlot(int index, Object value) {
+    slotValues[index] = value;
+    return this;
+  }
+
+  public boolean isLazyDefaultImports() {
+    return lazyDefaultImports;
+  }
+
+  /** 清空本次执行留下的状态，供下次复用 */
+  public void reset() {
+    if (slotValues != null) {
+      Arrays.fill(slotValues, null);
+    }
+    if (!rootVariables.isEmpty()) {
+      rootVariables.clear();
+    }
+    if (!importPackages.isEmpty()) {
+      importPackages.clear();
+    }
+    runtime = null;
+    variables = null;
+    scriptName = null;
+  }
+
   public String getScriptName() {
     return scriptName;
   }
@@ -75,7 +133,21 @@ public class MagicScriptContext {
    * @return 变量值
    */
   public Object get(String name) {
-    return rootVariables.get(name);
+    for (int i = 0; i < slotNames.length; i++) {
+      if (slotNames[i].equals(name)) {
+        return slotValues[i];
+      }
+    }
+    Object value = rootVariables.get(name);
+    if (value == null && lazyDefaultImports) {
+      value = MagicScriptEngine.getDefaultImports().get(name);
+      if (value instanceof DynamicModuleImport dynamicModule) {
+        value = dynamicModule.getDynamicModule(this);
+        // 动态模块本次执行内只创建一次
+        rootVariables.put(name, value);
+      }
+    }
+    return value;
   }
 
   /**
@@ -85,6 +157,12 @@ public class MagicScriptContext {
    * @param value 变量值
    */
   public MagicScriptContext set(String name, Object value) {
+    for (int i = 0; i < slotNames.length; i++) {
+      if (slotNames[i].equals(name)) {
+        slotValues[i] = value;
+        return this;
+      }
+    }
     rootVariables.put(name, value);
     return this;
   }
@@ -145,7 +223,16 @@ public class MagicScriptContext {
 
   /** 获取调用时传入的变量信息 */
   public Map<String, Object> getRootVariables() {
-    return rootVariables;
+    if (slotNames.length == 0) {
+      return rootVariables;
+    }
+    Map<String, Object> variables = new LinkedHashMap<>(rootVariables);
+    for (int i = 0; i < slotNames.length; i++) {
+      if (slotValues[i] != null) {
+        variables.put(slotNames[i], slotValues[i]);
+      }
+    }
+    return variables;
   }
 
   /** 批量设置环境变量 */
@@ -1,53 +1,47 @@
 package cn.universal.core.engine.compile;
 
 import cn.universal.core.engine.MagicScript;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import java.util.function.Supplier;
 
+/**
+ * 脚本编译缓存
+ *
+ * <p>基于 Caffeine（W-TinyLFU 淘汰），读取无锁；同一脚本并发未命中时只编译一次，其余线程等待该次编译结果。
+ */
 public class CompileCache {
 
-  private final LinkedHashMap<String, MagicScript> cacheMap;
-
-  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Cache<String, MagicScript> cache;
 
   public CompileCache(int capacity) {
-    this.cacheMap =
-        new LinkedHashMap<String, MagicScript>((int) Math.ceil(capacity / 0.75) + 1, 0.75f, true) {
-
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<String, MagicScript> eldest) {
-            // lru淘汰
-            return size() > capacity;
-          }
-        };
+    this.cache = Caffeine.newBuilder().maximumSize(Math.max(1, capacity)).recordStats().build();
   }
 
   public void put(String key, MagicScript script) {
-    lock.writeLock().lock();
-    try {
-      cacheMap.put(key, script);
-    } finally {
-      lock.writeLock().unlock();
-    }
+    cache.put(key, script);
   }
 
   public MagicScript get(String key) {
-    lock.readLock().lock();
-    try {
-      return cacheMap.get(key);
-    } finally {
-      lock.readLock().unlock();
-    }
+    return cache.getIfPresent(key);
   }
 
+  /** 未命中时编译，同一 key 并发只编译一次；编译异常不缓存，直接抛出 */
   public MagicScript get(String key, Supplier<MagicScript> value) {
-    MagicScript script = get(key);
-    if (script == null) {
-      script = value.get();
-      put(key, script);
-    }
-    return script;
+    return cache.get(key, k -> value.get());
+  }
+
+  public void invalidate(String key) {
+    cache.invalidate(key);
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  /** 命中/未命中/淘汰等统计 */
+  public CacheStats stats() {
+    return cache.stats();
   }
 }
@@ -9,6 +9,8 @@ import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import cn.universal.core.engine.annotation.Comment;
 import cn.universal.core.engine.annotation.Function;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import org.springframework.stereotype.Component;
 
@@ -655,4 +657,127 @@ public class HexFunctions implements IdeMagicFunction {
   public String hex_swapEndianBytes(@Comment(name = "hex", value = "HEX字符串") String hex) {
     return hex_reverse(hex);
   }
+
+  // =====================
+  // 二进制直接读取（前缀：bin_），配合 decodeBinary 使用，buf 为 ByteBuffer 或 byte[]
+  // 按绝对下标读取，不改变 ByteBuffer 的 position
+  // =====================
+
+  /** ByteBuffer/byte[] 统一为 ByteBuffer 视图，不拷贝 */
+  static ByteBuffer toBuffer(Object buf) {
+    if (buf instanceof ByteBuffer buffer) {
+      return buffer;
+    }
+    if (buf instanceof byte[] bytes) {
+      return ByteBuffer.wrap(bytes);
+    }
+    throw new IllegalArgumentException("buf仅支持ByteBuffer或byte[]");
+  }
+
+  private static ByteOrder order(Boolean littleEndian) {
+    return Boolean.TRUE.equals(littleEndian) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+  }
+
+  @Function
+  @Comment("二进制报文长度（字节数）")
+  public Integer bin_length(@Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf) {
+    return buf == null ? 0 : toBuffer(buf).remaining();
+  }
+
+  @Function
+  @Comment("读取无符号8位整数")
+  public Integer bin_u8(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset) {
+    ByteBuffer b = toBuffer(buf);
+    return b.get(b.position() + offset) & 0xFF;
+  }
+
+  @Function
+  @Comment("读取无符号16位整数，littleEndian为true时按小端读取")
+  public Integer bin_u16(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "littleEndian", value = "是否小端，默认大端") Boolean littleEndian) {
+    return bin_s16(buf, offset, littleEndian) & 0xFFFF;
+  }
+
+  @Function
+  @Comment("读取有符号16位整数，littleEndian为true时按小端读取")
+  public Integer bin_s16(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "littleEndian", value = "是否小端，默认大端") Boolean littleEndian) {
+    ByteBuffer b = toBuffer(buf);
+    short v = b.getShort(b.position() + offset);
+    return (int) (order(littleEndian) == b.order() ? v : Short.reverseBytes(v));
+  }
+
+  @Function
+  @Comment("读取无符号32位整数，littleEndian为true时按小端读取")
+  public Long bin_u32(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "littleEndian", value = "是否小端，默认大端") Boolean littleEndian) {
+    return bin_s32(buf, offset, littleEndian) & 0xFFFFFFFFL;
+  }
+
+  @Function
+  @Comment("读取有符号32位整数，littleEndian为true时按小端读取")
+  public Integer bin_s32(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "littleEndian", value = "是否小端，默认大端") Boolean littleEndian) {
+    ByteBuffer b = toBuffer(buf);
+    int v = b.getInt(b.position() + offset);
+    return order(littleEndian) == b.order() ? v : Integer.reverseBytes(v);
+  }
+
+  @Function
+  @Comment("读取IEEE754单精度浮点数，littleEndian为true时按小端读取")
+  public Float bin_float(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "littleEndian", value = "是否小端，默认大端") Boolean littleEndian) {
+    return Float.intBitsToFloat(bin_s32(buf, offset, littleEndian));
+  }
+
+  @Function
+  @Comment("截取指定区间转为十六进制字符串（大写）")
+  public String bin_hex(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "length", value = "字节数") Integer length) {
+    ByteBuffer b = toBuffer(buf);
+    int start = b.position() + offset;
+    StringBuilder sb = new StringBuilder(length * 2);
+    for (int i = 0; i < length; i++) {
+      int v = b.get(start + i) & 0xFF;
+      sb.append(Character.toUpperCase(Character.forDigit(v >>> 4, 16)))
+          .append(Character.toUpperCase(Character.forDigit(v & 0x0F, 16)));
+    }
+    return sb.toString();
+  }
+
+  @Function
+  @Comment("BCD字节转十进制字符串，带小数位scale，逐字节减0x33时sub33为true（DL/T645数据区，低字节在前）")
+  public String bin_bcd(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "length", value = "字节数") Integer length,
+      @Comment(name = "scale", value = "小数位") Integer scale,
+      @Comment(name = "sub33", value = "是否先减0x33并按低字节在前解析") Boolean sub33) {
+    ByteBuffer b = toBuffer(buf);
+    int start = b.position() + offset;
+    boolean dlt645 = Boolean.TRUE.equals(sub33);
+    StringBuilder digits = new StringBuilder(length * 2);
+    for (int i = 0; i < length; i++) {
+      int v = b.get(start + (dlt645 ? length - 1 - i : i)) & 0xFF;
+      if (dlt645) {
+        v = (v - 0x33) & 0xFF;
+      }
+      digits.append(Character.forDigit(v >>> 4, 16)).append(Character.forDigit(v & 0x0F, 16));
+    }
+    return hex_bcdToDec(digits.toString(), scale);
+  }
 }
@@ -9,6 +9,7 @@ import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import cn.universal.core.engine.annotation.Comment;
 import cn.universal.core.engine.annotation.Function;
+import java.nio.ByteBuffer;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -68,9 +69,17 @@ public class ModbusFunctions implements IdeMagicFunction {
       return null;
     }
     byte[] bytes = HexUtil.decodeHex(hex);
+    int crc = crc16(ByteBuffer.wrap(bytes), 0, bytes.length);
+    int lo = crc & 0xFF;
+    int hi = (crc >>> 8) & 0xFF;
+    return String.format("%02X%02X", lo, hi);
+  }
+
+  /** CRC16 计算，按绝对下标读取 [from, from+length) */
+  private static int crc16(ByteBuffer buf, int from, int length) {
     int crc = 0xFFFF;
-    for (byte b : bytes) {
-      crc ^= (b & 0xFF);
+    for (int j = from; j < from + length; j++) {
+      crc ^= (buf.get(j) & 0xFF);
       for (int i = 0; i < 8; i++) {
         if ((crc & 0x0001) != 0) {
           crc = (crc >>> 1) ^ 0xA001;
@@ -79,9 +88,34 @@ public class ModbusFunctions implements IdeMagicFunction {
         }
       }
     }
-    int lo = crc & 0xFF;
-    int hi = (crc >>> 8) & 0xFF;
-    return String.format("%02X%02X", lo, hi);
+    return crc;
+  }
+
+  @Function
+  @Comment("Modbus CRC16 计算（二进制）：返回CRC数值，报文中低字节在前")
+  public Integer modbus_crc16Bytes(
+      @Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf,
+      @Comment(name = "offset", value = "字节偏移") Integer offset,
+      @Comment(name = "length", value = "字节数") Integer length) {
+    ByteBuffer b = HexFunctions.toBuffer(buf);
+    return crc16(b, b.position() + offset, length);
+  }
+
+  @Function
+  @Comment("判断是否为 Modbus-RTU 报文（二进制，基于尾部CRC16校验，低字节在前）")
+  public Boolean modbus_isRtuBytes(@Comment(name = "buf", value = "ByteBuffer或byte[]") Object buf) {
+    if (buf == null) {
+      return false;
+    }
+    ByteBuffer b = HexFunctions.toBuffer(buf);
+    int len = b.remaining();
+    if (len < 4) {
+      return false;
+    }
+    int start = b.position();
+    int crc = crc16(b, start, len - 2);
+    int tail = (b.get(start + len - 2) & 0xFF) | ((b.get(start + len - 1) & 0xFF) << 8);
+    return crc == tail;
   }
 
   @Function
@@ -183,6 +217,35 @@ public class ModbusFunctions implements IdeMagicFunction {
     }
   }
 
+  @Function
+  @Comment("解析Modbus读保持寄存器响应（二进制）：返回对象{slave,func,byteCount,data[],crcOk}")
+  public JSONObject modbus_parseReadHoldingRespBytes(
+      @Comment(name = "buf", value = "完整响应帧 ByteBuffer或byte[]") Object buf) {
+    JSONObject obj = new JSONObject();
+    if (buf == null) {
+      return obj;
+    }
+    ByteBuffer b = HexFunctions.toBuffer(buf);
+    int len = b.remaining();
+    if (len < 5) {
+      return obj;
+    }
+    int start = b.position();
+    obj.set("crcOk", modbus_isRtuBytes(b));
+    int byteCount = b.get(start + 2) & 0xFF;
+    int words = Math.min(byteCount, len - 5) / 2;
+    int[] data = new int[words];
+    for (int i = 0; i < words; i++) {
+      int idx = start + 3 + i * 2;
+      data[i] = ((b.get(idx) & 0xFF) << 8) | (b.get(idx + 1) & 0xFF);
+    }
+    obj.set("slave", b.get(start) & 0xFF);
+    obj.set("func", String.format("%02X", b.get(start + 1) & 0xFF));
+    obj.set("byteCount", byteCount);
+    obj.set("data", data);
+    return obj;
+  }
+
   @Function
   @Comment("判断是否为 Modbus-TCP 报文（基于MBAP头校验）")
   public Boolean isModbusTcp(
@@ -13,6 +13,8 @@
 package cn.universal.core.protocol.jar;
 
 import cn.universal.common.exception.CodecException;
+import cn.universal.core.protocol.support.ProtocolBinaryCodecSupport;
+import java.nio.ByteBuffer;
 
 /**
  * JAR 编解码服务统一接口
@@ -89,5 +91,14 @@ public interface JarDriverCodecService {
 
   /** 设备-IoT，必须实现 */
   String decode(String payload, Object context);
+
+  /**
+   * 设备-IoT 二进制解码，可选实现
+   *
+   * <p>直接读取原始报文切片，返回 Map/List/UPRequest 等结构化结果；默认转为十六进制字符串后调用 {@link #decode(String, Object)}
+   */
+  default Object decodeBinary(ByteBuffer payload, Object context) throws CodecException {
+    return decode(ProtocolBinaryCodecSupport.toHex(payload), context);
+  }
 }
 
@@ -20,8 +20,10 @@ import cn.universal.core.protocol.jar.resolver.BeanLocationResolver;
 import cn.universal.core.protocol.jar.resolver.LocalJarLocationResolver;
 import cn.universal.core.protocol.jar.resolver.LocationResolver;
 import cn.universal.core.protocol.jar.resolver.RemoteJarLocationResolver;
+import cn.universal.core.protocol.request.ProtocolBinaryDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolEncodeRequest;
+import cn.universal.core.protocol.support.ProtocolBinaryCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecLoader;
 import cn.universal.core.protocol.support.ProtocolCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecSupportWrapper;
@@ -31,6 +33,7 @@ import cn.universal.core.protocol.jar.JarDriverCodecService;
 import java.io.File;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -49,12 +52,17 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ProtocolCodecJar extends ProtocolCodecSupportWrapper
-    implements ProtocolCodecLoader, ProtocolCodecSupport, ProtocolCodecWrapper {
+    implements ProtocolCodecLoader,
+        ProtocolCodecSupport,
+        ProtocolBinaryCodecSupport,
+        ProtocolCodecWrapper {
 
   private final Map<String, ProtocolJarClassLoader> protocolLoaders = new ConcurrentHashMap<>();
   private final Map<String, Object> codecJarProvider = new ConcurrentHashMap<>();
   // 记录每个 provider 的类型：true 表示 Bean 类型，false 表示 JAR 类型
   private final Map<String, Boolean> providerTypeCache = new ConcurrentHashMap<>();
+  // 未实现 JarDriverCodecService 的编解码器，反射查找的 decodeBinary(ByteBuffer, Object)
+  private final Map<String, Optional<Method>> binaryMethodCache = new ConcurrentHashMap<>();
 
   private ProtocolCodecJar() {
     // 已移除 beforeSecurity()，兼容 JDK 17+
@@ -106,6 +114,7 @@ public class ProtocolCodecJar extends ProtocolCodecSupportWrapper
         codecJarProvider.remove(provider);
         protocolLoaders.remove(provider);
         providerTypeCache.remove(provider);
+        binaryMethodCache.remove(provider);
 
         // 使用策略模式解析 location
         LocationResolver resolver = findResolver(location);
@@ -212,6 +221,53 @@ public class ProtocolCodecJar extends ProtocolCodecSupportWrapper
     }
   }
 
+  @Override
+  public Object decodeBinary(ProtocolBinaryDecodeRequest decodeRequest) throws CodecException {
+    try {
+      if (!codecJarProvider.containsKey(decodeRequest.getDefinition().getProvider())) {
+        load(decodeRequest.getDefinition());
+      }
+      String provider = decodeRequest.getDefinition().getProvider();
+      Object codecInstance = codecJarProvider.get(provider);
+      ByteBuffer payload = decodeRequest.getPayload();
+      Object context = decodeRequest.getContext();
+
+      // 优先级1：实现了 JarDriverCodecService 接口，直接调用（未覆盖 decodeBinary 时默认转十六进制后 decode）
+      if (codecInstance instanceof JarDriverCodecService codec) {
+        return codec.decodeBinary(payload, context);
+      }
+
+      // 优先级2：反射调用 decodeBinary(ByteBuffer, Object)
+      Optional<Method> method =
+          binaryMethodCache.computeIfAbsent(provider, k -> findBinaryMethod(codecInstance));
+      if (method.isPresent()) {
+        return method.get().invoke(codecInstance, payload, context);
+      }
+
+      // 优先级3：转十六进制字符串走 decode
+      return decode(ProtocolBinaryCodecSupport.toDecodeRequest(decodeRequest));
+    } catch (CodecException e) {
+      throw e;
+    } catch (Exception e) {
+      String error = ExceptionUtil.getRootCauseMessage(e);
+      log.error(
+          "产品型号={} 提供者={} 二进制解码失败={}",
+          decodeRequest.getDefinition().getId(),
+          decodeRequest.getDefinition().getProvider(),
+          e);
+      throw new CodecException(error);
+    }
+  }
+
+  private Optional<Method> findBinaryMethod(Object codecInstance) {
+    try {
+      return Optional.of(
+          codecInstance.getClass().getMethod(DECODE_BINARY, ByteBuffer.class, Object.class));
+    } catch (NoSuchMethodException e) {
+      return Optional.empty();
+    }
+  }
+
   @Override
   public String encode(ProtocolEncodeRequest encodeRequest) throws CodecException {
     try {
@@ -305,6 +361,7 @@ public class ProtocolCodecJar extends ProtocolCodecSupportWrapper
   public void load(String provider, Object providerImpl) {
     if (StrUtil.isNotBlank(provider) && providerImpl != null) {
       codecJarProvider.put(provider, providerImpl);
+      binaryMethodCache.remove(provider);
     }
   }
 
@@ -314,6 +371,7 @@ public class ProtocolCodecJar extends ProtocolCodecSupportWrapper
       codecJarProvider.remove(provider);
       protocolLoaders.remove(provider);
       providerTypeCache.remove(provider);
+      binaryMethodCache.remove(provider);
     }
   }
 
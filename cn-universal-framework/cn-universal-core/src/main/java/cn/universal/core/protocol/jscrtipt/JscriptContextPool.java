@@ -0,0 +1,300 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.core.protocol.jscrtipt;
+
+import cn.universal.common.exception.CodecException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+/**
+ * 单个jscript编解码的 GraalJS Context 池
+ *
+ * <p>GraalJS Context 同一时刻只能被一个线程使用，池中每个 Context 独占执行一次调用。 所有 Context 共享同一个 {@link Engine} 和解析后的
+ * {@link Source}，代码缓存与JIT预热在 Context 之间复用。空闲超时的 Context 由 {@link #evictIdle(long)} 回收，至少保留一个。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/8/9 19:28
+ */
+@Slf4j
+public class JscriptContextPool implements AutoCloseable {
+
+  /** 全局共享引擎，所有编解码的 Context 共用代码缓存 */
+  private static final Engine ENGINE =
+      Engine.newBuilder().option("engine.WarnInterpreterOnly", "false").build();
+
+  private final String provider;
+  private final String script;
+  private final Source source;
+  private final int maxSize;
+  private final long idleMillis;
+  private final long borrowTimeoutMillis;
+  private final LinkedBlockingDeque<PooledContext> idle = new LinkedBlockingDeque<>();
+  private final AtomicInteger created = new AtomicInteger();
+  private final Set<String> methods;
+  private volatile boolean closed;
+
+  public JscriptContextPool(
+      String provider, String script, int maxSize, long idleMillis, long borrowTimeoutMillis)
+      throws CodecException {
+    this.provider = provider;
+    this.script = script;
+    this.source = Source.newBuilder("js", script, provider + ".js").cached(true).buildLiteral();
+    this.maxSize = Math.max(1, maxSize);
+    this.idleMillis = idleMillis;
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+    // 预创建一个 Context，同时解析出脚本实现了哪些方法
+    PooledContext first = create();
+    created.set(1);
+    this.methods = Collections.unmodifiableSet(new HashSet<>(first.functions.keySet()));
+    idle.offerFirst(first);
+  }
+
+  public String getScript() {
+    return script;
+  }
+
+  public Set<String> getMethods() {
+    return methods;
+  }
+
+  public boolean hasMethod(String method) {
+    return methods.contains(method);
+  }
+
+  /**
+   * 借用一个 Context 执行脚本函数，结果在归还前转换为字符串
+   *
+   * @return 字符串结果，null/undefined 返回空串，对象使用 JSON.stringify
+   */
+  public String execute(String method, Object payload, Object context) throws CodecException {
+    PooledContext pooled = borrow();
+    try {
+      Value function = pooled.functions.get(method);
+      if (function == null) {
+        throw new CodecException("jscript method not found: " + method);
+      }
+      Value result = function.execute(payload, context);
+      return pooled.stringify(result);
+    } finally {
+      release(pooled);
+    }
+  }
+
+  /**
+   * 借用一个 Context 执行脚本函数，结果在归还前深拷贝为 Java 对象
+   *
+   * @return JS对象转为 Map，数组转为 List，数字为 Long/Double，null/undefined 返回 null
+   */
+  public Object executeToJava(String method, Object payload, Object context)
+      throws CodecException {
+    PooledContext pooled = borrow();
+    try {
+      Value function = pooled.functions.get(method);
+      if (function == null) {
+        throw new CodecException("jscript method not found: " + method);
+      }
+      return toJava(function.execute(payload, context));
+    } finally {
+      release(pooled);
+    }
+  }
+
+  /** Value 只能在所属 Context 内访问，归还前必须转换完毕 */
+  private static Object toJava(Value value) {
+    if (value == null || value.isNull()) {
+      return null;
+    }
+    if (value.isString()) {
+      return value.asString();
+    }
+    if (value.isBoolean()) {
+      return value.asBoolean();
+    }
+    if (value.isNumber()) {
+      return value.fitsInLong() ? (Object) value.asLong() : (Object) value.asDouble();
+    }
+    if (value.isHostObject()) {
+      return value.asHostObject();
+    }
+    if (value.hasArrayElements()) {
+      List<Object> list = new ArrayList<>((int) value.getArraySize());
+      for (long i = 0; i < value.getArraySize(); i++) {
+        list.add(toJava(value.getArrayElement(i)));
+      }
+      return list;
+    }
+    if (value.hasMembers()) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (String key : value.getMemberKeys()) {
+        Value member = value.getMember(key);
+        if (member != null && !member.canExecute()) {
+          map.put(key, toJava(member));
+        }
+      }
+      return map;
+    }
+    return value.toString();
+  }
+
+  private PooledContext borrow() throws CodecException {
+    if (closed) {
+      throw new CodecException("jscript codec has been unloaded: " + provider);
+    }
+    // 后进先出，优先使用最近用过（JIT更热）的 Context
+    PooledContext pooled = idle.pollFirst();
+    if (pooled != null) {
+      return pooled;
+    }
+    if (created.incrementAndGet() <= maxSize) {
+      try {
+        return create();
+      } catch (RuntimeException | CodecException e) {
+        created.decrementAndGet();
+        throw e;
+      }
+    }
+    created.decrementAndGet();
+    try {
+      pooled = idle.pollFirst(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CodecException("jscript borrow interrupted: " + provider);
+    }
+    if (pooled == null) {
+      throw new CodecException(
+          "jscript context pool exhausted: provider=" + provider + ", maxSize=" + maxSize);
+    }
+    return pooled;
+  }
+
+  private void release(PooledContext pooled) {
+    pooled.lastUsed = System.currentTimeMillis();
+    if (closed) {
+      destroy(pooled);
+      return;
+    }
+    idle.offerFirst(pooled);
+    if (closed && idle.removeFirstOccurrence(pooled)) {
+      destroy(pooled);
+    }
+  }
+
+  private PooledContext create() throws CodecException {
+    Context context =
+        Context.newBuilder("js").engine(ENGINE).allowHostAccess(HostAccess.ALL).build();
+    try {
+      context.eval(source);
+      Value bindings = context.getBindings("js");
+      Map<String, Value> functions = new HashMap<>();
+      for (String key : bindings.getMemberKeys()) {
+        Value member = bindings.getMember(key);
+        if (member != null && member.canExecute()) {
+          functions.put(key, member);
+        }
+      }
+      Value stringify = context.eval("js", "JSON.stringify");
+      log.debug("[JSCRIPT] 创建Context: provider={}, created={}", provider, created.get());
+      return new PooledContext(context, functions, stringify);
+    } catch (RuntimeException e) {
+      context.close();
+      throw new CodecException(e.getMessage(), e);
+    }
+  }
+
+  private void destroy(PooledContext pooled) {
+    try {
+      pooled.context.close();
+    } catch (Exception e) {
+      log.warn("[JSCRIPT] 关闭Context失败: provider={}, err={}", provider, e.getMessage());
+    }
+  }
+
+  /** 回收空闲超时的 Context，至少保留一个 */
+  public int evictIdle(long now) {
+    int evicted = 0;
+    Iterator<PooledContext> it = idle.descendingIterator();
+    while (it.hasNext() && idle.size() > 1) {
+      PooledContext pooled = it.next();
+      if (now - pooled.lastUsed < idleMillis) {
+        // 越靠前越新，后面的都没超时
+        break;
+      }
+      if (idle.removeLastOccurrence(pooled)) {
+        created.decrementAndGet();
+        destroy(pooled);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  public int getIdleCount() {
+    return idle.size();
+  }
+
+  public int getCreatedCount() {
+    return created.get();
+  }
+
+  /** 卸载编解码，空闲 Context 立即关闭，使用中的在归还时关闭 */
+  @Override
+  public void close() {
+    closed = true;
+    PooledContext pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      destroy(pooled);
+    }
+  }
+
+  private static final class PooledContext {
+
+    private final Context context;
+    private final Map<String, Value> functions;
+    private final Value stringify;
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    private PooledContext(Context context, Map<String, Value> functions, Value stringify) {
+      this.context = context;
+      this.functions = functions;
+      this.stringify = stringify;
+    }
+
+    private String stringify(Value result) {
+      if (result == null || result.isNull()) {
+        return "";
+      }
+      if (result.isString()) {
+        return result.asString();
+      }
+      Value json = stringify.execute(result);
+      return json.isNull() ? "" : json.asString();
+    }
+  }
+}
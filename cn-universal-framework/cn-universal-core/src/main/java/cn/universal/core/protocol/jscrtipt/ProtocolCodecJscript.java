@@ -14,35 +14,35 @@ package cn.universal.core.protocol.jscrtipt;
 
 import cn.hutool.core.codec.Base64Decoder;
 import cn.hutool.core.exceptions.ExceptionUtil;
-import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HttpUtil;
 import cn.universal.common.exception.CodecException;
 import cn.universal.common.exception.IoTException;
+import cn.universal.core.protocol.request.ProtocolBinaryDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolEncodeRequest;
+import cn.universal.core.protocol.support.ProtocolBinaryCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecLoader;
 import cn.universal.core.protocol.support.ProtocolCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecSupportWrapper;
 import cn.universal.core.protocol.support.ProtocolCodecWrapper;
 import cn.universal.core.protocol.support.ProtocolSupportDefinition;
 import java.nio.charset.Charset;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import javax.script.Bindings;
-import javax.script.Invocable;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.SimpleScriptContext;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * jar加解密插件支持，动态加载jar包
+ * jscript编解码支持，基于 GraalJS Context 池
+ *
+ * <p>每个 provider 一个 {@link JscriptContextPool}，多线程并发编解码各自借用独立 Context。 池大小可通过协议配置 {@code poolSize}
+ * 或系统属性 {@code iot.codec.jscript.pool-size} 指定，空闲 Context 超过 {@code iot.codec.jscript.idle-millis} 后回收。
  *
  * @author gitee.com/NexIoT
  * @version 1.0
@@ -50,15 +50,29 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
-    implements ProtocolCodecLoader, ProtocolCodecSupport, ProtocolCodecWrapper {
+    implements ProtocolCodecLoader,
+        ProtocolCodecSupport,
+        ProtocolBinaryCodecSupport,
+        ProtocolCodecWrapper {
+
+  private static final int DEFAULT_POOL_SIZE =
+      Integer.getInteger(
+          "iot.codec.jscript.pool-size", Runtime.getRuntime().availableProcessors());
+  private static final long IDLE_MILLIS = Long.getLong("iot.codec.jscript.idle-millis", 300_000L);
+  private static final long BORROW_TIMEOUT_MILLIS =
+      Long.getLong("iot.codec.jscript.borrow-timeout-millis", 5_000L);
 
-  private final Map<String, Invocable> codecJscriptProvider = new ConcurrentHashMap();
+  private final Map<String, JscriptContextPool> codecJscriptProvider = new ConcurrentHashMap<>();
 
   private final Map<String, Set<String>> methodCache = new ConcurrentHashMap<>();
 
-  private final ScriptEngineManager factory = new ScriptEngineManager();
+  private final ScheduledExecutorService evictor =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("jscript-pool-evictor").daemon(true).factory());
 
-  private ProtocolCodecJscript() {}
+  private ProtocolCodecJscript() {
+    evictor.scheduleWithFixedDelay(this::evictIdle, 60, 60, TimeUnit.SECONDS);
+  }
 
   private static class ProtocolCodecJscriptProviderHoler {
 
@@ -98,26 +112,26 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
                       () -> {
                         return new IllegalArgumentException("provider");
                       });
-      // 初始化 - 使用 GraalJS 替代 Nashorn
-      ScriptEngine engine = factory.getEngineByName("graal.js");
-      if (engine == null) {
-        // 如果 GraalJS 不可用，尝试使用 JavaScript 引擎
-        engine = factory.getEngineByName("JavaScript");
-      }
-      if (engine == null) {
-        throw new CodecException(
-            "No JavaScript engine available. Please ensure GraalJS is in classpath.");
-      }
-      // 加载javascript es5的语法
-      if (location.startsWith("http://") || location.startsWith("https://")) {
-        engine.eval(HttpUtil.downloadString(location, Charset.defaultCharset()));
-      } else {
-        engine.eval(location);
+      // 加载javascript源码
+      String script =
+          location.startsWith("http://") || location.startsWith("https://")
+              ? HttpUtil.downloadString(location, Charset.defaultCharset())
+              : location;
+      JscriptContextPool existed = codecJscriptProvider.get(provider);
+      if (existed != null && existed.getScript().equals(script)) {
+        methodCache.put(definition.getId(), existed.getMethods());
+        return;
       }
+      // 脚本变更（热更新）时重建Context池，旧池空闲Context立即关闭，使用中的归还时关闭
+      JscriptContextPool pool =
+          new JscriptContextPool(
+              provider, script, poolSize(config), IDLE_MILLIS, BORROW_TIMEOUT_MILLIS);
       // 处理内部实现了哪些方法
-      evalMethodCache(definition, engine);
-      Invocable invocable = (Invocable) engine;
-      codecJscriptProvider.put(provider, invocable);
+      methodCache.put(definition.getId(), pool.getMethods());
+      JscriptContextPool old = codecJscriptProvider.put(provider, pool);
+      if (old != null) {
+        old.close();
+      }
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.error("加载jscript编解码出错={}", error);
@@ -125,35 +139,55 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
     }
   }
 
-  private void evalMethodCache(ProtocolSupportDefinition definition, ScriptEngine engine) {
-    SimpleScriptContext scriptContext = (SimpleScriptContext) engine.getContext();
-    List<Integer> scopes = scriptContext.getScopes();
-    Set<String> methods = new HashSet<>();
-    for (Integer ints : scopes) {
-      Bindings bindings = scriptContext.getBindings(ints);
-      if (MapUtil.isNotEmpty(bindings)) {
-        bindings.forEach(
-            (k, v) -> {
-              methods.add(k);
-            });
+  private int poolSize(Map<String, Object> config) {
+    Object size = config.get("poolSize");
+    if (size != null) {
+      try {
+        return Math.max(1, Integer.parseInt(String.valueOf(size).trim()));
+      } catch (NumberFormatException e) {
+        log.warn("jscript poolSize 配置无效={}", size);
       }
     }
-    methodCache.put(definition.getId(), methods);
+    return DEFAULT_POOL_SIZE;
+  }
+
+  private void evictIdle() {
+    long now = System.currentTimeMillis();
+    codecJscriptProvider.forEach(
+        (provider, pool) -> {
+          try {
+            int evicted = pool.evictIdle(now);
+            if (evicted > 0) {
+              log.debug("jscript回收空闲Context provider={} evicted={}", provider, evicted);
+            }
+          } catch (Exception e) {
+            log.warn("jscript回收空闲Context出错 provider={}", provider, e);
+          }
+        });
+  }
+
+  /** 脚本未实现该方法 */
+  private boolean notSupport(ProtocolSupportDefinition definition, CodecMethod method) {
+    Set<String> methods = methodCache.get(definition.getId());
+    return methods == null || !methods.contains(method.name());
+  }
+
+  private JscriptContextPool pool(ProtocolSupportDefinition definition) throws CodecException {
+    JscriptContextPool pool = codecJscriptProvider.get(definition.getProvider());
+    if (pool == null) {
+      load(definition);
+      pool = codecJscriptProvider.get(definition.getProvider());
+    }
+    return pool;
   }
 
   @Override
   public String decode(ProtocolDecodeRequest decodeRequest) throws CodecException {
-    if (!codecJscriptProvider.containsKey(decodeRequest.getDefinition().getProvider())) {
-      load(decodeRequest.getDefinition());
-    }
+    JscriptContextPool pool = pool(decodeRequest.getDefinition());
     // 如果编解码内部不包含decode方法，则直接返回原串
-    if (methodCache.get(decodeRequest.getDefinition().getId()) == null
-        || !methodCache
-            .get(decodeRequest.getDefinition().getId())
-            .contains(CodecMethod.decode.name())) {
+    if (notSupport(decodeRequest.getDefinition(), CodecMethod.decode)) {
       return decodeRequest.getPayload();
     }
-    Invocable invocable = codecJscriptProvider.get(decodeRequest.getDefinition().getProvider());
     try {
       Boolean needBs4Decode =
           (Boolean)
@@ -164,9 +198,7 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
       if (needBs4Decode) {
         payload = HexUtil.encodeHexStr(Base64Decoder.decode(payload));
       }
-      Object result =
-          invocable.invokeFunction(CodecMethod.decode.name(), payload, decodeRequest.getContext());
-      return str(result);
+      return pool.execute(CodecMethod.decode.name(), payload, decodeRequest.getContext());
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.info("设备 js 解码 payload = {}", decodeRequest.getPayload());
@@ -179,24 +211,45 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
     }
   }
 
+  /**
+   * 二进制解码：脚本实现了 {@code decodeBinary(payload, context)} 时 payload 以 ByteBuffer 宿主对象传入（{@code payload.get(i)}），
+   * 返回值在 Context 内转为 Map/List；否则转十六进制字符串走 decode
+   */
   @Override
-  public String encode(ProtocolEncodeRequest encodeRequest) throws CodecException {
-    if (!codecJscriptProvider.containsKey(encodeRequest.getDefinition().getProvider())) {
-      load(encodeRequest.getDefinition());
+  public Object decodeBinary(ProtocolBinaryDecodeRequest decodeRequest) throws CodecException {
+    JscriptContextPool pool = pool(decodeRequest.getDefinition());
+    try {
+      if (pool.hasMethod(DECODE_BINARY)) {
+        return pool.executeToJava(
+            DECODE_BINARY, decodeRequest.getPayload(), decodeRequest.getContext());
+      }
+      // 已是原始字节，直接转十六进制，不再走 needBs4Decode
+      String hex = ProtocolBinaryCodecSupport.toHex(decodeRequest.getPayload());
+      if (notSupport(decodeRequest.getDefinition(), CodecMethod.decode)) {
+        return hex;
+      }
+      return pool.execute(CodecMethod.decode.name(), hex, decodeRequest.getContext());
+    } catch (Exception e) {
+      String error = ExceptionUtil.getMessage(e);
+      log.error(
+          "产品型号={} 提供者={} Jscript二进制解码失败={}",
+          decodeRequest.getDefinition().getId(),
+          decodeRequest.getDefinition().getProvider(),
+          e);
+      throw new CodecException(error);
     }
+  }
+
+  @Override
+  public String encode(ProtocolEncodeRequest encodeRequest) throws CodecException {
+    JscriptContextPool pool = pool(encodeRequest.getDefinition());
     // 如果编解码内部不包含 encode 方法，则直接返回原串
-    if (methodCache.get(encodeRequest.getDefinition().getId()) == null
-        || !methodCache
-            .get(encodeRequest.getDefinition().getId())
-            .contains(CodecMethod.encode.name())) {
+    if (notSupport(encodeRequest.getDefinition(), CodecMethod.encode)) {
       return encodeRequest.getPayload();
     }
-    Invocable invocable = codecJscriptProvider.get(encodeRequest.getDefinition().getProvider());
     try {
-      Object result =
-          invocable.invokeFunction(
-              CodecMethod.encode.name(), encodeRequest.getPayload(), encodeRequest.getContext());
-      return str(result);
+      return pool.execute(
+          CodecMethod.encode.name(), encodeRequest.getPayload(), encodeRequest.getContext());
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.error(
@@ -211,7 +264,10 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
   @Override
   public void remove(String provider) {
     if (StrUtil.isNotBlank(provider)) {
-      codecJscriptProvider.remove(provider);
+      JscriptContextPool pool = codecJscriptProvider.remove(provider);
+      if (pool != null) {
+        pool.close();
+      }
     }
   }
 
@@ -220,23 +276,16 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
 
   @Override
   public String preDecode(ProtocolDecodeRequest protocolDecodeRequest) throws CodecException {
-    if (!codecJscriptProvider.containsKey(protocolDecodeRequest.getDefinition().getProvider())) {
-      load(protocolDecodeRequest.getDefinition());
-    }
+    JscriptContextPool pool = pool(protocolDecodeRequest.getDefinition());
     // 如果编解码内部不包含 preDecode 方法，则直接返回原串
-    if (methodCache.get(protocolDecodeRequest.getDefinition().getId()) == null
-        || !methodCache
-            .get(protocolDecodeRequest.getDefinition().getId())
-            .contains(CodecMethod.preDecode.name())) {
+    if (notSupport(protocolDecodeRequest.getDefinition(), CodecMethod.preDecode)) {
       return protocolDecodeRequest.getPayload();
     }
-    Invocable invocable =
-        codecJscriptProvider.get(protocolDecodeRequest.getDefinition().getProvider());
     try {
-      Object result =
-          invocable.invokeFunction(
-              CodecMethod.preDecode.name(), protocolDecodeRequest.getPayload(),protocolDecodeRequest.getContext());
-      return str(result);
+      return pool.execute(
+          CodecMethod.preDecode.name(),
+          protocolDecodeRequest.getPayload(),
+          protocolDecodeRequest.getContext());
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.error(
@@ -265,22 +314,14 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
 
   @Override
   public String iotToYour(ProtocolEncodeRequest encodeRequest) throws CodecException {
-    if (!codecJscriptProvider.containsKey(encodeRequest.getDefinition().getProvider())) {
-      load(encodeRequest.getDefinition());
-    }
+    JscriptContextPool pool = pool(encodeRequest.getDefinition());
     // 如果编解码内部不包含 iotToYour 方法，则使用encode方法
-    if (methodCache.get(encodeRequest.getDefinition().getId()) == null
-        || !methodCache
-            .get(encodeRequest.getDefinition().getId())
-            .contains(CodecMethod.iotToYour.name())) {
+    if (notSupport(encodeRequest.getDefinition(), CodecMethod.iotToYour)) {
       return encode(encodeRequest);
     }
-    Invocable invocable = codecJscriptProvider.get(encodeRequest.getDefinition().getProvider());
     try {
-      Object result =
-          invocable.invokeFunction(
-              CodecMethod.iotToYour.name(), encodeRequest.getPayload(), encodeRequest.getContext());
-      return str(result);
+      return pool.execute(
+          CodecMethod.iotToYour.name(), encodeRequest.getPayload(), encodeRequest.getContext());
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.error(
@@ -294,22 +335,14 @@ public class ProtocolCodecJscript extends ProtocolCodecSupportWrapper
 
   @Override
   public String yourToIot(ProtocolDecodeRequest decodeRequest) throws CodecException {
-    if (!codecJscriptProvider.containsKey(decodeRequest.getDefinition().getProvider())) {
-      load(decodeRequest.getDefinition());
-    }
+    JscriptContextPool pool = pool(decodeRequest.getDefinition());
     // 如果编解码内部不包含 yourToIot 方法，则使用decode方法
-    if (methodCache.get(decodeRequest.getDefinition().getId()) == null
-        || !methodCache
-            .get(decodeRequest.getDefinition().getId())
-            .contains(CodecMethod.yourToIot.name())) {
+    if (notSupport(decodeRequest.getDefinition(), CodecMethod.yourToIot)) {
       return decode(decodeRequest);
     }
-    Invocable invocable = codecJscriptProvider.get(decodeRequest.getDefinition().getProvider());
     try {
-      Object result =
-          invocable.invokeFunction(
-              CodecMethod.yourToIot.name(), decodeRequest.getPayload(), decodeRequest.getContext());
-      return str(result);
+      return pool.execute(
+          CodecMethod.yourToIot.name(), decodeRequest.getPayload(), decodeRequest.getContext());
     } catch (Exception e) {
       String error = ExceptionUtil.getMessage(e);
       log.error(
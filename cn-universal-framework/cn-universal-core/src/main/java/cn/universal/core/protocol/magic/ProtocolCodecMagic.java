@@ -19,14 +19,17 @@ import cn.universal.common.exception.IoTException;
 import cn.universal.core.engine.MagicScript;
 import cn.universal.core.engine.MagicScriptContext;
 import cn.universal.core.engine.runtime.MagicScriptRuntime;
+import cn.universal.core.protocol.request.ProtocolBinaryDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolEncodeRequest;
+import cn.universal.core.protocol.support.ProtocolBinaryCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecLoader;
 import cn.universal.core.protocol.support.ProtocolCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecSupportWrapper;
 import cn.universal.core.protocol.support.ProtocolCodecWrapper;
 import cn.universal.core.protocol.support.ProtocolSupportDefinition;
 import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -47,7 +50,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 
 public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
-    implements ProtocolCodecLoader, ProtocolCodecSupport, ProtocolCodecWrapper {
+    implements ProtocolCodecLoader,
+        ProtocolCodecSupport,
+        ProtocolBinaryCodecSupport,
+        ProtocolCodecWrapper {
+
+  /** 脚本入参，按下标绑定 */
+  private static final String[] BINDINGS = {"payload", "context"};
+
+  private static final int SLOT_PAYLOAD = 0;
+  private static final int SLOT_CONTEXT = 1;
+
+  /** 线程独占的可复用上下文，使用期间置空 */
+  private static final ThreadLocal<MagicScriptContext> LOCAL_CONTEXT = new ThreadLocal<>();
 
   /** 编码 */
   private final Map<String, MagicScript> magicEncoderProvider = new ConcurrentHashMap<>();
@@ -58,6 +73,10 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
   /** 解码前置解析 */
   private final Map<String, MagicScript> magicPreDecoderProvider = new ConcurrentHashMap<>();
 
+  /** 二进制解码，脚本未实现 decodeBinary 时为空 */
+  private final Map<String, Optional<MagicScript>> magicBinaryDecoderProvider =
+      new ConcurrentHashMap<>();
+
   /** 协议方法缓存 */
   private final Map<String, Set<String>> methodCache = new ConcurrentHashMap<>();
 
@@ -82,7 +101,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
     return;
   }
 
-  private void load(ProtocolSupportDefinition definition, CodecMethod codecMethod)
+  private MagicScript load(ProtocolSupportDefinition definition, CodecMethod codecMethod)
       throws CodecException {
     try {
       Map<String, Object> config = definition.getConfiguration();
@@ -132,6 +151,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
       } else {
         magicEncoderProvider.put(provider, script);
       }
+      return script;
     } catch (Exception e) {
       String error = ExceptionUtil.getRootCauseMessage(e);
       log.error("加载magic编解码出错={}", e);
@@ -139,6 +159,37 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
     }
   }
 
+  /**
+   * 获取已安装脚本，未安装时加载。不加锁：并发首次加载同一脚本时由编译缓存去重，解析和字节码生成都只做一次
+   */
+  private MagicScript script(
+      Map<String, MagicScript> provider, ProtocolSupportDefinition definition, CodecMethod method)
+      throws CodecException {
+    MagicScript script = provider.get(definition.getProvider());
+    if (script == null) {
+      log.info("magic {} not exist,key={}, start reload ", method, definition.getProvider());
+      script = load(definition, method);
+    }
+    return script;
+  }
+
+  /** 在线程独占的上下文中执行，执行后重置复用；脚本内嵌套调用编解码时使用新上下文 */
+  private static Object execute(MagicScript script, Object payload, Object context) {
+    MagicScriptContext scriptContext = LOCAL_CONTEXT.get();
+    if (scriptContext == null) {
+      scriptContext = MagicScriptContext.withSlots(BINDINGS);
+    } else {
+      LOCAL_CONTEXT.set(null);
+    }
+    try {
+      scriptContext.setSlot(SLOT_PAYLOAD, payload).setSlot(SLOT_CONTEXT, context);
+      return script.execute(scriptContext);
+    } finally {
+      scriptContext.reset();
+      LOCAL_CONTEXT.set(scriptContext);
+    }
+  }
+
   private void evalMethodCache(String provider, MagicScriptRuntime compile) {
     String[] varNames = compile.getVarNames();
     if (varNames != null && varNames.length > 0) {
@@ -158,15 +209,8 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
   @Override
   public String decode(ProtocolDecodeRequest decodeRequest) throws CodecException {
     try {
-      if (!magicDecoderProvider.containsKey(decodeRequest.getDefinition().getProvider())) {
-        // 增加同步锁，防止异常
-        synchronized (magicDecoderProvider) {
-          log.info(
-              "magic decoder not exist,key={}, start reload ",
-              decodeRequest.getDefinition().getProvider());
-          load(decodeRequest.getDefinition(), CodecMethod.decode);
-        }
-      }
+      MagicScript magicScript =
+          script(magicDecoderProvider, decodeRequest.getDefinition(), CodecMethod.decode);
       // 如果编解码内部不包含decode方法，则直接返回原串
       if (methodCache.get(decodeRequest.getDefinition().getId()) == null
           || !methodCache
@@ -174,12 +218,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
               .contains(ProtocolCodecSupport.CodecMethod.decode.name())) {
         return decodeRequest.getPayload();
       }
-      MagicScript magicScript =
-          magicDecoderProvider.get(decodeRequest.getDefinition().getProvider());
-      MagicScriptContext context = new MagicScriptContext();
-      context.set("payload", decodeRequest.getPayload());
-      context.set("context", decodeRequest.getContext());
-      Object result = magicScript.execute(context);
+      Object result = execute(magicScript, decodeRequest.getPayload(), decodeRequest.getContext());
       return str(result);
     } catch (Exception e) {
       String error = ExceptionUtil.getRootCauseMessage(e);
@@ -192,17 +231,64 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
     }
   }
 
+  /**
+   * 二进制解码：脚本实现了 {@code decodeBinary(payload, context)} 时 payload 直接绑定为 ByteBuffer 切片，返回值不做JSON序列化；
+   * 否则转十六进制字符串走 decode
+   */
   @Override
-  public String encode(ProtocolEncodeRequest encodeRequest) throws CodecException {
+  public Object decodeBinary(ProtocolBinaryDecodeRequest decodeRequest) throws CodecException {
+    String provider = decodeRequest.getDefinition().getProvider();
+    Optional<MagicScript> binaryScript = magicBinaryDecoderProvider.get(provider);
+    if (binaryScript == null) {
+      binaryScript = loadBinary(decodeRequest.getDefinition());
+      magicBinaryDecoderProvider.put(provider, binaryScript);
+    }
+    if (binaryScript.isEmpty()) {
+      return decode(ProtocolBinaryCodecSupport.toDecodeRequest(decodeRequest));
+    }
     try {
-      if (!magicEncoderProvider.containsKey(encodeRequest.getDefinition().getProvider())) {
-        log.info(
-            "magic encode not exist,key={}, start reload ",
-            encodeRequest.getDefinition().getProvider());
-        synchronized (magicEncoderProvider) {
-          load(encodeRequest.getDefinition(), CodecMethod.encode);
-        }
+      return execute(binaryScript.get(), decodeRequest.getPayload(), decodeRequest.getContext());
+    } catch (Exception e) {
+      String error = ExceptionUtil.getRootCauseMessage(e);
+      log.error(
+          "产品型号={} 提供者={} magic二进制解码失败",
+          decodeRequest.getDefinition().getId(),
+          provider,
+          e);
+      throw new CodecException(error);
+    }
+  }
+
+  private Optional<MagicScript> loadBinary(ProtocolSupportDefinition definition)
+      throws CodecException {
+    try {
+      String location =
+          Optional.ofNullable(definition.getConfiguration().get("location"))
+              .map(String::valueOf)
+              .orElseThrow(
+                  () ->
+                      new IoTException(
+                          "magic engine source code not exist, can not do encode or decode "));
+      MagicScript script =
+          MagicScript.create(location + "  \n return decodeBinary(payload,context);", null);
+      // 与 load 相同，通过编译后的变量名判断脚本是否实现了 decodeBinary
+      String[] varNames = script.compile().getVarNames();
+      if (varNames == null || !Arrays.asList(varNames).contains(DECODE_BINARY)) {
+        return Optional.empty();
       }
+      return Optional.of(script);
+    } catch (Exception e) {
+      String error = ExceptionUtil.getRootCauseMessage(e);
+      log.error("加载magic二进制解码出错={}", e);
+      throw new CodecException(error);
+    }
+  }
+
+  @Override
+  public String encode(ProtocolEncodeRequest encodeRequest) throws CodecException {
+    try {
+      MagicScript magicScript =
+          script(magicEncoderProvider, encodeRequest.getDefinition(), CodecMethod.encode);
       // 如果编解码内部不包含 encode 方法，则直接返回原串
       if (methodCache.get(encodeRequest.getDefinition().getId()) == null
           || !methodCache
@@ -210,12 +296,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
               .contains(ProtocolCodecSupport.CodecMethod.encode.name())) {
         return encodeRequest.getPayload();
       }
-      MagicScript magicScript =
-          magicEncoderProvider.get(encodeRequest.getDefinition().getProvider());
-      MagicScriptContext context = new MagicScriptContext();
-      context.set("payload", encodeRequest.getPayload());
-      context.set("context", encodeRequest.getContext());
-      Object execute = magicScript.execute(context);
+      Object execute = execute(magicScript, encodeRequest.getPayload(), encodeRequest.getContext());
       return str(execute);
     } catch (Exception e) {
       String error = ExceptionUtil.getRootCauseMessage(e);
@@ -235,6 +316,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
       MagicScript encodeV = magicEncoderProvider.remove(provider);
       MagicScript decodeV = magicDecoderProvider.remove(provider);
       MagicScript preDecodeV = magicPreDecoderProvider.remove(provider);
+      magicBinaryDecoderProvider.remove(provider);
       Set<String> methodV = methodCache.remove(provider);
       log.info(
           "remove encodeV={},decodeV={},preDecodeV={},methodV={}",
@@ -251,15 +333,11 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
   @Override
   public String preDecode(ProtocolDecodeRequest protocolDecodeRequest) throws CodecException {
     try {
-      if (!magicPreDecoderProvider.containsKey(
-          protocolDecodeRequest.getDefinition().getProvider())) {
-        log.info(
-            "magic preDecode not exist,key={}, start reload ",
-            protocolDecodeRequest.getDefinition().getProvider());
-        synchronized (magicPreDecoderProvider) {
-          load(protocolDecodeRequest.getDefinition(), CodecMethod.preDecode);
-        }
-      }
+      MagicScript magicScript =
+          script(
+              magicPreDecoderProvider,
+              protocolDecodeRequest.getDefinition(),
+              CodecMethod.preDecode);
       // 如果编解码内部不包含 preDecode 方法，则直接返回原串
       if (methodCache.get(protocolDecodeRequest.getDefinition().getId()) == null
           || !methodCache
@@ -267,12 +345,11 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
               .contains(ProtocolCodecSupport.CodecMethod.preDecode.name())) {
         return protocolDecodeRequest.getPayload();
       }
-      MagicScript magicScript =
-          magicPreDecoderProvider.get(protocolDecodeRequest.getDefinition().getProvider());
-      MagicScriptContext context = new MagicScriptContext();
-      context.set("payload", protocolDecodeRequest.getPayload());
-      context.set("context", protocolDecodeRequest.getContext());
-      Object result = magicScript.execute(context);
+      Object result =
+          execute(
+              magicScript,
+              protocolDecodeRequest.getPayload(),
+              protocolDecodeRequest.getContext());
       return str(result);
     } catch (Exception e) {
       String error = ExceptionUtil.getRootCauseMessage(e);
@@ -302,12 +379,8 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
   @Override
   public String iotToYour(ProtocolEncodeRequest encodeRequest) throws CodecException {
     try {
-      if (!magicEncoderProvider.containsKey(encodeRequest.getDefinition().getProvider())) {
-        synchronized (magicEncoderProvider) {
-          log.info("magic encoder not exist,key={}", encodeRequest.getDefinition().getProvider());
-          load(encodeRequest.getDefinition(), CodecMethod.iotToYour);
-        }
-      }
+      MagicScript magicScript =
+          script(magicEncoderProvider, encodeRequest.getDefinition(), CodecMethod.iotToYour);
       // 如果编解码内部不包含 iotToYour 方法，则使用encode方法
       if (methodCache.get(encodeRequest.getDefinition().getId()) == null
           || !methodCache
@@ -315,12 +388,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
               .contains(CodecMethod.iotToYour.name())) {
         return encode(encodeRequest);
       }
-      MagicScript magicScript =
-          magicEncoderProvider.get(encodeRequest.getDefinition().getProvider());
-      MagicScriptContext context = new MagicScriptContext();
-      context.set("payload", encodeRequest.getPayload());
-      context.set("context", encodeRequest.getContext());
-      Object execute = magicScript.execute(context);
+      Object execute = execute(magicScript, encodeRequest.getPayload(), encodeRequest.getContext());
       log.debug("execute={}", execute.getClass());
       return str(execute);
     } catch (Exception e) {
@@ -337,12 +405,8 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
   @Override
   public String yourToIot(ProtocolDecodeRequest decodeRequest) throws CodecException {
     try {
-      if (!magicDecoderProvider.containsKey(decodeRequest.getDefinition().getProvider())) {
-        log.info("magic decoder not exist,key={}", decodeRequest.getDefinition().getProvider());
-        synchronized (magicDecoderProvider) {
-          load(decodeRequest.getDefinition(), CodecMethod.yourToIot);
-        }
-      }
+      MagicScript magicScript =
+          script(magicDecoderProvider, decodeRequest.getDefinition(), CodecMethod.yourToIot);
       // 如果编解码内部不包含 yourToIot 方法，则使用decode方法
       if (methodCache.get(decodeRequest.getDefinition().getId()) == null
           || !methodCache
@@ -350,12 +414,7 @@ public class ProtocolCodecMagic extends ProtocolCodecSupportWrapper
               .contains(CodecMethod.yourToIot.name())) {
         return decode(decodeRequest);
       }
-      MagicScript magicScript =
-          magicDecoderProvider.get(decodeRequest.getDefinition().getProvider());
-      MagicScriptContext context = new MagicScriptContext();
-      context.set("payload", decodeRequest.getPayload());
-      context.set("context", decodeRequest.getContext());
-      Object result = magicScript.execute(context);
+      Object result = execute(magicScript, decodeRequest.getPayload(), decodeRequest.getContext());
       return str(result);
     } catch (Exception e) {
       String error = ExceptionUtil.getRootCauseMessage(e);
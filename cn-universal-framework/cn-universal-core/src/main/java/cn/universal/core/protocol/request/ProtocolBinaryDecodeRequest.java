@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+
+package cn.universal.core.protocol.request;
+
+import cn.universal.core.protocol.support.ProtocolSupportDefinition;
+import java.nio.ByteBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 二进制解码请求
+ *
+ * <p>payload 为原始报文的切片视图（position=0, limit=长度），不做拷贝也不转十六进制字符串。编解码实现读取时应使用绝对下标或
+ * {@link ByteBuffer#duplicate()}，不要改变其 position。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/9/18
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProtocolBinaryDecodeRequest {
+
+  private ProtocolSupportDefinition definition;
+  // 原始报文切片
+  private ByteBuffer payload;
+  // 上下文
+  private Object context;
+
+  public static ProtocolBinaryDecodeRequest of(
+      ProtocolSupportDefinition definition, byte[] data, int offset, int length, Object context) {
+    return new ProtocolBinaryDecodeRequest(
+        definition, ByteBuffer.wrap(data, offset, length).slice(), context);
+  }
+
+  public static ProtocolBinaryDecodeRequest of(
+      ProtocolSupportDefinition definition, byte[] data, Object context) {
+    return of(definition, data, 0, data.length, context);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+
+package cn.universal.core.protocol.support;
+
+import cn.hutool.core.util.HexUtil;
+import cn.universal.common.exception.CodecException;
+import cn.universal.core.protocol.request.ProtocolBinaryDecodeRequest;
+import cn.universal.core.protocol.request.ProtocolDecodeRequest;
+import java.nio.ByteBuffer;
+
+/**
+ * 二进制编解码接口
+ *
+ * <p>直接基于 {@link ByteBuffer} 切片解码，返回结构化结果，省去 字节->十六进制字符串->脚本->JSON字符串->对象 的多次转换。
+ * 未实现该接口的编解码通过 {@link #adapt(ProtocolCodecSupport)} 转成十六进制字符串后走原有字符串解码。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/9/18
+ */
+public interface ProtocolBinaryCodecSupport {
+
+  /** 二进制解码方法名，编解码脚本/jar 中实现同名方法即走原生二进制解码 */
+  String DECODE_BINARY = "decodeBinary";
+
+  /**
+   * 二进制解码
+   *
+   * @param decodeRequest 二进制消息
+   * @return 结构化结果：Map（单条）、List（多条）、UPRequest 等对象，或与 decode 一致的JSON字符串
+   */
+  Object decodeBinary(ProtocolBinaryDecodeRequest decodeRequest) throws CodecException;
+
+  /** 字符串编解码适配为二进制编解码：报文转十六进制字符串后调用 decode */
+  static ProtocolBinaryCodecSupport adapt(ProtocolCodecSupport codecSupport) {
+    if (codecSupport instanceof ProtocolBinaryCodecSupport binary) {
+      return binary;
+    }
+    return request -> codecSupport.decode(toDecodeRequest(request));
+  }
+
+  /** 转为十六进制字符串解码请求，不改变原 buffer 的 position */
+  static ProtocolDecodeRequest toDecodeRequest(ProtocolBinaryDecodeRequest request) {
+    return new ProtocolDecodeRequest(
+        request.getDefinition(), toHex(request.getPayload()), request.getContext());
+  }
+
+  static String toHex(ByteBuffer buffer) {
+    if (buffer == null) {
+      return null;
+    }
+    if (buffer.hasArray()) {
+      int offset = buffer.arrayOffset() + buffer.position();
+      char[] out = new char[buffer.remaining() << 1];
+      byte[] array = buffer.array();
+      for (int i = 0, j = 0; i < buffer.remaining(); i++) {
+        int v = array[offset + i] & 0xFF;
+        out[j++] = Character.forDigit(v >>> 4, 16);
+        out[j++] = Character.forDigit(v & 0x0F, 16);
+      }
+      return new String(out);
+    }
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return HexUtil.encodeHexStr(bytes);
+  }
+}
@@ -22,12 +22,16 @@ import cn.universal.core.message.UPRequest;
 import cn.universal.core.protocol.jar.ProtocolCodecJar;
 import cn.universal.core.protocol.jscrtipt.ProtocolCodecJscript;
 import cn.universal.core.protocol.magic.ProtocolCodecMagic;
+import cn.universal.core.protocol.request.ProtocolBinaryDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolDecodeRequest;
 import cn.universal.core.protocol.request.ProtocolEncodeRequest;
+import cn.universal.core.protocol.support.ProtocolBinaryCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecSupport;
 import cn.universal.core.protocol.support.ProtocolCodecSupport.CodecMethod;
 import cn.universal.core.protocol.support.ProtocolSupportDefinition;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,15 +88,7 @@ public abstract class AbstractCodecService implements ICodecService {
       try {
         String result =
             protocolCodecSupport.decode(new ProtocolDecodeRequest(protocolDef, payload, context));
-        if (StrUtil.isNotBlank(result)) {
-          if (JSONUtil.isTypeJSONObject(result)) {
-            rs = Stream.of(JSONUtil.toBean(result, elementType)).collect(Collectors.toList());
-          } else if (JSONUtil.isTypeJSONArray(result)) {
-            rs = JSONUtil.toList(result, elementType);
-          } else {
-            rs = emptyProtocol(result, elementType);
-          }
-        }
+        rs = parseDecodeResult(result, elementType);
         log.debug("产品ProductKey={} 原始报文={} 解码报文={}", productKey, payload, result);
       } catch (Exception e) {
         log.error("产品编号={} 原始报文={} 解码报错", productKey, payload, e);
@@ -107,6 +103,89 @@ public abstract class AbstractCodecService implements ICodecService {
     return rs;
   }
 
+  /** 二进制解码 - 带上下文 */
+  @Override
+  public <R> List<R> decodeBinary(
+      String productKey, ByteBuffer payload, Object context, Class<R> elementType) {
+    ProtocolSupportDefinition protocolDef =
+        getProtocolDefinitionWithScriptIfNeeded(productKey, CodecMethod.decode);
+    List<R> rs = null;
+    long t1 = System.currentTimeMillis();
+
+    if (protocolDef != null && protocolDef.supportMethod(CodecMethod.decode)) {
+      // 未实现二进制解码的编解码自动适配为十六进制字符串解码
+      ProtocolBinaryCodecSupport binaryCodecSupport =
+          ProtocolBinaryCodecSupport.adapt(getProtocolCodecProvider(protocolDef.getType()));
+      try {
+        Object result =
+            binaryCodecSupport.decodeBinary(
+                new ProtocolBinaryDecodeRequest(protocolDef, payload, context));
+        rs = toDecodeResult(result, elementType);
+      } catch (Exception e) {
+        log.error("产品编号={} 二进制报文={}字节 解码报错", productKey, payload.remaining(), e);
+      }
+    } else {
+      rs = emptyProtocol(ProtocolBinaryCodecSupport.toHex(payload), elementType);
+    }
+
+    long t2 = System.currentTimeMillis();
+    log.info(
+        "产品编号={} 二进制报文={}字节 解码条数={} 耗时={}ms",
+        productKey,
+        payload.remaining(),
+        rs == null ? 0 : rs.size(),
+        (t2 - t1));
+    return rs;
+  }
+
+  /** 二进制解码为UPRequest列表 */
+  @Override
+  public List<UPRequest> decodeBinary(String productKey, byte[] payload, Object context) {
+    return decodeBinary(productKey, ByteBuffer.wrap(payload), context, UPRequest.class);
+  }
+
+  /** 字符串解码结果转换 */
+  protected <R> List<R> parseDecodeResult(String result, Class<R> elementType) {
+    if (StrUtil.isBlank(result)) {
+      return null;
+    }
+    if (JSONUtil.isTypeJSONObject(result)) {
+      return Stream.of(JSONUtil.toBean(result, elementType)).collect(Collectors.toList());
+    } else if (JSONUtil.isTypeJSONArray(result)) {
+      return JSONUtil.toList(result, elementType);
+    } else {
+      return emptyProtocol(result, elementType);
+    }
+  }
+
+  /** 结构化解码结果转换：Map/List/目标类型直接转换，字符串按原有规则解析 */
+  protected <R> List<R> toDecodeResult(Object result, Class<R> elementType) {
+    if (result == null) {
+      return null;
+    }
+    if (result instanceof CharSequence) {
+      return parseDecodeResult(result.toString(), elementType);
+    }
+    List<R> list = new ArrayList<>();
+    if (result instanceof Collection<?> collection) {
+      for (Object element : collection) {
+        if (element != null) {
+          list.add(toElement(element, elementType));
+        }
+      }
+    } else {
+      list.add(toElement(result, elementType));
+    }
+    return list;
+  }
+
+  private <R> R toElement(Object element, Class<R> elementType) {
+    if (elementType.isInstance(element)) {
+      return elementType.cast(element);
+    }
+    return JSONUtil.toBean(JSONUtil.parseObj(element), elementType);
+  }
+
   /** 解码 - 简化版本 */
   @Override
   public <R> List<R> decode(String productKey, String payload, Class<R> elementType) {
@@ -14,6 +14,7 @@ package cn.universal.core.service;
 
 import cn.universal.core.message.UPRequest;
 import cn.universal.core.protocol.support.ProtocolCodecSupport.CodecMethod;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -39,6 +40,31 @@ public interface ICodecService {
    */
   <R> List<R> decode(String productKey, String payload, Object context, Class<R> elementType);
 
+  /**
+   * 二进制解码 - 直接传入原始报文切片，编解码返回的结构化结果不再经过JSON字符串转换
+   *
+   * <p>编解码未实现 decodeBinary 时，报文转为十六进制字符串后按 decode 处理
+   *
+   * @param productKey 产品Key
+   * @param payload 原始报文切片
+   * @param context 上下文对象
+   * @param elementType 目标类型
+   * @param <R> 泛型类型
+   * @return 解码后的对象列表
+   */
+  <R> List<R> decodeBinary(
+      String productKey, ByteBuffer payload, Object context, Class<R> elementType);
+
+  /**
+   * 二进制解码为UPRequest列表
+   *
+   * @param productKey 产品Key
+   * @param payload 原始报文
+   * @param context 上下文对象
+   * @return UPRequest列表
+   */
+  List<UPRequest> decodeBinary(String productKey, byte[] payload, Object context);
+
   /**
    * 解码 - 简化版本
    *
@@ -0,0 +1,97 @@
+package cn.universal.core.protocol.jscrtipt;
+
+import cn.universal.common.exception.CodecException;
+import cn.universal.core.protocol.request.ProtocolDecodeRequest;
+import cn.universal.core.protocol.support.ProtocolSupportDefinition;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * jscript解码吞吐基准，分别在1/4/16线程下测量
+ *
+ * <p>运行：在IDE中直接执行 main，或 {@code java -cp <test-classpath> ...ProtocolCodecJscriptBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Diot.codec.jscript.pool-size=16")
+@State(Scope.Benchmark)
+public class ProtocolCodecJscriptBenchmark {
+
+  /** 示例编解码：16进制报文解析温湿度和电量 */
+  private static final String SAMPLE_CODEC =
+      "function decode(payload, context) {\n"
+          + "  var temperature = parseInt(payload.substring(0, 4), 16) / 10;\n"
+          + "  var humidity = parseInt(payload.substring(4, 8), 16) / 10;\n"
+          + "  var battery = parseInt(payload.substring(8, 10), 16);\n"
+          + "  return {messageType: 'PROPERTIES',"
+          + " properties: {temperature: temperature, humidity: humidity, battery: battery}};\n"
+          + "}\n";
+
+  private static final String PROVIDER = "jmh-jscript-sample";
+
+  private ProtocolCodecJscript codec;
+  private ProtocolDecodeRequest request;
+
+  @Setup
+  public void setup() throws CodecException {
+    Map<String, Object> config = new HashMap<>();
+    config.put("location", SAMPLE_CODEC);
+    config.put("provider", PROVIDER);
+    ProtocolSupportDefinition definition = new ProtocolSupportDefinition();
+    definition.setId(PROVIDER);
+    definition.setProvider(PROVIDER);
+    definition.setType("jscript");
+    definition.setConfiguration(config);
+    codec = ProtocolCodecJscript.getInstance();
+    codec.load(definition);
+    request = new ProtocolDecodeRequest(definition, "011802585a");
+  }
+
+  @TearDown
+  public void tearDown() {
+    codec.remove(PROVIDER);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String decode1Thread() throws CodecException {
+    return codec.decode(request);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String decode4Threads() throws CodecException {
+    return codec.decode(request);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public String decode16Threads() throws CodecException {
+    return codec.decode(request);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(ProtocolCodecJscriptBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,124 @@
+package cn.universal.core.protocol.magic;
+
+import cn.universal.common.exception.CodecException;
+import cn.universal.core.engine.MagicScript;
+import cn.universal.core.engine.MagicScriptContext;
+import cn.universal.core.protocol.request.ProtocolDecodeRequest;
+import cn.universal.core.protocol.support.ProtocolSupportDefinition;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * magic属性解码基准，输出 ns/op 与 bytes/op（gc.alloc.rate.norm）
+ *
+ * <p>freshContext 为原调用方式：每次新建 MagicScriptContext 并写入 Map；decode 为复用线程独占上下文、按下标绑定变量。
+ *
+ * <p>运行：在IDE中直接执行 main（已启用 GC profiler）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtocolCodecMagicBenchmark {
+
+  /** 示例编解码：16进制报文解析温湿度和电量 */
+  private static final String SAMPLE_CODEC =
+      "var decode = (payload, context) => {\n"
+          + "  var properties = {};\n"
+          + "  properties.temperature = Integer.parseInt(payload.substring(0, 4), 16) / 10;\n"
+          + "  properties.humidity = Integer.parseInt(payload.substring(4, 8), 16) / 10;\n"
+          + "  properties.battery = Integer.parseInt(payload.substring(8, 10), 16);\n"
+          + "  return {messageType: 'PROPERTIES', properties: properties};\n"
+          + "}\n";
+
+  private static final String PROVIDER = "jmh-magic-sample";
+
+  private static final String PAYLOAD = "011802585a";
+
+  private ProtocolCodecMagic codec;
+  private ProtocolDecodeRequest request;
+  private MagicScript script;
+
+  @Setup
+  public void setup() throws CodecException {
+    Map<String, Object> config = new HashMap<>();
+    config.put("location", SAMPLE_CODEC);
+    config.put("provider", PROVIDER);
+    ProtocolSupportDefinition definition = new ProtocolSupportDefinition();
+    definition.setId(PROVIDER);
+    definition.setProvider(PROVIDER);
+    definition.setType("magic");
+    definition.setConfiguration(config);
+    codec = ProtocolCodecMagic.getInstance();
+    request = new ProtocolDecodeRequest(definition, PAYLOAD);
+    codec.decode(request);
+    script = MagicScript.create(SAMPLE_CODEC + "  \n return decode(payload,context);", null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    codec.remove(PROVIDER);
+  }
+
+  @Benchmark
+  public String decode() throws CodecException {
+    return codec.decode(request);
+  }
+
+  @Benchmark
+  public Object freshContext() {
+    MagicScriptContext context = new MagicScriptContext();
+    context.set("payload", PAYLOAD);
+    context.set("context", null);
+    return script.execute(context);
+  }
+
+  @Benchmark
+  public Object reusedContext() {
+    return ReusedContextHolder.execute(script, PAYLOAD);
+  }
+
+  private static final class ReusedContextHolder {
+
+    private static final ThreadLocal<MagicScriptContext> CONTEXT =
+        ThreadLocal.withInitial(() -> MagicScriptContext.withSlots("payload", "context"));
+
+    private static Object execute(MagicScript script, String payload) {
+      MagicScriptContext context = CONTEXT.get();
+      try {
+        context.setSlot(0, payload);
+        return script.execute(context);
+      } finally {
+        context.reset();
+      }
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .include(ProtocolCodecMagicBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
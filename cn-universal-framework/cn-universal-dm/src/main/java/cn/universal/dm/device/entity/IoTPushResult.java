@@ -1,8 +1,12 @@
 package cn.universal.dm.device.entity;
 
 import java.time.LocalDateTime;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * 消息推送结果
@@ -30,9 +34,15 @@ public class IoTPushResult {
   /** 推送渠道 (HTTP, MQTT, Kafka, RocketMQ等) */
   private String channel;
 
-  /** 推送消息内容 */
+  /** 推送消息内容，未设置时取自消息信封 */
   private String messageContent;
 
+  /** 消息信封，同一条消息的各渠道结果共享，不参与序列化 */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient PushEnvelope envelope;
+
   /** 推送时间 */
   private LocalDateTime pushTime;
 
@@ -79,6 +89,43 @@ public class IoTPushResult {
     }
   }
 
+  /** 推送消息内容，仅在重试、失败记录等需要时才从信封解码 */
+  public String getMessageContent() {
+    if (messageContent == null && envelope != null) {
+      return envelope.json();
+    }
+    return messageContent;
+  }
+
+  /** 创建成功结果，只引用消息信封 */
+  public static IoTPushResult success(
+      String platform,
+      String productKey,
+      String deviceId,
+      String channel,
+      PushEnvelope envelope,
+      Long responseTime) {
+    IoTPushResult result =
+        success(platform, productKey, deviceId, channel, (String) null, responseTime);
+    result.envelope = envelope;
+    return result;
+  }
+
+  /** 创建失败结果，只引用消息信封 */
+  public static IoTPushResult failed(
+      String platform,
+      String productKey,
+      String deviceId,
+      String channel,
+      PushEnvelope envelope,
+      String errorMessage,
+      String errorCode) {
+    IoTPushResult result =
+        failed(platform, productKey, deviceId, channel, (String) null, errorMessage, errorCode);
+    result.envelope = envelope;
+    return result;
+  }
+
   /** 创建成功结果 */
   public static IoTPushResult success(
       String platform,
@@ -133,7 +180,8 @@ public class IoTPushResult {
         .productKey(original.getProductKey())
         .deviceId(original.getDeviceId())
         .channel(original.getChannel())
-        .messageContent(original.getMessageContent())
+        .messageContent(original.messageContent)
+        .envelope(original.envelope)
         .pushTime(LocalDateTime.now())
         .errorMessage(errorMessage)
         .errorCode(original.getErrorCode())
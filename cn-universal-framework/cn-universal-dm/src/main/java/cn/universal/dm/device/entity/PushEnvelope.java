@@ -0,0 +1,394 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.dm.device.entity;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.PropDesc;
+import cn.hutool.json.JSONConfig;
+import cn.hutool.json.JSONException;
+import cn.hutool.json.JSONUtil;
+import cn.hutool.json.serialize.GlobalSerializeMapping;
+import cn.hutool.json.serialize.JSONWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 推送消息信封
+ *
+ * <p>每条上行消息只序列化一次：Bean 和其中的 Map 按 Hutool 的属性描述直接流式写出，不构建 JSONObject 树，
+ * 标量值仍由 Hutool 的 {@link JSONWriter} 格式化，其他类型的值交给 {@link JSONUtil#wrap} 转换，
+ * 输出与 {@code JSONUtil.toJsonStr(message)} 一致。JSON 编码为 UTF-8 写入池化缓冲区后复制为字节数组，
+ * 各推送渠道通过 {@link #sharedBytes()} 共享同一数组、只读不复制，其他调用方通过 {@link #bytes()} 取副本；
+ * 字符串形式在首次需要时（重试、失败记录）才解码并缓存。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/12/8
+ */
+public final class PushEnvelope {
+
+  /** 池中缓冲区个数 */
+  private static final int POOL_SIZE = 64;
+
+  /** 缓冲区初始容量 */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /** 超过该容量的缓冲区用完即丢弃，避免大消息长期占用内存 */
+  private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+  /** 与 {@code JSONUtil.toJsonStr(Object)} 相同的默认配置 */
+  private static final JSONConfig CONFIG = JSONConfig.create();
+
+  /** 类 -> 可读属性，按 Hutool 属性描述顺序；非 Bean 为空。属性是否可读只与类有关，避免每条消息重复查找注解 */
+  private static final ClassValue<Optional<List<BeanProp>>> BEAN_PROPS =
+      new ClassValue<>() {
+        @Override
+        protected Optional<List<BeanProp>> computeValue(Class<?> type) {
+          if (!BeanUtil.isReadableBean(type)) {
+            return Optional.empty();
+          }
+          List<BeanProp> props = new ArrayList<>();
+          BeanUtil.getBeanDesc(type)
+              .getPropMap(CONFIG.isIgnoreCase())
+              .forEach(
+                  (name, prop) -> {
+                    if (prop.isReadable(CONFIG.isTransientSupport())) {
+                      props.add(new BeanProp(name, prop));
+                    }
+                  });
+          return Optional.of(List.copyOf(props));
+        }
+      };
+
+  private static final ArrayBlockingQueue<Utf8Writer> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+  private final byte[] bytes;
+
+  private volatile String json;
+
+  private PushEnvelope(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * 序列化消息
+   *
+   * @param message 上行消息
+   * @return 消息信封
+   */
+  public static PushEnvelope of(Object message) {
+    Utf8Writer writer = POOL.poll();
+    if (writer == null) {
+      writer = new Utf8Writer(INITIAL_CAPACITY);
+    }
+    try {
+      List<BeanProp> props = streamableProps(message);
+      if (props != null) {
+        writeBean(writer, message, props);
+      } else {
+        JSONUtil.parse(message, CONFIG).write(writer);
+      }
+      return new PushEnvelope(writer.toByteArray());
+    } finally {
+      writer.reset();
+      if (writer.capacity() <= MAX_POOLED_CAPACITY) {
+        POOL.offer(writer);
+      }
+    }
+  }
+
+  /**
+   * 由已序列化的JSON创建信封，用于重试时还原消息
+   *
+   * @param json 消息JSON
+   * @return 消息信封
+   */
+  public static PushEnvelope ofJson(String json) {
+    PushEnvelope envelope = new PushEnvelope(json.getBytes(StandardCharsets.UTF_8));
+    envelope.json = json;
+    return envelope;
+  }
+
+  /**
+   * 各渠道共享的已编码字节，不复制
+   *
+   * <p>只读约定：只能交给只读取内容的发送方（如 Paho 的 MqttMessage、HttpClient 的
+   * {@code BodyPublishers.ofByteArray}），不得修改或长期持有后修改，需要修改时使用 {@link #bytes()}
+   */
+  public byte[] sharedBytes() {
+    return bytes;
+  }
+
+  /** 已编码字节的副本，供推送渠道以外的调用方使用，可自由修改 */
+  public byte[] bytes() {
+    return bytes.clone();
+  }
+
+  /**
+   * 写出已编码的字节，不复制
+   *
+   * @param out 输出流
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(bytes);
+  }
+
+  /** JSON字符串，首次调用时解码并缓存 */
+  public String json() {
+    String value = json;
+    if (value == null) {
+      value = new String(bytes, StandardCharsets.UTF_8);
+      json = value;
+    }
+    return value;
+  }
+
+  /** 字节长度 */
+  public int size() {
+    return bytes.length;
+  }
+
+  @Override
+  public String toString() {
+    return json();
+  }
+
+  /**
+   * 普通 Bean 直接流式写出；自定义序列化器、非 Bean 等交给 Hutool 构建 JSON 树
+   *
+   * @return 可读属性，不能直接写出时为null
+   */
+  private static List<BeanProp> streamableProps(Object message) {
+    Class<?> type = message.getClass();
+    if (message instanceof Map || GlobalSerializeMapping.getSerializer(type) != null) {
+      return null;
+    }
+    return BEAN_PROPS.get(type).orElse(null);
+  }
+
+  /** 按 Hutool 将 Bean 转为 JSONObject 的规则写出：属性描述顺序，跳过 transient 和空值 */
+  private static void writeBean(Utf8Writer out, Object bean, List<BeanProp> props) {
+    out.write('{');
+    boolean first = true;
+    for (BeanProp prop : props) {
+      first = writeField(out, first, prop.name(), prop.desc().getValue(bean));
+    }
+    out.write('}');
+  }
+
+  /** 写出键均为字符串的 Map，其他 Map 由 {@link JSONUtil#wrap} 转换 */
+  private static void writeMap(Utf8Writer out, Map<?, ?> map) {
+    out.write('{');
+    boolean first = true;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      first = writeField(out, first, (String) entry.getKey(), entry.getValue());
+    }
+    out.write('}');
+  }
+
+  /**
+   * 写出一个字段，与 JSONObject 的规则一致：空值跳过，非有限的数字抛出异常，
+   * 嵌套的 Map 或 Bean 转换失败时（{@link JSONUtil#wrap} 返回null）跳过整个字段
+   *
+   * @return 之后是否仍为第一个字段
+   */
+  private static boolean writeField(Utf8Writer out, boolean first, String key, Object value) {
+    if (JSONUtil.isNull(value)) {
+      return first;
+    }
+    if ((value instanceof Double d && !Double.isFinite(d))
+        || (value instanceof Float f && !Float.isFinite(f))) {
+      throw new JSONException("JSON does not allow non-finite numbers.");
+    }
+    if (value instanceof Map<?, ?> map && hasStringKeys(map)) {
+      int mark = out.mark();
+      try {
+        writeKey(out, first, key);
+        out.write(':');
+        writeMap(out, map);
+      } catch (RuntimeException e) {
+        out.rollback(mark);
+        return first;
+      }
+      return false;
+    }
+    Object wrapped = JSONUtil.wrap(value, CONFIG);
+    if (wrapped == null) {
+      return first;
+    }
+    writeKey(out, first, key);
+    // 写出 ':' 和值，格式与 JSONObject 中的值一致
+    out.values.writeValue(wrapped);
+    return false;
+  }
+
+  private static void writeKey(Utf8Writer out, boolean first, String key) {
+    if (!first) {
+      out.write(',');
+    }
+    out.quote(key);
+  }
+
+  private static boolean hasStringKeys(Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private record BeanProp(String name, PropDesc desc) {}
+
+  /** 直接写出 UTF-8 的可复用 Writer，孤立的代理字符按 {@link String#getBytes} 的规则替换为 '?' */
+  private static final class Utf8Writer extends Writer {
+
+    /** 写出字段值，对象模式下只写 ':' 和值，不维护分隔符 */
+    private final JSONWriter values = JSONWriter.of(this, 0, 0, CONFIG);
+
+    private byte[] buf;
+    private int count;
+
+    /** 跨 write 调用的高位代理字符，0 表示没有 */
+    private char pendingHigh;
+
+    private Utf8Writer(int capacity) {
+      this.buf = new byte[capacity];
+    }
+
+    @Override
+    public void write(int c) {
+      writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      for (int i = off, end = off + len; i < end; i++) {
+        writeChar(cbuf[i]);
+      }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+      for (int i = off, end = off + len; i < end; i++) {
+        writeChar(str.charAt(i));
+      }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+      CharSequence s = csq == null ? "null" : csq;
+      for (int i = 0, len = s.length(); i < len; i++) {
+        writeChar(s.charAt(i));
+      }
+      return this;
+    }
+
+    /** 写出带引号的字符串，转义规则与 {@link JSONUtil#quote(String)} 相同 */
+    private void quote(String str) {
+      try {
+        JSONUtil.quote(str, this);
+      } catch (IOException e) {
+        // 写入内存缓冲区不会发生
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void writeChar(char c) {
+      if (pendingHigh != 0) {
+        char high = pendingHigh;
+        pendingHigh = 0;
+        if (Character.isLowSurrogate(c)) {
+          int cp = Character.toCodePoint(high, c);
+          ensure(4);
+          buf[count++] = (byte) (0xF0 | (cp >> 18));
+          buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+          buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+          buf[count++] = (byte) (0x80 | (cp & 0x3F));
+          return;
+        }
+        writeByte('?');
+      }
+      if (c < 0x80) {
+        writeByte(c);
+      } else if (c < 0x800) {
+        ensure(2);
+        buf[count++] = (byte) (0xC0 | (c >> 6));
+        buf[count++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)) {
+        pendingHigh = c;
+      } else if (Character.isLowSurrogate(c)) {
+        writeByte('?');
+      } else {
+        ensure(3);
+        buf[count++] = (byte) (0xE0 | (c >> 12));
+        buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[count++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+
+    private void writeByte(int b) {
+      ensure(1);
+      buf[count++] = (byte) b;
+    }
+
+    private void ensure(int n) {
+      if (count + n > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + n));
+      }
+    }
+
+    private byte[] toByteArray() {
+      if (pendingHigh != 0) {
+        pendingHigh = 0;
+        writeByte('?');
+      }
+      return Arrays.copyOf(buf, count);
+    }
+
+    /** 当前写入位置 */
+    private int mark() {
+      return count;
+    }
+
+    /** 丢弃 mark 之后写入的内容 */
+    private void rollback(int mark) {
+      count = mark;
+      pendingHigh = 0;
+    }
+
+    private int capacity() {
+      return buf.length;
+    }
+
+    private void reset() {
+      count = 0;
+      pendingHigh = 0;
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+}
@@ -12,6 +12,7 @@
 
 package cn.universal.dm.device.service;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -242,6 +243,11 @@ public abstract class AbstratIoTService extends IoTDownAdapter {
     return codecService.decode(productKey, payload, context, elementType);
   }
 
+  protected <R> List<R> decodeBinary(
+      String productKey, ByteBuffer payload, Object context, Class<R> elementType) {
+    return codecService.decodeBinary(productKey, payload, context, elementType);
+  }
+
   protected <R> List<R> decode(String productKey, String payload, Class<R> elementType) {
     return decode(productKey, payload, null, elementType);
   }
@@ -12,6 +12,9 @@
 
 package cn.universal.dm.device.service.action;
 
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.EventPublisher;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.dm.device.service.impl.IoTCacheRemoveService;
 import cn.universal.dm.device.service.impl.IoTProductDeviceService;
 import cn.universal.persistence.base.IoTProductAction;
@@ -36,6 +39,8 @@ public class IoTProductActionService implements IoTProductAction {
 
   @Resource private IoTCacheRemoveService iotCacheRemoveService;
 
+  @Resource private EventPublisher eventPublisher;
+
   @Override
   @CacheEvict(
       cacheNames = {
@@ -68,7 +73,10 @@ public class IoTProductActionService implements IoTProductAction {
         "iot_product_device"
       },
       allEntries = true)
-  public void update(IoTProduct product) {}
+  public void update(IoTProduct product) {
+    // 密钥或状态可能变更，入参可能只有id，此时清除全部
+    mqttAuthChanged(product == null ? null : product.getProductKey());
+  }
 
   @Override
   @CacheEvict(
@@ -83,13 +91,19 @@ public class IoTProductActionService implements IoTProductAction {
         "iot_product_device"
       },
       allEntries = true)
-  public void delete(String productKey) {}
+  public void delete(String productKey) {
+    mqttAuthChanged(productKey);
+  }
 
   @Override
-  public void enable(String productKey) {}
+  public void enable(String productKey) {
+    mqttAuthChanged(productKey);
+  }
 
   @Override
-  public void disable(String productKey) {}
+  public void disable(String productKey) {
+    mqttAuthChanged(productKey);
+  }
 
   @Override
   public void publish(String productKey) {}
@@ -126,4 +140,10 @@ public class IoTProductActionService implements IoTProductAction {
       },
       allEntries = true)
   public void metadataDelete(String productKey) {}
+
+  /** 事务提交后通知集群清除该产品的 EMQX 认证和 ACL 决策缓存 */
+  private void mqttAuthChanged(String productKey) {
+    TransactionUtils.afterCommit(
+        () -> eventPublisher.publishEvent(EventTopics.MQTT_AUTH_CHANGED, productKey));
+  }
 }
@@ -257,8 +257,8 @@ public class IoTDeviceService {
    */
   @Cacheable(
       cacheNames = "iot_dev_instance_bo",
-      unless = "#result == null",
-      key = "'selectDevInstanceBO" + ":'+#productKey+#deviceId")
+      key = "'selectDevInstanceBO" + ":'+#productKey+#deviceId",
+      sync = true)
   public IoTDeviceDTO selectDevInstanceBO(String productKey, String deviceId) {
     if (StrUtil.isEmpty(productKey) || StrUtil.isEmpty(deviceId)) {
       throw new IoTException("productKey or deviceId can not be null");
@@ -301,7 +301,7 @@ public class IoTDeviceService {
    *
    * @return 设备BO
    */
-  @Cacheable(cacheNames = "iot_dev_instance_iotId", key = "''+#iotId", unless = "#result==null")
+  @Cacheable(cacheNames = "iot_dev_instance_iotId", key = "''+#iotId", sync = true)
   public IoTDeviceDTO selectDevInstanceBO(String iotId) {
     if (StrUtil.isBlank(iotId)) {
       throw new IoTException("iotId can not be null");
@@ -23,6 +23,7 @@ import cn.universal.core.message.UPRequest;
 import cn.universal.core.metadata.AbstractPropertyMetadata;
 import cn.universal.core.metadata.PropertyMode;
 import cn.universal.dm.device.entity.IoTDevicePropertiesBO;
+import cn.universal.dm.device.service.task.ShadowFlushSlotManager;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.dto.LogStorePolicyDTO;
 import cn.universal.persistence.entity.IoTDeviceShadow;
@@ -78,8 +79,7 @@ public class IoTDeviceShadowService {
   @Value("${shadow.cache.ttl-seconds:604800}") // 7 days
   private long shadowCacheTtlSeconds;
 
-  @Value("${shadow.flush.zset-key:shadow:flush}")
-  private String shadowFlushZsetKey;
+  @Resource private ShadowFlushSlotManager shadowFlushSlotManager;
 
   @Value("${shadow.flush.base-interval-ms:7200000}") // 24h
   private long flushBaseIntervalMs;
@@ -101,7 +101,8 @@ public class IoTDeviceShadowService {
     long now = System.currentTimeMillis();
 
     // 获取当前已设置的刷盘时间
-    Double currentScore = stringRedisTemplate.opsForZSet().score(shadowFlushZsetKey, iotId);
+    Double currentScore =
+        stringRedisTemplate.opsForZSet().score(shadowFlushSlotManager.zsetKey(iotId), iotId);
 
     if (currentScore != null) {
       long currentFlushTime = currentScore.longValue();
@@ -176,7 +177,9 @@ public class IoTDeviceShadowService {
     }
     try {
       Long nextAt = calcNextFlushAtMs(iotId);
-      stringRedisTemplate.opsForZSet().add(shadowFlushZsetKey, iotId, nextAt.doubleValue());
+      stringRedisTemplate
+          .opsForZSet()
+          .add(shadowFlushSlotManager.zsetKey(iotId), iotId, nextAt.doubleValue());
     } catch (Exception e) {
       log.warn("[Shadow][Flush] mark dirty failed iotId={}, err={}", iotId, e.getMessage());
     }
@@ -89,7 +89,7 @@ public class IoTProductDeviceService {
     return productVO;
   }
 
-  @Cacheable(cacheNames = "iot_product_device", key = "''+#productKey", unless = "#result == null")
+  @Cacheable(cacheNames = "iot_product_device", key = "''+#productKey", sync = true)
   public IoTProduct getProduct(String productKey) {
     if (StrUtil.isBlank(productKey)) {
       throw new IoTException("product [" + productKey + "] can not be null");
@@ -215,10 +215,7 @@ public class IoTProductDeviceService {
   }
 
   /** 加载产品解析协议 */
-  @Cacheable(
-      cacheNames = "selectProtocolDefNoScript",
-      key = "''+#productKey",
-      unless = "#result == null")
+  @Cacheable(cacheNames = "selectProtocolDefNoScript", key = "''+#productKey", sync = true)
   public ProtocolSupportDefinition selectProtocolDefNoScript(String productKey) {
     if (StrUtil.isBlank(productKey)) {
       throw new IoTException("product [" + productKey + "] can not be null");
@@ -389,10 +386,7 @@ public class IoTProductDeviceService {
    * @param productKey 产品Key
    * @return 解码类型（HEX/STRING），默认 STRING
    */
-  @Cacheable(
-      cacheNames = "getProductDecoderType",
-      key = "#productKey",
-      unless = "#result == null")
+  @Cacheable(cacheNames = "getProductDecoderType", key = "#productKey", sync = true)
   public String getProductDecoderType(String productKey) {
     if (StrUtil.isBlank(productKey)) {
       return "STRING";
@@ -37,6 +37,7 @@ import cn.universal.persistence.query.LogQuery;
 import cn.universal.persistence.query.PageBean;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
@@ -48,6 +49,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -100,11 +103,31 @@ public class CkDeviceLogService extends AbstractIoTDeviceLogService {
   @Value(value = "${clickhouse.batch.size:1000}")
   private int batchSize;
 
+  /** 写入缓冲容量（行），每张表一个缓冲 */
+  @Value(value = "${clickhouse.buffer.capacity:100000}")
+  private int bufferCapacity;
+
+  /** 首行入缓冲后最多等待多久写入 */
+  @Value(value = "${clickhouse.buffer.linger-ms:1000}")
+  private long bufferLingerMs;
+
+  /** 缓冲满时调用线程最多等待多久，超时后直接写入 */
+  @Value(value = "${clickhouse.buffer.offer-timeout-ms:200}")
+  private long bufferOfferTimeoutMs;
+
   @Resource private IoTDeviceService iotDeviceService;
 
+  @Autowired private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
   private HikariDataSource dataSource;
   private JdbcTemplate jdbcTemplate;
 
+  /** 设备日志写入缓冲，行为插入参数 */
+  private LogBatchBuffer<Object[]> deviceLogBuffer;
+
+  /** 设备元数据日志写入缓冲，行为插入参数 */
+  private LogBatchBuffer<Object[]> metadataBuffer;
+
   @PostConstruct
   public void initDb() {
     try {
@@ -149,14 +172,55 @@ public class CkDeviceLogService extends AbstractIoTDeviceLogService {
       createTablesIfNotExist();
       log.info("ClickHouse 表结构检查/创建完成");
 
+      initBuffers();
+
     } catch (Exception e) {
       log.error("初始化 ClickHouse 数据源失败", e);
       throw new RuntimeException("初始化 ClickHouse 数据源失败", e);
     }
   }
 
+  /** 每张表一个写入缓冲，按批量大小或 linger 时间合并为一次 batchUpdate，避免逐行插入产生大量 part */
+  private void initBuffers() {
+    String deviceLogSql =
+        "INSERT INTO "
+            + devLogTableName
+            + " (id, iot_id, device_id, product_key, device_name, message_type, "
+            + "command_id, command_status, event, content, point, create_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    String metadataSql =
+        "INSERT INTO "
+            + devLogMetaTableName
+            + " (id, iot_id, product_key, device_name, device_id, message_type, "
+            + "event, property, content, ext1, ext2, ext3, create_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    deviceLogBuffer = newBuffer(devLogTableName, deviceLogSql);
+    metadataBuffer = newBuffer(devLogMetaTableName, metadataSql);
+  }
+
+  private LogBatchBuffer<Object[]> newBuffer(String table, String sql) {
+    LogBatchBuffer<Object[]> buffer =
+        new LogBatchBuffer<>(
+            storePolicy,
+            table,
+            bufferCapacity,
+            batchSize,
+            bufferLingerMs,
+            bufferOfferTimeoutMs,
+            rows -> jdbcTemplate.batchUpdate(sql, rows));
+    meterRegistryProvider.ifAvailable(buffer::bindTo);
+    return buffer;
+  }
+
   @PreDestroy
   public void destroy() {
+    // 先写完缓冲中的日志再关闭数据源
+    if (deviceLogBuffer != null) {
+      deviceLogBuffer.close();
+    }
+    if (metadataBuffer != null) {
+      metadataBuffer.close();
+    }
     if (dataSource != null && !dataSource.isClosed()) {
       dataSource.close();
       log.info("ClickHouse 数据源已关闭");
@@ -235,7 +299,7 @@ public class CkDeviceLogService extends AbstractIoTDeviceLogService {
       try {
         IoTDeviceLog ioTDeviceLog = build(upRequest, ioTDeviceDTO);
         insertDeviceLog(ioTDeviceLog);
-        log.debug("ClickHouse 插入设备日志成功");
+        log.debug("ClickHouse 设备日志已进入写入缓冲");
       } catch (Exception e) {
         log.error("保存设备日志报错", e);
       }
@@ -259,38 +323,32 @@ public class CkDeviceLogService extends AbstractIoTDeviceLogService {
     if (StrUtil.isNotBlank(ioTProduct.getStorePolicy())) {
       try {
         insertDeviceLog(ioTDeviceLog);
-        log.debug("ClickHouse 插入设备日志成功");
+        log.debug("ClickHouse 设备日志已进入写入缓冲");
       } catch (Exception e) {
         log.error("保存设备日志报错", e);
       }
     }
   }
 
-  /** 插入设备日志 */
+  /** 插入设备日志，进入缓冲后异步批量写入 */
   private void insertDeviceLog(IoTDeviceLog log) {
-    String sql =
-        "INSERT INTO "
-            + devLogTableName
-            + " (id, iot_id, device_id, product_key, device_name, message_type, "
-            + "command_id, command_status, event, content, point, create_time) "
-            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-    jdbcTemplate.update(
-        sql,
-        log.getId(),
-        log.getIotId(),
-        log.getDeviceId(),
-        log.getProductKey(),
-        log.getDeviceName(),
-        log.getMessageType(),
-        log.getCommandId(),
-        log.getCommandStatus(),
-        log.getEvent(),
-        log.getContent(),
-        log.getPoint(),
-        log.getCreateTime() != null
-            ? Timestamp.valueOf(log.getCreateTime())
-            : Timestamp.valueOf(LocalDateTime.now()));
+    deviceLogBuffer.add(
+        new Object[] {
+          log.getId(),
+          log.getIotId(),
+          log.getDeviceId(),
+          log.getProductKey(),
+          log.getDeviceName(),
+          log.getMessageType(),
+          log.getCommandId(),
+          log.getCommandStatus(),
+          log.getEvent(),
+          log.getContent(),
+          log.getPoint(),
+          log.getCreateTime() != null
+              ? Timestamp.valueOf(log.getCreateTime())
+              : Timestamp.valueOf(LocalDateTime.now())
+        });
   }
 
   private void saveLogStorePolicy(
@@ -365,21 +423,9 @@ public class CkDeviceLogService extends AbstractIoTDeviceLogService {
           });
     }
 
-    // 批量插入
+    // 进入缓冲，与其他设备的元数据合并批量写入
     if (!batchArgs.isEmpty()) {
-      String sql =
-          "INSERT INTO "
-              + devLogMetaTableName
-              + " (id, iot_id, product_key, device_name, device_id, message_type, "
-              + "event, property, content, ext1, ext2, ext3, create_time) "
-              + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-      try {
-        int[] counts = jdbcTemplate.batchUpdate(sql, batchArgs);
-        log.debug("ClickHouse 批量插入元数据成功，数量={}", counts.length);
-      } catch (Exception e) {
-        log.error("批量插入 ClickHouse 元数据异常", e);
-      }
+      metadataBuffer.addAll(batchArgs);
     }
   }
 
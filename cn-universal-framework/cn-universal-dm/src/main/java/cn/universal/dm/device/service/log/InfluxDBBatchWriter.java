@@ -0,0 +1,204 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.dm.device.service.log;
+
+import com.influxdb.client.WriteApiBlocking;
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+import com.influxdb.exceptions.InfluxException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * InfluxDB 批量写入
+ *
+ * <p>数据点转换为行协议后进入 {@link LogBatchBuffer}，后台线程按批量大小或刷新间隔合并为一次 writeRecords，上报线程不再等待HTTP请求。
+ * 可重试的失败（429、5xx、网络异常）按指数退避加随机抖动重试，重试耗尽、不可重试的失败或缓冲溢出的数据追加到本地死信文件，
+ * 文件为行协议格式，可用 {@code influx write -f} 补录。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.2
+ * @since 2025/10/30
+ */
+@Slf4j
+class InfluxDBBatchWriter {
+
+  private final WriteApiBlocking writeApi;
+
+  private final int maxRetries;
+
+  private final long retryIntervalMs;
+
+  private final long maxRetryDelayMs;
+
+  private final Path deadLetterFile;
+
+  private final long deadLetterMaxBytes;
+
+  private final LogBatchBuffer<String> buffer;
+
+  /** 写入死信文件的点数 */
+  private final AtomicLong deadLettered = new AtomicLong();
+
+  /** 死信文件写满或写入失败而丢弃的点数 */
+  private final AtomicLong dropped = new AtomicLong();
+
+  /** 重试次数 */
+  private final AtomicLong retried = new AtomicLong();
+
+  InfluxDBBatchWriter(
+      WriteApiBlocking writeApi,
+      int maxRetries,
+      long retryIntervalMs,
+      long maxRetryDelayMs,
+      Path deadLetterFile,
+      long deadLetterMaxBytes,
+      int capacity,
+      int batchSize,
+      long flushIntervalMs,
+      long offerTimeoutMs) {
+    this.writeApi = writeApi;
+    this.maxRetries = Math.max(0, maxRetries);
+    this.retryIntervalMs = Math.max(1, retryIntervalMs);
+    this.maxRetryDelayMs = Math.max(this.retryIntervalMs, maxRetryDelayMs);
+    this.deadLetterFile = deadLetterFile;
+    this.deadLetterMaxBytes = deadLetterMaxBytes;
+    this.buffer =
+        new LogBatchBuffer<>(
+            "influxdb",
+            "points",
+            capacity,
+            batchSize,
+            flushIntervalMs,
+            offerTimeoutMs,
+            this::write,
+            lines -> deadLetter(lines, "缓冲已满"));
+  }
+
+  /** 提交一个数据点，异步批量写入 */
+  void add(Point point) {
+    buffer.add(point.toLineProtocol());
+  }
+
+  void bindTo(MeterRegistry registry) {
+    buffer.bindTo(registry);
+    FunctionCounter.builder("iot.log.influxdb.dead.letter", deadLettered, AtomicLong::get)
+        .description("写入死信文件的点数")
+        .register(registry);
+    FunctionCounter.builder("iot.log.influxdb.dropped", dropped, AtomicLong::get)
+        .description("死信文件也未能写入而丢弃的点数")
+        .register(registry);
+    FunctionCounter.builder("iot.log.influxdb.retried", retried, AtomicLong::get)
+        .description("批量写入重试次数")
+        .register(registry);
+  }
+
+  /** 写完缓冲中的数据 */
+  void close() {
+    buffer.close();
+  }
+
+  private void write(List<String> lines) {
+    for (int attempt = 0; ; attempt++) {
+      try {
+        writeApi.writeRecords(WritePrecision.MS, lines);
+        return;
+      } catch (Exception e) {
+        if (!isRetryable(e) || attempt >= maxRetries) {
+          // 抛出由缓冲计入失败数并记录日志
+          deadLetter(lines, e.getMessage());
+          throw new IllegalStateException(
+              "InfluxDB批量写入失败，已写入死信文件，attempts=" + (attempt + 1), e);
+        }
+        long delay = retryDelay(attempt);
+        retried.incrementAndGet();
+        log.warn(
+            "InfluxDB批量写入失败，{}ms后重试，points={}, attempt={}/{}, error={}",
+            delay,
+            lines.size(),
+            attempt + 1,
+            maxRetries + 1,
+            e.getMessage());
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          deadLetter(lines, "重试被中断");
+          throw new IllegalStateException("InfluxDB批量写入重试被中断，已写入死信文件", e);
+        }
+      }
+    }
+  }
+
+  /** 指数退避加全抖动：[0, min(上限, 间隔 * 2^attempt)] 内随机 */
+  private long retryDelay(int attempt) {
+    long ceiling = Math.min(maxRetryDelayMs, retryIntervalMs << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  /** 行协议错误、鉴权失败等4xx（429除外）重试也不会成功 */
+  private static boolean isRetryable(Exception e) {
+    if (e instanceof InfluxException influxException) {
+      int status = influxException.status();
+      return status == 0 || status == 429 || status >= 500;
+    }
+    return true;
+  }
+
+  private synchronized void deadLetter(List<String> lines, String reason) {
+    try {
+      if (Files.exists(deadLetterFile) && Files.size(deadLetterFile) >= deadLetterMaxBytes) {
+        dropped.addAndGet(lines.size());
+        log.error(
+            "InfluxDB死信文件已达上限，丢弃数据点，file={}, points={}", deadLetterFile, lines.size());
+        return;
+      }
+      Path parent = deadLetterFile.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.write(
+          deadLetterFile,
+          lines,
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+      deadLettered.addAndGet(lines.size());
+      log.warn(
+          "InfluxDB数据点已写入死信文件，file={}, points={}, reason={}",
+          deadLetterFile,
+          lines.size(),
+          reason);
+    } catch (IOException e) {
+      dropped.addAndGet(lines.size());
+      log.error("InfluxDB写入死信文件失败，丢弃数据点，file={}, points={}", deadLetterFile, lines.size(), e);
+    }
+  }
+
+  public long getDeadLettered() {
+    return deadLettered.get();
+  }
+
+  public long getDropped() {
+    return dropped.get();
+  }
+}
@@ -35,14 +35,15 @@ import cn.universal.persistence.query.PageBean;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -50,6 +51,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
@@ -71,6 +74,8 @@ import org.springframework.stereotype.Component;
  *   <li>timestamp: 使用数据产生时间作为时间戳
  * </ul>
  *
+ * <p>写入经 {@link InfluxDBBatchWriter} 按批量大小或刷新间隔异步合并，失败的批次写入本地死信文件
+ *
  * @author gitee.com/NexIoT
  * @version 1.2 // 版本升级：适配Unix时间戳查询
  * @since 2025/10/30
@@ -94,11 +99,48 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
   @Value("${influxdb.bucket:device_logs}")
   private String bucket;
 
+  /** 每批最大点数 */
+  @Value("${influxdb.batch.size:1000}")
+  private int batchSize;
+
+  /** 未凑满一批时的最长等待 */
+  @Value("${influxdb.batch.flush-interval-ms:1000}")
+  private long flushIntervalMs;
+
+  /** 待写入缓冲容量 */
+  @Value("${influxdb.batch.capacity:100000}")
+  private int bufferCapacity;
+
+  /** 缓冲满时的最长等待，超时后写入死信文件 */
+  @Value("${influxdb.batch.offer-timeout-ms:200}")
+  private long offerTimeoutMs;
+
+  @Value("${influxdb.batch.max-retries:3}")
+  private int maxRetries;
+
+  /** 重试基础间隔，按指数退避加随机抖动 */
+  @Value("${influxdb.batch.retry-interval-ms:1000}")
+  private long retryIntervalMs;
+
+  @Value("${influxdb.batch.max-retry-delay-ms:30000}")
+  private long maxRetryDelayMs;
+
+  @Value("${influxdb.dead-letter.path:./logs/influxdb-dead-letter.lp}")
+  private String deadLetterPath;
+
+  /** 死信文件大小上限，超过后丢弃 */
+  @Value("${influxdb.dead-letter.max-bytes:1073741824}")
+  private long deadLetterMaxBytes;
+
   @Resource private IoTDeviceService iotDeviceService;
 
   @Resource private IoTProductDeviceService iotProductDeviceService;
 
+  @Autowired private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
   private InfluxDBClient influxDBClient;
+
+  private InfluxDBBatchWriter batchWriter;
   // 时间格式化器：适配InfluxDB的RFC3339格式
   private static final DateTimeFormatter RFC3339_FORMATTER =
       DateTimeFormatter.ISO_INSTANT.withZone(ZoneId.systemDefault());
@@ -107,6 +149,19 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
   public void initClient() {
     try {
       influxDBClient = InfluxDBClientFactory.create(url, token.toCharArray(), organization, bucket);
+      batchWriter =
+          new InfluxDBBatchWriter(
+              influxDBClient.getWriteApiBlocking(),
+              maxRetries,
+              retryIntervalMs,
+              maxRetryDelayMs,
+              Paths.get(deadLetterPath),
+              deadLetterMaxBytes,
+              bufferCapacity,
+              batchSize,
+              flushIntervalMs,
+              offerTimeoutMs);
+      meterRegistryProvider.ifAvailable(batchWriter::bindTo);
 
       // 测试连接
       if (influxDBClient.ping()) {
@@ -121,6 +176,10 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
 
   @PreDestroy
   public void closeClient() {
+    if (batchWriter != null) {
+      // 先写完缓冲中的数据再关闭连接
+      batchWriter.close();
+    }
     if (influxDBClient != null) {
       try {
         influxDBClient.close();
@@ -240,12 +299,10 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
       String formatValue,
       String symbol)
       throws Exception {
-    if (influxDBClient == null) {
+    if (batchWriter == null) {
       throw new RuntimeException("InfluxDB client未初始化");
     }
 
-    WriteApiBlocking writeApi = influxDBClient.getWriteApiBlocking();
-
     Point point =
         Point.measurement("property_metadata")
             .addTag("productKey", up.getProductKey())
@@ -260,13 +317,8 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
             .addField("ext3", symbol != null ? symbol : "")
             .time(Instant.now(), WritePrecision.MS);
 
-    try {
-      writeApi.writePoint(point);
-      log.debug("InfluxDB插入属性元数据成功: property={}, iotId={}", property, up.getIotId());
-    } catch (Exception e) {
-      log.error("InfluxDB插入属性元数据失败: property={}, iotId={}", property, up.getIotId(), e);
-      throw e;
-    }
+    batchWriter.add(point);
+    log.debug("InfluxDB提交属性元数据: property={}, iotId={}", property, up.getIotId());
   }
 
   /**
@@ -274,12 +326,10 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
    * event fields: content(eventName), deviceName, ext1(JSONData), maxStorage
    */
   private void saveEventMetadataToInfluxDB(BaseUPRequest up, int maxStorage) throws Exception {
-    if (influxDBClient == null) {
+    if (batchWriter == null) {
       throw new RuntimeException("InfluxDB client未初始化");
     }
 
-    WriteApiBlocking writeApi = influxDBClient.getWriteApiBlocking();
-
     Point point =
         Point.measurement("event_metadata")
             .addTag("productKey", up.getProductKey())
@@ -293,13 +343,8 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
             .addField("maxStorage", maxStorage)
             .time(Instant.now(), WritePrecision.MS);
 
-    try {
-      writeApi.writePoint(point);
-      log.debug("InfluxDB插入事件元数据成功: event={}, iotId={}", up.getEvent(), up.getIotId());
-    } catch (Exception e) {
-      log.error("InfluxDB插入事件元数据失败: event={}, iotId={}", up.getEvent(), up.getIotId(), e);
-      throw e;
-    }
+    batchWriter.add(point);
+    log.debug("InfluxDB提交事件元数据: event={}, iotId={}", up.getEvent(), up.getIotId());
   }
 
   /**
@@ -309,12 +354,10 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
    * <p>注意:deviceName为必填字段,用于count统计;content可能为空
    */
   private void saveDeviceLogToInfluxDB(IoTDeviceLog ioTDeviceLog) throws Exception {
-    if (influxDBClient == null) {
+    if (batchWriter == null) {
       throw new RuntimeException("InfluxDB client未初始化");
     }
 
-    WriteApiBlocking writeApi = influxDBClient.getWriteApiBlocking();
-
     // 时间戳（毫秒）
     Instant timestamp = ioTDeviceLog.getCreateTime().atZone(ZoneId.systemDefault()).toInstant();
 
@@ -337,21 +380,12 @@ public class InfluxDBDeviceLogService extends AbstractIoTDeviceLogService {
             .addField("point", ioTDeviceLog.getPoint() != null ? ioTDeviceLog.getPoint() : "")
             .time(timestamp, WritePrecision.MS);
 
-    try {
-      writeApi.writePoint(point);
-      log.debug(
-          "InfluxDB插入设备日志成功: productKey={}, deviceId={}, timestamp={}",
-          ioTDeviceLog.getProductKey(),
-          ioTDeviceLog.getDeviceId(),
-          timestamp);
-    } catch (Exception e) {
-      log.error(
-          "InfluxDB插入设备日志失败: productKey={}, deviceId={}, error={}",
-          ioTDeviceLog.getProductKey(),
-          ioTDeviceLog.getDeviceId(),
-          e.getMessage());
-      throw e;
-    }
+    batchWriter.add(point);
+    log.debug(
+        "InfluxDB提交设备日志: productKey={}, deviceId={}, timestamp={}",
+        ioTDeviceLog.getProductKey(),
+        ioTDeviceLog.getDeviceId(),
+        timestamp);
   }
 
   @Override
@@ -22,6 +22,7 @@ import cn.universal.core.metadata.AbstractPropertyMetadata;
 import cn.universal.dm.device.entity.IoTDevicePropertiesBO;
 import cn.universal.dm.device.service.impl.IoTDeviceService;
 import cn.universal.dm.device.service.impl.IoTProductDeviceService;
+import cn.universal.dm.device.service.log.IoTDBTabletWriter.Series;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.dto.LogStorePolicyDTO;
@@ -32,6 +33,7 @@ import cn.universal.persistence.entity.vo.IoTDeviceLogMetadataVO;
 import cn.universal.persistence.entity.vo.IoTDeviceLogVO;
 import cn.universal.persistence.query.LogQuery;
 import cn.universal.persistence.query.PageBean;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
@@ -45,8 +47,11 @@ import org.apache.iotdb.isession.SessionDataSet;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.pool.SessionPool;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
@@ -121,8 +126,51 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
   @Value("${iotdb.alert.receivers:}")
   private String alertReceivers;
 
+  /** 写入连接池大小，查询仍使用单个 Session */
+  @Value("${iotdb.pool.max-size:8}")
+  private int poolMaxSize;
+
+  /** 单次 insertTablets 最多写入的行数 */
+  @Value("${iotdb.batch.size:2000}")
+  private int batchSize;
+
+  /** 首行入缓冲后最多等待多久写入 */
+  @Value("${iotdb.batch.linger-ms:500}")
+  private long batchLingerMs;
+
+  /** 写入缓冲容量（行） */
+  @Value("${iotdb.batch.capacity:100000}")
+  private int batchCapacity;
+
+  /** 缓冲满时调用线程最多等待多久，超时后直接写入 */
+  @Value("${iotdb.batch.offer-timeout-ms:200}")
+  private long batchOfferTimeoutMs;
+
+  @Autowired private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+  /** 日志写入管道，行按设备合并为 Tablet 批量写入 */
+  private IoTDBTabletWriter tabletWriter;
+
   @PostConstruct
   public void init() {
+    backoffMillis = getBackoffMillis();
+    tabletWriter =
+        new IoTDBTabletWriter(
+            new SessionPool.Builder()
+                .host(host)
+                .port(port)
+                .user(username)
+                .password(password)
+                .maxSize(poolMaxSize)
+                .build(),
+            maxRetries,
+            backoffMillis,
+            (content, e) -> triggerIoTDBAlert("IoTDB操作失败: insertTablets", content, e),
+            batchCapacity,
+            batchSize,
+            batchLingerMs,
+            batchOfferTimeoutMs);
+    meterRegistryProvider.ifAvailable(tabletWriter::bindTo);
     try {
       createAndOpenSession();
       log.info("初始化IoTDB连接成功，host={}, port={}", host, port);
@@ -385,73 +433,6 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
         || errMsg.contains("session未初始化");
   }
 
-  /**
-   * 带重试机制的执行器
-   *
-   * @param action 要执行的操作
-   * @param operation 操作名称（用于日志）
-   * @param path IoTDB路径
-   * @param iotId 设备ID
-   * @return 操作结果
-   * @throws Exception 所有重试失败后抛出最后一次异常
-   */
-  private <T> T executeWithRetry(
-      java.util.concurrent.Callable<T> action, String operation, String path, String iotId)
-      throws Exception {
-    Exception last = null;
-    long[] delays = getBackoffMillis();
-    int retries = Math.max(maxRetries, 1);
-
-    for (int i = 0; i < retries; i++) {
-      try {
-        // 统一获取 session（自动处理重连）
-        Session currentSession = getSession();
-        if (currentSession == null) {
-          throw new IllegalStateException("IoTDB Session 不可用且重连失败");
-        }
-
-        // 执行操作
-        return action.call();
-
-      } catch (Exception e) {
-        last = e;
-        String errMsg = e.getMessage();
-
-        // 判断是否需要重连
-        boolean needReconnect = isReconnectNeeded(e);
-
-        log.warn(
-            "IoTDB {} 失败，path={}, iotId={}, attempt={}/{}, needReconnect={}, error={}",
-            operation,
-            path,
-            iotId,
-            (i + 1),
-            retries,
-            needReconnect,
-            errMsg);
-
-        // 需要重连时，标记 session 无效
-        if (needReconnect) {
-          invalidateSession();
-        }
-
-        // 最后一次重试失败，不再等待
-        if (i < retries - 1 && i < delays.length) {
-          try {
-            Thread.sleep(delays[i]);
-          } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            break;
-          }
-        }
-      }
-    }
-
-    // 所有重试都失败
-    triggerIoTDBAlert("IoTDB操作失败: " + operation, "path=" + path + ", iotId=" + iotId, last);
-    throw last;
-  }
-
   private void triggerIoTDBAlert(String title, String content, Throwable e) {
     log.error("{} - {}, err={}", title, content, e == null ? "" : e.toString());
     // 如需推送到外部通知渠道，请在 cn-universal-notice 模块配置模板，并在此处接入对应服务
@@ -459,6 +440,10 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
 
   @PreDestroy
   public void closeSession() {
+    // 先写完缓冲中的数据
+    if (tabletWriter != null) {
+      tabletWriter.close();
+    }
     if (session != null) {
       try {
         session.close();
@@ -479,7 +464,7 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
       try {
         IoTDeviceLog ioTDeviceLog = build(upRequest, ioTDeviceDTO);
         saveDeviceLogToIoTDB(ioTDeviceLog, upRequest);
-        log.info("IoTDB插入设备日志成功，iotId={}", upRequest.getIotId());
+        log.info("IoTDB设备日志已提交写入，iotId={}", upRequest.getIotId());
       } catch (Exception e) {
         log.error("保存设备日志到IoTDB报错={}", e);
       }
@@ -506,7 +491,7 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
     if (StrUtil.isNotBlank(ioTProduct.getStorePolicy())) {
       try {
         saveDeviceLogToIoTDB(ioTDeviceLog, null);
-        log.info("IoTDB插入设备日志成功，deviceId={}", ioTDeviceDTO.getDeviceId());
+        log.info("IoTDB设备日志已提交写入，deviceId={}", ioTDeviceDTO.getDeviceId());
       } catch (Exception e) {
         log.error("保存设备日志到IoTDB报错={}", e);
       }
@@ -577,175 +562,65 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
       String propertyName,
       String formatValue,
       String symbol,
-      long timestamp)
-      throws Exception {
-    // 通过 executeWithRetry 统一处理，无需在此检查 session
-
+      long timestamp) {
     String metadataPath =
         buildDevicePath(up.getProductKey(), up.getDeviceId()) + ".property_metadata";
-
-    // 与MySQL一致的字段
-    List<String> measurements =
-        List.of(
-            "message_type",
-            "property",
-            "content",
-            "device_name",
-            "device_id",
-            "iot_id",
-            "product_key",
-            "create_time",
-            "ext1",
-            "ext2",
-            "ext3");
-
-    // 显式指定数据类型（对齐 MySQL iot_device_log_metadata 表）
-    List<org.apache.iotdb.tsfile.file.metadata.enums.TSDataType> types =
-        List.of(
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
-                .TEXT, // message_type: varchar(20)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // property: varchar(32)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // content: text
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // device_name: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // device_id: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // iot_id: varchar(128)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // product_key: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT64, // create_time: datetime
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // ext1: varchar(255)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // ext2: varchar(655)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT); // ext3: varchar(255)
-
-    List<Object> values =
-        List.of(
-            escapeValue(MessageType.PROPERTIES.name()),
-            escapeValue(property),
-            escapeValue(content),
-            escapeValue(up.getDeviceName()),
-            escapeValue(up.getDeviceId()),
-            escapeValue(up.getIotId()),
-            escapeValue(up.getProductKey()),
-            timestamp, // INT64 不需要 String.valueOf
-            escapeValue(propertyName),
-            escapeValue(formatValue),
-            escapeValue(symbol));
-
-    try {
-      executeWithRetry(
-          () -> {
-            Session currentSession = getSession();
-            if (currentSession == null) {
-              throw new IllegalStateException("IoTDB Session 不可用");
-            }
-            currentSession.insertRecord(metadataPath, timestamp, measurements, types, values);
-            return null;
-          },
-          "insertRecord",
-          metadataPath,
-          up.getIotId());
-      log.debug(
-          "IoTDB插入属性元数据成功: path={}, property={}, iotId={}", metadataPath, property, up.getIotId());
-    } catch (Exception e) {
-      log.error(
-          "IoTDB插入属性元数据失败: path={}, property={}, iotId={}",
-          metadataPath,
-          property,
-          up.getIotId(),
-          e);
-      throw e;
-    }
+    tabletWriter.add(
+        Series.PROPERTY_METADATA,
+        metadataPath,
+        timestamp,
+        escapeValue(MessageType.PROPERTIES.name()),
+        escapeValue(property),
+        escapeValue(content),
+        escapeValue(up.getDeviceName()),
+        escapeValue(up.getDeviceId()),
+        escapeValue(up.getIotId()),
+        escapeValue(up.getProductKey()),
+        timestamp,
+        escapeValue(propertyName),
+        escapeValue(formatValue),
+        escapeValue(symbol));
+    log.debug(
+        "IoTDB属性元数据已进入写入缓冲: path={}, property={}, iotId={}",
+        metadataPath,
+        property,
+        up.getIotId());
   }
 
   /** 保存事件元数据到IoTDB 路径: root.device.{productKey}.{deviceId}.event_metadata */
-  private void saveEventMetadataToIoTDB(BaseUPRequest up, int maxStorage) throws Exception {
+  private void saveEventMetadataToIoTDB(BaseUPRequest up, int maxStorage) {
     saveEventMetadataToIoTDB(up, maxStorage, System.currentTimeMillis());
   }
 
   /** 保存事件元数据到IoTDB 路径: root.device.{productKey}.{deviceId}.event_metadata */
-  private void saveEventMetadataToIoTDB(BaseUPRequest up, int maxStorage, long timestamp)
-      throws Exception {
-    // 通过 executeWithRetry 统一处理，无需在此检查 session
-
+  private void saveEventMetadataToIoTDB(BaseUPRequest up, int maxStorage, long timestamp) {
     String metadataPath = buildDevicePath(up.getProductKey(), up.getDeviceId()) + ".event_metadata";
-
-    // 与MySQL保持一致的字段
-    List<String> measurements =
-        List.of(
-            "message_type",
-            "event",
-            "content",
-            "device_name",
-            "device_id",
-            "iot_id",
-            "product_key",
-            "create_time",
-            "ext1",
-            "max_storage");
-
-    // 显式指定数据类型（对齐 MySQL iot_device_log_metadata 表）
-    List<org.apache.iotdb.tsfile.file.metadata.enums.TSDataType> types =
-        List.of(
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
-                .TEXT, // message_type: varchar(20)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // event: varchar(32)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // content: text
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // device_name: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // device_id: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // iot_id: varchar(128)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // product_key: varchar(64)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT64, // create_time: datetime
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // ext1: varchar(255)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT32); // max_storage: int
-
-    List<Object> values =
-        List.of(
-            escapeValue(MessageType.EVENT.name()),
-            escapeValue(up.getEvent()),
-            escapeValue(up.getEventName()),
-            escapeValue(up.getDeviceName()),
-            escapeValue(up.getDeviceId()),
-            escapeValue(up.getIotId()),
-            escapeValue(up.getProductKey()),
-            timestamp, // INT64 不需要 String.valueOf
-            escapeValue(JSONUtil.toJsonStr(up.getData())),
-            maxStorage); // INT32 不需要 String.valueOf
-
-    try {
-      executeWithRetry(
-          () -> {
-            Session currentSession = getSession();
-            if (currentSession == null) {
-              throw new IllegalStateException("IoTDB Session 不可用");
-            }
-            currentSession.insertRecord(metadataPath, timestamp, measurements, types, values);
-            return null;
-          },
-          "insertRecord",
-          metadataPath,
-          up.getIotId());
-      log.debug(
-          "IoTDB插入事件元数据成功: path={}, event={}, iotId={}",
-          metadataPath,
-          up.getEvent(),
-          up.getIotId());
-    } catch (Exception e) {
-      log.error(
-          "IoTDB插入事件元数据失败: path={}, event={}, iotId={}",
-          metadataPath,
-          up.getEvent(),
-          up.getIotId(),
-          e);
-      throw e;
-    }
+    tabletWriter.add(
+        Series.EVENT_METADATA,
+        metadataPath,
+        timestamp,
+        escapeValue(MessageType.EVENT.name()),
+        escapeValue(up.getEvent()),
+        escapeValue(up.getEventName()),
+        escapeValue(up.getDeviceName()),
+        escapeValue(up.getDeviceId()),
+        escapeValue(up.getIotId()),
+        escapeValue(up.getProductKey()),
+        timestamp,
+        escapeValue(JSONUtil.toJsonStr(up.getData())),
+        maxStorage);
+    log.debug(
+        "IoTDB事件元数据已进入写入缓冲: path={}, event={}, iotId={}",
+        metadataPath,
+        up.getEvent(),
+        up.getIotId());
   }
 
   /**
    * 保存设备日志到IoTDB 数据路径结构: - 设备日志: root.device.{productKey}.{deviceId}.log - 元数据:
    * root.device.{productKey}.{deviceId}.metadata
    */
-  private void saveDeviceLogToIoTDB(IoTDeviceLog ioTDeviceLog, BaseUPRequest upRequest)
-      throws Exception {
-    // 通过 executeWithRetry 统一处理，无需在此检查 session
-
+  private void saveDeviceLogToIoTDB(IoTDeviceLog ioTDeviceLog, BaseUPRequest upRequest) {
     // 主日志路径 (对应iot_device_log_*)
     String devicePath =
         buildDevicePath(ioTDeviceLog.getProductKey(), ioTDeviceLog.getDeviceId()) + ".log";
@@ -758,71 +633,24 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
             .toInstant()
             .toEpochMilli();
 
-    // 字段定义（对齐 MySQL iot_device_log 表结构）
-    List<String> measurements =
-        List.of(
-            "message_type",
-            "content",
-            "event",
-            "command_id",
-            "command_status",
-            "point",
-            "device_name");
-
-    // 显式指定数据类型（重要：防止 IoTDB 自动推断错误）
-    List<org.apache.iotdb.tsfile.file.metadata.enums.TSDataType> types =
-        List.of(
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
-                .TEXT, // message_type: varchar(20)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // content: text
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // event: varchar(80)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // command_id: varchar(32)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT32, // command_status: tinyint
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT, // point: varchar(128)
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT // device_name: varchar(32)
-        );
-
-    // 字段值（需要根据类型转换）
-    List<Object> values =
-        List.of(
-            escapeValue(ioTDeviceLog.getMessageType()),
-            escapeValue(ioTDeviceLog.getContent()),
-            escapeValue(ioTDeviceLog.getEvent()),
-            escapeValue(ioTDeviceLog.getCommandId()),
-            ioTDeviceLog.getCommandStatus() != null
-                ? ioTDeviceLog.getCommandStatus()
-                : 0, // INT32 不需要 String.valueOf
-            escapeValue(ioTDeviceLog.getPoint()),
-            escapeValue(ioTDeviceLog.getDeviceName()));
-
-    try {
-      executeWithRetry(
-          () -> {
-            Session currentSession = getSession();
-            if (currentSession == null) {
-              throw new IllegalStateException("IoTDB Session 不可用");
-            }
-            currentSession.insertRecord(devicePath, timestamp, measurements, types, values);
-            return null;
-          },
-          "insertRecord",
-          devicePath,
-          ioTDeviceLog.getIotId());
-      log.debug(
-          "IoTDB插入设备日志成功: path={}, timestamp={}, productKey={}, deviceId={}",
-          devicePath,
-          timestamp,
-          ioTDeviceLog.getProductKey(),
-          ioTDeviceLog.getDeviceId());
-    } catch (Exception e) {
-      log.error(
-          "IoTDB插入设备日志失败: path={}, productKey={}, deviceId={}, error={}",
-          devicePath,
-          ioTDeviceLog.getProductKey(),
-          ioTDeviceLog.getDeviceId(),
-          e.getMessage());
-      throw e;
-    }
+    // 字段值顺序与 Series.LOG 测点一致
+    tabletWriter.add(
+        Series.LOG,
+        devicePath,
+        timestamp,
+        escapeValue(ioTDeviceLog.getMessageType()),
+        escapeValue(ioTDeviceLog.getContent()),
+        escapeValue(ioTDeviceLog.getEvent()),
+        escapeValue(ioTDeviceLog.getCommandId()),
+        ioTDeviceLog.getCommandStatus() != null ? ioTDeviceLog.getCommandStatus() : 0,
+        escapeValue(ioTDeviceLog.getPoint()),
+        escapeValue(ioTDeviceLog.getDeviceName()));
+    log.debug(
+        "IoTDB设备日志已进入写入缓冲: path={}, timestamp={}, productKey={}, deviceId={}",
+        devicePath,
+        timestamp,
+        ioTDeviceLog.getProductKey(),
+        ioTDeviceLog.getDeviceId());
   }
 
   /**
@@ -836,132 +664,58 @@ public class IoTDBIoTDeviceLogService extends AbstractIoTDeviceLogService {
       String propertyName,
       String formatValue,
       String symbol,
-      long timestamp)
-      throws Exception {
-    // 通过 executeWithRetry 统一处理，无需在此检查 session
-
+      long timestamp) {
     String seriesPath =
         buildDevicePath(up.getProductKey(), up.getDeviceId())
             + ".property."
             + sanitizePathNode(property);
-
-    List<String> measurements =
-        List.of(
-            "message_type",
-            "content",
-            "create_time",
-            "device_name",
-            "device_id",
-            "iot_id",
-            "product_key",
-            "ext1",
-            "ext2",
-            "ext3");
-
-    List<org.apache.iotdb.tsfile.file.metadata.enums.TSDataType> types =
-        List.of(
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT64,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT);
-
-    List<Object> values =
-        List.of(
-            escapeValue(MessageType.PROPERTIES.name()),
-            escapeValue(content),
-            timestamp,
-            escapeValue(up.getDeviceName()),
-            escapeValue(up.getDeviceId()),
-            escapeValue(up.getIotId()),
-            escapeValue(up.getProductKey()),
-            escapeValue(propertyName),
-            escapeValue(formatValue),
-            escapeValue(symbol));
-
-    executeWithRetry(
-        () -> {
-          Session currentSession = getSession();
-          if (currentSession == null) {
-            throw new IllegalStateException("IoTDB Session 不可用");
-          }
-          currentSession.insertRecord(seriesPath, timestamp, measurements, types, values);
-          return null;
-        },
-        "insertRecord",
+    tabletWriter.add(
+        Series.PROPERTY,
         seriesPath,
-        up.getIotId());
-
+        timestamp,
+        escapeValue(MessageType.PROPERTIES.name()),
+        escapeValue(content),
+        timestamp,
+        escapeValue(up.getDeviceName()),
+        escapeValue(up.getDeviceId()),
+        escapeValue(up.getIotId()),
+        escapeValue(up.getProductKey()),
+        escapeValue(propertyName),
+        escapeValue(formatValue),
+        escapeValue(symbol));
     log.debug(
-        "IoTDB插入属性拆分序列成功: path={}, property={}, iotId={}", seriesPath, property, up.getIotId());
+        "IoTDB属性拆分序列已进入写入缓冲: path={}, property={}, iotId={}",
+        seriesPath,
+        property,
+        up.getIotId());
   }
 
   /**
    * 按事件名拆分时间序列写入 路径: root.device.{productKey}.{deviceId}.event.{sanitizedEvent}
    * 精简字段：message_type,content,create_time,ext1(maxStorage)
    */
-  private void saveEventSeriesToIoTDB(BaseUPRequest up, int maxStorage, long timestamp)
-      throws Exception {
-    // 通过 executeWithRetry 统一处理，无需在此检查 session
-
+  private void saveEventSeriesToIoTDB(BaseUPRequest up, int maxStorage, long timestamp) {
     String seriesPath =
         buildDevicePath(up.getProductKey(), up.getDeviceId())
             + ".event."
             + sanitizePathNode(up.getEvent());
-
-    List<String> measurements =
-        List.of(
-            "message_type",
-            "content",
-            "create_time",
-            "device_name",
-            "device_id",
-            "iot_id",
-            "product_key",
-            "ext1");
-
-    List<org.apache.iotdb.tsfile.file.metadata.enums.TSDataType> types =
-        List.of(
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.INT64,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT,
-            org.apache.iotdb.tsfile.file.metadata.enums.TSDataType.TEXT);
-
-    List<Object> values =
-        List.of(
-            escapeValue(MessageType.EVENT.name()),
-            escapeValue(up.getEventName()),
-            timestamp,
-            escapeValue(up.getDeviceName()),
-            escapeValue(up.getDeviceId()),
-            escapeValue(up.getIotId()),
-            escapeValue(up.getProductKey()),
-            String.valueOf(maxStorage));
-
-    executeWithRetry(
-        () -> {
-          Session currentSession = getSession();
-          if (currentSession == null) {
-            throw new IllegalStateException("IoTDB Session 不可用");
-          }
-          currentSession.insertRecord(seriesPath, timestamp, measurements, types, values);
-          return null;
-        },
-        "insertRecord",
+    tabletWriter.add(
+        Series.EVENT,
         seriesPath,
-        up.getIotId());
-
+        timestamp,
+        escapeValue(MessageType.EVENT.name()),
+        escapeValue(up.getEventName()),
+        timestamp,
+        escapeValue(up.getDeviceName()),
+        escapeValue(up.getDeviceId()),
+        escapeValue(up.getIotId()),
+        escapeValue(up.getProductKey()),
+        String.valueOf(maxStorage));
     log.debug(
-        "IoTDB插入事件拆分序列成功: path={}, event={}, iotId={}", seriesPath, up.getEvent(), up.getIotId());
+        "IoTDB事件拆分序列已进入写入缓冲: path={}, event={}, iotId={}",
+        seriesPath,
+        up.getEvent(),
+        up.getIotId());
   }
 
   /** 转义字符串值，防止SQL注入 */
@@ -0,0 +1,216 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.dm.device.service.log;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iotdb.session.pool.SessionPool;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * IoTDB 批量写入
+ *
+ * <p>各类日志行先进入 {@link LogBatchBuffer}，后台线程按设备路径合并为 Tablet，通过 SessionPool 一次 insertTablets 写入，
+ * 取代逐条 insertRecord。各类序列的测点和数据类型预先定义，写入时不再重复构建。SessionPool 自带断线重建连接，失败时按退避间隔重试。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/15 16:10
+ */
+@Slf4j
+class IoTDBTabletWriter {
+
+  /** 序列类型及其测点，测点顺序即行值顺序 */
+  enum Series {
+    /** root.device.{productKey}.{deviceId}.log */
+    LOG(
+        text("message_type"),
+        text("content"),
+        text("event"),
+        text("command_id"),
+        int32("command_status"),
+        text("point"),
+        text("device_name")),
+    /** root.device.{productKey}.{deviceId}.property_metadata */
+    PROPERTY_METADATA(
+        text("message_type"),
+        text("property"),
+        text("content"),
+        text("device_name"),
+        text("device_id"),
+        text("iot_id"),
+        text("product_key"),
+        int64("create_time"),
+        text("ext1"),
+        text("ext2"),
+        text("ext3")),
+    /** root.device.{productKey}.{deviceId}.event_metadata */
+    EVENT_METADATA(
+        text("message_type"),
+        text("event"),
+        text("content"),
+        text("device_name"),
+        text("device_id"),
+        text("iot_id"),
+        text("product_key"),
+        int64("create_time"),
+        text("ext1"),
+        int32("max_storage")),
+    /** root.device.{productKey}.{deviceId}.property.{property} */
+    PROPERTY(
+        text("message_type"),
+        text("content"),
+        int64("create_time"),
+        text("device_name"),
+        text("device_id"),
+        text("iot_id"),
+        text("product_key"),
+        text("ext1"),
+        text("ext2"),
+        text("ext3")),
+    /** root.device.{productKey}.{deviceId}.event.{event} */
+    EVENT(
+        text("message_type"),
+        text("content"),
+        int64("create_time"),
+        text("device_name"),
+        text("device_id"),
+        text("iot_id"),
+        text("product_key"),
+        text("ext1"));
+
+    private final List<MeasurementSchema> schemas;
+
+    Series(MeasurementSchema... schemas) {
+      this.schemas = List.of(schemas);
+    }
+
+    private static MeasurementSchema text(String measurement) {
+      return new MeasurementSchema(measurement, TSDataType.TEXT);
+    }
+
+    private static MeasurementSchema int32(String measurement) {
+      return new MeasurementSchema(measurement, TSDataType.INT32);
+    }
+
+    private static MeasurementSchema int64(String measurement) {
+      return new MeasurementSchema(measurement, TSDataType.INT64);
+    }
+  }
+
+  /** 一行数据，TEXT 为 String，INT32 为 Integer，INT64 为 Long */
+  record Row(Series series, String devicePath, long timestamp, Object[] values) {}
+
+  private final SessionPool sessionPool;
+
+  private final int maxRetries;
+
+  private final long[] backoffMillis;
+
+  /** 重试耗尽后的告警 */
+  private final BiConsumer<String, Exception> alert;
+
+  private final LogBatchBuffer<Row> buffer;
+
+  IoTDBTabletWriter(
+      SessionPool sessionPool,
+      int maxRetries,
+      long[] backoffMillis,
+      BiConsumer<String, Exception> alert,
+      int capacity,
+      int batchSize,
+      long lingerMs,
+      long offerTimeoutMs) {
+    this.sessionPool = sessionPool;
+    this.maxRetries = Math.max(maxRetries, 1);
+    this.backoffMillis = backoffMillis;
+    this.alert = alert;
+    this.buffer =
+        new LogBatchBuffer<>(
+            "iotdb", "tablet", capacity, batchSize, lingerMs, offerTimeoutMs, this::write);
+  }
+
+  /** 提交一行，异步批量写入 */
+  void add(Series series, String devicePath, long timestamp, Object... values) {
+    buffer.add(new Row(series, devicePath, timestamp, values));
+  }
+
+  void bindTo(MeterRegistry registry) {
+    buffer.bindTo(registry);
+  }
+
+  /** 写完缓冲中的数据并关闭连接池 */
+  void close() {
+    buffer.close();
+    sessionPool.close();
+  }
+
+  private void write(List<Row> rows) {
+    Map<String, Tablet> tablets = toTablets(rows);
+    Exception last = null;
+    for (int i = 0; i < maxRetries; i++) {
+      try {
+        sessionPool.insertTablets(tablets);
+        return;
+      } catch (Exception e) {
+        last = e;
+        log.warn(
+            "IoTDB insertTablets 失败，tablets={}, rows={}, attempt={}/{}, error={}",
+            tablets.size(),
+            rows.size(),
+            i + 1,
+            maxRetries,
+            e.getMessage());
+        if (i < maxRetries - 1 && i < backoffMillis.length) {
+          try {
+            Thread.sleep(backoffMillis[i]);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+    }
+    alert.accept("tablets=" + tablets.size() + ", rows=" + rows.size(), last);
+    throw new IllegalStateException("IoTDB批量写入失败，rows=" + rows.size(), last);
+  }
+
+  /** 同一设备路径的行合并为一个 Tablet */
+  static Map<String, Tablet> toTablets(List<Row> rows) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (Row row : rows) {
+      counts.merge(row.devicePath(), 1, Integer::sum);
+    }
+    Map<String, Tablet> tablets = new LinkedHashMap<>(counts.size() * 4 / 3 + 1);
+    for (Row row : rows) {
+      List<MeasurementSchema> schemas = row.series().schemas;
+      Tablet tablet =
+          tablets.computeIfAbsent(
+              row.devicePath(), path -> new Tablet(path, schemas, counts.get(path)));
+      int index = tablet.rowSize++;
+      tablet.addTimestamp(index, row.timestamp());
+      Object[] values = row.values();
+      for (int i = 0; i < schemas.size(); i++) {
+        tablet.addValue(schemas.get(i).getMeasurementId(), index, values[i]);
+      }
+    }
+    return tablets;
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.dm.device.service.log;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 日志批量写入缓冲
+ *
+ * <p>每张表一个缓冲。日志先进入有界队列，后台线程攒够批量大小或等待超过 linger 时间后合并为一次批量写入。 队列满时调用线程最多阻塞
+ * offerTimeout，仍写不进则交给溢出处理，默认由调用线程直接写入，以此向上游施加背压而不丢日志。关闭时写完队列中剩余日志。
+ *
+ * <p>实现 {@link MeterBinder}，绑定后暴露队列深度、写入耗时、单批行数和写入成功/失败/溢出条数。
+ *
+ * @param <T> 行类型
+ * @since 2025/9/30 16:10
+ */
+@Slf4j
+public class LogBatchBuffer<T> implements MeterBinder {
+
+  private final String store;
+
+  private final String table;
+
+  private final int batchSize;
+
+  private final long lingerMs;
+
+  private final long offerTimeoutMs;
+
+  private final Consumer<List<T>> writer;
+
+  /** 队列满时的处理，默认由调用线程直接写入 */
+  private final Consumer<List<T>> overflowHandler;
+
+  private final BlockingQueue<T> queue;
+
+  private final AtomicLong written = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicLong overflow = new AtomicLong();
+
+  private final Thread worker;
+
+  private volatile boolean running = true;
+
+  private volatile Timer flushTimer;
+
+  private volatile DistributionSummary batchSizeSummary;
+
+  /**
+   * @param store 存储类型，用于线程名和指标标签
+   * @param table 表名
+   * @param capacity 队列容量
+   * @param batchSize 单次写入最大行数
+   * @param lingerMs 首行入队后最多等待多久写入
+   * @param offerTimeoutMs 队列满时调用线程最多等待多久
+   * @param writer 批量写入，抛出异常视为整批失败，抛出 {@link PartialWriteException} 时只计其中失败的行
+   */
+  public LogBatchBuffer(
+      String store,
+      String table,
+      int capacity,
+      int batchSize,
+      long lingerMs,
+      long offerTimeoutMs,
+      Consumer<List<T>> writer) {
+    this(store, table, capacity, batchSize, lingerMs, offerTimeoutMs, writer, null);
+  }
+
+  /**
+   * 指定队列满时的处理，其余参数同 {@link #LogBatchBuffer(String, String, int, int, long, long, Consumer)}
+   *
+   * @param overflowHandler 队列满时的处理，为null时由调用线程直接写入
+   */
+  public LogBatchBuffer(
+      String store,
+      String table,
+      int capacity,
+      int batchSize,
+      long lingerMs,
+      long offerTimeoutMs,
+      Consumer<List<T>> writer,
+      Consumer<List<T>> overflowHandler) {
+    this.store = store;
+    this.table = table;
+    this.batchSize = Math.max(1, batchSize);
+    this.lingerMs = Math.max(0, lingerMs);
+    this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+    this.writer = writer;
+    this.overflowHandler = overflowHandler;
+    this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+    this.worker =
+        Thread.ofPlatform().name(store + "-log-buffer-" + table).daemon().start(this::loop);
+  }
+
+  /** 提交一行，异步批量写入 */
+  public void add(T row) {
+    boolean queued = false;
+    if (running) {
+      try {
+        queued = queue.offer(row, offerTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (!queued) {
+      overflow.incrementAndGet();
+      if (overflowHandler != null) {
+        overflowHandler.accept(List.of(row));
+      } else {
+        flush(List.of(row));
+      }
+    }
+  }
+
+  /** 提交多行，异步批量写入 */
+  public void addAll(List<T> rows) {
+    for (T row : rows) {
+      add(row);
+    }
+  }
+
+  private void loop() {
+    long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+    while (running) {
+      try {
+        T first = queue.poll(Math.max(lingerMs, 100), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        List<T> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        // 攒够一批或等到 linger 超时
+        while (batch.size() < batchSize) {
+          queue.drainTo(batch, batchSize - batch.size());
+          long remain = deadline - System.nanoTime();
+          if (batch.size() >= batchSize || remain <= 0 || !running) {
+            break;
+          }
+          T next = queue.poll(remain, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        log.error("[{}] 日志写入线程异常, table={}", store, table, e);
+      }
+    }
+  }
+
+  private void flush(List<T> batch) {
+    long start = System.nanoTime();
+    try {
+      writer.accept(batch);
+      written.addAndGet(batch.size());
+      log.debug("[{}] 批量写入日志成功, table={}, size={}", store, table, batch.size());
+    } catch (PartialWriteException e) {
+      int failedRows = Math.min(e.getFailedRows(), batch.size());
+      written.addAndGet(batch.size() - failedRows);
+      failed.addAndGet(failedRows);
+      log.error(
+          "[{}] 批量写入日志部分失败, table={}, size={}, failed={}",
+          store,
+          table,
+          batch.size(),
+          failedRows,
+          e.getCause());
+    } catch (Exception e) {
+      failed.addAndGet(batch.size());
+      log.error("[{}] 批量写入日志异常, table={}, size={}", store, table, batch.size(), e);
+    } finally {
+      Timer timer = flushTimer;
+      if (timer != null) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      DistributionSummary summary = batchSizeSummary;
+      if (summary != null) {
+        summary.record(batch.size());
+      }
+    }
+  }
+
+  /** 停止后台线程并写完队列中剩余日志 */
+  public void close() {
+    // 不中断后台线程，避免打断正在进行的写入，等其当前批次写完后退出
+    running = false;
+    try {
+      worker.join(lingerMs + 5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<T> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    for (int i = 0; i < rest.size(); i += batchSize) {
+      flush(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+    }
+    log.info(
+        "[{}] 日志缓冲已关闭, table={}, written={}, failed={}, overflow={}",
+        store,
+        table,
+        written.get(),
+        failed.get(),
+        overflow.get());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("iot.log.buffer.depth", queue, BlockingQueue::size)
+        .description("日志缓冲中等待写入的行数")
+        .tags("store", store, "table", table)
+        .register(registry);
+    FunctionCounter.builder("iot.log.buffer.written", written, AtomicLong::get)
+        .tags("store", store, "table", table)
+        .register(registry);
+    FunctionCounter.builder("iot.log.buffer.failed", failed, AtomicLong::get)
+        .tags("store", store, "table", table)
+        .register(registry);
+    FunctionCounter.builder("iot.log.buffer.overflow", overflow, AtomicLong::get)
+        .description("队列满时未能入队的行数")
+        .tags("store", store, "table", table)
+        .register(registry);
+    batchSizeSummary =
+        DistributionSummary.builder("iot.log.buffer.batch.size")
+            .description("单批写入行数")
+            .tags("store", store, "table", table)
+            .register(registry);
+    flushTimer =
+        Timer.builder("iot.log.buffer.flush")
+            .description("单批写入耗时")
+            .tags("store", store, "table", table)
+            .register(registry);
+  }
+
+  public int getPending() {
+    return queue.size();
+  }
+
+  public long getWritten() {
+    return written.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  public long getOverflow() {
+    return overflow.get();
+  }
+
+  /** 一批中只有部分行写入失败，其余行已写入 */
+  public static class PartialWriteException extends RuntimeException {
+
+    private final int failedRows;
+
+    /**
+     * @param failedRows 失败行数
+     * @param cause 最后一次写入失败的异常
+     */
+    public PartialWriteException(int failedRows, Throwable cause) {
+      super("日志写入失败 " + failedRows + " 行", cause);
+      this.failedRows = failedRows;
+    }
+
+    public int getFailedRows() {
+      return failedRows;
+    }
+  }
+}
@@ -23,10 +23,14 @@ import cn.universal.core.metadata.AbstractPropertyMetadata;
 import cn.universal.dm.device.entity.IoTDevicePropertiesBO;
 import cn.universal.dm.device.service.impl.IoTProductDeviceService;
 import cn.universal.persistence.base.BaseUPRequest;
+import cn.universal.persistence.consistent.DeviceMetaShardingRouter;
+import cn.universal.persistence.consistent.DeviceShardingRouter;
+import cn.universal.persistence.consistent.ITableShardingStrategy;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.dto.LogStorePolicyDTO;
 import cn.universal.persistence.entity.IoTDeviceEvents;
 import cn.universal.persistence.entity.IoTDeviceLog;
+import cn.universal.persistence.entity.IoTDeviceLogMetadata;
 import cn.universal.persistence.entity.IoTDeviceLogMetadata.IoTDeviceLogMetadataBuilder;
 import cn.universal.persistence.entity.IoTProduct;
 import cn.universal.persistence.entity.vo.IoTDeviceLogMetadataVO;
@@ -39,16 +43,34 @@ import cn.universal.persistence.query.LogQuery;
 import cn.universal.persistence.query.PageBean;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
  * 设备日志
  *
+ * <p>上行日志和元数据先进入写入缓冲，后台线程按目标分表分组，每组合并为一条多行 insert，数据库写入速率与上行速率解耦；
+ * 个别行导致整组失败时二分重试，只丢弃失败的行。
+ * 下行指令日志仍直接写入，回复到达时需能立即查到。
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/9/22 16:10
@@ -62,6 +84,9 @@ public class MysqlDeviceLogService extends AbstractIoTDeviceLogService {
   @Resource private IoTDeviceLogMetadataMapper ioTDeviceLogMetadataMapper;
   @Resource private IoTDeviceLogMetadataShardMapper ioTDeviceLogMetadataShardMapper;
   @Resource private IoTProductDeviceService iotProductDeviceService;
+  @Resource private DeviceShardingRouter deviceShardingRouter;
+  @Resource private DeviceMetaShardingRouter deviceMetaShardingRouter;
+  @Autowired private ObjectProvider<MeterRegistry> meterRegistryProvider;
 
   /** 日志分表是否开启 */
   @Value("${shard.log.enable:true}")
@@ -71,6 +96,153 @@ public class MysqlDeviceLogService extends AbstractIoTDeviceLogService {
   @Value("${shard.logMeta.enable:true}")
   private Boolean metaEnable;
 
+  /** 单次写入的最大行数，按分表分组后每组一条 insert */
+  @Value("${shard.log.batch.size:500}")
+  private int batchSize;
+
+  /** 首行入缓冲后最多等待多久写入 */
+  @Value("${shard.log.batch.linger-ms:500}")
+  private long lingerMs;
+
+  /** 写入缓冲容量（行），日志和元数据各一个缓冲 */
+  @Value("${shard.log.batch.capacity:50000}")
+  private int bufferCapacity;
+
+  /** 缓冲满时调用线程最多等待多久，超时后直接写入 */
+  @Value("${shard.log.batch.offer-timeout-ms:200}")
+  private long offerTimeoutMs;
+
+  private LogBatchBuffer<IoTDeviceLog> deviceLogBuffer;
+
+  private LogBatchBuffer<IoTDeviceLogMetadata> metadataBuffer;
+
+  @PostConstruct
+  public void initBuffers() {
+    if (enable) {
+      deviceLogBuffer =
+          newBuffer(
+              "iot_device_log",
+              rows ->
+                  writeByShard(
+                      rows,
+                      IoTDeviceLog::getIotId,
+                      "iot_device_log",
+                      deviceShardingRouter,
+                      ioTDeviceLogShardMapper::batchInsert));
+    }
+    if (metaEnable) {
+      metadataBuffer =
+          newBuffer(
+              "iot_device_log_metadata",
+              rows ->
+                  writeByShard(
+                      rows,
+                      IoTDeviceLogMetadata::getIotId,
+                      "iot_device_log_metadata",
+                      deviceMetaShardingRouter,
+                      ioTDeviceLogMetadataShardMapper::batchInsert));
+    }
+  }
+
+  private <T> LogBatchBuffer<T> newBuffer(
+      String table, Consumer<List<T>> writer) {
+    LogBatchBuffer<T> buffer =
+        new LogBatchBuffer<>(
+            storePolicy, table, bufferCapacity, batchSize, lingerMs, offerTimeoutMs, writer);
+    meterRegistryProvider.ifAvailable(buffer::bindTo);
+    return buffer;
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (deviceLogBuffer != null) {
+      deviceLogBuffer.close();
+    }
+    if (metadataBuffer != null) {
+      metadataBuffer.close();
+    }
+  }
+
+  /**
+   * 按目标分表分组写入，每组一条多行 insert
+   *
+   * <p>分表由组内任一行的 iotId 路由，与 {@code TableShardInterceptor} 的路由一致。某组因个别行（超长、违反约束等）
+   * 写入失败时二分重试，只丢弃真正失败的行；连接失败、锁超时等与数据无关的异常不重试，整组计为失败。
+   * 某个分表写入失败不影响其余分表，全部写完后以 {@link LogBatchBuffer.PartialWriteException} 报告失败行数
+   */
+  static <T> void writeByShard(
+      List<T> rows,
+      Function<T, String> iotIdOf,
+      String tableNamePrefix,
+      ITableShardingStrategy router,
+      BiConsumer<String, List<T>> insert) {
+    Map<String, List<T>> byTable = new LinkedHashMap<>();
+    ShardWrite failures = new ShardWrite();
+    for (T row : rows) {
+      try {
+        String table = router.generateTableName(tableNamePrefix, iotIdOf.apply(row));
+        byTable.computeIfAbsent(table, k -> new ArrayList<>()).add(row);
+      } catch (RuntimeException e) {
+        log.error("日志分表路由失败，丢弃该行, table={}, error={}", tableNamePrefix, e.getMessage());
+        failures.fail(1, e);
+      }
+    }
+    for (Map.Entry<String, List<T>> entry : byTable.entrySet()) {
+      insertOrBisect(entry.getKey(), entry.getValue(), iotIdOf, insert, failures);
+    }
+    if (failures.rows > 0) {
+      throw new LogBatchBuffer.PartialWriteException(failures.rows, failures.last);
+    }
+  }
+
+  /** 写入一组，失败时对半拆分分别重试，直到定位到单行 */
+  private static <T> void insertOrBisect(
+      String table,
+      List<T> group,
+      Function<T, String> iotIdOf,
+      BiConsumer<String, List<T>> insert,
+      ShardWrite failures) {
+    try {
+      insert.accept(iotIdOf.apply(group.get(0)), group);
+    } catch (RuntimeException e) {
+      if (group.size() == 1) {
+        log.error(
+            "日志写入失败，丢弃该行, table={}, iotId={}, error={}",
+            table,
+            iotIdOf.apply(group.get(0)),
+            e.getMessage());
+        failures.fail(1, e);
+      } else if (!isRowError(e)) {
+        log.error("日志分表批量写入失败, table={}, size={}", table, group.size(), e);
+        failures.fail(group.size(), e);
+      } else {
+        int half = group.size() / 2;
+        insertOrBisect(table, group.subList(0, half), iotIdOf, insert, failures);
+        insertOrBisect(table, group.subList(half, group.size()), iotIdOf, insert, failures);
+      }
+    }
+  }
+
+  /** 可能由个别行引起的异常；连接失败、锁超时等重试无意义的除外 */
+  private static boolean isRowError(RuntimeException e) {
+    return !(e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException
+        || e instanceof DataAccessResourceFailureException);
+  }
+
+  /** 一次写入中失败的行数和最后一次异常 */
+  private static final class ShardWrite {
+
+    private int rows;
+
+    private RuntimeException last;
+
+    private void fail(int count, RuntimeException e) {
+      rows += count;
+      last = e;
+    }
+  }
+
   @Override
   public String getPolicy() {
     return storePolicy;
@@ -85,7 +257,7 @@ public class MysqlDeviceLogService extends AbstractIoTDeviceLogService {
       try {
         IoTDeviceLog log = build(upRequest, ioTDeviceDTO);
         if (enable) {
-          ioTDeviceLogShardMapper.insertSelective(log);
+          deviceLogBuffer.add(log);
         }
       } catch (Exception e) {
         log.error("保存设备日志报错={}", e);
@@ -141,8 +313,7 @@ public class MysqlDeviceLogService extends AbstractIoTDeviceLogService {
                   IoTDeviceLogMetadataBuilder.ext2(ioTDevicePropertiesBO.getFormatValue());
                   IoTDeviceLogMetadataBuilder.ext3(ioTDevicePropertiesBO.getSymbol());
                   if (metaEnable) {
-                    ioTDeviceLogMetadataShardMapper.insertUseGeneratedKeys(
-                        IoTDeviceLogMetadataBuilder.build());
+                    metadataBuffer.add(IoTDeviceLogMetadataBuilder.build());
                   }
                 }
               });
@@ -157,7 +328,7 @@ public class MysqlDeviceLogService extends AbstractIoTDeviceLogService {
       IoTDeviceLogMetadataBuilder.event(up.getEvent());
       IoTDeviceLogMetadataBuilder.content(up.getEventName());
       if (metaEnable) {
-        ioTDeviceLogMetadataShardMapper.insertUseGeneratedKeys(IoTDeviceLogMetadataBuilder.build());
+        metadataBuffer.add(IoTDeviceLogMetadataBuilder.build());
       }
     }
   }
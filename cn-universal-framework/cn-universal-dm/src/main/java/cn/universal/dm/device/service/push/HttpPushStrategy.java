@@ -15,30 +15,40 @@ package cn.universal.dm.device.service.push;
 import cn.hutool.core.exceptions.ExceptionUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.digest.MD5;
-import cn.hutool.http.Header;
-import cn.hutool.http.HttpException;
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
-import cn.hutool.http.HttpUtil;
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.entity.bo.UPPushBO;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * HTTP推送策略实现
  *
+ * <p>每个目标地址（scheme://host:port）复用一个 keep-alive 的 {@link HttpClient}，并用信号量限制该地址的并发请求数，
+ * 一个慢地址最多占满自己的并发额度，不影响其他地址。
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/1/9
  */
 @Slf4j
 @Component
-public class HttpPushStrategy implements PushStrategy {
+public class HttpPushStrategy implements PushStrategy<UPPushBO.HttpPushConfig> {
 
   /** HTTP请求超时时间（毫秒） */
   private static final Integer HTTP_TIME_OUT = 1200;
@@ -52,14 +62,33 @@ public class HttpPushStrategy implements PushStrategy {
 
   private static final String CACHE_NOTICE = "DNotice:";
 
-  private UPPushBO.HttpPushConfig httpConfig;
+  /** 单个目标地址的最大并发请求数 */
+  @Value("${push.http.max-in-flight:64}")
+  private int maxInFlight;
 
-  public void setConfig(UPPushBO.HttpPushConfig httpConfig) {
-    this.httpConfig = httpConfig;
-  }
+  /** 是否优先使用HTTP/2，https 通过ALPN协商，不支持时回退HTTP/1.1 */
+  @Value("${push.http.http2:false}")
+  private boolean http2;
+
+  private final ExecutorService httpExecutor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("push-http-", 0).factory());
+
+  /** 目标地址 -> 连接池，长时间未使用的自动关闭 */
+  private final Cache<String, Endpoint> endpoints =
+      Caffeine.newBuilder()
+          .expireAfterAccess(10, TimeUnit.MINUTES)
+          .maximumSize(1024)
+          .<String, Endpoint>removalListener(
+              (key, endpoint, cause) -> {
+                if (endpoint != null) {
+                  endpoint.client.shutdown();
+                }
+              })
+          .build();
 
   @Override
-  public IoTPushResult execute(BaseUPRequest request, String messageJson) {
+  public IoTPushResult execute(
+      BaseUPRequest request, PushEnvelope envelope, UPPushBO.HttpPushConfig httpConfig) {
     if (httpConfig == null) {
       log.warn("[HTTP推送] 配置为空，跳过推送");
       return IoTPushResult.failed(
@@ -67,7 +96,7 @@ public class HttpPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "HTTP",
-          messageJson,
+          envelope,
           "配置为空",
           "CONFIG_NULL");
     }
@@ -80,7 +109,7 @@ public class HttpPushStrategy implements PushStrategy {
             request.getProductKey(),
             request.getIotId(),
             "HTTP",
-            messageJson,
+            envelope,
             "URL为空",
             "URL_EMPTY");
       }
@@ -93,46 +122,61 @@ public class HttpPushStrategy implements PushStrategy {
             request.getProductKey(),
             request.getIotId(),
             "HTTP",
-            messageJson,
+            envelope,
             "URL已被冻结",
             "URL_BLOCKED");
       }
 
       // 创建HTTP请求
-      HttpRequest httpRequest = HttpUtil.createPost(httpConfig.getUrl());
-      httpRequest.timeout(HTTP_TIME_OUT);
+      URI uri = URI.create(httpConfig.getUrl());
+      HttpRequest.Builder httpRequest =
+          HttpRequest.newBuilder(uri)
+              .timeout(Duration.ofMillis(HTTP_TIME_OUT))
+              .POST(HttpRequest.BodyPublishers.ofByteArray(envelope.sharedBytes()));
 
       // 添加时间戳和签名
       String timestamp = String.valueOf(System.currentTimeMillis());
-      httpRequest.header("X-Timestamp", timestamp);
-      if (StrUtil.isNotBlank(httpConfig.getHeader())
-          && StrUtil.isNotBlank(httpConfig.getSecret())) {
-        httpRequest.header(httpConfig.getHeader(), httpConfig.getSecret());
-      }
-      httpRequest.header(Header.CONTENT_TYPE, "application/json");
+      httpRequest.setHeader("X-Timestamp", timestamp);
+      httpRequest.setHeader("Content-Type", "application/json");
 
       // 添加自定义请求头（如果有配置）
       if (StrUtil.isNotBlank(httpConfig.getHeader())) {
-        httpRequest.header(
+        httpRequest.setHeader(
             httpConfig.getHeader(),
             StrUtil.isBlank(httpConfig.getSecret())
                 ? MD5.create().digestHex(httpConfig.getHeader())
                 : httpConfig.getSecret());
       }
 
-      // 设置请求体
-      httpRequest.body(messageJson);
+      // 占用目标地址的并发额度，超时未获取则本次失败
+      Endpoint endpoint = endpoint(uri);
+      if (!endpoint.inFlight.tryAcquire(HTTP_TIME_OUT, TimeUnit.MILLISECONDS)) {
+        log.warn("[HTTP推送] 并发请求已满, url={}, maxInFlight={}", httpConfig.getUrl(), maxInFlight);
+        return IoTPushResult.failed(
+            request.getIoTDeviceDTO().getThirdPlatform(),
+            request.getProductKey(),
+            request.getIotId(),
+            "HTTP",
+            envelope,
+            "并发请求已满",
+            "HTTP_BUSY");
+      }
 
       // 执行请求
-      HttpResponse response = httpRequest.execute();
+      HttpResponse<String> response;
+      try {
+        response = endpoint.client.send(httpRequest.build(), HttpResponse.BodyHandlers.ofString());
+      } finally {
+        endpoint.inFlight.release();
+      }
       String result = response.body();
 
       // 检查响应状态
-      if (response == null || response.getStatus() != 200) {
+      if (response.statusCode() != 200) {
         log.warn(
             "[HTTP推送] 推送失败, url={}, status={}, response={}",
             httpConfig.getUrl(),
-            response != null ? response.getStatus() : "null",
+            response.statusCode(),
             result);
         countFail(httpConfig.getUrl());
         return IoTPushResult.failed(
@@ -140,14 +184,14 @@ public class HttpPushStrategy implements PushStrategy {
             request.getProductKey(),
             request.getIotId(),
             "HTTP",
-            messageJson,
-            "HTTP状态码错误: " + (response != null ? response.getStatus() : "null"),
+            envelope,
+            "HTTP状态码错误: " + response.statusCode(),
             "HTTP_ERROR");
       }
       log.info(
           "[HTTP推送] 推送成功, url={}, status={}, messageJson={}",
           httpConfig.getUrl(),
-          response != null ? response.getStatus() : "null",
+          response.statusCode(),
           result);
       removeSuccess(httpConfig.getUrl());
 
@@ -156,10 +200,10 @@ public class HttpPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "HTTP",
-          messageJson,
+          envelope,
           System.currentTimeMillis());
 
-    } catch (HttpException e) {
+    } catch (IOException e) {
       log.warn(
           "[HTTP推送] 推送异常, url={}, deviceId={}, error={}",
           httpConfig.getUrl(),
@@ -171,9 +215,20 @@ public class HttpPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "HTTP",
-          messageJson,
+          envelope,
           "HTTP异常: " + e.getMessage(),
           "HTTP_EXCEPTION");
+    } catch (InterruptedException e) {
+      // 推送管理器判定超时后取消
+      Thread.currentThread().interrupt();
+      return IoTPushResult.failed(
+          request.getIoTDeviceDTO().getThirdPlatform(),
+          request.getProductKey(),
+          request.getIotId(),
+          "HTTP",
+          envelope,
+          "推送被中断",
+          "INTERRUPTED");
     } catch (Exception e) {
       log.error("[HTTP推送] 推送失败: {}, url={}", request.getIotId(), httpConfig.getUrl(), e);
       countFail(httpConfig.getUrl());
@@ -182,14 +237,14 @@ public class HttpPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "HTTP",
-          messageJson,
+          envelope,
           "推送异常: " + e.getMessage(),
           "PUSH_EXCEPTION");
     }
   }
 
   @Override
-  public boolean isSupported() {
+  public boolean isSupported(UPPushBO.HttpPushConfig httpConfig) {
     return httpConfig != null && httpConfig.isSupport() && httpConfig.isEnable();
   }
 
@@ -219,4 +274,36 @@ public class HttpPushStrategy implements PushStrategy {
       blockUrl.invalidate(CACHE_NOTICE + url);
     }
   }
+
+  private Endpoint endpoint(URI uri) {
+    String key = uri.getScheme() + "://" + uri.getAuthority();
+    return endpoints.get(key, k -> new Endpoint(newClient(), Math.max(1, maxInFlight)));
+  }
+
+  private HttpClient newClient() {
+    return HttpClient.newBuilder()
+        .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(HTTP_TIME_OUT))
+        .executor(httpExecutor)
+        .build();
+  }
+
+  @PreDestroy
+  public void destroy() {
+    endpoints.invalidateAll();
+    endpoints.cleanUp();
+    httpExecutor.shutdownNow();
+  }
+
+  /** 单个目标地址的连接池和并发额度 */
+  private static final class Endpoint {
+
+    private final HttpClient client;
+    private final Semaphore inFlight;
+
+    private Endpoint(HttpClient client, int maxInFlight) {
+      this.client = client;
+      this.inFlight = new Semaphore(maxInFlight);
+    }
+  }
 }
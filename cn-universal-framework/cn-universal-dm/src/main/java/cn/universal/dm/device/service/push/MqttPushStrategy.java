@@ -13,6 +13,7 @@
 package cn.universal.dm.device.service.push;
 
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.entity.bo.UPPushBO;
 import lombok.extern.slf4j.Slf4j;
@@ -30,13 +31,7 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
-public class MqttPushStrategy implements PushStrategy {
-
-  private UPPushBO.MqttPushConfig mqttConfig;
-
-  public void setConfig(UPPushBO.MqttPushConfig mqttConfig) {
-    this.mqttConfig = mqttConfig;
-  }
+public class MqttPushStrategy implements PushStrategy<UPPushBO.MqttPushConfig> {
 
   @Autowired
   @Qualifier("sysMQTTManager")
@@ -46,7 +41,8 @@ public class MqttPushStrategy implements PushStrategy {
   private String thingPrefix;
 
   @Override
-  public IoTPushResult execute(BaseUPRequest request, String messageJson) {
+  public IoTPushResult execute(
+      BaseUPRequest request, PushEnvelope envelope, UPPushBO.MqttPushConfig mqttConfig) {
     if (mqttConfig == null) {
       log.warn("[MQTT推送] 配置为空，跳过推送");
       return IoTPushResult.failed(
@@ -54,7 +50,7 @@ public class MqttPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "MQTT",
-          messageJson,
+          envelope,
           "配置为空",
           "CONFIG_NULL");
     }
@@ -72,7 +68,7 @@ public class MqttPushStrategy implements PushStrategy {
 
       log.info("[MQTT推送] 推送到Topic: {}, 消息: {}", fullTopic, request.getIotId());
 
-      mqttPushService.publishMessage(fullTopic, messageJson.getBytes(), 1, false);
+      mqttPushService.publishMessage(fullTopic, envelope.sharedBytes(), 1, false);
 
       // 暂时返回成功（实际实现时需要根据MQTT推送结果返回）
       return IoTPushResult.success(
@@ -80,7 +76,7 @@ public class MqttPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "MQTT",
-          messageJson,
+          envelope,
           System.currentTimeMillis());
 
     } catch (Exception e) {
@@ -90,14 +86,14 @@ public class MqttPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "MQTT",
-          messageJson,
+          envelope,
           "推送异常: " + e.getMessage(),
           "PUSH_EXCEPTION");
     }
   }
 
   @Override
-  public boolean isSupported() {
+  public boolean isSupported(UPPushBO.MqttPushConfig mqttConfig) {
     return mqttConfig != null && mqttConfig.isSupport() && mqttConfig.isEnable();
   }
 }
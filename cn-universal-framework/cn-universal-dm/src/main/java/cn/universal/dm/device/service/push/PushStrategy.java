@@ -13,29 +13,34 @@
 package cn.universal.dm.device.service.push;
 
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.persistence.base.BaseUPRequest;
 
 /**
  * 推送策略接口
  *
+ * <p>策略为无状态单例，配置随每次调用传入，可被多个推送并发使用
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/1/9
  */
-public interface PushStrategy {
+public interface PushStrategy<C> {
 
   /**
    * 执行推送
    *
    * @param request 上行请求
-   * @param messageJson 消息JSON字符串
+   * @param envelope 已序列化的消息，各渠道共享同一字节数组（{@link PushEnvelope#sharedBytes()}，只读）
+   * @param config 本次推送的配置
    */
-  IoTPushResult execute(BaseUPRequest request, String messageJson);
+  IoTPushResult execute(BaseUPRequest request, PushEnvelope envelope, C config);
 
   /**
    * 是否支持该推送类型
    *
+   * @param config 本次推送的配置
    * @return 是否支持
    */
-  boolean isSupported();
+  boolean isSupported(C config);
 }
@@ -12,24 +12,43 @@
 
 package cn.universal.dm.device.service.push;
 
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import cn.universal.core.message.UPRequest;
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.dm.device.service.push.processor.PushRetryProcessor;
+import cn.universal.dm.device.service.UPPushConfigService;
+import cn.universal.dm.device.service.impl.IoTDeviceService;
 import cn.universal.dm.device.service.push.processor.PushStatisticsProcessor;
 import cn.universal.persistence.base.BaseUPRequest;
+import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.entity.bo.UPPushBO;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * 推送策略管理器
  *
+ * <p>各渠道在虚拟线程上并发推送，配置随调用传入。每个渠道有独立的超时，超时的渠道记为失败并取消，
+ * 不拖慢其他渠道，单条消息的推送耗时不超过最慢渠道的超时时间。每条消息分配一个唯一的请求ID，各渠道结果共用，用于重试去重。
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/1/9
@@ -52,6 +71,28 @@ public class PushStrategyManager {
 
   @Autowired private PushRetryProcessor pushRetryProcessor;
 
+  @Autowired private IoTDeviceService ioTDeviceService;
+
+  @Autowired private UPPushConfigService upPushConfigService;
+
+  @Value("${push.fanout.http-timeout-ms:3000}")
+  private long httpTimeoutMs;
+
+  @Value("${push.fanout.mqtt-timeout-ms:2000}")
+  private long mqttTimeoutMs;
+
+  @Value("${push.fanout.kafka-timeout-ms:2000}")
+  private long kafkaTimeoutMs;
+
+  @Value("${push.fanout.rocketmq-timeout-ms:2000}")
+  private long rocketMQTimeoutMs;
+
+  /** 推送渠道，按此顺序推送 */
+  private static final List<String> CHANNELS = List.of("HTTP", "MQTT", "Kafka", "RocketMQ");
+
+  private final ExecutorService fanoutExecutor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("push-fanout-", 0).factory());
+
   /**
    * 执行推送
    *
@@ -65,53 +106,25 @@ public class PushStrategyManager {
       return null;
     }
 
-    String messageJson = JSONUtil.toJsonStr((UPRequest) request);
-    log.debug("[推送策略管理器] 开始推送消息: {}", request.getIotId());
-
-    List<IoTPushResult> results = new java.util.ArrayList<>();
+    // 只序列化一次，各渠道和推送结果共享同一个信封
+    PushEnvelope envelope = PushEnvelope.of((UPRequest) request);
+    String requestId = IdUtil.fastSimpleUUID();
+    log.debug("[推送策略管理器] 开始推送消息: {}, requestId={}", request.getIotId(), requestId);
 
-    // HTTP 推送
-    if (config.getHttp() != null && config.getHttp().isEnable()) {
-      httpPushStrategy.setConfig(config.getHttp());
-      if (httpPushStrategy.isSupported()) {
-        IoTPushResult result = executeSinglePush(httpPushStrategy, request, messageJson, "HTTP");
-        if (result != null) {
-          results.add(result);
-        }
+    List<ChannelPush> pushes = new ArrayList<>(CHANNELS.size());
+    for (String channel : CHANNELS) {
+      ChannelPush push = submit(channel, config, request, envelope, requestId);
+      if (push != null) {
+        pushes.add(push);
       }
     }
 
-    // MQTT 推送
-    if (config.getMqtt() != null && config.getMqtt().isEnable()) {
-      mqttPushStrategy.setConfig(config.getMqtt());
-      if (mqttPushStrategy.isSupported()) {
-        IoTPushResult result = executeSinglePush(mqttPushStrategy, request, messageJson, "MQTT");
-        if (result != null) {
-          results.add(result);
-        }
-      }
-    }
-
-    // Kafka 推送
-    if (config.getKafka() != null && config.getKafka().isEnable()) {
-      kafkaPushStrategy.setConfig(config.getKafka());
-      if (kafkaPushStrategy.isSupported()) {
-        IoTPushResult result = executeSinglePush(kafkaPushStrategy, request, messageJson, "Kafka");
-        if (result != null) {
-          results.add(result);
-        }
-      }
-    }
-
-    // RocketMQ 推送
-    if (config.getRocketMQ() != null && config.getRocketMQ().isEnable()) {
-      rocketMQPushStrategy.setConfig(config.getRocketMQ());
-      if (rocketMQPushStrategy.isSupported()) {
-        IoTPushResult result =
-            executeSinglePush(rocketMQPushStrategy, request, messageJson, "RocketMQ");
-        if (result != null) {
-          results.add(result);
-        }
+    // 按各自的截止时间等待，结果顺序与渠道顺序一致
+    List<IoTPushResult> results = new ArrayList<>(pushes.size());
+    for (ChannelPush push : pushes) {
+      IoTPushResult result = await(push, request, envelope);
+      if (result != null) {
+        results.add(result);
       }
     }
 
@@ -128,13 +141,169 @@ public class PushStrategyManager {
     return results;
   }
 
+  /**
+   * 重新推送失败的单个渠道，用于失败重试
+   *
+   * <p>按设备当前所属应用读取推送配置，使用保存的消息内容和请求ID，结果不再进入重试队列和推送后处理器
+   *
+   * @param failed 失败的推送
+   * @return 推送结果，设备已删除、消息内容缺失或渠道已停用时为null
+   */
+  public IoTPushResult resend(IoTPushResult failed) {
+    if (StrUtil.isBlank(failed.getDeviceId()) || StrUtil.isBlank(failed.getMessageContent())) {
+      return null;
+    }
+    IoTDeviceDTO device = ioTDeviceService.selectDevInstanceBO(failed.getDeviceId());
+    if (device == null) {
+      return null;
+    }
+    UPPushBO config = upPushConfigService.getPushConfig(device.getApplicationId());
+    if (config == null) {
+      return null;
+    }
+    BaseUPRequest request =
+        BaseUPRequest.builder()
+            .iotId(device.getIotId())
+            .productKey(device.getProductKey())
+            .deviceId(device.getDeviceId())
+            .ioTDeviceDTO(device)
+            .build();
+    PushEnvelope envelope = PushEnvelope.ofJson(failed.getMessageContent());
+    ChannelPush push =
+        submit(failed.getChannel(), config, request, envelope, failed.getRequestId());
+    return push == null ? null : await(push, request, envelope);
+  }
+
+  /**
+   * 提交单个渠道的推送
+   *
+   * @return 渠道未启用时为null
+   */
+  private ChannelPush submit(
+      String channel,
+      UPPushBO config,
+      BaseUPRequest request,
+      PushEnvelope envelope,
+      String requestId) {
+    switch (channel) {
+      case "HTTP" -> {
+        // HTTP 推送
+        UPPushBO.HttpPushConfig http = config.getHttp();
+        if (http != null && http.isEnable() && httpPushStrategy.isSupported(http)) {
+          return submit(
+              httpPushStrategy, http, request, envelope, channel, requestId, httpTimeoutMs);
+        }
+      }
+      case "MQTT" -> {
+        // MQTT 推送
+        UPPushBO.MqttPushConfig mqtt = config.getMqtt();
+        if (mqtt != null && mqtt.isEnable() && mqttPushStrategy.isSupported(mqtt)) {
+          return submit(
+              mqttPushStrategy, mqtt, request, envelope, channel, requestId, mqttTimeoutMs);
+        }
+      }
+      case "Kafka" -> {
+        // Kafka 推送
+        UPPushBO.KafkaPushConfig kafka = config.getKafka();
+        if (kafka != null && kafka.isEnable() && kafkaPushStrategy.isSupported(kafka)) {
+          return submit(
+              kafkaPushStrategy, kafka, request, envelope, channel, requestId, kafkaTimeoutMs);
+        }
+      }
+      case "RocketMQ" -> {
+        // RocketMQ 推送
+        UPPushBO.RocketMQPushConfig rocketMQ = config.getRocketMQ();
+        if (rocketMQ != null
+            && rocketMQ.isEnable()
+            && rocketMQPushStrategy.isSupported(rocketMQ)) {
+          return submit(
+              rocketMQPushStrategy,
+              rocketMQ,
+              request,
+              envelope,
+              channel,
+              requestId,
+              rocketMQTimeoutMs);
+        }
+      }
+      default -> log.warn("[推送策略管理器] 未知的推送渠道: {}", channel);
+    }
+    return null;
+  }
+
+  /** 在虚拟线程上提交单个渠道的推送 */
+  private <C> ChannelPush submit(
+      PushStrategy<C> strategy,
+      C channelConfig,
+      BaseUPRequest request,
+      PushEnvelope envelope,
+      String channel,
+      String requestId,
+      long timeoutMs) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    Future<IoTPushResult> future;
+    try {
+      future =
+          fanoutExecutor.submit(
+              () ->
+                  executeSinglePush(
+                      strategy, channelConfig, request, envelope, channel, requestId));
+    } catch (RejectedExecutionException e) {
+      // 停机过程中在当前线程推送
+      future =
+          CompletableFuture.completedFuture(
+              executeSinglePush(strategy, channelConfig, request, envelope, channel, requestId));
+    }
+    return new ChannelPush(channel, requestId, timeoutMs, deadline, future);
+  }
+
+  /** 等待单个渠道的结果，超时则取消该渠道 */
+  private IoTPushResult await(ChannelPush push, BaseUPRequest request, PushEnvelope envelope) {
+    try {
+      long remaining = push.deadline() - System.nanoTime();
+      return push.future().get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      push.future().cancel(true);
+      log.warn(
+          "[推送策略管理器] {} 推送超时: {}, timeout={}ms",
+          push.channel(),
+          request.getIotId(),
+          push.timeoutMs());
+      IoTPushResult result =
+          failedResult(
+              request, push.channel(), push.requestId(), envelope, "推送超时", "PUSH_TIMEOUT");
+      result.setStatus(IoTPushResult.PushStatus.TIMEOUT);
+      result.setResponseTime(push.timeoutMs());
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      push.future().cancel(true);
+      return failedResult(
+          request, push.channel(), push.requestId(), envelope, "推送被中断", "INTERRUPTED");
+    } catch (ExecutionException e) {
+      log.error("[推送策略管理器] {} 推送失败: {}", push.channel(), request.getIotId(), e.getCause());
+      return failedResult(
+          request,
+          push.channel(),
+          push.requestId(),
+          envelope,
+          e.getCause().getMessage(),
+          "PUSH_ERROR");
+    }
+  }
+
   /** 执行单个推送策略 */
-  private IoTPushResult executeSinglePush(
-      PushStrategy strategy, BaseUPRequest request, String messageJson, String channel) {
+  private <C> IoTPushResult executeSinglePush(
+      PushStrategy<C> strategy,
+      C channelConfig,
+      BaseUPRequest request,
+      PushEnvelope envelope,
+      String channel,
+      String requestId) {
     long startTime = System.currentTimeMillis();
 
     try {
-      IoTPushResult result = strategy.execute(request, messageJson);
+      IoTPushResult result = strategy.execute(request, envelope, channelConfig);
 
       // 补充推送结果信息
       if (result != null) {
@@ -142,28 +311,48 @@ public class PushStrategyManager {
         result.setProductKey(request.getProductKey());
         result.setChannel(channel);
         result.setResponseTime(System.currentTimeMillis() - startTime);
-        result.setRequestId(request.getIotId() + "_" + System.currentTimeMillis());
+        result.setRequestId(requestId);
+        result.setConfigId(configIdOf(request));
       }
 
       return result;
     } catch (Exception e) {
       log.error("[推送策略管理器] {} 推送失败: {}", channel, request.getIotId(), e);
+      return failedResult(request, channel, requestId, envelope, e.getMessage(), "PUSH_ERROR");
+    }
+  }
 
-      // 创建失败结果 - 从设备配置中获取平台信息
-      String platform = null;
-      if (request.getIoTDeviceDTO() != null) {
-        platform = request.getIoTDeviceDTO().getThirdPlatform();
-      }
-
-      return IoTPushResult.failed(
-          platform, // 从设备配置中获取平台信息
-          request.getProductKey(),
-          request.getIotId(),
-          channel,
-          messageJson,
-          e.getMessage(),
-          "PUSH_ERROR");
+  /** 创建失败结果 - 从设备配置中获取平台信息 */
+  private static IoTPushResult failedResult(
+      BaseUPRequest request,
+      String channel,
+      String requestId,
+      PushEnvelope envelope,
+      String errorMessage,
+      String errorCode) {
+    String platform = null;
+    if (request.getIoTDeviceDTO() != null) {
+      platform = request.getIoTDeviceDTO().getThirdPlatform();
     }
+    IoTPushResult result =
+        IoTPushResult.failed(
+            platform,
+            request.getProductKey(),
+            request.getIotId(),
+            channel,
+            envelope,
+            errorMessage,
+            errorCode);
+    result.setRequestId(requestId);
+    result.setConfigId(configIdOf(request));
+    return result;
+  }
+
+  /** 推送配置按应用划分，取设备所属应用 */
+  private static String configIdOf(BaseUPRequest request) {
+    return request.getIoTDeviceDTO() != null
+        ? request.getIoTDeviceDTO().getApplicationId()
+        : null;
   }
 
   /** 处理推送结果 */
@@ -176,6 +365,8 @@ public class PushStrategyManager {
       try {
         // 只处理非空结果
         if (result != null) {
+          // 实时推送结果计入端点熔断器
+          pushRetryProcessor.recordOutcome(result);
           // 处理失败推送
           if (!result.isOk()) {
             pushRetryProcessor.addToRetryQueue(result);
@@ -221,7 +412,7 @@ public class PushStrategyManager {
     // 执行推送前处理
     List<BaseUPRequest> processedRequests = upProcessorManager.executeBeforePush(requests);
 
-    List<IoTPushResult> allResults = new java.util.ArrayList<>();
+    List<IoTPushResult> allResults = new ArrayList<>();
 
     for (BaseUPRequest request : processedRequests) {
       try {
@@ -249,4 +440,16 @@ public class PushStrategyManager {
     log.info("[推送策略管理器] 批量推送完成，消息数量: {}, 结果数量: {}", requests.size(), allResults.size());
     return allResults;
   }
+
+  @PreDestroy
+  public void destroy() {
+    fanoutExecutor.shutdownNow();
+  }
+
+  private record ChannelPush(
+      String channel,
+      String requestId,
+      long timeoutMs,
+      long deadline,
+      Future<IoTPushResult> future) {}
 }
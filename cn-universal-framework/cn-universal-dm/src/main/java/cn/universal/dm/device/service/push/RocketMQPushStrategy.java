@@ -13,6 +13,7 @@
 package cn.universal.dm.device.service.push;
 
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.entity.bo.UPPushBO;
 import lombok.extern.slf4j.Slf4j;
@@ -27,16 +28,11 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
-public class RocketMQPushStrategy implements PushStrategy {
-
-  private UPPushBO.RocketMQPushConfig rocketMQConfig;
-
-  public void setConfig(UPPushBO.RocketMQPushConfig rocketMQConfig) {
-    this.rocketMQConfig = rocketMQConfig;
-  }
+public class RocketMQPushStrategy implements PushStrategy<UPPushBO.RocketMQPushConfig> {
 
   @Override
-  public IoTPushResult execute(BaseUPRequest request, String messageJson) {
+  public IoTPushResult execute(
+      BaseUPRequest request, PushEnvelope envelope, UPPushBO.RocketMQPushConfig rocketMQConfig) {
     if (rocketMQConfig == null) {
       log.warn("[RocketMQ推送] 配置为空，跳过推送");
       return IoTPushResult.failed(
@@ -44,7 +40,7 @@ public class RocketMQPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "RocketMQ",
-          messageJson,
+          envelope,
           "配置为空",
           "CONFIG_NULL");
     }
@@ -57,7 +53,7 @@ public class RocketMQPushStrategy implements PushStrategy {
       // - RocketMQ Spring Boot Starter
       // - Apache RocketMQ Client
       // - Alibaba RocketMQ Client
-      // rocketMQTemplate.syncSend("platform-topic", messageJson);
+      // rocketMQTemplate.syncSend("platform-topic", envelope.sharedBytes());
 
       // 暂时返回成功（实际实现时需要根据RocketMQ推送结果返回）
       return IoTPushResult.success(
@@ -65,7 +61,7 @@ public class RocketMQPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "RocketMQ",
-          messageJson,
+          envelope,
           System.currentTimeMillis());
 
     } catch (Exception e) {
@@ -75,14 +71,14 @@ public class RocketMQPushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "RocketMQ",
-          messageJson,
+          envelope,
           "推送异常: " + e.getMessage(),
           "PUSH_EXCEPTION");
     }
   }
 
   @Override
-  public boolean isSupported() {
+  public boolean isSupported(UPPushBO.RocketMQPushConfig rocketMQConfig) {
     return rocketMQConfig != null && rocketMQConfig.isSupport() && rocketMQConfig.isEnable();
   }
 }
@@ -18,6 +18,7 @@ import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
 import cn.hutool.http.HttpUtil;
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.entity.PushEnvelope;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.entity.IoTDeviceSubscribe;
 import com.github.benmanes.caffeine.cache.Cache;
@@ -36,7 +37,7 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
-public class SubscribePushStrategy implements PushStrategy {
+public class SubscribePushStrategy implements PushStrategy<List<IoTDeviceSubscribe>> {
 
   /** HTTP请求超时时间（毫秒） */
   private static final Integer HTTP_TIME_OUT = 1200;
@@ -51,13 +52,12 @@ public class SubscribePushStrategy implements PushStrategy {
   private static final String CACHE_NOTICE = "DNotice:";
 
   @Override
-  public IoTPushResult execute(BaseUPRequest request, String messageJson) {
+  public IoTPushResult execute(
+      BaseUPRequest request, PushEnvelope envelope, List<IoTDeviceSubscribe> subscribes) {
 
-    // 订阅的推送
+    // 订阅的推送，subscribes 取自 request.getDevSubscribe()
     try {
-      Object devSubObj = request.getDevSubscribe();
-      if (devSubObj != null) {
-        List<IoTDeviceSubscribe> subscribes = (List<IoTDeviceSubscribe>) devSubObj;
+      if (subscribes != null) {
         for (IoTDeviceSubscribe subscribe : subscribes) {
           if (StrUtil.isBlank(subscribe.getUrl())) {
             log.warn("[HTTP订阅推送] URL为空，跳过推送");
@@ -66,7 +66,7 @@ public class SubscribePushStrategy implements PushStrategy {
                 request.getProductKey(),
                 request.getIotId(),
                 "Subscribe",
-                messageJson,
+                envelope,
                 "URL为空",
                 "URL_EMPTY");
           }
@@ -79,7 +79,7 @@ public class SubscribePushStrategy implements PushStrategy {
                 request.getProductKey(),
                 request.getIotId(),
                 "Subscribe",
-                messageJson,
+                envelope,
                 "URL已被冻结",
                 "URL_BLOCKED");
           }
@@ -96,7 +96,7 @@ public class SubscribePushStrategy implements PushStrategy {
           httpRequest.header(Header.CONTENT_TYPE, "application/json");
 
           // 设置请求体
-          httpRequest.body(messageJson);
+          httpRequest.body(envelope.sharedBytes());
 
           // 执行请求
           HttpResponse response = httpRequest.execute();
@@ -115,7 +115,7 @@ public class SubscribePushStrategy implements PushStrategy {
                 request.getProductKey(),
                 request.getIotId(),
                 "Subscribe",
-                messageJson,
+                envelope,
                 "HTTP状态码错误: " + (response != null ? response.getStatus() : "null"),
                 "HTTP_ERROR");
           }
@@ -131,7 +131,7 @@ public class SubscribePushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "Subscribe",
-          messageJson,
+          envelope,
           System.currentTimeMillis());
 
     } catch (Exception e) {
@@ -141,14 +141,14 @@ public class SubscribePushStrategy implements PushStrategy {
           request.getProductKey(),
           request.getIotId(),
           "Subscribe",
-          messageJson,
+          envelope,
           "推送异常: " + e.getMessage(),
           "PUSH_EXCEPTION");
     }
   }
 
   @Override
-  public boolean isSupported() {
+  public boolean isSupported(List<IoTDeviceSubscribe> subscribes) {
     return true;
   }
 
@@ -1,26 +1,49 @@
 package cn.universal.dm.device.service.push.processor;
 
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import cn.universal.dm.device.entity.IoTPushResult;
+import cn.universal.dm.device.service.push.PushStrategyManager;
 import cn.universal.dm.device.service.push.UPProcessor;
 import cn.universal.persistence.base.BaseUPRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * 推送重试处理器 基于UPProcessor架构实现推送重试功能
  *
+ * <p>待重试的推送存于按下次重试时间排序的ZSet（{@code push:retry:due}），内容存于Hash（{@code push:retry:items}）。
+ * 每轮只通过Lua脚本原子领取已到期的条目，领取时把分数推后一个租约时长，多节点不会重复领取，节点宕机后条目在租约到期后重新可见。
+ * 重试间隔指数退避，超过最大次数移入死信ZSet（{@code push:retry:dead}）。每个推送端点（渠道 + 推送配置）有本地熔断器，
+ * 熔断器同时统计实时推送和重试的结果，熔断期间到期的条目直接顺延，不占用重试次数。重试通过 {@link PushStrategyManager#resend}
+ * 按设备当前的推送配置重新发送保存的消息。
+ *
  * @author gitee.com/NexIoT
  * @version 2.0
  * @since 2025/1/9
@@ -33,20 +56,113 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
 
   @Autowired private PushStatisticsProcessor pushStatisticsProcessor;
 
+  /** 与推送策略管理器相互依赖，延迟注入 */
+  @Autowired @Lazy private PushStrategyManager pushStrategyManager;
+
   // 配置参数
   @Value("${push.retry.redis.timeout:5}")
   private int redisTimeoutSeconds;
 
-  // Redis Key 前缀
-  private static final String RETRY_QUEUE_KEY_PREFIX = "push:retry:queue:";
-  private static final String RETRY_COUNT_KEY_PREFIX = "push:retry:count:";
+  /** 最大重试次数，超过后进入死信 */
+  @Value("${push.retry.max-count:3}")
+  private int maxRetryCount;
+
+  /** 首次重试间隔，之后每次翻倍 */
+  @Value("${push.retry.base-delay-seconds:60}")
+  private long baseDelaySeconds;
+
+  @Value("${push.retry.max-delay-seconds:3600}")
+  private long maxDelaySeconds;
+
+  /** 每轮最多领取的条目数 */
+  @Value("${push.retry.batch-size:200}")
+  private int batchSize;
+
+  /** 领取租约，节点处理中宕机时条目在租约到期后被其他节点重新领取 */
+  @Value("${push.retry.claim-lease-seconds:300}")
+  private long claimLeaseSeconds;
+
+  @Value("${push.retry.dead-retention-days:7}")
+  private int deadRetentionDays;
+
+  /** 连续失败多少次后熔断 */
+  @Value("${push.retry.breaker.failure-threshold:5}")
+  private int breakerFailureThreshold;
+
+  /** 熔断持续时间，到期后放行一次试探 */
+  @Value("${push.retry.breaker.open-seconds:60}")
+  private long breakerOpenSeconds;
+
+  // Redis Key
+  private static final String RETRY_DUE_KEY = "push:retry:due";
+  private static final String RETRY_ITEM_KEY = "push:retry:items";
+  private static final String RETRY_DEAD_KEY = "push:retry:dead";
   private static final String FAILED_PUSH_KEY_PREFIX = "push:failed:";
+  // 旧版本按设备渠道分散的List队列和计数，仅用于清理
+  private static final String LEGACY_RETRY_QUEUE_KEY_PREFIX = "push:retry:queue:";
+  private static final String LEGACY_RETRY_COUNT_KEY_PREFIX = "push:retry:count:";
   private static final DateTimeFormatter DATETIME_FORMATTER =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-  // 默认配置
-  private static final int DEFAULT_MAX_RETRY_COUNT = 3;
-  private static final int DEFAULT_RETRY_INTERVAL_MINUTES = 5;
+  /** 入队，同一条目已存在时忽略 */
+  private static final RedisScript<Long> ENQUEUE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('HSETNX', KEYS[2], ARGV[1], ARGV[2]) == 1 then "
+              + "redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1]) return 1 end "
+              + "return 0",
+          Long.class);
+
+  /** 领取到期条目并把分数推后一个租约，返回 [id, data, id, data ...] */
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> CLAIM_SCRIPT =
+      new DefaultRedisScript<>(
+          "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) "
+              + "local out = {} "
+              + "for _, id in ipairs(ids) do "
+              + "local data = redis.call('HGET', KEYS[2], id) "
+              + "if data then redis.call('ZADD', KEYS[1], ARGV[3], id) "
+              + "out[#out + 1] = id out[#out + 1] = data "
+              + "else redis.call('ZREM', KEYS[1], id) end "
+              + "end "
+              + "return out",
+          List.class);
+
+  /** 重试成功，移除条目 */
+  private static final RedisScript<Long> ACK_SCRIPT =
+      new DefaultRedisScript<>(
+          "redis.call('ZREM', KEYS[1], ARGV[1]) return redis.call('HDEL', KEYS[2], ARGV[1])",
+          Long.class);
+
+  /** 重新排期，条目已被移除（成功或转入死信）时不再复活 */
+  private static final RedisScript<Long> RESCHEDULE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('ZSCORE', KEYS[1], ARGV[1]) then "
+              + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+              + "redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1]) return 1 end "
+              + "return 0",
+          Long.class);
+
+  /** 从 KEYS[1] 移到 KEYS[3]，分数为 ARGV[3] */
+  private static final RedisScript<Long> MOVE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('ZREM', KEYS[1], ARGV[1]) == 1 then "
+              + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+              + "redis.call('ZADD', KEYS[3], ARGV[3], ARGV[1]) return 1 end "
+              + "return 0",
+          Long.class);
+
+  /** 清理过期死信 */
+  private static final RedisScript<Long> PURGE_SCRIPT =
+      new DefaultRedisScript<>(
+          "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) "
+              + "if #ids > 0 then redis.call('ZREM', KEYS[1], unpack(ids)) "
+              + "redis.call('HDEL', KEYS[2], unpack(ids)) end "
+              + "return #ids",
+          Long.class);
+
+  /** 端点 -> 熔断器，长时间无重试的端点自动清除 */
+  private final Cache<String, CircuitBreaker> breakers =
+      Caffeine.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).maximumSize(10000).build();
 
   // 专用重试线程池 - 使用自定义线程池避免ForkJoinPool耗尽
   // 直接使用默认值初始化，简单可靠
@@ -138,75 +254,36 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
     }
 
     try {
-      String retryKey = generateRetryKey(result);
-      String retryData = buildRetryData(result);
-
-      // 检查重试次数
-      String countKey = RETRY_COUNT_KEY_PREFIX + result.getDeviceId() + ":" + result.getChannel();
-      Integer currentRetryCount = getRetryCount(countKey);
-
-      if (currentRetryCount >= DEFAULT_MAX_RETRY_COUNT) {
+      int attempts = result.getRetryCount() != null ? result.getRetryCount() : 0;
+      if (attempts >= maxRetryCount) {
         log.warn(
             "[推送重试] 设备 {} 渠道 {} 已达到最大重试次数 {}",
             result.getDeviceId(),
             result.getChannel(),
-            DEFAULT_MAX_RETRY_COUNT);
+            maxRetryCount);
         return;
       }
+      String retryId = generateRetryId(result);
+      String retryData = buildRetryData(result);
+      long dueAt = System.currentTimeMillis() + backoffMillis(attempts + 1);
 
       // 使用异步处理，避免阻塞ForkJoinPool
-      CompletableFuture<Void> addToQueueFuture =
-          CompletableFuture.runAsync(
-              () -> {
-                try {
-                  // 添加到重试队列
-                  redisTemplate.opsForList().rightPush(retryKey, retryData);
-                  redisTemplate.expire(retryKey, java.time.Duration.ofDays(1));
-                  log.debug(
-                      "[推送重试] Redis添加队列成功: deviceId={}, channel={}",
-                      result.getDeviceId(),
-                      result.getChannel());
-                } catch (Exception e) {
-                  log.error(
-                      "[推送重试] Redis添加队列失败: deviceId={}, channel={}",
-                      result.getDeviceId(),
-                      result.getChannel(),
-                      e);
-                }
-              },
-              retryExecutor);
-
-      CompletableFuture<Void> incrementCountFuture =
-          CompletableFuture.runAsync(
-              () -> {
-                try {
-                  // 增加重试次数
-                  redisTemplate.opsForValue().increment(countKey);
-                  redisTemplate.expire(countKey, java.time.Duration.ofDays(1));
-                  log.debug(
-                      "[推送重试] Redis增加计数成功: deviceId={}, channel={}",
-                      result.getDeviceId(),
-                      result.getChannel());
-                } catch (Exception e) {
-                  log.error(
-                      "[推送重试] Redis增加计数失败: deviceId={}, channel={}",
-                      result.getDeviceId(),
-                      result.getChannel(),
-                      e);
-                }
-              },
-              retryExecutor);
-
-      // 异步处理结果，不阻塞当前线程
-      CompletableFuture.allOf(addToQueueFuture, incrementCountFuture)
-          .thenRun(
+      CompletableFuture.runAsync(
               () -> {
+                Long added =
+                    redisTemplate.execute(
+                        ENQUEUE_SCRIPT,
+                        Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY),
+                        retryId,
+                        retryData,
+                        String.valueOf(dueAt));
                 log.info(
-                    "[推送重试] 添加失败推送到重试队列成功: deviceId={}, channel={}, retryCount={}",
+                    "[推送重试] 添加失败推送到重试队列: deviceId={}, channel={}, added={}",
                     result.getDeviceId(),
                     result.getChannel(),
-                    currentRetryCount + 1);
-              })
+                    added != null && added == 1L);
+              },
+              retryExecutor)
           .exceptionally(
               throwable -> {
                 log.error(
@@ -225,25 +302,22 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
     }
   }
 
-  /** 定时重试任务 每5分钟执行一次 */
-  @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
+  /** 定时重试任务，每轮最多领取 batch-size 条已到期的条目 */
+  @Scheduled(fixedDelayString = "${push.retry.poll-interval-ms:10000}")
   public void retryFailedPushes() {
     log.debug("[推送重试] 开始执行重试任务");
 
     try {
-      // 从重试队列获取所有待重试的推送
-      List<IoTPushResult> retryPushes = getRetryQueuePushes();
-
-      for (IoTPushResult retryPush : retryPushes) {
+      for (RetryItem item : claimDueItems()) {
         CompletableFuture.runAsync(
             () -> {
               try {
-                retryPush(retryPush);
+                retryPush(item);
               } catch (Exception e) {
                 log.error(
                     "[推送重试] 重试推送失败: deviceId={}, channel={}",
-                    retryPush.getDeviceId(),
-                    retryPush.getChannel(),
+                    item.push().getDeviceId(),
+                    item.push().getChannel(),
                     e);
               }
             },
@@ -254,251 +328,267 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
     }
   }
 
-  /** 重试单个推送 */
-  private void retryPush(IoTPushResult failedPush) {
-    String countKey =
-        RETRY_COUNT_KEY_PREFIX + failedPush.getDeviceId() + ":" + failedPush.getChannel();
-    Integer currentRetryCount = getRetryCount(countKey);
+  /** 原子领取到期条目 */
+  @SuppressWarnings("unchecked")
+  private List<RetryItem> claimDueItems() {
+    long now = System.currentTimeMillis();
+    List<Object> claimed =
+        redisTemplate.execute(
+            CLAIM_SCRIPT,
+            Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY),
+            String.valueOf(now),
+            String.valueOf(Math.max(1, batchSize)),
+            String.valueOf(now + TimeUnit.SECONDS.toMillis(claimLeaseSeconds)));
+    if (claimed == null || claimed.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<RetryItem> items = new ArrayList<>(claimed.size() / 2);
+    for (int i = 0; i + 1 < claimed.size(); i += 2) {
+      String retryId = String.valueOf(claimed.get(i));
+      IoTPushResult push = parseRetryData(String.valueOf(claimed.get(i + 1)));
+      if (push == null) {
+        // 无法解析的条目直接丢弃，避免每轮重复领取
+        redisTemplate.execute(ACK_SCRIPT, Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY), retryId);
+        continue;
+      }
+      items.add(new RetryItem(retryId, push));
+    }
+    return items;
+  }
 
-    if (currentRetryCount >= DEFAULT_MAX_RETRY_COUNT) {
-      log.warn(
-          "[推送重试] 设备 {} 渠道 {} 已达到最大重试次数，跳过重试，并清理重试队列和计数",
-          failedPush.getDeviceId(),
-          failedPush.getChannel());
-      // 直接删除重试计数和队列
-      String retryKey = generateRetryKey(failedPush);
-      redisTemplate.delete(java.util.Arrays.asList(countKey, retryKey));
+  /** 重试单个推送 */
+  private void retryPush(RetryItem item) {
+    IoTPushResult failedPush = item.push();
+    String endpoint = endpointOf(failedPush);
+    CircuitBreaker breaker = breakers.get(endpoint, k -> new CircuitBreaker());
+    long now = System.currentTimeMillis();
+    long blockedUntil = breaker.tryAcquire(now, TimeUnit.SECONDS.toMillis(baseDelaySeconds));
+    if (blockedUntil > 0) {
+      // 熔断中，顺延到熔断结束，不计重试次数
+      log.debug("[推送重试] 端点熔断中，顺延重试: endpoint={}, id={}", endpoint, item.id());
+      reschedule(item.id(), failedPush, blockedUntil);
       return;
     }
 
+    int attempt = (failedPush.getRetryCount() != null ? failedPush.getRetryCount() : 0) + 1;
     log.info(
         "[推送重试] 开始重试推送: deviceId={}, channel={}, retryCount={}",
         failedPush.getDeviceId(),
         failedPush.getChannel(),
-        currentRetryCount + 1);
+        attempt);
 
-    try {
-      // 构建重试的推送结果
-      IoTPushResult retryResult =
-          IoTPushResult.retry(failedPush, "Retry attempt " + (currentRetryCount + 1));
-      retryResult.setMaxRetryCount(DEFAULT_MAX_RETRY_COUNT);
+    // 构建重试的推送结果
+    IoTPushResult retryResult = IoTPushResult.retry(failedPush, "Retry attempt " + attempt);
+    retryResult.setMaxRetryCount(maxRetryCount);
 
+    IoTPushResult pushResult;
+    try {
       // 记录重试统计
       pushStatisticsProcessor.recordPushResult(retryResult);
 
-      // 执行实际推送（这里需要根据你的推送策略管理器调用）
-      boolean pushSuccess = executeActualPush(retryResult);
-
-      if (pushSuccess) {
-        // 重试成功，清理重试队列和计数
+      pushResult = pushStrategyManager.resend(failedPush);
+      if (pushResult == null) {
+        // 设备已删除或渠道已停用，无需再推送
+        breaker.release();
         log.info(
-            "[推送重试] 重试推送成功: deviceId={}, channel={}",
-            failedPush.getDeviceId(),
-            failedPush.getChannel());
-
-        // 清理重试数据
-        String retryKey = generateRetryKey(failedPush);
-        redisTemplate.delete(java.util.Arrays.asList(countKey, retryKey));
-
-        // 从重试队列中移除
-        removeFromRetryQueue(failedPush);
-
-      } else {
-        // 重试失败，继续保留在队列中
-        log.warn(
-            "[推送重试] 重试推送失败: deviceId={}, channel={}",
+            "[推送重试] 设备或推送渠道已不存在，放弃重试: deviceId={}, channel={}",
             failedPush.getDeviceId(),
             failedPush.getChannel());
+        redisTemplate.execute(
+            ACK_SCRIPT, Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY), item.id());
+        return;
       }
-
     } catch (Exception e) {
       log.error(
           "[推送重试] 重试推送异常: deviceId={}, channel={}",
           failedPush.getDeviceId(),
           failedPush.getChannel(),
           e);
-
-      // 如果重试失败，继续添加到重试队列
-      if (currentRetryCount < DEFAULT_MAX_RETRY_COUNT) {
-        addToRetryQueue(failedPush);
-      }
+      pushResult = null;
+      retryResult.setErrorMessage(e.getMessage());
     }
-  }
 
-  /** 执行实际推送（需要根据你的推送策略管理器实现） */
-  private boolean executeActualPush(IoTPushResult retryResult) {
-    try {
-      // TODO: 这里需要调用你的推送策略管理器
-      // 例如：pushStrategyManager.executePush(originalRequest, config);
-      // 由于原始请求信息可能已经丢失，这里提供一个框架
-      // 实际实现时需要根据业务需求调整
-
-      log.debug(
-          "[推送重试] 执行实际推送: deviceId={}, channel={}",
-          retryResult.getDeviceId(),
-          retryResult.getChannel());
-
-      // 临时返回false，表示需要你根据实际情况实现
-      return false;
-    } catch (Exception e) {
-      log.error(
-          "[推送重试] 执行实际推送失败: deviceId={}, channel={}",
-          retryResult.getDeviceId(),
-          retryResult.getChannel(),
-          e);
-      return false;
+    long finishedAt = System.currentTimeMillis();
+    if (pushResult != null && pushResult.isOk()) {
+      breaker.onSuccess();
+      log.info(
+          "[推送重试] 重试推送成功: deviceId={}, channel={}",
+          failedPush.getDeviceId(),
+          failedPush.getChannel());
+      redisTemplate.execute(ACK_SCRIPT, Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY), item.id());
+      return;
     }
-  }
 
-  /** 从重试队列中移除 */
-  private void removeFromRetryQueue(IoTPushResult result) {
-    try {
-      String retryKey = generateRetryKey(result);
-      String retryData = buildRetryData(result);
-
-      // 从队列中移除指定的数据
-      redisTemplate.opsForList().remove(retryKey, 1, retryData);
-    } catch (Exception e) {
-      log.error(
-          "[推送重试] 从重试队列移除失败: deviceId={}, channel={}",
-          result.getDeviceId(),
-          result.getChannel(),
-          e);
+    breaker.onFailure(
+        finishedAt, breakerFailureThreshold, TimeUnit.SECONDS.toMillis(breakerOpenSeconds));
+    if (pushResult != null) {
+      // 死信和下次重试保留最近一次的失败原因
+      retryResult.setErrorMessage(pushResult.getErrorMessage());
+      retryResult.setErrorCode(pushResult.getErrorCode());
+    }
+    if (attempt >= maxRetryCount) {
+      log.warn(
+          "[推送重试] 设备 {} 渠道 {} 已达到最大重试次数，转入死信",
+          failedPush.getDeviceId(),
+          failedPush.getChannel());
+      redisTemplate.execute(
+          MOVE_SCRIPT,
+          Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY, RETRY_DEAD_KEY),
+          item.id(),
+          buildRetryData(retryResult),
+          String.valueOf(finishedAt));
+      return;
     }
-  }
-
-  /** 获取重试队列中的所有推送 */
-  private List<IoTPushResult> getRetryQueuePushes() {
-    List<IoTPushResult> retryPushes = new java.util.ArrayList<>();
-
-    try {
-      // 获取所有重试队列的key
-      String retryQueuePattern = RETRY_QUEUE_KEY_PREFIX + "*";
-
-      // 使用SCAN命令获取所有重试队列
-      org.springframework.data.redis.core.ScanOptions options =
-          org.springframework.data.redis.core.ScanOptions.scanOptions()
-              .match(retryQueuePattern)
-              .count(100)
-              .build();
-
-      org.springframework.data.redis.core.Cursor<String> cursor = redisTemplate.scan(options);
-
-      while (cursor.hasNext()) {
-        String retryKey = cursor.next();
 
-        // 从队列中获取数据
-        List<String> retryDataList = redisTemplate.opsForList().range(retryKey, 0, -1);
+    // 重试失败，按指数退避重新排期
+    log.warn(
+        "[推送重试] 重试推送失败: deviceId={}, channel={}",
+        failedPush.getDeviceId(),
+        failedPush.getChannel());
+    reschedule(item.id(), retryResult, finishedAt + backoffMillis(attempt + 1));
+  }
 
-        if (retryDataList != null) {
-          for (String retryData : retryDataList) {
-            try {
-              IoTPushResult result = parseRetryData(retryData);
-              if (result != null) {
-                retryPushes.add(result);
-              }
-            } catch (Exception e) {
-              log.error("[推送重试] 解析重试数据失败: {}", retryData, e);
-            }
-          }
-        }
-      }
-    } catch (Exception e) {
-      log.error("[推送重试] 获取重试队列失败", e);
-    }
+  private void reschedule(String retryId, IoTPushResult push, long dueAt) {
+    redisTemplate.execute(
+        RESCHEDULE_SCRIPT,
+        Arrays.asList(RETRY_DUE_KEY, RETRY_ITEM_KEY),
+        retryId,
+        buildRetryData(push),
+        String.valueOf(dueAt));
+  }
 
-    return retryPushes;
+  /** 第 attempt 次重试前的等待时间，指数退避并加 ±20% 抖动 */
+  private long backoffMillis(int attempt) {
+    long base = TimeUnit.SECONDS.toMillis(Math.max(1, baseDelaySeconds));
+    long max = TimeUnit.SECONDS.toMillis(Math.max(baseDelaySeconds, maxDelaySeconds));
+    long delay = base << Math.min(Math.max(attempt - 1, 0), 20);
+    delay = Math.min(delay, max);
+    return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
   }
 
   /** 解析重试数据 */
   private IoTPushResult parseRetryData(String retryData) {
     try {
-      String[] parts = retryData.split("\\|");
-      if (parts.length >= 9) {
-        return IoTPushResult.builder()
-            .deviceId(parts[0])
-            .productKey(parts[1])
-            .channel(parts[2])
-            .platform(parts[3].isEmpty() ? null : parts[3])
-            .messageContent(parts[4])
-            .errorMessage(parts[5])
-            .errorCode(parts[6])
-            .pushTime(LocalDateTime.parse(parts[7], DATETIME_FORMATTER))
-            .retryCount(Integer.valueOf(parts[8]))
-            .ok(false)
-            .status(IoTPushResult.PushStatus.FAILED)
-            .build();
-      }
+      JSONObject json = JSONUtil.parseObj(retryData);
+      return IoTPushResult.builder()
+          .deviceId(json.getStr("deviceId"))
+          .productKey(json.getStr("productKey"))
+          .channel(json.getStr("channel"))
+          .platform(json.getStr("platform"))
+          .configId(json.getStr("configId"))
+          .requestId(json.getStr("requestId"))
+          .messageContent(json.getStr("messageContent"))
+          .errorMessage(json.getStr("errorMessage"))
+          .errorCode(json.getStr("errorCode"))
+          .pushTime(LocalDateTime.parse(json.getStr("pushTime"), DATETIME_FORMATTER))
+          .retryCount(json.getInt("retryCount", 0))
+          .ok(false)
+          .status(IoTPushResult.PushStatus.FAILED)
+          .build();
     } catch (Exception e) {
       log.error("[推送重试] 解析重试数据失败: {}", retryData, e);
     }
     return null;
   }
 
-  /** 手动重试指定设备的推送 */
-  public void manualRetry(String deviceId, String channel, String productKey) {
-    String countKey = RETRY_COUNT_KEY_PREFIX + deviceId + ":" + channel;
-    Integer currentRetryCount = getRetryCount(countKey);
-
-    if (currentRetryCount >= DEFAULT_MAX_RETRY_COUNT) {
-      log.warn("[推送重试] 设备 {} 渠道 {} 已达到最大重试次数", deviceId, channel);
-      return;
+  /**
+   * 手动重试指定设备的推送：该设备渠道的死信重新入队并立即重试，重试次数清零
+   *
+   * @return 重新入队的条数
+   */
+  public int manualRetry(String deviceId, String channel, String productKey) {
+    String prefix = deviceId + ":" + channel + ":";
+    List<String> retryIds = new ArrayList<>();
+    ScanOptions options =
+        ScanOptions.scanOptions().match(escapeGlob(prefix) + "*").count(200).build();
+    try (Cursor<ZSetOperations.TypedTuple<String>> cursor =
+        redisTemplate.opsForZSet().scan(RETRY_DEAD_KEY, options)) {
+      while (cursor.hasNext()) {
+        retryIds.add(cursor.next().getValue());
+      }
     }
 
-    // 创建重试推送结果
-    IoTPushResult retryResult =
-        IoTPushResult.builder()
-            .deviceId(deviceId)
-            .productKey(productKey)
-            .channel(channel)
-            .pushTime(LocalDateTime.now())
-            .ok(false)
-            .status(IoTPushResult.PushStatus.RETRYING)
-            .retryCount(currentRetryCount + 1)
-            .maxRetryCount(DEFAULT_MAX_RETRY_COUNT)
-            .errorMessage("Manual retry")
-            .build();
-
-    // 记录重试统计
-    pushStatisticsProcessor.recordPushResult(retryResult);
+    int requeued = 0;
+    long now = System.currentTimeMillis();
+    for (String retryId : retryIds) {
+      Object retryData = redisTemplate.opsForHash().get(RETRY_ITEM_KEY, retryId);
+      IoTPushResult push = retryData == null ? null : parseRetryData(retryData.toString());
+      if (push == null) {
+        continue;
+      }
+      push.setRetryCount(0);
+      Long moved =
+          redisTemplate.execute(
+              MOVE_SCRIPT,
+              Arrays.asList(RETRY_DEAD_KEY, RETRY_ITEM_KEY, RETRY_DUE_KEY),
+              retryId,
+              buildRetryData(push),
+              String.valueOf(now));
+      if (moved != null && moved == 1L) {
+        requeued++;
+      }
+    }
 
     log.info(
-        "[推送重试] 手动重试推送: deviceId={}, channel={}, retryCount={}",
+        "[推送重试] 手动重试推送: deviceId={}, channel={}, productKey={}, requeued={}",
         deviceId,
         channel,
-        currentRetryCount + 1);
+        productKey,
+        requeued);
+    return requeued;
   }
 
-  /** 获取重试次数 - 同步方法，直接调用Redis */
-  private Integer getRetryCount(String countKey) {
-    try {
-      // 直接调用Redis，避免异步复杂性
-      String count = redisTemplate.opsForValue().get(countKey);
-      return count != null ? Integer.valueOf(count) : 0;
-    } catch (Exception e) {
-      log.error("[推送重试] 获取重试次数失败，key={}", countKey, e);
-      return 0;
-    }
+  /** 待重试条数 */
+  public long getRetryQueueSize() {
+    Long size = redisTemplate.opsForZSet().zCard(RETRY_DUE_KEY);
+    return size != null ? size : 0L;
+  }
+
+  /** 死信条数 */
+  public long getDeadLetterSize() {
+    Long size = redisTemplate.opsForZSet().zCard(RETRY_DEAD_KEY);
+    return size != null ? size : 0L;
   }
 
-  /** 生成重试队列Key */
-  private String generateRetryKey(IoTPushResult result) {
-    return RETRY_QUEUE_KEY_PREFIX + result.getDeviceId() + ":" + result.getChannel();
+  /** 推送端点：渠道 + 推送配置，无配置时按产品区分 */
+  private static String endpointOf(IoTPushResult push) {
+    String config =
+        StrUtil.isNotBlank(push.getConfigId()) ? push.getConfigId() : push.getProductKey();
+    return push.getChannel() + ":" + config;
+  }
+
+  /**
+   * 生成重试条目ID：设备 + 渠道 + 消息请求ID
+   *
+   * <p>请求ID由推送策略管理器为每条消息分配，同一条消息同一渠道重复入队时ID相同，不同消息不会冲突
+   */
+  private static String generateRetryId(IoTPushResult result) {
+    String requestId =
+        StrUtil.isNotBlank(result.getRequestId()) ? result.getRequestId() : IdUtil.fastSimpleUUID();
+    return result.getDeviceId() + ":" + result.getChannel() + ":" + requestId;
+  }
+
+  private static String escapeGlob(String value) {
+    return value.replaceAll("([\\\\*?\\[\\]])", "\\\\$1");
   }
 
   /** 构建重试数据 */
   private String buildRetryData(IoTPushResult result) {
-    return String.format(
-        "%s|%s|%s|%s|%s|%s|%s|%s|%s",
-        result.getDeviceId(),
-        result.getProductKey(),
-        result.getChannel(),
-        result.getPlatform() != null ? result.getPlatform() : "",
-        result.getMessageContent(),
-        result.getErrorMessage(),
-        result.getErrorCode(),
-        result.getPushTime().format(DATETIME_FORMATTER),
-        result.getRetryCount() != null ? result.getRetryCount() : 0);
+    JSONObject json = new JSONObject();
+    json.set("deviceId", result.getDeviceId());
+    json.set("productKey", result.getProductKey());
+    json.set("channel", result.getChannel());
+    json.set("platform", result.getPlatform());
+    json.set("configId", result.getConfigId());
+    json.set("requestId", result.getRequestId());
+    json.set("messageContent", result.getMessageContent());
+    json.set("errorMessage", result.getErrorMessage());
+    json.set("errorCode", result.getErrorCode());
+    LocalDateTime pushTime =
+        result.getPushTime() != null ? result.getPushTime() : LocalDateTime.now();
+    json.set("pushTime", pushTime.format(DATETIME_FORMATTER));
+    json.set("retryCount", result.getRetryCount() != null ? result.getRetryCount() : 0);
+    return json.toString();
   }
 
   /** 获取失败推送列表 */
@@ -620,53 +710,42 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
     }
   }
 
-  /** 清理过期的重试记录 每天凌晨2点执行 */
+  /** 清理过期的失败记录和死信 每天凌晨2点执行 */
   @Scheduled(cron = "0 0 2 * * ?")
   public void cleanupExpiredRetryRecords() {
     log.info("[推送重试] 开始清理过期的重试记录");
 
     try {
-      // 清理7天前的重试记录
+      // 清理7天前的失败推送记录
       LocalDate cleanupDate = LocalDate.now().minusDays(7);
       String dateKey = cleanupDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-      // 清理失败推送记录
       String failedKey = FAILED_PUSH_KEY_PREFIX + dateKey;
       redisTemplate.delete(failedKey);
 
-      // 清理重试队列
-      String retryQueuePattern = RETRY_QUEUE_KEY_PREFIX + "*";
-      deleteKeysByPattern(retryQueuePattern);
-
-      // 清理重试计数
-      String retryCountPattern = RETRY_COUNT_KEY_PREFIX + "*";
-      deleteKeysByPattern(retryCountPattern);
-
-      log.info("[推送重试] 清理过期的重试记录完成");
+      // 清理过期死信
+      long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(deadRetentionDays);
+      long purged = 0;
+      Long removed;
+      do {
+        removed =
+            redisTemplate.execute(
+                PURGE_SCRIPT,
+                Arrays.asList(RETRY_DEAD_KEY, RETRY_ITEM_KEY),
+                String.valueOf(cutoff),
+                "500");
+        purged += removed != null ? removed : 0;
+      } while (removed != null && removed >= 500);
+
+      // 清理旧版本遗留的重试队列和计数
+      deleteKeysByPattern(LEGACY_RETRY_QUEUE_KEY_PREFIX + "*");
+      deleteKeysByPattern(LEGACY_RETRY_COUNT_KEY_PREFIX + "*");
+
+      log.info("[推送重试] 清理过期的重试记录完成, 清理死信={}", purged);
     } catch (Exception e) {
       log.error("[推送重试] 清理过期的重试记录失败", e);
     }
   }
 
-  /** 获取设备的重试统计 */
-  public Integer getRetryCount(String deviceId, String channel) {
-    String countKey = RETRY_COUNT_KEY_PREFIX + deviceId + ":" + channel;
-    return getRetryCount(countKey);
-  }
-
-  /** 重置设备的重试计数 */
-  public void resetRetryCount(String deviceId, String channel) {
-    String countKey = RETRY_COUNT_KEY_PREFIX + deviceId + ":" + channel;
-    redisTemplate.delete(countKey);
-    log.info("[推送重试] 重置设备重试计数: deviceId={}, channel={}", deviceId, channel);
-  }
-
-  /** 检查是否可以进行重试 */
-  public boolean canRetry(String deviceId, String channel) {
-    Integer retryCount = getRetryCount(deviceId, channel);
-    return retryCount < DEFAULT_MAX_RETRY_COUNT;
-  }
-
   /**
    * 使用SCAN命令删除匹配模式的键
    *
@@ -696,4 +775,73 @@ public class PushRetryProcessor implements UPProcessor<BaseUPRequest> {
       log.error("[推送重试] 删除匹配模式的键失败: pattern={}", pattern, e);
     }
   }
+
+  /**
+   * 记录一次实时推送的结果，计入端点熔断器
+   *
+   * @param result 推送结果
+   */
+  public void recordOutcome(IoTPushResult result) {
+    if (result == null || StrUtil.isBlank(result.getChannel())) {
+      return;
+    }
+    CircuitBreaker breaker = breakers.get(endpointOf(result), k -> new CircuitBreaker());
+    if (result.isOk()) {
+      breaker.onSuccess();
+    } else {
+      breaker.onFailure(
+          System.currentTimeMillis(),
+          breakerFailureThreshold,
+          TimeUnit.SECONDS.toMillis(breakerOpenSeconds));
+    }
+  }
+
+  private record RetryItem(String id, IoTPushResult push) {}
+
+  /** 端点熔断器：连续失败达到阈值后熔断，到期后放行一次试探，试探成功恢复，失败继续熔断 */
+  private static final class CircuitBreaker {
+
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+
+    /**
+     * 申请执行一次重试
+     *
+     * @return 0 表示放行，否则为建议的下次重试时间
+     */
+    synchronized long tryAcquire(long now, long probeWaitMillis) {
+      if (openUntil == 0) {
+        return 0;
+      }
+      if (now < openUntil) {
+        return openUntil;
+      }
+      if (probing) {
+        // 已有试探在进行中
+        return now + probeWaitMillis;
+      }
+      probing = true;
+      return 0;
+    }
+
+    synchronized void onSuccess() {
+      failures = 0;
+      openUntil = 0;
+      probing = false;
+    }
+
+    /** 放行的试探未产生推送结果，允许下一次试探 */
+    synchronized void release() {
+      probing = false;
+    }
+
+    synchronized void onFailure(long now, int threshold, long openMillis) {
+      failures++;
+      if (probing || failures >= threshold) {
+        openUntil = now + openMillis;
+        probing = false;
+      }
+    }
+  }
 }
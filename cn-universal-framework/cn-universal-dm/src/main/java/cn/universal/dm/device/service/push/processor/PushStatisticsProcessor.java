@@ -1,18 +1,23 @@
 package cn.universal.dm.device.service.push.processor;
 
+import cn.hutool.core.util.IdUtil;
 import cn.universal.dm.device.entity.IoTPushResult;
 import cn.universal.dm.device.service.push.UPProcessor;
 import cn.universal.persistence.base.BaseUPRequest;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -20,6 +25,11 @@ import org.springframework.stereotype.Component;
 /**
  * 推送统计处理器 基于UPProcessor架构实现推送统计功能
  *
+ * <p>计数按（日期, 平台/产品/渠道+产品）分组，每组预先解析好 Redis key 和各指标的 {@link LongAdder}，记录时只做一次分组查找。
+ * 刷新时每个计数单元读取当前值并减去同样的值，并发的自增要么计入本次、要么留到下次，不会丢失或重复；
+ * 所有增量在一个 pipeline 的 MULTI/EXEC 中写入，同一事务中写入本次刷新的提交标记。写入抛出异常时（EXEC 可能已执行只是响应超时）
+ * 不立即加回增量，而是留到下次刷新时按提交标记是否存在确认：标记存在说明事务已提交，丢弃增量；不存在才加回本地计数单元，不会重复计数。
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/1/9
@@ -30,14 +40,14 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
 
   @Autowired private StringRedisTemplate redisTemplate;
 
-  // 本地原子计数器 - 使用ConcurrentHashMap保证线程安全
-  private final Map<String, AtomicLong> localCounters = new ConcurrentHashMap<>();
+  // 本地平台统计：日期 + 平台
+  private final Map<GroupKey, CounterGroup> localPlatformStats = new ConcurrentHashMap<>();
 
-  // 本地平台统计缓存
-  private final Map<String, Map<String, AtomicLong>> localPlatformStats = new ConcurrentHashMap<>();
+  // 本地产品统计：日期 + 产品
+  private final Map<GroupKey, CounterGroup> localProductStats = new ConcurrentHashMap<>();
 
-  // 本地产品统计缓存
-  private final Map<String, Map<String, AtomicLong>> localProductStats = new ConcurrentHashMap<>();
+  // 本地消息统计：日期 + 渠道 + 产品
+  private final Map<GroupKey, CounterGroup> localMessageStats = new ConcurrentHashMap<>();
 
   // 定时刷新间隔（毫秒）
   private static final long FLUSH_INTERVAL = 300000; // 5分钟 = 300000毫秒
@@ -45,10 +55,52 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
   // 上次刷新时间戳
   private volatile long lastFlushTime = System.currentTimeMillis();
 
+  // 刷新互斥，定时刷新和强制刷新不并发执行
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  // 上次写入结果未知的刷新，下次刷新时确认，仅在 flushLock 内访问
+  private PendingFlush pendingFlush;
+
+  // 当天日期字符串，跨天时更新
+  private volatile Today today = Today.of(LocalDate.now());
+
   private static final String PUSH_PRODUCT_KEY_PREFIX = "push:product:";
   private static final String PUSH_PLATFORM_KEY_PREFIX = "push:platform:";
   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+  private static final long HASH_TTL_SECONDS = 30L * 24 * 3600;
+  private static final long METRIC_TTL_SECONDS = 7L * 24 * 3600;
+
+  /** 刷新提交标记，需长于 Redis 故障后恢复刷新的时间 */
+  private static final String FLUSH_MARKER_PREFIX = "push:stats:flush:";
+
+  private static final long FLUSH_MARKER_TTL_SECONDS = 24L * 3600;
+
+  /** 平台统计字段 */
+  private static final String[] PLATFORM_FIELDS = {
+    "total_count", "push_count", "success_count", "failed_count", "retry_count"
+  };
+
+  /** 产品统计字段，下标与平台统计一致 */
+  private static final String[] PRODUCT_FIELDS = {"total", "push", "success", "failed", "retry"};
+
+  private static final int TOTAL = 0;
+  private static final int PUSH = 1;
+  private static final int SUCCESS = 2;
+  private static final int FAILED = 3;
+  private static final int RETRY = 4;
+
+  /** 消息统计指标 */
+  private static final String[] MESSAGE_METRICS = {
+    "message_total", "message_success", "message_failed", "response_time_total", "response_count"
+  };
+
+  private static final int MESSAGE_TOTAL = 0;
+  private static final int MESSAGE_SUCCESS = 1;
+  private static final int MESSAGE_FAILED = 2;
+  private static final int RESPONSE_TIME_TOTAL = 3;
+  private static final int RESPONSE_COUNT = 4;
+
   @Override
   public String getName() {
     return "PushStatisticsProcessor";
@@ -64,36 +116,34 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
     return 100; // 较低优先级，在推送后执行
   }
 
+
   @Override
   public void afterPush(List<BaseUPRequest> upRequests, List<IoTPushResult> pushResults) {
     if (upRequests == null || upRequests.isEmpty()) {
       return;
     }
-    // 异步处理统计
-    CompletableFuture.runAsync(
-        () -> {
-          try {
-            // 统计所有推送请求的总数（无论是否有推送结果）
-            // 包括：需要推送的消息、无需推送的消息、推送失败的消息等
-            for (BaseUPRequest request : upRequests) {
-              recordTotalMessageFromRequest(request);
-            }
-
-            // 如果有推送结果，统计实际推送数
-            // 只统计实际执行了推送操作的消息
-            if (pushResults != null && !pushResults.isEmpty()) {
-              for (IoTPushResult result : pushResults) {
-                if (result != null) {
-                  recordPushMessage(result);
-                }
-              }
-            }
+    try {
+      String dateKey = currentDate();
+      // 统计所有推送请求的总数（无论是否有推送结果）
+      // 包括：需要推送的消息、无需推送的消息、推送失败的消息等
+      for (BaseUPRequest request : upRequests) {
+        recordTotalMessageFromRequest(request, dateKey);
+      }
 
-            log.debug("[推送统计] 完成 {} 条推送请求的统计记录", upRequests.size());
-          } catch (Exception e) {
-            log.error("[推送统计] 统计处理失败", e);
+      // 如果有推送结果，统计实际推送数
+      // 只统计实际执行了推送操作的消息
+      if (pushResults != null && !pushResults.isEmpty()) {
+        for (IoTPushResult result : pushResults) {
+          if (result != null) {
+            recordPushMessage(result, dateKey);
           }
-        });
+        }
+      }
+
+      log.debug("[推送统计] 完成 {} 条推送请求的统计记录", upRequests.size());
+    } catch (Exception e) {
+      log.error("[推送统计] 统计处理失败", e);
+    }
   }
 
   /** 记录推送结果统计 */
@@ -112,116 +162,67 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
       return;
     }
 
-    CompletableFuture.runAsync(
-        () -> {
-          try {
-            String productKey = result.getProductKey();
-            String channel = result.getChannel();
-            String dateKey = LocalDate.now().format(DATE_FORMATTER);
-
-            // 记录到本地缓存
-            recordPlatformStatsToLocal(result, dateKey);
-            recordProductStatsToLocal(result, dateKey, productKey);
-
-            // 记录消息统计
-            incrementMessageStats(
-                channel,
-                productKey,
-                result.isOk(),
-                result.getResponseTime() == null ? 0L : result.getResponseTime());
-
-            log.debug(
-                "[推送统计] 记录推送结果: productKey={}, channel={}, success={}, responseTime={}ms",
-                productKey,
-                channel,
-                result.isOk(),
-                result.getResponseTime());
-
-          } catch (Exception e) {
-            log.error("[推送统计] 记录推送结果失败: {}", result, e);
-          }
-        });
-  }
-
-  /** 记录消息总数统计（无论结果是否为空） */
-  private void recordTotalMessage(IoTPushResult result) {
-    CompletableFuture.runAsync(
-        () -> {
-          try {
-            String productKey = result != null ? result.getProductKey() : "unknown";
-            String channel = result != null ? result.getChannel() : "unknown";
-            String dateKey = LocalDate.now().format(DATE_FORMATTER);
-
-            // 记录到本地缓存 - 总数统计
-            recordPlatformStatsToLocalForTotal(result, dateKey);
-            recordProductStatsToLocalForTotal(result, dateKey, productKey);
-
-            log.debug("[推送统计] 记录消息总数: productKey={}, channel={}", productKey, channel);
+    try {
+      String productKey = result.getProductKey();
+      String channel = result.getChannel();
+      String dateKey = currentDate();
+
+      // 记录到本地缓存
+      CounterGroup platformStats = platformGroup(dateKey, platformOf(result.getPlatform()));
+      CounterGroup productStats = productGroup(dateKey, productKey);
+      platformStats.add(TOTAL, 1);
+      productStats.add(TOTAL, 1);
+      recordOutcome(platformStats, productStats, result);
+
+      // 记录消息统计
+      incrementMessageStats(
+          dateKey,
+          channel,
+          productKey,
+          result.isOk(),
+          result.getResponseTime() == null ? 0L : result.getResponseTime());
+
+      log.debug(
+          "[推送统计] 记录推送结果: productKey={}, channel={}, success={}, responseTime={}ms",
+          productKey,
+          channel,
+          result.isOk(),
+          result.getResponseTime());
 
-          } catch (Exception e) {
-            log.error("[推送统计] 记录消息总数失败: {}", result, e);
-          }
-        });
+    } catch (Exception e) {
+      log.error("[推送统计] 记录推送结果失败: {}", result, e);
+    }
   }
 
   /** 记录推送消息数统计（仅非空结果） */
-  private void recordPushMessage(IoTPushResult result) {
-    if (result == null) {
-      return;
-    }
+  private void recordPushMessage(IoTPushResult result, String dateKey) {
+    // 只统计实际执行了推送操作的消息
+    CounterGroup platformStats = platformGroup(dateKey, platformOf(result.getPlatform()));
+    CounterGroup productStats = productGroup(dateKey, result.getProductKey());
+    platformStats.add(PUSH, 1);
+    productStats.add(PUSH, 1);
+    recordOutcome(platformStats, productStats, result);
+  }
+
+  /** 成功/失败数和重试次数 */
+  private static void recordOutcome(
+      CounterGroup platformStats, CounterGroup productStats, IoTPushResult result) {
+    int outcome = result.isOk() ? SUCCESS : FAILED;
+    platformStats.add(outcome, 1);
+    productStats.add(outcome, 1);
 
-    CompletableFuture.runAsync(
-        () -> {
-          try {
-            String productKey = result.getProductKey();
-            String channel = result.getChannel();
-            String dateKey = LocalDate.now().format(DATE_FORMATTER);
-
-            // 记录到本地缓存 - 推送数统计
-            // 只统计实际执行了推送操作的消息
-            recordPlatformStatsToLocalForPush(result, dateKey);
-            recordProductStatsToLocalForPush(result, dateKey, productKey);
-
-            log.debug(
-                "[推送统计] 记录推送消息数: productKey={}, channel={}, success={}",
-                productKey,
-                channel,
-                result.isOk());
-
-          } catch (Exception e) {
-            log.error("[推送统计] 记录推送消息数失败: {}", result, e);
-          }
-        });
+    // 记录重试次数
+    if (result.getRetryCount() != null && result.getRetryCount() > 0) {
+      platformStats.add(RETRY, result.getRetryCount());
+      productStats.add(RETRY, result.getRetryCount());
+    }
   }
 
   /** 记录消息总数统计（基于请求） */
-  private void recordTotalMessageFromRequest(BaseUPRequest request) {
-    CompletableFuture.runAsync(
-        () -> {
-          try {
-            String productKey = request.getProductKey();
-            String channel = getChannelFromRequest(request);
-            String dateKey = LocalDate.now().format(DATE_FORMATTER);
-
-            // 记录到本地缓存 - 总数统计
-            recordPlatformStatsToLocalForTotalFromRequest(request, dateKey);
-            recordProductStatsToLocalForTotalFromRequest(request, dateKey, productKey);
-
-            log.debug("[推送统计] 记录消息总数: productKey={}, channel={}", productKey, channel);
-
-          } catch (Exception e) {
-            log.error("[推送统计] 记录消息总数失败: {}", request, e);
-          }
-        });
-  }
-
-  /** 从请求中获取channel信息 */
-  private String getChannelFromRequest(BaseUPRequest request) {
-    // 从设备DTO中获取thirdPlatform作为channel
-    if (request.getIoTDeviceDTO() != null && request.getIoTDeviceDTO().getThirdPlatform() != null) {
-      return request.getIoTDeviceDTO().getThirdPlatform().toLowerCase();
-    }
-    return "unknown";
+  private void recordTotalMessageFromRequest(BaseUPRequest request, String dateKey) {
+    // 记录到本地缓存 - 总数统计
+    platformGroup(dateKey, platformOf(getPlatformFromRequest(request))).add(TOTAL, 1);
+    productGroup(dateKey, request.getProductKey()).add(TOTAL, 1);
   }
 
   /** 从请求中获取platform信息 */
@@ -233,410 +234,260 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
     return "unknown";
   }
 
-  /** 记录平台统计到本地缓存 */
-  private void recordPlatformStatsToLocal(IoTPushResult result, String dateKey) {
-    String platform = result.getPlatform();
+  /** 平台信息为空时使用默认值而不是跳过统计 */
+  private static String platformOf(String platform) {
     if (platform == null || platform.isEmpty()) {
-      // 当平台信息为空时，使用默认值而不是跳过统计
-      platform = "unknown";
-      log.info("[推送统计] 推送结果中缺少平台信息，使用默认值: {}", platform);
-    }
-
-    String platformKey = dateKey + ":" + platform.toLowerCase();
-    Map<String, AtomicLong> platformStats =
-        localPlatformStats.computeIfAbsent(platformKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    platformStats.computeIfAbsent("total_count", k -> new AtomicLong(0)).incrementAndGet();
-
-    if (result.isOk()) {
-      platformStats.computeIfAbsent("success_count", k -> new AtomicLong(0)).incrementAndGet();
-    } else {
-      platformStats.computeIfAbsent("failed_count", k -> new AtomicLong(0)).incrementAndGet();
-    }
-
-    // 记录重试次数
-    if (result.getRetryCount() != null && result.getRetryCount() > 0) {
-      platformStats
-          .computeIfAbsent("retry_count", k -> new AtomicLong(0))
-          .addAndGet(result.getRetryCount());
-    }
-  }
-
-  /** 记录产品统计到本地缓存 */
-  private void recordProductStatsToLocal(IoTPushResult result, String dateKey, String productKey) {
-    String productStatsKey = dateKey + ":" + productKey;
-    Map<String, AtomicLong> productStats =
-        localProductStats.computeIfAbsent(productStatsKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    productStats.computeIfAbsent("total", k -> new AtomicLong(0)).incrementAndGet();
-
-    if (result.isOk()) {
-      productStats.computeIfAbsent("success", k -> new AtomicLong(0)).incrementAndGet();
-    } else {
-      productStats.computeIfAbsent("failed", k -> new AtomicLong(0)).incrementAndGet();
-    }
-
-    // 记录重试次数
-    if (result.getRetryCount() != null && result.getRetryCount() > 0) {
-      productStats
-          .computeIfAbsent("retry", k -> new AtomicLong(0))
-          .addAndGet(result.getRetryCount());
-    }
-  }
-
-  /** 记录平台统计到本地缓存 - 总数统计 */
-  private void recordPlatformStatsToLocalForTotal(IoTPushResult result, String dateKey) {
-    String platform = result != null ? result.getPlatform() : "unknown";
-    if (platform == null || platform.isEmpty()) {
-      platform = "unknown";
-    }
-
-    String platformKey = dateKey + ":" + platform.toLowerCase();
-    Map<String, AtomicLong> platformStats =
-        localPlatformStats.computeIfAbsent(platformKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    platformStats.computeIfAbsent("total_count", k -> new AtomicLong(0)).incrementAndGet();
-  }
-
-  /** 记录产品统计到本地缓存 - 总数统计 */
-  private void recordProductStatsToLocalForTotal(
-      IoTPushResult result, String dateKey, String productKey) {
-    String productStatsKey = dateKey + ":" + productKey;
-    Map<String, AtomicLong> productStats =
-        localProductStats.computeIfAbsent(productStatsKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    productStats.computeIfAbsent("total", k -> new AtomicLong(0)).incrementAndGet();
-  }
-
-  /** 记录平台统计到本地缓存 - 总数统计（基于请求） */
-  private void recordPlatformStatsToLocalForTotalFromRequest(
-      BaseUPRequest request, String dateKey) {
-    String platform = getPlatformFromRequest(request);
-    if (platform == null || platform.isEmpty()) {
-      platform = "unknown";
-    }
-
-    String platformKey = dateKey + ":" + platform.toLowerCase();
-    Map<String, AtomicLong> platformStats =
-        localPlatformStats.computeIfAbsent(platformKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    platformStats.computeIfAbsent("total_count", k -> new AtomicLong(0)).incrementAndGet();
-  }
-
-  /** 记录产品统计到本地缓存 - 总数统计（基于请求） */
-  private void recordProductStatsToLocalForTotalFromRequest(
-      BaseUPRequest request, String dateKey, String productKey) {
-    String productStatsKey = dateKey + ":" + productKey;
-    Map<String, AtomicLong> productStats =
-        localProductStats.computeIfAbsent(productStatsKey, k -> new ConcurrentHashMap<>());
-
-    // 记录总数
-    productStats.computeIfAbsent("total", k -> new AtomicLong(0)).incrementAndGet();
-  }
-
-  /** 记录平台统计到本地缓存 - 推送数统计 */
-  private void recordPlatformStatsToLocalForPush(IoTPushResult result, String dateKey) {
-    String platform = result.getPlatform();
-    if (platform == null || platform.isEmpty()) {
-      // 当平台信息为空时，使用默认值而不是跳过统计
-      platform = "unknown";
-      log.info("[推送统计] 推送结果中缺少平台信息，使用默认值: {}", platform);
-    }
-
-    String platformKey = dateKey + ":" + platform.toLowerCase();
-    Map<String, AtomicLong> platformStats =
-        localPlatformStats.computeIfAbsent(platformKey, k -> new ConcurrentHashMap<>());
-
-    // 记录推送数
-    platformStats.computeIfAbsent("push_count", k -> new AtomicLong(0)).incrementAndGet();
-
-    if (result.isOk()) {
-      platformStats.computeIfAbsent("success_count", k -> new AtomicLong(0)).incrementAndGet();
-    } else {
-      platformStats.computeIfAbsent("failed_count", k -> new AtomicLong(0)).incrementAndGet();
-    }
-
-    // 记录重试次数
-    if (result.getRetryCount() != null && result.getRetryCount() > 0) {
-      platformStats
-          .computeIfAbsent("retry_count", k -> new AtomicLong(0))
-          .addAndGet(result.getRetryCount());
-    }
-  }
-
-  /** 记录产品统计到本地缓存 - 推送数统计 */
-  private void recordProductStatsToLocalForPush(
-      IoTPushResult result, String dateKey, String productKey) {
-    String productStatsKey = dateKey + ":" + productKey;
-    Map<String, AtomicLong> productStats =
-        localProductStats.computeIfAbsent(productStatsKey, k -> new ConcurrentHashMap<>());
-
-    // 记录推送数
-    productStats.computeIfAbsent("push", k -> new AtomicLong(0)).incrementAndGet();
-
-    if (result.isOk()) {
-      productStats.computeIfAbsent("success", k -> new AtomicLong(0)).incrementAndGet();
-    } else {
-      productStats.computeIfAbsent("failed", k -> new AtomicLong(0)).incrementAndGet();
-    }
-
-    // 记录重试次数
-    if (result.getRetryCount() != null && result.getRetryCount() > 0) {
-      productStats
-          .computeIfAbsent("retry", k -> new AtomicLong(0))
-          .addAndGet(result.getRetryCount());
+      return "unknown";
     }
+    return platform.toLowerCase();
   }
 
   /** 原子自增消息统计 */
   private void incrementMessageStats(
-      String channel, String productKey, boolean isSuccess, long responseTime) {
-    LocalDate today = LocalDate.now();
-    String dateKey = today.format(DATE_FORMATTER);
+      String dateKey, String channel, String productKey, boolean isSuccess, long responseTime) {
+    CounterGroup messageStats =
+        localMessageStats.computeIfAbsent(
+            new GroupKey(dateKey, channel != null ? channel : "all", productKey),
+            PushStatisticsProcessor::newMessageGroup);
 
     // 消息总数
-    String totalKey =
-        String.format(
-            "dashboard:metric:%s:all:%s:%s:message_total",
-            dateKey, channel != null ? channel : "all", productKey != null ? productKey : "all");
-    incrementMetric(totalKey, 1);
+    messageStats.add(MESSAGE_TOTAL, 1);
 
     // 成功/失败消息数
-    String successKey =
-        String.format(
-            "dashboard:metric:%s:all:%s:%s:message_%s",
-            dateKey,
-            channel != null ? channel : "all",
-            productKey != null ? productKey : "all",
-            isSuccess ? "success" : "failed");
-    incrementMetric(successKey, 1);
+    messageStats.add(isSuccess ? MESSAGE_SUCCESS : MESSAGE_FAILED, 1);
 
     // 响应时间统计
     if (responseTime > 0) {
-      String responseTimeKey =
-          String.format(
-              "dashboard:metric:%s:all:%s:%s:response_time_total",
-              dateKey, channel != null ? channel : "all", productKey != null ? productKey : "all");
-      String responseCountKey =
-          String.format(
-              "dashboard:metric:%s:all:%s:%s:response_count",
-              dateKey, channel != null ? channel : "all", productKey != null ? productKey : "all");
-
-      incrementMetric(responseTimeKey, responseTime);
-      incrementMetric(responseCountKey, 1);
+      messageStats.add(RESPONSE_TIME_TOTAL, responseTime);
+      messageStats.add(RESPONSE_COUNT, 1);
     }
   }
 
-  /** 原子自增统计 */
-  private void incrementMetric(String metricKey, long increment) {
-    AtomicLong counter = localCounters.computeIfAbsent(metricKey, k -> new AtomicLong(0));
-    counter.addAndGet(increment);
+  private CounterGroup platformGroup(String dateKey, String platform) {
+    return localPlatformStats.computeIfAbsent(
+        new GroupKey(dateKey, platform, null),
+        key ->
+            new CounterGroup(
+                key, PUSH_PLATFORM_KEY_PREFIX + key.date() + ":" + key.name(), PLATFORM_FIELDS));
+  }
+
+  private CounterGroup productGroup(String dateKey, String productKey) {
+    return localProductStats.computeIfAbsent(
+        new GroupKey(dateKey, String.valueOf(productKey), null),
+        key ->
+            new CounterGroup(
+                key, PUSH_PRODUCT_KEY_PREFIX + key.date() + ":" + key.name(), PRODUCT_FIELDS));
+  }
+
+  private static CounterGroup newMessageGroup(GroupKey key) {
+    // key格式：dashboard:metric:{date}:all:{channel}:{productKey}:{metric}
+    String product = key.product() != null ? key.product() : "all";
+    String[] metricKeys = new String[MESSAGE_METRICS.length];
+    for (int i = 0; i < MESSAGE_METRICS.length; i++) {
+      metricKeys[i] =
+          "dashboard:metric:"
+              + key.date()
+              + ":all:"
+              + key.name()
+              + ":"
+              + product
+              + ":"
+              + MESSAGE_METRICS[i];
+    }
+    return new CounterGroup(key, null, metricKeys);
+  }
 
-    log.debug(
-        "[推送统计] 本地计数器自增: key={}, increment={}, current={}", metricKey, increment, counter.get());
+  private String currentDate() {
+    Today current = today;
+    long epochDay = LocalDate.now().toEpochDay();
+    if (current.epochDay() != epochDay) {
+      current = Today.of(LocalDate.ofEpochDay(epochDay));
+      today = current;
+    }
+    return current.date();
   }
 
   /** 定时刷新到Redis（每5分钟执行一次） */
   @Scheduled(fixedRate = FLUSH_INTERVAL)
   public void flushToRedis() {
-    long currentTime = System.currentTimeMillis();
-    if (currentTime - lastFlushTime < FLUSH_INTERVAL) {
+    if (!flushLock.tryLock()) {
       return; // 避免重复执行
     }
 
     log.debug("[推送统计] 开始定时刷新到Redis");
 
     try {
-      int flushedCount = 0;
-
-      // 刷新平台统计
-      flushedCount += flushPlatformStatsToRedis();
-
-      // 刷新产品统计
-      flushedCount += flushProductStatsToRedis();
-
-      // 刷新消息统计
-      flushedCount += flushMessageStatsToRedis();
-
-      lastFlushTime = currentTime;
+      int flushedCount = flushAll();
+      lastFlushTime = System.currentTimeMillis();
       log.info("[推送统计] 定时刷新完成，刷新了 {} 个指标", flushedCount);
 
     } catch (Exception e) {
       log.error("[推送统计] 定时刷新到Redis失败", e);
+    } finally {
+      flushLock.unlock();
     }
   }
 
-  /** 刷新平台统计到Redis */
-  private int flushPlatformStatsToRedis() {
-    int flushedCount = 0;
+  /** 取出所有非零增量，在一个 pipeline 事务中写入 Redis */
+  private int flushAll() {
+    resolvePendingFlush();
 
-    for (Map.Entry<String, Map<String, AtomicLong>> entry : localPlatformStats.entrySet()) {
-      String platformKey = entry.getKey();
-      Map<String, AtomicLong> stats = entry.getValue();
+    List<Delta> deltas = new ArrayList<>();
+    drain(localPlatformStats, deltas);
+    drain(localProductStats, deltas);
+    drain(localMessageStats, deltas);
+    if (deltas.isEmpty()) {
+      return 0;
+    }
 
-      String[] parts = platformKey.split(":");
-      if (parts.length != 2) {
-        continue;
+    Set<String> hashKeys = new LinkedHashSet<>();
+    Set<String> metricKeys = new LinkedHashSet<>();
+    for (Delta delta : deltas) {
+      if (delta.group().redisKey != null) {
+        hashKeys.add(delta.group().redisKey);
+      } else {
+        metricKeys.add(delta.group().fields[delta.index()]);
       }
+    }
 
-      String dateKey = parts[0];
-      String platform = parts[1];
-      String redisKey = PUSH_PLATFORM_KEY_PREFIX + dateKey + ":" + platform;
-
-      try {
-        for (Map.Entry<String, AtomicLong> statEntry : stats.entrySet()) {
-          String field = statEntry.getKey();
-          AtomicLong counter = statEntry.getValue();
-
-          long currentValue = counter.get();
-          if (currentValue > 0) {
-            // 使用Redis HINCRBY原子操作
-            redisTemplate.opsForHash().increment(redisKey, field, currentValue);
-
-            // 重置本地计数器
-            counter.addAndGet(-currentValue);
-
-            flushedCount++;
-            log.debug(
-                "[推送统计] 刷新平台统计到Redis: key={}, field={}, value={}", redisKey, field, currentValue);
-          }
-        }
-
-        // 设置过期时间（30天）
-        redisTemplate.expire(redisKey, java.time.Duration.ofDays(30));
-
-      } catch (Exception e) {
-        log.error("[推送统计] 刷新平台统计失败: {}", platformKey, e);
-      }
+    String marker = FLUSH_MARKER_PREFIX + IdUtil.fastSimpleUUID();
+    try {
+      redisTemplate.executePipelined(
+          (RedisCallback<Object>)
+              conn -> {
+                StringRedisConnection sc = (StringRedisConnection) conn;
+                sc.multi();
+                for (Delta delta : deltas) {
+                  CounterGroup group = delta.group();
+                  if (group.redisKey != null) {
+                    // 使用Redis HINCRBY原子操作
+                    sc.hIncrBy(group.redisKey, group.fields[delta.index()], delta.value());
+                  } else {
+                    // 使用Redis INCRBY原子操作
+                    sc.incrBy(group.fields[delta.index()], delta.value());
+                  }
+                }
+                // 设置过期时间：平台/产品统计30天，消息统计7天
+                for (String key : hashKeys) {
+                  sc.expire(key, HASH_TTL_SECONDS);
+                }
+                for (String key : metricKeys) {
+                  sc.expire(key, METRIC_TTL_SECONDS);
+                }
+                sc.setEx(marker, FLUSH_MARKER_TTL_SECONDS, "1");
+                sc.exec();
+                return null;
+              });
+    } catch (RuntimeException e) {
+      // 事务是否提交未知，下次刷新时按提交标记确认
+      pendingFlush = new PendingFlush(marker, deltas);
+      throw e;
     }
 
-    return flushedCount;
+    evictStaleGroups();
+    return deltas.size();
   }
 
-  /** 刷新产品统计到Redis */
-  private int flushProductStatsToRedis() {
-    int flushedCount = 0;
-
-    for (Map.Entry<String, Map<String, AtomicLong>> entry : localProductStats.entrySet()) {
-      String productStatsKey = entry.getKey();
-      Map<String, AtomicLong> stats = entry.getValue();
-
-      String[] parts = productStatsKey.split(":");
-      if (parts.length != 2) {
-        continue;
+  /**
+   * 确认上次结果未知的刷新：提交标记存在则事务已提交，否则把增量加回本地计数单元，随本次刷新重新写入
+   *
+   * <p>Redis 仍不可用时抛出异常，待确认的刷新保留到下次
+   */
+  private void resolvePendingFlush() {
+    PendingFlush pending = pendingFlush;
+    if (pending == null) {
+      return;
+    }
+    boolean committed = Boolean.TRUE.equals(redisTemplate.hasKey(pending.marker()));
+    if (!committed) {
+      for (Delta delta : pending.deltas()) {
+        delta.group().add(delta.index(), delta.value());
       }
-
-      String dateKey = parts[0];
-      String productKey = parts[1];
-      String redisKey = PUSH_PRODUCT_KEY_PREFIX + dateKey + ":" + productKey;
-
-      try {
-        for (Map.Entry<String, AtomicLong> statEntry : stats.entrySet()) {
-          String field = statEntry.getKey();
-          AtomicLong counter = statEntry.getValue();
-
-          long currentValue = counter.get();
-          if (currentValue > 0) {
-            // 使用Redis HINCRBY原子操作
-            redisTemplate.opsForHash().increment(redisKey, field, currentValue);
-
-            // 重置本地计数器
-            counter.addAndGet(-currentValue);
-
-            flushedCount++;
-            log.debug(
-                "[推送统计] 刷新产品统计到Redis: key={}, field={}, value={}", redisKey, field, currentValue);
-          }
+    }
+    pendingFlush = null;
+    log.info(
+        "[推送统计] 确认上次未知结果的刷新, committed={}, 指标数={}", committed, pending.deltas().size());
+  }
+
+  private static void drain(Map<GroupKey, CounterGroup> groups, List<Delta> deltas) {
+    for (CounterGroup group : groups.values()) {
+      for (int i = 0; i < group.cells.length; i++) {
+        // 只减去读到的值，读之后的并发自增保留到下次刷新
+        long value = group.cells[i].sum();
+        if (value != 0) {
+          group.cells[i].add(-value);
+          deltas.add(new Delta(group, i, value));
         }
-
-        // 设置过期时间（30天）
-        redisTemplate.expire(redisKey, java.time.Duration.ofDays(30));
-
-      } catch (Exception e) {
-        log.error("[推送统计] 刷新产品统计失败: {}", productStatsKey, e);
       }
     }
-
-    return flushedCount;
   }
 
-  /** 刷新消息统计到Redis */
-  private int flushMessageStatsToRedis() {
-    int flushedCount = 0;
-
-    for (Map.Entry<String, AtomicLong> entry : localCounters.entrySet()) {
-      String metricKey = entry.getKey();
-      AtomicLong counter = entry.getValue();
-
-      long currentValue = counter.get();
-      if (currentValue > 0) {
-        // 使用Redis INCRBY原子操作
-        Long newValue = redisTemplate.opsForValue().increment(metricKey, currentValue);
-
-        // 重置本地计数器
-        counter.addAndGet(-currentValue);
-
-        // 设置过期时间（7天）
-        redisTemplate.expire(metricKey, java.time.Duration.ofDays(7));
-
-        flushedCount++;
-        log.debug(
-            "[推送统计] 刷新指标到Redis: key={}, value={}, newTotal={}", metricKey, currentValue, newValue);
-      }
+  /** 移除两天前且已刷新完的分组，当天和前一天的分组保留用于活跃平台/产品查询 */
+  private void evictStaleGroups() {
+    String yesterday = LocalDate.now().minusDays(1).format(DATE_FORMATTER);
+    for (Map<GroupKey, CounterGroup> groups :
+        List.of(localPlatformStats, localProductStats, localMessageStats)) {
+      groups
+          .values()
+          .removeIf(group -> group.key.date().compareTo(yesterday) < 0 && group.isZero());
     }
-
-    return flushedCount;
   }
 
   /** 强制刷新到Redis */
   public void forceFlushToRedis() {
     log.info("[推送统计] 强制刷新到Redis");
-    flushToRedis();
+    flushLock.lock();
+    try {
+      int flushedCount = flushAll();
+      lastFlushTime = System.currentTimeMillis();
+      log.info("[推送统计] 强制刷新完成，刷新了 {} 个指标", flushedCount);
+    } catch (Exception e) {
+      log.error("[推送统计] 强制刷新到Redis失败", e);
+    } finally {
+      flushLock.unlock();
+    }
   }
 
   /** 获取本地计数器状态 */
   public Map<String, Long> getLocalCounterStatus() {
     Map<String, Long> status = new ConcurrentHashMap<>();
-    for (Map.Entry<String, AtomicLong> entry : localCounters.entrySet()) {
-      status.put(entry.getKey(), entry.getValue().get());
+    for (CounterGroup group : localMessageStats.values()) {
+      for (int i = 0; i < group.cells.length; i++) {
+        status.put(group.fields[i], group.cells[i].sum());
+      }
     }
     return status;
   }
 
   /** 获取本地平台统计状态 */
   public Map<String, Map<String, Long>> getLocalPlatformStatsStatus() {
-    Map<String, Map<String, Long>> status = new ConcurrentHashMap<>();
-    for (Map.Entry<String, Map<String, AtomicLong>> entry : localPlatformStats.entrySet()) {
-      Map<String, Long> platformStatus = new ConcurrentHashMap<>();
-      for (Map.Entry<String, AtomicLong> statEntry : entry.getValue().entrySet()) {
-        platformStatus.put(statEntry.getKey(), statEntry.getValue().get());
-      }
-      status.put(entry.getKey(), platformStatus);
-    }
-    return status;
+    return snapshot(localPlatformStats);
   }
 
   /** 获取本地产品统计状态 */
   public Map<String, Map<String, Long>> getLocalProductStatsStatus() {
+    return snapshot(localProductStats);
+  }
+
+  private static Map<String, Map<String, Long>> snapshot(Map<GroupKey, CounterGroup> groups) {
     Map<String, Map<String, Long>> status = new ConcurrentHashMap<>();
-    for (Map.Entry<String, Map<String, AtomicLong>> entry : localProductStats.entrySet()) {
-      Map<String, Long> productStatus = new ConcurrentHashMap<>();
-      for (Map.Entry<String, AtomicLong> statEntry : entry.getValue().entrySet()) {
-        productStatus.put(statEntry.getKey(), statEntry.getValue().get());
+    for (CounterGroup group : groups.values()) {
+      Map<String, Long> groupStatus = new ConcurrentHashMap<>();
+      for (int i = 0; i < group.cells.length; i++) {
+        long value = group.cells[i].sum();
+        if (value != 0) {
+          groupStatus.put(group.fields[i], value);
+        }
       }
-      status.put(entry.getKey(), productStatus);
+      // key格式：dateKey:platform / dateKey:productKey
+      status.put(group.key.date() + ":" + group.key.name(), groupStatus);
     }
     return status;
   }
 
   /** 清理本地计数器 */
   public void clearLocalCounters() {
-    localCounters.clear();
+    localMessageStats.clear();
     localPlatformStats.clear();
     localProductStats.clear();
     log.info("[推送统计] 本地计数器已清理");
@@ -645,7 +496,7 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
   /** 获取统计管理器状态 */
   public Map<String, Object> getManagerStatus() {
     Map<String, Object> status = new ConcurrentHashMap<>();
-    status.put("localCounterSize", localCounters.size());
+    status.put("localCounterSize", localMessageStats.size() * MESSAGE_METRICS.length);
     status.put("localPlatformStatsSize", localPlatformStats.size());
     status.put("localProductStatsSize", localProductStats.size());
     status.put("lastFlushTime", lastFlushTime);
@@ -659,15 +510,12 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
   /** 获取活跃的产品key列表 */
   public List<String> getActiveProductKeys() {
     List<String> productKeys = new ArrayList<>();
-    String dateKey = LocalDate.now().format(DATE_FORMATTER);
+    String dateKey = currentDate();
 
     // 从本地产品统计缓存中获取活跃的产品key
-    for (String key : localProductStats.keySet()) {
-      // key格式：dateKey:productKey
-      String[] parts = key.split(":");
-      if (parts.length == 2 && parts[0].equals(dateKey)) {
-        String productKey = parts[1];
-        productKeys.add(productKey);
+    for (GroupKey key : localProductStats.keySet()) {
+      if (key.date().equals(dateKey)) {
+        productKeys.add(key.name());
       }
     }
 
@@ -678,19 +526,66 @@ public class PushStatisticsProcessor implements UPProcessor<BaseUPRequest> {
   /** 获取活跃的平台列表 */
   public List<String> getActivePlatforms() {
     List<String> platforms = new ArrayList<>();
-    String dateKey = LocalDate.now().format(DATE_FORMATTER);
+    String dateKey = currentDate();
 
     // 从本地平台统计缓存中获取活跃的平台
-    for (String key : localPlatformStats.keySet()) {
-      // key格式：dateKey:platform
-      String[] parts = key.split(":");
-      if (parts.length == 2 && parts[0].equals(dateKey)) {
-        String platform = parts[1];
-        platforms.add(platform);
+    for (GroupKey key : localPlatformStats.keySet()) {
+      if (key.date().equals(dateKey)) {
+        platforms.add(key.name());
       }
     }
 
     log.debug("[推送统计] 从本地缓存获取到 {} 个活跃平台: {}", platforms.size(), platforms);
     return platforms;
   }
+
+  /** 分组键：日期 + 平台/产品，消息统计为日期 + 渠道 + 产品 */
+  private record GroupKey(String date, String name, String product) {}
+
+  private record Delta(CounterGroup group, int index, long value) {}
+
+  private record PendingFlush(String marker, List<Delta> deltas) {}
+
+  private record Today(long epochDay, String date) {
+
+    static Today of(LocalDate date) {
+      return new Today(date.toEpochDay(), date.format(DATE_FORMATTER));
+    }
+  }
+
+  /**
+   * 一组计数单元
+   *
+   * <p>平台/产品统计对应一个Redis Hash，fields 为字段名；消息统计 redisKey 为空，fields 为各指标的完整key
+   */
+  private static final class CounterGroup {
+
+    private final GroupKey key;
+    private final String redisKey;
+    private final String[] fields;
+    private final LongAdder[] cells;
+
+    private CounterGroup(GroupKey key, String redisKey, String[] fields) {
+      this.key = key;
+      this.redisKey = redisKey;
+      this.fields = fields;
+      this.cells = new LongAdder[fields.length];
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = new LongAdder();
+      }
+    }
+
+    private void add(int index, long value) {
+      cells[index].add(value);
+    }
+
+    private boolean isZero() {
+      for (LongAdder cell : cells) {
+        if (cell.sum() != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
 }
@@ -14,6 +14,8 @@ import cn.universal.persistence.entity.IoTDeviceShadow;
 import cn.universal.persistence.mapper.IoTDeviceMapper;
 import cn.universal.persistence.mapper.IoTDeviceShadowMapper;
 import cn.universal.persistence.query.IoTDeviceQuery;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import java.util.ArrayList;
 import java.util.Date;
@@ -21,12 +23,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -35,7 +45,8 @@ import org.springframework.stereotype.Component;
  * 设备影子定时缓存
  *
  * <p>Periodically flush device shadows from Redis to DB. Uses Redis ZSET (score = nextFlushAtMs)
- * and Redisson distributed lock.
+ * partitioned into hash slots; each instance flushes the slots assigned to it under short-lived
+ * leases, see {@link ShadowFlushSlotManager}.
  */
 @Slf4j
 @Component
@@ -45,6 +56,7 @@ public class ShadowFlushScheduler {
   @Resource private IoTDeviceShadowMapper ioTDeviceShadowMapper;
   @Resource private IoTDeviceMapper ioTDeviceMapper;
   @Resource private DistributedLockUtil distributedLockUtil;
+  @Resource private ShadowFlushSlotManager slotManager;
 
   @Value("${shadow.cache.enabled:true}")
   private boolean shadowCacheEnabled;
@@ -55,29 +67,49 @@ public class ShadowFlushScheduler {
   @Value("${shadow.flush.enabled:true}")
   private boolean flushEnabled;
 
-  @Value("${shadow.flush.zset-key:shadow:flush}")
-  private String shadowFlushZsetKey;
-
   @Value("${shadow.flush.scan-interval-ms:300000}") // 5 minutes
   private long scanIntervalMs;
 
   @Value("${shadow.flush.batch-size:1000}")
   private int batchSize;
 
-  @Value("${shadow.flush.lock-key:shadow:flush:lock}")
-  private String lockKey;
+  @Value("${shadow.flush.max-retries:3}")
+  private int maxRetries;
 
-  @Value("${shadow.flush.lock-wait-time:10}")
-  private long lockWaitTime;
+  /** 单次pipeline中MGET的key数量 */
+  @Value("${shadow.flush.fetch-chunk-size:200}")
+  private int fetchChunkSize;
 
-  @Value("${shadow.flush.lock-lease-time:60}")
-  private long lockLeaseTime;
+  /** 单个分片单次最多处理的批次数，避免超过租约 */
+  @Value("${shadow.flush.max-batches-per-run:10}")
+  private int maxBatchesPerRun;
 
-  @Value("${shadow.flush.max-retries:3}")
-  private int maxRetries;
+  /** 本实例并行刷盘的分片数 */
+  @Value("${shadow.flush.slot-parallelism:4}")
+  private int slotParallelism;
 
   @Resource private InstanceIdProvider instanceIdProvider;
 
+  /** 分片刷盘线程 */
+  private ExecutorService slotExecutor;
+
+  /** 落库线程，与下一批的Redis读取并行，每个分片同一时刻只有一批在写库 */
+  private ExecutorService dbWriteExecutor;
+
+  /** 各分片最近一次刷盘的各阶段耗时 */
+  private final Map<Integer, FlushTimings> lastTimings = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    int parallelism = Math.max(1, slotParallelism);
+    slotExecutor =
+        Executors.newFixedThreadPool(
+            parallelism, Thread.ofPlatform().name("shadow-flush-slot-", 0).daemon(true).factory());
+    dbWriteExecutor =
+        Executors.newFixedThreadPool(
+            parallelism, Thread.ofPlatform().name("shadow-flush-db-", 0).daemon(true).factory());
+  }
+
   @Scheduled(fixedDelayString = "${shadow.flush.scan-interval-ms:300000}")
   public void flushDueShadows() {
     if (!shadowCacheEnabled || !flushEnabled) {
@@ -93,20 +125,15 @@ public class ShadowFlushScheduler {
       String instanceId = instanceIdProvider.getInstanceId();
       log.debug("[ShadowFlush] 开始设备影子扫描: scanTime={}, instanceId={}", now, instanceId);
 
-      // 使用分布式锁工具类执行任务，确保集群环境下只有一个实例执行
-      Integer result =
-          distributedLockUtil.tryLockAndExecute(
-              lockKey, lockWaitTime, lockLeaseTime, TimeUnit.SECONDS, this::executeFlushTask);
+      List<Integer> slots = slotManager.assignedSlots();
+      int result = flushSlots(slots);
 
-      if (result != null) {
-        log.debug(
-            "[ShadowFlush] 影子扫描完成: processed={}, cost={}ms, instanceId={}",
-            result,
-            (System.currentTimeMillis() - now),
-            instanceId);
-      } else {
-        log.debug("[ShadowFlush] 获取分布式锁失败，跳过本次扫描: instanceId={}", instanceId);
-      }
+      log.debug(
+          "[ShadowFlush] 影子扫描完成: slots={}, processed={}, cost={}ms, instanceId={}",
+          slots,
+          result,
+          (System.currentTimeMillis() - now),
+          instanceId);
     } catch (Exception e) {
       log.error("刷盘影子报错,error={}", e.getMessage(), e);
     } finally {
@@ -118,18 +145,79 @@ public class ShadowFlushScheduler {
     return shadowKeyPrefix + ":" + iotId;
   }
 
-  /** 获取缓存数据 */
-  private Map<String, String> getCacheData(Set<String> iotIds) {
-    Map<String, String> result = new HashMap<>();
+  /** 并行刷盘多个分片，取得租约的分片才会处理 */
+  private int flushSlots(List<Integer> slots) {
+    String traceId = MDC.get(IoTConstant.TRACE_ID);
+    List<Future<Integer>> futures = new ArrayList<>(slots.size());
+    for (int slot : slots) {
+      futures.add(
+          slotExecutor.submit(
+              () -> {
+                MDC.put(IoTConstant.TRACE_ID, traceId);
+                try {
+                  return flushSlot(slot);
+                } finally {
+                  MDC.remove(IoTConstant.TRACE_ID);
+                }
+              }));
+    }
+    int processed = 0;
+    for (Future<Integer> future : futures) {
+      processed += awaitWrite(future);
+    }
+    return processed;
+  }
 
-    for (String iotId : iotIds) {
+  /** 持有租约刷盘单个分片 */
+  private int flushSlot(int slot) {
+    if (!slotManager.tryAcquire(slot)) {
+      log.debug("[ShadowFlush] 分片租约被其他实例持有，跳过: slot={}", slot);
+      return 0;
+    }
+    try {
+      return executeFlushTask(slot);
+    } finally {
+      slotManager.release(slot);
+    }
+  }
+
+  /**
+   * 获取缓存数据：按 fetchChunkSize 分块，每块一个pipeline，先 ZREM 再 MGET。
+   *
+   * <p>先移除再读取，读取之后的影子更新会重新写入ZSet，不会丢失刷盘标记；没有缓存数据的设备同样被移除，避免反复扫描。
+   */
+  private Map<String, String> getCacheData(String zsetKey, List<String> iotIds) {
+    Map<String, String> result = new HashMap<>(iotIds.size() * 2);
+    int chunkSize = Math.max(1, fetchChunkSize);
+
+    for (int from = 0; from < iotIds.size(); from += chunkSize) {
+      List<String> chunk = iotIds.subList(from, Math.min(from + chunkSize, iotIds.size()));
+      String[] members = chunk.toArray(new String[0]);
+      String[] keys = new String[members.length];
+      for (int i = 0; i < members.length; i++) {
+        keys[i] = buildShadowKey(members[i]);
+      }
       try {
-        String cacheJson = stringRedisTemplate.opsForValue().get(buildShadowKey(iotId));
-        if (StrUtil.isNotBlank(cacheJson)) {
-          result.put(iotId, cacheJson);
+        List<Object> replies =
+            stringRedisTemplate.executePipelined(
+                (RedisCallback<Object>)
+                    conn -> {
+                      StringRedisConnection sc = (StringRedisConnection) conn;
+                      sc.zRem(zsetKey, members);
+                      sc.mGet(keys);
+                      return null;
+                    });
+        if (replies.size() < 2 || !(replies.get(1) instanceof List<?> values)) {
+          continue;
+        }
+        for (int i = 0; i < members.length && i < values.size(); i++) {
+          Object value = values.get(i);
+          if (value instanceof String cacheJson && StrUtil.isNotBlank(cacheJson)) {
+            result.put(members[i], cacheJson);
+          }
         }
       } catch (Exception e) {
-        log.warn("[ShadowFlush] get cache error iotId={}, err={}", iotId, e.getMessage());
+        log.warn("[ShadowFlush] pipeline fetch error size={}, err={}", members.length, e.getMessage());
       }
     }
 
@@ -184,10 +272,12 @@ public class ShadowFlushScheduler {
   }
 
   /** 批量处理设备影子 - 优化数据库操作 */
-  private int processBatchShadows(List<String> iotIds, Map<String, String> cacheData) {
+  private int processBatchShadows(
+      List<String> iotIds, Map<String, String> cacheData, FlushTimings timings) {
     if (CollUtil.isEmpty(iotIds)) {
       return 0;
     }
+    long mergeStart = System.nanoTime();
     try {
       // 批量查询已存在的记录
       List<IoTDeviceShadow> existingShadows = ioTDeviceShadowMapper.selectByIotIds(iotIds);
@@ -215,6 +305,9 @@ public class ShadowFlushScheduler {
           }
         }
       }
+      long dbStart = System.nanoTime();
+      timings.merge.add(dbStart - mergeStart);
+
       // 批量插入
       if (!toInsert.isEmpty()) {
         ioTDeviceShadowMapper.batchInsert(toInsert);
@@ -224,12 +317,14 @@ public class ShadowFlushScheduler {
       if (!toUpdate.isEmpty()) {
         ioTDeviceShadowMapper.batchUpdate(toUpdate);
       }
+      timings.db.add(System.nanoTime() - dbStart);
 
       return toInsert.size() + toUpdate.size();
 
     } catch (Exception e) {
       log.error("[ShadowFlush] batch process error: {}", e.getMessage(), e);
       // 回退到单个处理
+      long dbStart = System.nanoTime();
       int processed = 0;
       for (String iotId : iotIds) {
         String cacheJson = cacheData.get(iotId);
@@ -237,6 +332,7 @@ public class ShadowFlushScheduler {
           processed++;
         }
       }
+      timings.db.add(System.nanoTime() - dbStart);
       return processed;
     }
   }
@@ -359,74 +455,174 @@ public class ShadowFlushScheduler {
     return result;
   }
 
-  /** 执行影子刷新任务 */
-  private Integer executeFlushTask() {
+  /**
+   * 执行单个分片的影子刷新任务
+   *
+   * <p>按批次循环：续租 → 扫描到期设备 → pipeline读取缓存并移除ZSet → 提交落库线程。第N批落库与第N+1批的Redis读取并行，
+   * 单次最多 maxBatchesPerRun 批；续租失败（租约已被接管）时立即停止。
+   */
+  private Integer executeFlushTask(int slot) {
     long start = System.currentTimeMillis();
+    String zsetKey = slotManager.zsetKeyOfSlot(slot);
     int processed = 0;
     String instanceId = instanceIdProvider.getInstanceId();
+    FlushTimings timings = new FlushTimings();
+    Future<Integer> pendingWrite = null;
 
     try {
-      long now = System.currentTimeMillis();
+      for (int batch = 0; batch < Math.max(1, maxBatchesPerRun); batch++) {
+        if (batch > 0 && !slotManager.tryAcquire(slot)) {
+          log.warn("[ShadowFlush] 分片租约已失效，停止刷盘: slot={}, instanceId={}", slot, instanceId);
+          break;
+        }
+        long now = System.currentTimeMillis();
+
+        // fetch due iotIds by score <= now
+        long scanStart = System.nanoTime();
+        Set<String> dueIds =
+            stringRedisTemplate
+                .opsForZSet()
+                .rangeByScore(
+                    zsetKey, Double.NEGATIVE_INFINITY, (double) now, 0, batchSize);
+        timings.scan.add(System.nanoTime() - scanStart);
+
+        if (dueIds == null || dueIds.isEmpty()) {
+          if (batch == 0) {
+            log.debug(
+                "[ShadowFlush] 没有到期的设备需要刷盘: slot={}, now={}, instanceId={}", slot, now, instanceId);
+          }
+          break;
+        }
+        log.debug(
+            "[ShadowFlush] 发现{}个到期设备需要刷盘: slot={}, dueIds={}, instanceId={}",
+            dueIds.size(),
+            slot,
+            dueIds,
+            instanceId);
 
-      // 检查ZSet中总共有多少待刷盘的设备
-      Long totalCount =
-          stringRedisTemplate
-              .opsForZSet()
-              .count(shadowFlushZsetKey, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-      log.info("[ShadowFlush] ZSet中待刷盘设备总数: {}, instanceId={}", totalCount, instanceId);
-
-      // fetch due iotIds by score <= now
-      Set<String> dueIds =
-          stringRedisTemplate
-              .opsForZSet()
-              .rangeByScore(
-                  shadowFlushZsetKey, Double.NEGATIVE_INFINITY, (double) now, 0, batchSize);
-
-      if (dueIds == null || dueIds.isEmpty()) {
-        log.debug("[ShadowFlush] 没有到期的设备需要刷盘: now={}, instanceId={}", now, instanceId);
-        return 0;
+        // pipeline获取缓存数据并从ZSet中移除
+        long fetchStart = System.nanoTime();
+        Map<String, String> cacheData = getCacheData(zsetKey, new ArrayList<>(dueIds));
+        timings.fetch.add(System.nanoTime() - fetchStart);
+        timings.batches.increment();
+        timings.devices.add(dueIds.size());
+
+        // 等待上一批落库完成，再提交本批，保证同一时刻只有一批写库
+        processed += awaitWrite(pendingWrite);
+        pendingWrite = null;
+        if (!cacheData.isEmpty()) {
+          List<String> validIotIds = new ArrayList<>(cacheData.keySet());
+          String traceId = MDC.get(IoTConstant.TRACE_ID);
+          pendingWrite =
+              dbWriteExecutor.submit(
+                  () -> {
+                    MDC.put(IoTConstant.TRACE_ID, traceId);
+                    try {
+                      return processBatchShadows(validIotIds, cacheData, timings);
+                    } finally {
+                      MDC.remove(IoTConstant.TRACE_ID);
+                    }
+                  });
+        }
+
+        if (dueIds.size() < batchSize) {
+          break;
+        }
+      }
+      processed += awaitWrite(pendingWrite);
+
+      timings.totalNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - start);
+      timings.processed = processed;
+      if (timings.batches.sum() > 0) {
+        lastTimings.put(slot, timings);
+        log.info(
+            "[ShadowFlush] 分片刷盘完成: slot={}, {}, instanceId={}", slot, timings, instanceId);
       }
 
-      log.info("[ShadowFlush] 发现{}个到期设备需要刷盘: {}, instanceId={}", dueIds.size(), dueIds, instanceId);
+      return processed;
 
-      // 获取缓存数据
-      Map<String, String> cacheData = getCacheData(dueIds);
-      if (cacheData.isEmpty()) {
-        log.debug("[ShadowFlush] 缓存数据为空，跳过刷盘: dueIds={}, instanceId={}", dueIds, instanceId);
-        return 0;
-      }
+    } catch (Exception e) {
+      log.error(
+          "[ShadowFlush] 刷盘任务异常: slot={}, instanceId={}, error={}",
+          slot,
+          instanceId,
+          e.getMessage(),
+          e);
+      return processed + awaitWrite(pendingWrite);
+    }
+  }
 
-      // 使用原子操作从ZSet中移除已获取的设备ID，防止集群环境下的重复处理
-      List<String> validIotIds = new ArrayList<>(cacheData.keySet());
-      Long removedCount =
-          stringRedisTemplate.opsForZSet().remove(shadowFlushZsetKey, validIotIds.toArray());
+  /** 等待任务完成，返回处理条数 */
+  private int awaitWrite(Future<Integer> pendingWrite) {
+    if (pendingWrite == null) {
+      return 0;
+    }
+    try {
+      Integer processed = pendingWrite.get();
+      return processed == null ? 0 : processed;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    } catch (ExecutionException e) {
+      log.error("[ShadowFlush] 刷盘异常: {}", e.getCause().getMessage(), e.getCause());
+      return 0;
+    }
+  }
 
-      if (removedCount == null || removedCount == 0L) {
-        log.warn(
-            "[ShadowFlush] 从ZSet中移除设备失败，可能被其他实例处理: validIotIds={}, instanceId={}",
-            validIotIds,
-            instanceId);
-        return 0;
-      }
+  /** 获取各分片最近一次刷盘的各阶段耗时 */
+  public String getLastFlushTimings() {
+    if (lastTimings.isEmpty()) {
+      return "暂无刷盘记录";
+    }
+    StringBuilder sb = new StringBuilder();
+    lastTimings.forEach(
+        (slot, timings) ->
+            sb.append("{slot=").append(slot).append(", ").append(timings).append("}"));
+    return sb.toString();
+  }
 
-      log.info(
-          "[ShadowFlush] 从ZSet中移除{}个设备: {}, instanceId={}", removedCount, validIotIds, instanceId);
+  @PreDestroy
+  public void shutdown() {
+    slotExecutor.shutdown();
+    dbWriteExecutor.shutdown();
+    try {
+      if (!slotExecutor.awaitTermination(30, TimeUnit.SECONDS)
+          || !dbWriteExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+        log.warn("[ShadowFlush] 刷盘线程关闭超时");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 
-      // 批量处理设备影子
-      processed = processBatchShadows(validIotIds, cacheData);
+  /** 刷盘各阶段耗时统计：扫描、Redis读取、合并（含查询已存在记录）、写库 */
+  private static final class FlushTimings {
 
-      log.info(
-          "[ShadowFlush] 刷盘任务完成: processed={}, cost={}ms, validIotIds={}, instanceId={}",
-          processed,
-          (System.currentTimeMillis() - start),
-          validIotIds,
-          instanceId);
+    private final LongAdder scan = new LongAdder();
+    private final LongAdder fetch = new LongAdder();
+    private final LongAdder merge = new LongAdder();
+    private final LongAdder db = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder devices = new LongAdder();
+    private long totalNanos;
+    private int processed;
 
-      return processed;
+    private static long ms(LongAdder nanos) {
+      return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+    }
 
-    } catch (Exception e) {
-      log.error("[ShadowFlush] 刷盘任务异常: instanceId={}, error={}", instanceId, e.getMessage(), e);
-      return 0;
+    @Override
+    public String toString() {
+      return String.format(
+          "batches=%d, devices=%d, processed=%d, total=%dms, scan=%dms, fetch=%dms, merge=%dms, db=%dms",
+          batches.sum(),
+          devices.sum(),
+          processed,
+          TimeUnit.NANOSECONDS.toMillis(totalNanos),
+          ms(scan),
+          ms(fetch),
+          ms(merge),
+          ms(db));
     }
   }
 
@@ -459,7 +655,7 @@ public class ShadowFlushScheduler {
   public String checkForceFlushStatus(String iotId) {
     try {
       // 检查ZSet中的刷盘时间
-      Double score = stringRedisTemplate.opsForZSet().score(shadowFlushZsetKey, iotId);
+      Double score = stringRedisTemplate.opsForZSet().score(slotManager.zsetKey(iotId), iotId);
       if (score == null) {
         return "设备" + iotId + "不在刷盘队列中";
       }
@@ -491,26 +687,29 @@ public class ShadowFlushScheduler {
     try {
       String instanceId = instanceIdProvider.getInstanceId();
 
-      // 检查分布式锁状态
-      boolean isLocked = distributedLockUtil.isLocked(lockKey);
-      boolean isHeldByCurrentThread = distributedLockUtil.isHeldByCurrentThread(lockKey);
-
       // 检查ZSet状态
-      Long totalCount =
-          stringRedisTemplate
-              .opsForZSet()
-              .count(shadowFlushZsetKey, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-      Long dueCount =
-          stringRedisTemplate
-              .opsForZSet()
-              .count(
-                  shadowFlushZsetKey,
-                  Double.NEGATIVE_INFINITY,
-                  (double) System.currentTimeMillis());
+      long totalCount = 0;
+      long dueCount = 0;
+      long now = System.currentTimeMillis();
+      for (int slot : slotManager.allSlots()) {
+        String zsetKey = slotManager.zsetKeyOfSlot(slot);
+        Long total =
+            stringRedisTemplate
+                .opsForZSet()
+                .count(zsetKey, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        Long due = stringRedisTemplate.opsForZSet().count(zsetKey, Double.NEGATIVE_INFINITY, now);
+        totalCount += total == null ? 0 : total;
+        dueCount += due == null ? 0 : due;
+      }
 
       return String.format(
-          "集群状态: 当前实例=%s, 锁状态=%s, 当前实例持有锁=%s, 待刷盘总数=%d, 到期数量=%d",
-          instanceId, isLocked, isHeldByCurrentThread, totalCount, dueCount);
+          "集群状态: 当前实例=%s, 负责分片=%s, 分片租约=%s, 待刷盘总数=%d, 到期数量=%d, 最近刷盘耗时=[%s]",
+          instanceId,
+          slotManager.assignedSlots(),
+          slotManager.leaseOwners(),
+          totalCount,
+          dueCount,
+          getLastFlushTimings());
 
     } catch (Exception e) {
       return "检查集群状态失败: " + e.getMessage();
@@ -527,15 +726,9 @@ public class ShadowFlushScheduler {
       String instanceId = instanceIdProvider.getInstanceId();
       log.info("[ShadowFlush] 手动触发刷盘: instanceId={}", instanceId);
 
-      Integer result =
-          distributedLockUtil.tryLockAndExecute(
-              lockKey + ":manual", 10, 120, TimeUnit.SECONDS, this::executeFlushTask);
-
-      if (result != null) {
-        return String.format("手动刷盘完成: processed=%d, instanceId=%s", result, instanceId);
-      } else {
-        return String.format("手动刷盘失败: 获取锁失败, instanceId=%s", instanceId);
-      }
+      // 手动刷盘处理所有分片，已被其他实例持有租约的分片跳过
+      int result = flushSlots(slotManager.allSlots());
+      return String.format("手动刷盘完成: processed=%d, instanceId=%s", result, instanceId);
 
     } catch (Exception e) {
       return "手动刷盘异常: " + e.getMessage();
@@ -0,0 +1,190 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.dm.device.service.task;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import cn.universal.common.config.InstanceIdProvider;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 设备影子刷盘分片管理
+ *
+ * <p>刷盘ZSet按 iotId 哈希拆分为 N 个分片（{@code shadow:flush:{slot}}），各实例按活跃实例列表做最高随机权重（HRW）分配，
+ * 刷盘前通过短租约（{@code shadow:flush:lease:{slot}}）独占分片。实例宕机后心跳过期、租约到期，其分片自动由其他实例接管。
+ *
+ * <p>分片数小于等于1时退化为原单ZSet。分片模式下旧的 {@code shadow:flush} 作为遗留分片继续消费，便于平滑升级。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/9/17
+ */
+@Slf4j
+@Component
+public class ShadowFlushSlotManager {
+
+  /** 遗留分片（未分片前的ZSet） */
+  public static final int LEGACY_SLOT = -1;
+
+  private static final RedisScript<Long> ACQUIRE_SCRIPT =
+      new DefaultRedisScript<>(
+          "local v = redis.call('GET', KEYS[1]) "
+              + "if v == false then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end "
+              + "if v == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end "
+              + "return 0",
+          Long.class);
+
+  private static final RedisScript<Long> RELEASE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+              + "return 0",
+          Long.class);
+
+  @Resource private StringRedisTemplate stringRedisTemplate;
+  @Resource private InstanceIdProvider instanceIdProvider;
+
+  @Value("${shadow.flush.zset-key:shadow:flush}")
+  private String shadowFlushZsetKey;
+
+  @Value("${shadow.flush.slots:16}")
+  private int slotCount;
+
+  @Value("${shadow.flush.lease-ms:60000}")
+  private long leaseMs;
+
+  public boolean isPartitioned() {
+    return slotCount > 1;
+  }
+
+  public int getSlotCount() {
+    return Math.max(1, slotCount);
+  }
+
+  public long getLeaseMs() {
+    return leaseMs;
+  }
+
+  /** iotId 所在分片 */
+  public int slotOf(String iotId) {
+    if (!isPartitioned()) {
+      return 0;
+    }
+    return (iotId.hashCode() & 0x7fffffff) % slotCount;
+  }
+
+  /** iotId 所在刷盘ZSet */
+  public String zsetKey(String iotId) {
+    return zsetKeyOfSlot(slotOf(iotId));
+  }
+
+  /** 分片对应的刷盘ZSet */
+  public String zsetKeyOfSlot(int slot) {
+    if (!isPartitioned() || slot == LEGACY_SLOT) {
+      return shadowFlushZsetKey;
+    }
+    return shadowFlushZsetKey + ":" + slot;
+  }
+
+  private String leaseKey(int slot) {
+    return shadowFlushZsetKey + ":lease:" + (slot == LEGACY_SLOT ? "legacy" : slot);
+  }
+
+  /** 所有分片（含遗留分片） */
+  public List<Integer> allSlots() {
+    if (!isPartitioned()) {
+      return Collections.singletonList(0);
+    }
+    List<Integer> slots = new ArrayList<>(slotCount + 1);
+    for (int i = 0; i < slotCount; i++) {
+      slots.add(i);
+    }
+    slots.add(LEGACY_SLOT);
+    return slots;
+  }
+
+  /** 当前实例负责的分片：在活跃实例中按HRW取权重最高者 */
+  public List<Integer> assignedSlots() {
+    String self = instanceIdProvider.getInstanceId();
+    Set<String> members = new TreeSet<>(instanceIdProvider.getActiveInstanceIds());
+    members.add(self);
+    List<Integer> assigned = new ArrayList<>();
+    for (int slot : allSlots()) {
+      if (self.equals(ownerOf(slot, members))) {
+        assigned.add(slot);
+      }
+    }
+    return assigned;
+  }
+
+  private static String ownerOf(int slot, Set<String> members) {
+    String owner = null;
+    int best = Integer.MIN_VALUE;
+    for (String member : members) {
+      int weight = MurmurHash.hash32(member + "#" + slot);
+      if (owner == null || weight > best) {
+        owner = member;
+        best = weight;
+      }
+    }
+    return owner;
+  }
+
+  /** 获取或续期分片租约 */
+  public boolean tryAcquire(int slot) {
+    try {
+      Long result =
+          stringRedisTemplate.execute(
+              ACQUIRE_SCRIPT,
+              Collections.singletonList(leaseKey(slot)),
+              instanceIdProvider.getInstanceId(),
+              String.valueOf(leaseMs));
+      return result != null && result == 1L;
+    } catch (Exception e) {
+      log.warn("[ShadowFlush] 获取分片租约异常: slot={}, err={}", slot, e.getMessage());
+      return false;
+    }
+  }
+
+  /** 释放分片租约，仅释放自己持有的 */
+  public void release(int slot) {
+    try {
+      stringRedisTemplate.execute(
+          RELEASE_SCRIPT,
+          Collections.singletonList(leaseKey(slot)),
+          instanceIdProvider.getInstanceId());
+    } catch (Exception e) {
+      log.warn("[ShadowFlush] 释放分片租约异常: slot={}, err={}", slot, e.getMessage());
+    }
+  }
+
+  /** 分片租约持有者，未被持有时为null */
+  public Map<Integer, String> leaseOwners() {
+    Map<Integer, String> owners = new LinkedHashMap<>();
+    for (int slot : allSlots()) {
+      owners.put(slot, stringRedisTemplate.opsForValue().get(leaseKey(slot)));
+    }
+    return owners;
+  }
+}
@@ -0,0 +1,104 @@
+package cn.universal.dm.device.entity;
+
+import cn.hutool.json.JSONUtil;
+import cn.universal.common.constant.IoTConstant.MessageType;
+import cn.universal.core.message.UPRequest;
+import cn.universal.persistence.base.BaseUPRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 推送消息序列化的单条分配基准：原先每条消息经 JSONObject 树生成JSON字符串、每个渠道再各自编码一次，
+ * 信封不构建 JSONObject 树，直接流式编码一次，各渠道共享同一字节数组
+ *
+ * <p>对比结果中的 {@code gc.alloc.rate.norm}（每次调用分配字节数）。运行：在IDE中直接执行 main（已启用 GC 分析器），
+ * 或 {@code java -cp <test-classpath> org.openjdk.jmh.Main PushEnvelopeBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PushEnvelopeBenchmark {
+
+  /** 同时开启的推送渠道数 */
+  @Param({"1", "2", "4"})
+  private int channels;
+
+  private BaseUPRequest request;
+
+  @Setup
+  public void setup() {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("temperature", 23.6);
+    properties.put("humidity", 51.2);
+    properties.put("battery", 87);
+    properties.put("location", "杭州市西湖区");
+    properties.put("status", "online");
+    request =
+        BaseUPRequest.builder()
+            .productKey("jmh-product")
+            .iotId("jmh-product-device-0001")
+            .deviceId("device-0001")
+            .deviceName("温湿度传感器")
+            .messageType(MessageType.PROPERTIES)
+            .properties(properties)
+            .time(System.currentTimeMillis())
+            .build();
+    // 信封的字节必须与原先的序列化结果一致
+    byte[] expected = JSONUtil.toJsonStr((UPRequest) request).getBytes(StandardCharsets.UTF_8);
+    if (!Arrays.equals(expected, PushEnvelope.of((UPRequest) request).bytes())) {
+      throw new IllegalStateException("envelope bytes differ from JSONUtil.toJsonStr");
+    }
+  }
+
+  /** 原实现：生成JSON字符串，各渠道分别转字节（HTTP 的 ofString、MQTT 的 getBytes） */
+  @Benchmark
+  public void stringPerChannel(Blackhole blackhole) {
+    String messageJson = JSONUtil.toJsonStr((UPRequest) request);
+    for (int i = 0; i < channels; i++) {
+      blackhole.consume(messageJson.getBytes(StandardCharsets.UTF_8));
+    }
+    blackhole.consume(messageJson);
+  }
+
+  /** 信封：直接流式序列化一次，各渠道共享同一字节数组（HTTP、MQTT 的实际用法） */
+  @Benchmark
+  public void sharedEnvelope(Blackhole blackhole) {
+    PushEnvelope envelope = PushEnvelope.of((UPRequest) request);
+    for (int i = 0; i < channels; i++) {
+      blackhole.consume(envelope.sharedBytes());
+    }
+    blackhole.consume(envelope);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .include(PushEnvelopeBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
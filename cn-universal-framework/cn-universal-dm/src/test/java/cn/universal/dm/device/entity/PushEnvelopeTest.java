@@ -0,0 +1,158 @@
+package cn.universal.dm.device.entity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import cn.hutool.json.JSONException;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import cn.universal.common.constant.IoTConstant.DeviceNode;
+import cn.universal.common.constant.IoTConstant.MessageType;
+import cn.universal.core.message.SubDevice;
+import cn.universal.core.message.UPRequest;
+import cn.universal.dm.device.service.sub.context.SubDeviceRequest;
+import cn.universal.persistence.base.BaseUPRequest;
+import cn.universal.persistence.dto.IoTDeviceDTO;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/** PushEnvelope 直接流式序列化与 JSONUtil.toJsonStr 的一致性测试 */
+public class PushEnvelopeTest {
+
+  @Test
+  public void sameBytesAsJsonUtilForPropertyReport() {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("temperature", 23.6);
+    properties.put("humidity", 51.20);
+    properties.put("battery", 87);
+    properties.put("total", 12345678901L);
+    properties.put("ratio", new BigDecimal("1.500"));
+    properties.put("switch", true);
+    properties.put("location", "杭州市西湖区");
+    properties.put("empty", null);
+    assertSameAsJsonUtil(
+        BaseUPRequest.builder()
+            .productKey("pk")
+            .iotId("pk-device-0001")
+            .deviceId("device-0001")
+            .deviceName("温湿度传感器")
+            .messageType(MessageType.PROPERTIES)
+            .deviceNode(DeviceNode.GATEWAY)
+            .properties(properties)
+            .time(1765324800000L)
+            .ioTDeviceDTO(IoTDeviceDTO.builder().appId("app").build())
+            .commandStatus(1)
+            .build());
+  }
+
+  @Test
+  public void sameBytesAsJsonUtilForNestedValues() {
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("list", List.of(1, "two", 3.0, Map.of("k", "v")));
+    nested.put("array", new int[] {1, 2, 3});
+    nested.put("date", new Date(1765324800000L));
+    nested.put("localDateTime", LocalDateTime.of(2025, 12, 10, 8, 30, 15));
+    nested.put("deep", new LinkedHashMap<>(Map.of("a", new LinkedHashMap<>(Map.of("b", 1)))));
+    nested.put("sub", SubDevice.builder().productKey("sub-pk").slaveAddress("1").build());
+    Map<Object, Object> numericKeys = new HashMap<>();
+    numericKeys.put(1, "one");
+    numericKeys.put("2", "two");
+    nested.put("numericKeys", numericKeys);
+
+    Map<String, Object> data = new LinkedHashMap<>();
+    data.put("escape", "quote\" backslash\\ slash/ </script> \n\t\r\b\f \u0001  ");
+    data.put("emoji", "😀 \uD83C");
+    data.put("char", 'c');
+    data.put("float", 1.25f);
+    data.put("nested", nested);
+
+    JSONObject shadow = JSONUtil.createObj().set("state", "online").set("version", 3);
+    assertSameAsJsonUtil(
+        SubDeviceRequest.builder()
+            .productKey("gw-pk")
+            .iotId("gw-pk-0001")
+            .deviceId("0001")
+            .messageType(MessageType.EVENT)
+            .event("alarm")
+            .eventName("告警")
+            .data(data)
+            .tags(new LinkedHashMap<>())
+            .shadow(shadow)
+            .payloadRaw(new byte[] {0x01, (byte) 0xFF})
+            .subDevice(SubDevice.builder().productKey("sub-pk").nodeId("ns=2;s=tag").build())
+            .build());
+  }
+
+  @Test
+  public void mapsAndRetriedJsonAreSupported() {
+    Map<String, Object> message = new LinkedHashMap<>();
+    message.put("iotId", "pk-0001");
+    message.put("value", 1.0);
+    assertSameAsJsonUtil(message);
+
+    String json = JSONUtil.toJsonStr((UPRequest) BaseUPRequest.builder().iotId("pk").build());
+    PushEnvelope envelope = PushEnvelope.ofJson(json);
+    assertEquals(json, envelope.json());
+    assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), envelope.bytes());
+  }
+
+  @Test
+  public void channelsShareBytesAndCallersGetCopies() throws Exception {
+    PushEnvelope envelope = PushEnvelope.of(BaseUPRequest.builder().iotId("pk-0001").build());
+    String json = envelope.json();
+    assertSame(envelope.sharedBytes(), envelope.sharedBytes());
+    assertArrayEquals(envelope.sharedBytes(), envelope.bytes());
+    assertNotSame(envelope.sharedBytes(), envelope.bytes());
+    envelope.bytes()[0] = '[';
+    assertEquals(json, new String(envelope.bytes(), StandardCharsets.UTF_8));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    envelope.writeTo(out);
+    assertEquals(json, out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void nonFiniteNumbersMatchJsonUtil() {
+    // 嵌套 Map 中的非有限数字：JSONUtil 丢弃整个字段
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("value", 1);
+    properties.put("nested", new LinkedHashMap<>(Map.of("nan", Double.NaN)));
+    properties.put("infinity", Float.POSITIVE_INFINITY);
+    assertSameAsJsonUtil(BaseUPRequest.builder().iotId("pk").properties(properties).build());
+
+    // 直接作为字段值：两者都抛出异常
+    Map<String, Object> message = new LinkedHashMap<>();
+    message.put("nan", Double.NaN);
+    try {
+      JSONUtil.toJsonStr(message);
+      fail("JSONUtil accepts NaN");
+    } catch (JSONException expected) {
+      // 与 PushEnvelope 一致
+    }
+    try {
+      PushEnvelope.of(message);
+      fail("PushEnvelope accepts NaN");
+    } catch (JSONException expected) {
+      // 与 JSONUtil 一致
+    }
+  }
+
+  private static void assertSameAsJsonUtil(Object message) {
+    // 孤立的代理字符编码为 UTF-8 时替换为 '?'，按字节比较
+    byte[] expected = JSONUtil.toJsonStr(message).getBytes(StandardCharsets.UTF_8);
+    PushEnvelope envelope = PushEnvelope.of(message);
+    assertArrayEquals(expected, envelope.bytes());
+    assertEquals(new String(expected, StandardCharsets.UTF_8), envelope.json());
+  }
+}
@@ -0,0 +1,124 @@
+package cn.universal.dm.device.service.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import cn.universal.persistence.consistent.ITableShardingStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+/** MysqlDeviceLogService 分表批量写入失败时的二分重试测试 */
+public class MysqlDeviceLogServiceTest {
+
+  /** 按 iotId 末位奇偶分到两张表 */
+  private static final ITableShardingStrategy ROUTER =
+      (prefix, value) -> prefix + "_" + (value.toString().charAt(value.toString().length() - 1) % 2);
+
+  @Test
+  public void badRowsAreDroppedAndTheRestWritten() {
+    List<String> rows = rows(500);
+    rows.set(7, "bad-7");
+    rows.set(300, "bad-300");
+    rows.set(301, "bad-301");
+    FakeTable table = new FakeTable();
+
+    LogBatchBuffer.PartialWriteException e = writeExpectingFailure(rows, table);
+    assertEquals(3, e.getFailedRows());
+    assertTrue(e.getCause() instanceof DataIntegrityViolationException);
+    assertEquals(497, table.written.size());
+    assertTrue(table.written.stream().noneMatch(row -> row.startsWith("bad")));
+    // 每个坏行只需 O(log n) 次拆分，远少于逐行写入
+    assertTrue("statements=" + table.statements, table.statements < 60);
+  }
+
+  @Test
+  public void allGoodRowsUseOneStatementPerShard() {
+    FakeTable table = new FakeTable();
+    MysqlDeviceLogService.writeByShard(rows(500), Function.identity(), "log", ROUTER, table);
+    assertEquals(500, table.written.size());
+    assertEquals(2, table.statements);
+  }
+
+  @Test
+  public void transientFailuresAreNotBisected() {
+    List<String> rows = rows(100);
+    FakeTable table = new FakeTable();
+    table.unavailable = "log_0";
+
+    LogBatchBuffer.PartialWriteException e = writeExpectingFailure(rows, table);
+    assertEquals(50, e.getFailedRows());
+    assertTrue(e.getCause() instanceof QueryTimeoutException);
+    assertEquals(50, table.written.size());
+    assertEquals(2, table.statements);
+  }
+
+  @Test
+  public void bufferCountsOnlyFailedRows() {
+    FakeTable table = new FakeTable();
+    LogBatchBuffer<String> buffer =
+        new LogBatchBuffer<>(
+            "mysql",
+            "log",
+            1000,
+            100,
+            10,
+            100,
+            rows ->
+                MysqlDeviceLogService.writeByShard(
+                    rows, Function.identity(), "log", ROUTER, table));
+    List<String> rows = rows(100);
+    rows.set(42, "bad-42");
+    buffer.addAll(rows);
+    buffer.close();
+    assertEquals(99, buffer.getWritten());
+    assertEquals(1, buffer.getFailed());
+  }
+
+  private static LogBatchBuffer.PartialWriteException writeExpectingFailure(
+      List<String> rows, FakeTable table) {
+    try {
+      MysqlDeviceLogService.writeByShard(rows, Function.identity(), "log", ROUTER, table);
+      fail("write should report failed rows");
+      return null;
+    } catch (LogBatchBuffer.PartialWriteException e) {
+      return e;
+    }
+  }
+
+  private static List<String> rows(int count) {
+    List<String> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      rows.add("iot-" + i);
+    }
+    return rows;
+  }
+
+  /** 模拟多行 insert：整条语句要么全部写入，要么全部失败 */
+  private static final class FakeTable implements BiConsumer<String, List<String>> {
+
+    private final List<String> written = new ArrayList<>();
+
+    private String unavailable;
+
+    private int statements;
+
+    @Override
+    public void accept(String iotId, List<String> group) {
+      statements++;
+      String table = ROUTER.generateTableName("log", iotId);
+      if (table.equals(unavailable)) {
+        throw new QueryTimeoutException("lock wait timeout");
+      }
+      if (group.stream().anyMatch(row -> row.startsWith("bad"))) {
+        throw new DataIntegrityViolationException("Data too long for column 'device_name'");
+      }
+      written.addAll(group);
+    }
+  }
+}
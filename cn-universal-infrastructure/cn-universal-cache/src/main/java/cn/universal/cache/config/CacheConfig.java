@@ -13,6 +13,8 @@
 package cn.universal.cache.config;
 
 import cn.universal.cache.manager.MultiLevelCacheManager;
+import cn.universal.cache.sync.CacheInvalidationBus;
+import cn.universal.common.config.InstanceIdProvider;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonParser;
@@ -42,6 +44,8 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.SerializationException;
@@ -221,6 +225,29 @@ public class CacheConfig {
   //    return cacheManager;
   //  }
 
+  /** L1失效广播，复用 EventConfig 中的 Redis 消息监听容器，多实例部署时同步各节点的L1 */
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(prefix = "cache.multi-level", name = "enabled", havingValue = "true")
+  public CacheInvalidationBus cacheInvalidationBus(
+      StringRedisTemplate stringRedisTemplate,
+      RedisMessageListenerContainer redisMessageListenerContainer,
+      InstanceIdProvider instanceIdProvider) {
+    MultiLevelCacheProperties.SyncConfig sync = properties.getSync();
+    if (!sync.isEnabled() || !properties.getL1().isEnabled()) {
+      log.warn("L1失效广播已禁用");
+      return null;
+    }
+    CacheInvalidationBus bus =
+        new CacheInvalidationBus(
+            stringRedisTemplate,
+            redisMessageListenerContainer,
+            instanceIdProvider.getInstanceId(),
+            sync.getCoalesceMillis(),
+            sync.getMaxKeysPerMessage());
+    bus.start();
+    return bus;
+  }
+
   /** 多级缓存管理器（主缓存管理器） 只有当多级缓存启用时才创建 */
   @Bean("multiLevelCacheManager")
   @Primary
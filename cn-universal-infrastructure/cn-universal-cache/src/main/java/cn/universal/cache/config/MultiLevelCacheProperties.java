@@ -13,6 +13,8 @@
 package cn.universal.cache.config;
 
 import cn.universal.cache.strategy.CacheStrategy;
+import java.util.HashSet;
+import java.util.Set;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -39,6 +41,12 @@ public class MultiLevelCacheProperties {
   /** 默认配置 */
   private DefaultConfig defaults = new DefaultConfig();
 
+  /** L1失效同步配置（集群） */
+  private SyncConfig sync = new SyncConfig();
+
+  /** 加载配置（回源合并、提前刷新、空值缓存） */
+  private LoadConfig load = new LoadConfig();
+
   /** L1缓存配置 */
   @Data
   public static class L1Config {
@@ -89,4 +97,47 @@ public class MultiLevelCacheProperties {
     /** 默认L2过期时间（秒） */
     private long defaultL2Expire = 3600;
   }
+
+  /** L1失效同步配置 */
+  @Data
+  public static class SyncConfig {
+
+    /** 是否广播失效，多实例部署时开启后可放心使用较长的L1过期时间 */
+    private boolean enabled = true;
+
+    /** 失效合并窗口（毫秒），窗口内同一缓存的多次驱逐合并为一条消息 */
+    private long coalesceMillis = 50;
+
+    /** 单条消息最多携带的键数，超过后改为清空整个缓存的L1 */
+    private int maxKeysPerMessage = 1000;
+  }
+
+  /** 加载配置 */
+  @Data
+  public static class LoadConfig {
+
+    /** 同一键并发未命中时只回源一次，其余线程等待结果 */
+    private boolean singleFlight = true;
+
+    /** 是否对热点键提前异步刷新，避免L1过期瞬间的回源尖刺 */
+    private boolean refreshAhead = false;
+
+    /** L1写入后超过 expireAfterWrite 的该比例再被访问时触发刷新 */
+    private double refreshAheadRatio = 0.8;
+
+    /** 空值缓存时间（毫秒），0 表示不缓存空值，只对 negativeCacheNames 中的缓存生效 */
+    private long negativeTtlMillis = 5000;
+
+    /** 开启空值缓存的缓存名称，默认为空即都不缓存空值，避免新建的数据在空值过期前查不到 */
+    private Set<String> negativeCacheNames = new HashSet<>();
+
+    /** 空值缓存最大键数 */
+    private int negativeMaximumSize = 10000;
+
+    /** 所有缓存共享的异步线程数（WRITE_BEHIND 写L2、提前刷新） */
+    private int asyncThreads = 4;
+
+    /** 异步任务队列容量，满后 WRITE_BEHIND 改为同步写，提前刷新跳过 */
+    private int asyncQueueCapacity = 1000;
+  }
 }
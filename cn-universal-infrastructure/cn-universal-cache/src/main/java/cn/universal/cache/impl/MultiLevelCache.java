@@ -15,12 +15,18 @@ package cn.universal.cache.impl;
 import cn.universal.cache.config.MultiLevelCacheProperties;
 import cn.universal.cache.statistics.CacheStatistics;
 import cn.universal.cache.strategy.CacheStrategy;
+import cn.universal.cache.sync.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
@@ -32,6 +38,12 @@ import org.springframework.data.redis.core.ScanOptions;
 /**
  * 多级缓存实现
  *
+ * <p>配置了 {@link CacheInvalidationBus} 时，evict/clear 会广播给其他节点驱逐各自的L1。
+ *
+ * <p>{@link #get(Object, Callable)}（即 {@code @Cacheable(sync = true)}）同一键并发未命中时只回源一次，回源异常按
+ * {@link ValueRetrievalException} 抛给所有等待的调用方；开启提前刷新后，L1快过期的热点键被访问时在共享线程池中异步重新加载。
+ * 空值默认不缓存，配置在 negative-cache-names 中的缓存回源结果为空时短暂记为空值，避免不存在的键反复穿透到数据库。
+ *
  * @author gitee.com/NexIoT
  * @version 1.0
  * @since 2025/1/20
@@ -43,23 +55,75 @@ public class MultiLevelCache implements Cache {
   private final Cache l1Cache;
   private final Cache l2Cache;
   private final MultiLevelCacheProperties properties;
-  private final Executor asyncExecutor;
+  private static final ValueWrapper NULL_VALUE = new SimpleValueWrapper(null);
+
   private final CacheStatistics statistics = new CacheStatistics();
 
+  /** 所有缓存共享的有界线程池，为null时 WRITE_BEHIND 同步写L2且不做提前刷新 */
+  private final Executor asyncExecutor;
+
+  /** L1失效广播，单机部署时为null */
+  private final CacheInvalidationBus invalidationBus;
+
+  /** 正在回源或刷新的键，同一键只保留一个加载任务 */
+  private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /** 空值缓存，未开启时为null */
+  private final com.github.benmanes.caffeine.cache.Cache<Object, Boolean> negativeKeys;
+
+  /** 键写入L1的时间，用于判断是否需要提前刷新，未开启时为null */
+  private final com.github.benmanes.caffeine.cache.Cache<Object, Long> writeTimes;
+
+  private final long refreshAfterMillis;
+
   public MultiLevelCache(
       String name, Cache l1Cache, Cache l2Cache, MultiLevelCacheProperties properties) {
+    this(name, l1Cache, l2Cache, properties, null);
+  }
+
+  public MultiLevelCache(
+      String name,
+      Cache l1Cache,
+      Cache l2Cache,
+      MultiLevelCacheProperties properties,
+      CacheInvalidationBus invalidationBus) {
+    this(name, l1Cache, l2Cache, properties, invalidationBus, null);
+  }
+
+  public MultiLevelCache(
+      String name,
+      Cache l1Cache,
+      Cache l2Cache,
+      MultiLevelCacheProperties properties,
+      CacheInvalidationBus invalidationBus,
+      Executor asyncExecutor) {
     this.name = name;
+    this.invalidationBus = invalidationBus;
     this.l1Cache = l1Cache;
     this.l2Cache = l2Cache;
     this.properties = properties;
-    this.asyncExecutor =
-        Executors.newFixedThreadPool(
-            2,
-            r -> {
-              Thread t = new Thread(r, "multi-level-cache-async-" + name);
-              t.setDaemon(true);
-              return t;
-            });
+    this.asyncExecutor = asyncExecutor;
+    MultiLevelCacheProperties.LoadConfig load = properties.getLoad();
+    this.negativeKeys =
+        load.getNegativeTtlMillis() > 0 && load.getNegativeCacheNames().contains(name)
+            ? Caffeine.newBuilder()
+                .expireAfterWrite(load.getNegativeTtlMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(load.getNegativeMaximumSize())
+                .build()
+            : null;
+    long l1ExpireMillis = TimeUnit.SECONDS.toMillis(properties.getL1().getExpireAfterWrite());
+    if (load.isRefreshAhead() && l1Cache != null && asyncExecutor != null && l1ExpireMillis > 0) {
+      this.refreshAfterMillis = (long) (l1ExpireMillis * load.getRefreshAheadRatio());
+      this.writeTimes =
+          Caffeine.newBuilder()
+              .expireAfterWrite(l1ExpireMillis, TimeUnit.MILLISECONDS)
+              .maximumSize(properties.getL1().getMaximumSize())
+              .build();
+    } else {
+      this.refreshAfterMillis = 0;
+      this.writeTimes = null;
+    }
   }
 
   @Override
@@ -78,6 +142,11 @@ public class MultiLevelCache implements Cache {
       return null;
     }
     String cacheKey = key.toString();
+    if (negativeKeys != null && negativeKeys.getIfPresent(key) != null) {
+      statistics.recordNegativeHit();
+      log.debug("空值缓存命中: {} -> {}", cacheKey, name);
+      return NULL_VALUE;
+    }
     try {
       if (l1Cache != null) {
         ValueWrapper l1Value = l1Cache.get(key);
@@ -100,6 +169,7 @@ public class MultiLevelCache implements Cache {
           if (l1Cache != null) {
             try {
               l1Cache.put(key, l2Value.get());
+              markWritten(key);
               log.debug("L2缓存命中，回填L1: {} -> {}", cacheKey, name);
             } catch (Exception e) {
               log.warn("L1缓存回填异常: {} -> {}", cacheKey, name, e);
@@ -141,33 +211,127 @@ public class MultiLevelCache implements Cache {
       if (value != null) {
         @SuppressWarnings("unchecked")
         T result = (T) value.get();
+        if (result != null) {
+          refreshIfNeeded(key, result, valueLoader);
+        }
         return result;
       }
     } catch (Exception e) {
       log.warn("缓存 get(Callable) 异常: {} -> {}", cacheKey, name, e);
     }
-    try {
-      T loadedValue = valueLoader.call();
-      if (loadedValue != null) {
-        try {
-          put(key, loadedValue);
-          log.debug("使用valueLoader加载数据并缓存: {} -> {}", cacheKey, name);
-        } catch (Exception e) {
-          log.warn("缓存 put 异常: {} -> {}", cacheKey, name, e);
+    if (!properties.getLoad().isSingleFlight()) {
+      return load(key, valueLoader);
+    }
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      statistics.recordLoadCoalesced();
+      try {
+        @SuppressWarnings("unchecked")
+        T result = (T) existing.join();
+        return result;
+      } catch (CompletionException e) {
+        // 加载失败已由发起线程记录，等待的调用方收到同一个异常
+        if (e.getCause() instanceof ValueRetrievalException retrievalException) {
+          throw retrievalException;
         }
+        throw new ValueRetrievalException(key, valueLoader, e.getCause());
       }
+    }
+    try {
+      T loadedValue = load(key, valueLoader);
+      future.complete(loadedValue);
       return loadedValue;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  /** 回源加载并写入缓存，失败时抛出 {@link ValueRetrievalException}，由 Spring 还原为业务方法的原始异常 */
+  private <T> T load(Object key, Callable<T> valueLoader) {
+    String cacheKey = key.toString();
+    statistics.recordLoad();
+    T loadedValue;
+    try {
+      loadedValue = valueLoader.call();
     } catch (Exception e) {
-      log.error("使用valueLoader加载数据失败: {} -> {}", cacheKey, name, e);
-      return null;
+      statistics.recordLoadFailure();
+      log.debug("使用valueLoader加载数据失败: {} -> {}", cacheKey, name, e);
+      throw new ValueRetrievalException(key, valueLoader, e);
+    }
+    try {
+      put(key, loadedValue);
+      log.debug("使用valueLoader加载数据并缓存: {} -> {}", cacheKey, name);
+    } catch (Exception e) {
+      log.warn("缓存 put 异常: {} -> {}", cacheKey, name, e);
+    }
+    return loadedValue;
+  }
+
+  /** L1命中且写入时间超过刷新阈值时，在共享线程池中异步重新加载，刷新期间的并发未命中直接拿到当前值 */
+  private void refreshIfNeeded(Object key, Object current, Callable<?> valueLoader) {
+    if (writeTimes == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    Long writtenAt = writeTimes.getIfPresent(key);
+    if (writtenAt == null) {
+      // 其他节点写入或刷新功能开启前写入的键，从现在开始计时
+      writeTimes.put(key, now);
+      return;
+    }
+    if (now - writtenAt < refreshAfterMillis) {
+      return;
+    }
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(key, future) != null) {
+      return;
+    }
+    String cacheKey = key.toString();
+    try {
+      asyncExecutor.execute(
+          () -> {
+            Object refreshed = current;
+            try {
+              Object value = valueLoader.call();
+              if (value != null) {
+                put(key, value);
+                refreshed = value;
+              }
+              statistics.recordRefresh();
+              log.debug("提前刷新完成: {} -> {}", cacheKey, name);
+            } catch (Exception e) {
+              statistics.recordRefreshFailure();
+              log.warn("提前刷新失败: {} -> {}", cacheKey, name, e);
+            } finally {
+              future.complete(refreshed);
+              inFlight.remove(key, future);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      log.debug("异步线程池已满，跳过提前刷新: {} -> {}", cacheKey, name);
+      future.complete(current);
+      inFlight.remove(key, future);
     }
   }
 
   @Override
   public void put(Object key, Object value) {
-    if (key == null || value == null) {
+    if (key == null) {
+      return;
+    }
+    if (value == null) {
+      if (negativeKeys != null) {
+        negativeKeys.put(key, Boolean.TRUE);
+      }
       return;
     }
+    if (negativeKeys != null) {
+      negativeKeys.invalidate(key);
+    }
     String cacheKey = key.toString();
     CacheStrategy strategy = properties.getDefaults().getStrategy();
     try {
@@ -177,6 +341,7 @@ public class MultiLevelCache implements Cache {
             try {
               l1Cache.put(key, value);
               statistics.recordL1Put();
+              markWritten(key);
             } catch (Exception e) {
               log.warn("L1 put 异常: {} -> {}", cacheKey, name, e);
             }
@@ -196,12 +361,13 @@ public class MultiLevelCache implements Cache {
             try {
               l1Cache.put(key, value);
               statistics.recordL1Put();
+              markWritten(key);
             } catch (Exception e) {
               log.warn("L1 put 异常: {} -> {}", cacheKey, name, e);
             }
           }
           if (l2Cache != null) {
-            CompletableFuture.runAsync(
+            Runnable writeL2 =
                 () -> {
                   try {
                     l2Cache.put(key, value);
@@ -210,8 +376,17 @@ public class MultiLevelCache implements Cache {
                   } catch (Exception e) {
                     log.warn("异步写入L2缓存失败: {} -> {}", cacheKey, name, e);
                   }
-                },
-                asyncExecutor);
+                };
+            if (asyncExecutor == null) {
+              writeL2.run();
+            } else {
+              try {
+                asyncExecutor.execute(writeL2);
+              } catch (RejectedExecutionException e) {
+                // 队列已满时同步写，不丢L2
+                writeL2.run();
+              }
+            }
           }
           log.debug("WRITE_BEHIND策略写入L1: {} -> {}", cacheKey, name);
           break;
@@ -239,7 +414,7 @@ public class MultiLevelCache implements Cache {
     }
     try {
       ValueWrapper existing = get(key);
-      if (existing != null) {
+      if (existing != null && existing.get() != null) {
         return existing;
       }
       put(key, value);
@@ -256,6 +431,7 @@ public class MultiLevelCache implements Cache {
       return;
     }
     String cacheKey = key.toString();
+    forgetLocal(key);
     try {
       if (l1Cache != null) {
         try {
@@ -273,14 +449,48 @@ public class MultiLevelCache implements Cache {
           log.warn("L2 evict 异常: {} -> {}", cacheKey, name, e);
         }
       }
+      if (invalidationBus != null) {
+        invalidationBus.publishEvict(name, key);
+      }
       log.debug("缓存驱逐: {} -> {}", cacheKey, name);
     } catch (Exception e) {
       log.warn("缓存 evict 异常: {} -> {}", cacheKey, name, e);
     }
   }
 
+  /** 只驱逐本节点的L1，用于响应其他节点的失效广播 */
+  public void evictLocal(Object key) {
+    if (key == null) {
+      return;
+    }
+    forgetLocal(key);
+    if (l1Cache == null) {
+      return;
+    }
+    try {
+      l1Cache.evict(key);
+      statistics.recordL1Evict();
+    } catch (Exception e) {
+      log.warn("L1 evict 异常: {} -> {}", key, name, e);
+    }
+  }
+
+  /** 只清空本节点的L1，用于响应其他节点的失效广播或重连后兜底 */
+  public void clearLocal() {
+    forgetAllLocal();
+    if (l1Cache == null) {
+      return;
+    }
+    try {
+      l1Cache.clear();
+    } catch (Exception e) {
+      log.warn("L1缓存清空失败: {}", name, e);
+    }
+  }
+
   @Override
   public void clear() {
+    forgetAllLocal();
     try {
       if (l1Cache != null) {
         try {
@@ -326,12 +536,40 @@ public class MultiLevelCache implements Cache {
           }
         }
       }
+      if (invalidationBus != null) {
+        invalidationBus.publishClear(name);
+      }
       log.info("缓存清空操作完成: {}", name);
     } catch (Exception e) {
       log.error("缓存清空操作失败: {}", name, e);
     }
   }
 
+  private void markWritten(Object key) {
+    if (writeTimes != null) {
+      writeTimes.put(key, System.currentTimeMillis());
+    }
+  }
+
+  /** 清除键的空值标记和写入时间 */
+  private void forgetLocal(Object key) {
+    if (negativeKeys != null) {
+      negativeKeys.invalidate(key);
+    }
+    if (writeTimes != null) {
+      writeTimes.invalidate(key);
+    }
+  }
+
+  private void forgetAllLocal() {
+    if (negativeKeys != null) {
+      negativeKeys.invalidateAll();
+    }
+    if (writeTimes != null) {
+      writeTimes.invalidateAll();
+    }
+  }
+
   /** 获取L1缓存 */
   public Cache getL1Cache() {
     return l1Cache;
@@ -349,10 +587,14 @@ public class MultiLevelCache implements Cache {
     }
 
     String cacheKey = key.toString();
+    if (negativeKeys != null) {
+      negativeKeys.invalidate(key);
+    }
 
     // 预热L1缓存
     if (l1Cache != null) {
       l1Cache.put(key, value);
+      markWritten(key);
       log.debug("L1缓存预热: {} -> {}", cacheKey, name);
     }
 
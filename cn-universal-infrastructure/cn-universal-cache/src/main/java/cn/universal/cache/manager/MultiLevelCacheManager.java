@@ -15,12 +15,19 @@ package cn.universal.cache.manager;
 import cn.universal.cache.config.MultiLevelCacheProperties;
 import cn.universal.cache.impl.MultiLevelCache;
 import cn.universal.cache.statistics.CacheStatistics;
+import cn.universal.cache.sync.CacheInvalidationBus;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.Cache;
@@ -34,7 +41,7 @@ import org.springframework.cache.CacheManager;
  * @since 2025/1/20
  */
 @Slf4j
-public class MultiLevelCacheManager implements CacheManager {
+public class MultiLevelCacheManager implements CacheManager, InitializingBean, DisposableBean {
 
   private final ConcurrentMap<String, MultiLevelCache> caches = new ConcurrentHashMap<>();
 
@@ -46,12 +53,48 @@ public class MultiLevelCacheManager implements CacheManager {
   @Qualifier("l2CacheManager")
   private CacheManager l2CacheManager;
 
+  /** L1失效广播，未配置时各节点L1只靠过期淘汰 */
+  @Autowired(required = false)
+  private CacheInvalidationBus invalidationBus;
+
   private MultiLevelCacheProperties properties;
 
+  /** 所有缓存共享的有界异步线程池，用于 WRITE_BEHIND 写L2和提前刷新，队列满时由缓存自行降级 */
+  private ThreadPoolExecutor asyncExecutor;
+
   public void setProperties(MultiLevelCacheProperties properties) {
     this.properties = properties;
   }
 
+  @Override
+  public void afterPropertiesSet() {
+    MultiLevelCacheProperties.LoadConfig load = properties.getLoad();
+    int threads = Math.max(1, load.getAsyncThreads());
+    int queueCapacity = Math.max(1, load.getAsyncQueueCapacity());
+    AtomicInteger index = new AtomicInteger();
+    asyncExecutor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+              Thread t = new Thread(r, "multi-level-cache-async-" + index.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    asyncExecutor.allowCoreThreadTimeOut(true);
+    log.info("多级缓存异步线程池初始化完成，线程数：{}，队列容量：{}", threads, queueCapacity);
+  }
+
+  @Override
+  public void destroy() {
+    if (asyncExecutor != null) {
+      asyncExecutor.shutdown();
+    }
+  }
+
   @Override
   public Cache getCache(String name) {
     return caches.computeIfAbsent(name, this::createMultiLevelCache);
@@ -88,7 +131,11 @@ public class MultiLevelCacheManager implements CacheManager {
       throw new IllegalStateException("至少需要配置一个缓存管理器（L1或L2）");
     }
 
-    MultiLevelCache multiLevelCache = new MultiLevelCache(name, l1Cache, l2Cache, properties);
+    MultiLevelCache multiLevelCache =
+        new MultiLevelCache(name, l1Cache, l2Cache, properties, invalidationBus, asyncExecutor);
+    if (invalidationBus != null) {
+      invalidationBus.register(multiLevelCache);
+    }
     log.info(
         "多级缓存创建成功: {}, L1: {}, L2: {}",
         name,
@@ -102,6 +149,9 @@ public class MultiLevelCacheManager implements CacheManager {
   public void evictCache(String name) {
     MultiLevelCache cache = caches.remove(name);
     if (cache != null) {
+      if (invalidationBus != null) {
+        invalidationBus.unregister(name);
+      }
       cache.clear();
       log.info("缓存已清除: {}", name);
     }
@@ -110,6 +160,9 @@ public class MultiLevelCacheManager implements CacheManager {
   /** 清除所有缓存 */
   public void evictAllCaches() {
     caches.values().forEach(Cache::clear);
+    if (invalidationBus != null) {
+      caches.keySet().forEach(invalidationBus::unregister);
+    }
     caches.clear();
     log.info("所有缓存已清除");
   }
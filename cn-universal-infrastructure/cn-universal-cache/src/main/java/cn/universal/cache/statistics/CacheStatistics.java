@@ -35,6 +35,13 @@ public class CacheStatistics {
   private final AtomicLong l2Puts = new AtomicLong(0);
   private final AtomicLong l2Evicts = new AtomicLong(0);
 
+  private final AtomicLong loads = new AtomicLong(0);
+  private final AtomicLong loadFailures = new AtomicLong(0);
+  private final AtomicLong loadsCoalesced = new AtomicLong(0);
+  private final AtomicLong negativeHits = new AtomicLong(0);
+  private final AtomicLong refreshes = new AtomicLong(0);
+  private final AtomicLong refreshFailures = new AtomicLong(0);
+
   /** 记录L1缓存命中 */
   public void recordL1Hit() {
     l1Hits.incrementAndGet();
@@ -75,6 +82,36 @@ public class CacheStatistics {
     l2Evicts.incrementAndGet();
   }
 
+  /** 记录一次回源加载 */
+  public void recordLoad() {
+    loads.incrementAndGet();
+  }
+
+  /** 记录回源加载失败 */
+  public void recordLoadFailure() {
+    loadFailures.incrementAndGet();
+  }
+
+  /** 记录一次被合并的回源（等待其他线程的加载结果） */
+  public void recordLoadCoalesced() {
+    loadsCoalesced.incrementAndGet();
+  }
+
+  /** 记录空值缓存命中 */
+  public void recordNegativeHit() {
+    negativeHits.incrementAndGet();
+  }
+
+  /** 记录一次提前刷新 */
+  public void recordRefresh() {
+    refreshes.incrementAndGet();
+  }
+
+  /** 记录提前刷新失败 */
+  public void recordRefreshFailure() {
+    refreshFailures.incrementAndGet();
+  }
+
   public long getL1Hits() {
     return l1Hits.get();
   }
@@ -107,6 +144,30 @@ public class CacheStatistics {
     return l2Evicts.get();
   }
 
+  public long getLoads() {
+    return loads.get();
+  }
+
+  public long getLoadFailures() {
+    return loadFailures.get();
+  }
+
+  public long getLoadsCoalesced() {
+    return loadsCoalesced.get();
+  }
+
+  public long getNegativeHits() {
+    return negativeHits.get();
+  }
+
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  public long getRefreshFailures() {
+    return refreshFailures.get();
+  }
+
   public double getL1HitRate() {
     long hits = l1Hits.get();
     long misses = l1Misses.get();
@@ -146,6 +207,12 @@ public class CacheStatistics {
     l2Misses.set(0);
     l2Puts.set(0);
     l2Evicts.set(0);
+    loads.set(0);
+    loadFailures.set(0);
+    loadsCoalesced.set(0);
+    negativeHits.set(0);
+    refreshes.set(0);
+    refreshFailures.set(0);
   }
 
   @Override
@@ -153,7 +220,9 @@ public class CacheStatistics {
     return String.format(
         "CacheStatistics{L1: hits=%d, misses=%d, hitRate=%.2f%%, puts=%d, evicts=%d; "
             + "L2: hits=%d, misses=%d, hitRate=%.2f%%, puts=%d, evicts=%d; "
-            + "Overall: hits=%d, misses=%d, hitRate=%.2f%%}",
+            + "Overall: hits=%d, misses=%d, hitRate=%.2f%%; "
+            + "Load: loads=%d, failures=%d, coalesced=%d, negativeHits=%d, "
+            + "refreshes=%d, refreshFailures=%d}",
         l1Hits.get(),
         l1Misses.get(),
         getL1HitRate() * 100,
@@ -166,6 +235,12 @@ public class CacheStatistics {
         l2Evicts.get(),
         getTotalHits(),
         getTotalMisses(),
-        getOverallHitRate() * 100);
+        getOverallHitRate() * 100,
+        loads.get(),
+        loadFailures.get(),
+        loadsCoalesced.get(),
+        negativeHits.get(),
+        refreshes.get(),
+        refreshFailures.get());
   }
 }
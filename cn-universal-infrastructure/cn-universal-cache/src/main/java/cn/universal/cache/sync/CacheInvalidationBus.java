@@ -0,0 +1,267 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.cache.sync;
+
+import cn.hutool.json.JSONUtil;
+import cn.universal.cache.impl.MultiLevelCache;
+import cn.universal.common.event.EventTopics;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 多级缓存L1失效广播
+ *
+ * <p>本节点 evict/clear 后，通过 Redis pub/sub 通知其他节点驱逐各自的L1（L2为共享缓存，已由发起节点驱逐）。
+ *
+ * <ul>
+ *   <li>合并：合并窗口内同一缓存的驱逐合并为一条消息，键过多或非字符串键时改为清空该缓存的L1
+ *   <li>去重：消息带节点id，忽略本节点发出的消息
+ *   <li>重连：每次（重新）订阅成功后清空本节点全部L1，断线期间漏收的失效不会残留
+ * </ul>
+ *
+ * <p>put 不广播：缓存写入均为未命中后的回填，数据变更通过 evict 失效。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/20
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener, SubscriptionListener {
+
+  private final StringRedisTemplate redisTemplate;
+
+  private final RedisMessageListenerContainer container;
+
+  private final String nodeId;
+
+  private final long coalesceMillis;
+
+  private final int maxKeysPerMessage;
+
+  /** 本节点已创建的多级缓存 */
+  private final Map<String, MultiLevelCache> caches = new ConcurrentHashMap<>();
+
+  /** 待广播的失效，按缓存名合并 */
+  private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService flusher;
+
+  private final AtomicLong published = new AtomicLong();
+
+  private final AtomicLong received = new AtomicLong();
+
+  private final AtomicLong subscribeFlushes = new AtomicLong();
+
+  public CacheInvalidationBus(
+      StringRedisTemplate redisTemplate,
+      RedisMessageListenerContainer container,
+      String nodeId,
+      long coalesceMillis,
+      int maxKeysPerMessage) {
+    this.redisTemplate = redisTemplate;
+    this.container = container;
+    this.nodeId = nodeId;
+    this.coalesceMillis = Math.max(1, coalesceMillis);
+    this.maxKeysPerMessage = Math.max(1, maxKeysPerMessage);
+    this.flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "multi-level-cache-invalidation");
+              t.setDaemon(true);
+              return t;
+            });
+  }
+
+  /** 订阅失效频道并启动合并发送 */
+  public void start() {
+    container.addMessageListener(this, new ChannelTopic(EventTopics.CACHE_INVALIDATED));
+    flusher.scheduleWithFixedDelay(
+        this::flushSafely, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+    log.info("[缓存失效广播] 已启动, nodeId={}, coalesceMillis={}", nodeId, coalesceMillis);
+  }
+
+  public void register(MultiLevelCache cache) {
+    caches.put(cache.getName(), cache);
+  }
+
+  public void unregister(String cacheName) {
+    caches.remove(cacheName);
+  }
+
+  /** 广播单个键的失效，非字符串键无法在其他节点还原，改为清空整个缓存 */
+  public void publishEvict(String cacheName, Object key) {
+    pending.compute(
+        cacheName,
+        (name, p) -> {
+          Pending current = p == null ? new Pending() : p;
+          if (!current.clear) {
+            if (key instanceof String && current.keys.size() < maxKeysPerMessage) {
+              current.keys.add((String) key);
+            } else {
+              current.clear = true;
+              current.keys.clear();
+            }
+          }
+          return current;
+        });
+  }
+
+  /** 广播整个缓存的失效 */
+  public void publishClear(String cacheName) {
+    pending.compute(
+        cacheName,
+        (name, p) -> {
+          Pending current = p == null ? new Pending() : p;
+          current.clear = true;
+          current.keys.clear();
+          return current;
+        });
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (Exception e) {
+      log.warn("[缓存失效广播] 发送失败: {}", e.getMessage());
+    }
+  }
+
+  /** 发送合并窗口内积累的失效 */
+  private void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (String cacheName : new ArrayList<>(pending.keySet())) {
+      Pending p = pending.remove(cacheName);
+      if (p == null) {
+        continue;
+      }
+      Invalidation invalidation =
+          new Invalidation(nodeId, cacheName, p.clear ? null : new ArrayList<>(p.keys), p.clear);
+      redisTemplate.convertAndSend(EventTopics.CACHE_INVALIDATED, JSONUtil.toJsonStr(invalidation));
+      published.incrementAndGet();
+      log.debug(
+          "[缓存失效广播] 发送: cache={}, clear={}, keys={}", cacheName, p.clear, p.keys.size());
+    }
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    try {
+      Invalidation invalidation =
+          JSONUtil.toBean(
+              new String(message.getBody(), StandardCharsets.UTF_8), Invalidation.class);
+      if (nodeId.equals(invalidation.getNodeId())) {
+        return;
+      }
+      received.incrementAndGet();
+      MultiLevelCache cache = caches.get(invalidation.getCacheName());
+      if (cache == null) {
+        return;
+      }
+      if (invalidation.isClear() || invalidation.getKeys() == null) {
+        cache.clearLocal();
+      } else {
+        for (String key : invalidation.getKeys()) {
+          cache.evictLocal(key);
+        }
+      }
+      log.debug(
+          "[缓存失效广播] 收到: cache={}, from={}, clear={}",
+          invalidation.getCacheName(),
+          invalidation.getNodeId(),
+          invalidation.isClear());
+    } catch (Exception e) {
+      log.warn("[缓存失效广播] 处理消息失败: {}", e.getMessage());
+    }
+  }
+
+  /** 首次订阅和断线重连后的重新订阅都会回调，断线期间可能漏收失效消息，清空全部L1 */
+  @Override
+  public void onChannelSubscribed(byte[] channel, long count) {
+    if (!EventTopics.CACHE_INVALIDATED.equals(new String(channel, StandardCharsets.UTF_8))) {
+      return;
+    }
+    caches.values().forEach(MultiLevelCache::clearLocal);
+    long times = subscribeFlushes.incrementAndGet();
+    log.info("[缓存失效广播] 订阅成功，已清空本地L1: caches={}, times={}", caches.size(), times);
+  }
+
+  /** 发送剩余的失效后停止 */
+  public void close() {
+    flusher.shutdown();
+    try {
+      flushSafely();
+      container.removeMessageListener(this);
+    } catch (Exception e) {
+      log.warn("[缓存失效广播] 关闭异常: {}", e.getMessage());
+    }
+  }
+
+  public long getPublished() {
+    return published.get();
+  }
+
+  public long getReceived() {
+    return received.get();
+  }
+
+  public long getSubscribeFlushes() {
+    return subscribeFlushes.get();
+  }
+
+  /** 合并中的失效，只在 ConcurrentHashMap.compute 内修改 */
+  private static final class Pending {
+
+    private final Set<String> keys = new HashSet<>();
+
+    private boolean clear;
+  }
+
+  /** 失效消息 */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Invalidation {
+
+    /** 发出消息的节点 */
+    private String nodeId;
+
+    private String cacheName;
+
+    /** 失效的键，clear 时为空 */
+    private List<String> keys;
+
+    /** 是否清空整个缓存的L1 */
+    private boolean clear;
+  }
+}
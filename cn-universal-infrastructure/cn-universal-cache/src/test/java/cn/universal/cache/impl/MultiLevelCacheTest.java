@@ -0,0 +1,204 @@
+package cn.universal.cache.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cn.universal.cache.config.MultiLevelCacheProperties;
+import cn.universal.cache.manager.MultiLevelCacheManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/** MultiLevelCache 回源合并和空值缓存测试 */
+class MultiLevelCacheTest {
+
+  private static final int THREADS = 16;
+
+  @Test
+  void concurrentMissesLoadOnce() throws Exception {
+    MultiLevelCache cache = cache("device", new MultiLevelCacheProperties());
+    AtomicInteger loads = new AtomicInteger();
+    List<String> results =
+        runConcurrently(() -> cache.get("pk:dev", slowLoader(loads, "device")));
+
+    assertEquals(1, loads.get());
+    results.forEach(result -> assertEquals("device", result));
+    assertEquals(1, cache.getCacheStatistics().getLoads());
+    assertEquals("device", cache.get("pk:dev", String.class));
+  }
+
+  @Test
+  void cacheableSyncMissesLoadOnce() throws Exception {
+    try (AnnotationConfigApplicationContext context =
+        new AnnotationConfigApplicationContext(SyncCacheConfig.class)) {
+      ProductService service = context.getBean(ProductService.class);
+      List<String> results = runConcurrently(() -> service.getProduct("pk1"));
+
+      assertEquals(1, service.loads());
+      results.forEach(result -> assertEquals("product-pk1", result));
+      assertEquals("product-pk1", service.getProduct("pk1"));
+      assertEquals(1, service.loads());
+    }
+  }
+
+  @Test
+  void nullResultsAreNotCachedByDefault() {
+    MultiLevelCache cache = cache("device", new MultiLevelCacheProperties());
+    AtomicInteger loads = new AtomicInteger();
+    Callable<String> missing =
+        () -> {
+          loads.incrementAndGet();
+          return null;
+        };
+    assertNull(cache.get("pk:missing", missing));
+    assertNull(cache.get("pk:missing", missing));
+    assertEquals(2, loads.get());
+
+    // 之后新建的数据立即可见
+    assertEquals("created", cache.get("pk:missing", () -> "created"));
+  }
+
+  @Test
+  void nullResultsAreCachedForConfiguredCaches() {
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    properties.getLoad().getNegativeCacheNames().add("device");
+    MultiLevelCache cache = cache("device", properties);
+    AtomicInteger loads = new AtomicInteger();
+    Callable<String> missing =
+        () -> {
+          loads.incrementAndGet();
+          return null;
+        };
+    assertNull(cache.get("pk:missing", missing));
+    assertNull(cache.get("pk:missing", missing));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getCacheStatistics().getNegativeHits());
+
+    // 其他缓存不受影响
+    MultiLevelCache other = cache("product", properties);
+    assertNull(other.get("pk:missing", missing));
+    assertNull(other.get("pk:missing", missing));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void loaderFailureReachesEveryCaller() throws Exception {
+    MultiLevelCache cache = cache("device", new MultiLevelCacheProperties());
+    CountDownLatch started = new CountDownLatch(1);
+    Callable<String> failing =
+        () -> {
+          started.countDown();
+          TimeUnit.MILLISECONDS.sleep(200);
+          throw new IllegalStateException("db down");
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> first = executor.submit(() -> cache.get("pk:dev", failing));
+      started.await();
+      Future<?> second = executor.submit(() -> cache.get("pk:dev", failing));
+      for (Future<?> future : List.of(first, second)) {
+        Exception e = assertThrows(Exception.class, future::get);
+        ValueRetrievalException cause =
+            assertInstanceOf(ValueRetrievalException.class, e.getCause());
+        assertInstanceOf(IllegalStateException.class, cause.getCause());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, cache.getCacheStatistics().getLoadFailures());
+  }
+
+  private static MultiLevelCache cache(String name, MultiLevelCacheProperties properties) {
+    return new MultiLevelCache(name, new ConcurrentMapCache(name, false), null, properties);
+  }
+
+  private static Callable<String> slowLoader(AtomicInteger loads, String value) {
+    return () -> {
+      loads.incrementAndGet();
+      TimeUnit.MILLISECONDS.sleep(200);
+      return value;
+    };
+  }
+
+  /** 所有线程同时开始执行，返回各自的结果 */
+  private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return task.call();
+                }));
+      }
+      start.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get(10, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Configuration
+  @EnableCaching
+  static class SyncCacheConfig {
+
+    @Bean("l1CacheManager")
+    CacheManager l1CacheManager() {
+      ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+      cacheManager.setAllowNullValues(false);
+      return cacheManager;
+    }
+
+    @Bean
+    @Primary
+    MultiLevelCacheManager cacheManager() {
+      MultiLevelCacheManager cacheManager = new MultiLevelCacheManager();
+      cacheManager.setProperties(new MultiLevelCacheProperties());
+      return cacheManager;
+    }
+
+    @Bean
+    ProductService productService() {
+      return new ProductService();
+    }
+  }
+
+  static class ProductService {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    public int loads() {
+      return loads.get();
+    }
+
+    @Cacheable(cacheNames = "iot_product_device", key = "''+#productKey", sync = true)
+    public String getProduct(String productKey) throws InterruptedException {
+      loads.incrementAndGet();
+      TimeUnit.MILLISECONDS.sleep(200);
+      return "product-" + productKey;
+    }
+  }
+}
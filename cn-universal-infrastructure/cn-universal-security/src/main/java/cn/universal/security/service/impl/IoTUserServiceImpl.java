@@ -19,8 +19,11 @@ import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.lang.Validator;
 import cn.hutool.core.util.IdUtil;
 import cn.universal.common.constant.IoTUserConstants;
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.EventPublisher;
 import cn.universal.common.exception.IoTException;
 import cn.universal.common.utils.StringUtils;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.persistence.entity.IoTDevice;
 import cn.universal.persistence.entity.IoTUser;
 import cn.universal.persistence.entity.admin.SysUserRole;
@@ -52,6 +55,7 @@ public class IoTUserServiceImpl implements IoTUserService {
   // @Resource
   // private OauthClientDetailsMapper oauthClientDetailsMapper;
   @Resource private IoTDeviceMapper ioTDeviceMapper;
+  @Resource private EventPublisher eventPublisher;
 
   @Override
   // @DataScope(alias = "", created = "u.create_by")
@@ -169,7 +173,9 @@ public class IoTUserServiceImpl implements IoTUserService {
       deleteUserRoleByUnionId(userbo);
       insertUserRole(userbo);
     }
-    return iotUserMapper.updateByPrimaryKeySelective(iotUser);
+    int rows = iotUserMapper.updateByPrimaryKeySelective(iotUser);
+    mqttAuthChanged();
+    return rows;
   }
 
   @Override
@@ -178,11 +184,14 @@ public class IoTUserServiceImpl implements IoTUserService {
       key = "#iotUser.unionId",allEntries = true)
   public void updateUserById(IoTUser iotUser) {
     iotUserMapper.updateByPrimaryKeySelective(iotUser);
+    mqttAuthChanged();
   }
 
   @Override
   public int deleteUserById(Long userId) {
-    return iotUserMapper.deleteByPrimaryKey(userId);
+    int rows = iotUserMapper.deleteByPrimaryKey(userId);
+    mqttAuthChanged();
+    return rows;
   }
 
   @Override
@@ -210,7 +219,15 @@ public class IoTUserServiceImpl implements IoTUserService {
       throw new IoTException("该账号下存在设备，不允许删除！");
     }
     userRoleMapper.deleteUserRoleByUserIds(unionIds);
-    return iotUserMapper.deleteByIds(ids);
+    int rows = iotUserMapper.deleteByIds(ids);
+    mqttAuthChanged();
+    return rows;
+  }
+
+  /** 用户变更（含改名、改密码）提交后通知集群清除全部 EMQX 认证和 ACL 决策缓存 */
+  private void mqttAuthChanged() {
+    TransactionUtils.afterCommit(
+        () -> eventPublisher.publishEvent(EventTopics.MQTT_AUTH_CHANGED, null));
   }
 
   /**
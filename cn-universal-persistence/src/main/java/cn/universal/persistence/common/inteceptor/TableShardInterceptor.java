@@ -15,12 +15,18 @@ package cn.universal.persistence.common.inteceptor;
 import cn.hutool.extra.spring.SpringUtil;
 import cn.universal.persistence.consistent.ITableShardingStrategy;
 import cn.universal.persistence.consistent.TableShard;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.executor.statement.BaseStatementHandler;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -35,6 +41,12 @@ import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.SystemMetaObject;
 import org.springframework.stereotype.Component;
 
+/**
+ * 日志分表拦截器，按 {@link TableShard} 注解把SQL中的表前缀替换为分表名
+ *
+ * <p>语句的分表注解、分表策略、参数字段和替换后的SQL均按需解析一次后缓存。替换后的SQL按（语句id, 分表名, 原SQL）缓存，
+ * 动态SQL的不同分支各自缓存，缓存按SQL字符数限制总量，超长SQL不缓存。
+ */
 @Component
 @Intercepts({
   @Signature(
@@ -46,15 +58,48 @@ public class TableShardInterceptor implements Interceptor {
 
   private static final ReflectorFactory defaultReflectorFactory = new DefaultReflectorFactory();
 
+  /** 替换后SQL缓存的总字符数上限，原SQL和替换结果都计入 */
+  private static final long MAX_CACHED_SQL_CHARS = 4L * 1024 * 1024;
+
+  /** 超过该长度的SQL不缓存，foreach 批量插入等长SQL直接替换 */
+  private static final int MAX_CACHEABLE_SQL_LENGTH = 4096;
+
+  /** 参数中找不到分表字段，不分表 */
+  private static final Object NO_SHARD_VALUE = new Object();
+
+  private static final Field ROUTING_DELEGATE = field(RoutingStatementHandler.class, "delegate");
+
+  private static final Field MAPPED_STATEMENT =
+      field(BaseStatementHandler.class, "mappedStatement");
+
+  private static final Field BOUND_SQL = field(BoundSql.class, "sql");
+
+  /** 语句id -> 分表注解，无注解为空 */
+  private final Map<String, Optional<TableShard>> tableShards = new ConcurrentHashMap<>();
+
+  /** 分表策略类 -> spring容器中的策略 */
+  private final Map<Class<? extends ITableShardingStrategy>, ITableShardingStrategy> strategies =
+      new ConcurrentHashMap<>();
+
+  /** 参数类 -> 字段名 -> 字段，字段不存在为空 */
+  private final Map<Class<?>, Map<String, Optional<Field>>> parameterFields =
+      new ConcurrentHashMap<>();
+
+  /** 替换表名后的SQL */
+  private final Cache<SqlKey, String> rewrittenSql =
+      Caffeine.newBuilder()
+          .maximumWeight(MAX_CACHED_SQL_CHARS)
+          .<SqlKey, String>weigher((key, shardSql) -> key.sql().length() + shardSql.length())
+          .build();
+
   @Override
   public Object intercept(Invocation invocation) throws Throwable {
-    MetaObject metaObject = getMetaObject(invocation);
-    BoundSql boundSql = (BoundSql) metaObject.getValue("delegate.boundSql");
-    MappedStatement mappedStatement =
-        (MappedStatement) metaObject.getValue("delegate.mappedStatement");
+    StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+    MappedStatement mappedStatement = getMappedStatement(statementHandler);
 
     // 获取分表注解
-    TableShard tableShard = getTableShard(mappedStatement);
+    TableShard tableShard =
+        tableShards.computeIfAbsent(mappedStatement.getId(), this::getTableShard).orElse(null);
 
     // 如果method与class都没有TableShard注解或执行方法不存在，执行下一个插件逻辑
     if (tableShard == null) {
@@ -63,68 +108,63 @@ public class TableShardInterceptor implements Interceptor {
 
     // 获取值
     String value = tableShard.value();
-    // value是否字段名，如果是，需要解析请求参数字段名的值
-    boolean fieldFlag = tableShard.fieldFlag();
 
     // 如果value为空，说明不需要分表，直接执行
     if (value == null || value.trim().isEmpty()) {
       return invocation.proceed();
     }
 
-    if (fieldFlag) {
-      // 获取请求参数
-      Object parameterObject = boundSql.getParameterObject();
-
-      if (parameterObject instanceof MapperMethod.ParamMap) { // ParamMap类型逻辑处理
+    BoundSql boundSql = statementHandler.getBoundSql();
+    // value是否字段名，如果是，需要解析请求参数字段名的值
+    Object shardValue =
+        tableShard.fieldFlag() ? getShardValue(boundSql.getParameterObject(), value) : value;
+    if (shardValue == NO_SHARD_VALUE) {
+      return invocation.proceed();
+    }
+    // 替换sql
+    replaceSql(tableShard, mappedStatement.getId(), shardValue, boundSql);
+    // 执行下一个插件逻辑
+    return invocation.proceed();
+  }
 
-        MapperMethod.ParamMap parameterMap = (MapperMethod.ParamMap) parameterObject;
-        // 根据字段名获取参数值
-        Object valueObject = parameterMap.get(value);
-        if (valueObject == null) {
-          // 如果找不到参数，直接执行，不进行分表
-          return invocation.proceed();
-        }
-        // 替换sql
-        replaceSql(tableShard, valueObject, metaObject, boundSql);
+  /** 从请求参数中取分表字段的值，找不到时返回 {@link #NO_SHARD_VALUE} */
+  private Object getShardValue(Object parameterObject, String value) throws IllegalAccessException {
+    if (parameterObject instanceof MapperMethod.ParamMap) { // ParamMap类型逻辑处理
+      MapperMethod.ParamMap<?> parameterMap = (MapperMethod.ParamMap<?>) parameterObject;
+      // 根据字段名获取参数值，如果找不到参数，直接执行，不进行分表
+      Object valueObject = parameterMap.get(value);
+      return valueObject == null ? NO_SHARD_VALUE : valueObject;
+    }
 
-      } else { // 单参数逻辑
+    // 单参数逻辑，如果是基础类型抛出异常
+    if (isBaseType(parameterObject)) {
+      throw new RuntimeException("单参数非法，请使用@Param注解");
+    }
 
-        // 如果是基础类型抛出异常
-        if (isBaseType(parameterObject)) {
-          throw new RuntimeException("单参数非法，请使用@Param注解");
-        }
+    if (parameterObject instanceof Map) {
+      Object valueObject = ((Map<?, ?>) parameterObject).get(value);
+      return valueObject == null ? NO_SHARD_VALUE : valueObject;
+    }
 
-        if (parameterObject instanceof Map) {
-          Map<String, Object> parameterMap = (Map<String, Object>) parameterObject;
-          Object valueObject = parameterMap.get(value);
-          if (valueObject == null) {
-            // 如果找不到参数，直接执行，不进行分表
-            return invocation.proceed();
-          }
-          // 替换sql
-          replaceSql(tableShard, valueObject, metaObject, boundSql);
-        } else {
-          // 非基础类型对象
-          try {
-            Class<?> parameterObjectClass = parameterObject.getClass();
-            Field declaredField = parameterObjectClass.getDeclaredField(value);
-            declaredField.setAccessible(true);
-            Object valueObject = declaredField.get(parameterObject);
-            // 替换sql
-            replaceSql(tableShard, valueObject, metaObject, boundSql);
-          } catch (NoSuchFieldException e) {
-            // 如果找不到字段，直接执行，不进行分表
-            return invocation.proceed();
-          }
-        }
-      }
+    // 非基础类型对象，如果找不到字段，直接执行，不进行分表
+    Optional<Field> field =
+        parameterFields
+            .computeIfAbsent(parameterObject.getClass(), k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(value, name -> getDeclaredField(parameterObject.getClass(), name));
+    if (field.isEmpty()) {
+      return NO_SHARD_VALUE;
+    }
+    return field.get().get(parameterObject);
+  }
 
-    } else { // 无需处理parameterField
-      // 替换sql
-      replaceSql(tableShard, value, metaObject, boundSql);
+  private static Optional<Field> getDeclaredField(Class<?> clazz, String name) {
+    try {
+      Field declaredField = clazz.getDeclaredField(name);
+      declaredField.setAccessible(true);
+      return Optional.of(declaredField);
+    } catch (NoSuchFieldException e) {
+      return Optional.empty();
     }
-    // 执行下一个插件逻辑
-    return invocation.proceed();
   }
 
   @Override
@@ -159,57 +199,86 @@ public class TableShardInterceptor implements Interceptor {
 
   /** 替换sql */
   private void replaceSql(
-      TableShard tableShard, Object value, MetaObject metaObject, BoundSql boundSql) {
+      TableShard tableShard, String statementId, Object value, BoundSql boundSql)
+      throws IllegalAccessException {
     String tableNamePrefix = tableShard.tableNamePrefix();
-    // 获取策略class
-    Class<? extends ITableShardingStrategy> strategyClazz = tableShard.shardStrategy();
     // 从spring ioc容器获取策略类
-
-    ITableShardingStrategy tableShardStrategy = SpringUtil.getBean(strategyClazz);
+    ITableShardingStrategy tableShardStrategy =
+        strategies.computeIfAbsent(tableShard.shardStrategy(), clazz -> SpringUtil.getBean(clazz));
     // 生成分表名
     String shardTableName = tableShardStrategy.generateTableName(tableNamePrefix, value);
     // 获取sql
     String sql = boundSql.getSql();
-    // 完成表名替换
-    metaObject.setValue("delegate.boundSql.sql", sql.replaceAll(tableNamePrefix, shardTableName));
+    // 完成表名替换，表前缀按字面量替换
+    String shardSql =
+        sql.length() > MAX_CACHEABLE_SQL_LENGTH
+            ? sql.replace(tableNamePrefix, shardTableName)
+            : rewrittenSql.get(
+                new SqlKey(statementId, shardTableName, sql),
+                key -> sql.replace(tableNamePrefix, shardTableName));
+    if (BOUND_SQL != null) {
+      BOUND_SQL.set(boundSql, shardSql);
+    } else {
+      SystemMetaObject.forObject(boundSql).setValue("sql", shardSql);
+    }
   }
 
-  /** 获取MetaObject对象-mybatis里面提供的一个工具类，类似反射的效果 */
-  private MetaObject getMetaObject(Invocation invocation) {
-    StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
-    // MetaObject是mybatis里面提供的一个工具类，类似反射的效果
-    MetaObject metaObject =
-        MetaObject.forObject(
-            statementHandler,
-            SystemMetaObject.DEFAULT_OBJECT_FACTORY,
-            SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY,
-            defaultReflectorFactory);
-
-    return metaObject;
+  /** 取语句对应的 MappedStatement，StatementHandler 被其他插件代理时退回 MetaObject */
+  private MappedStatement getMappedStatement(StatementHandler statementHandler)
+      throws IllegalAccessException {
+    if (ROUTING_DELEGATE != null
+        && MAPPED_STATEMENT != null
+        && statementHandler instanceof RoutingStatementHandler) {
+      Object delegate = ROUTING_DELEGATE.get(statementHandler);
+      if (delegate instanceof BaseStatementHandler) {
+        return (MappedStatement) MAPPED_STATEMENT.get(delegate);
+      }
+    }
+    return (MappedStatement) getMetaObject(statementHandler).getValue("delegate.mappedStatement");
+  }
+
+  /** MetaObject是mybatis里面提供的一个工具类，类似反射的效果 */
+  private MetaObject getMetaObject(StatementHandler statementHandler) {
+    return MetaObject.forObject(
+        statementHandler,
+        SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY,
+        defaultReflectorFactory);
   }
 
-  /** 获取分表注解 - 修复版本 */
-  private TableShard getTableShard(MappedStatement mappedStatement) throws ClassNotFoundException {
-    String id = mappedStatement.getId();
+  private static Field field(Class<?> clazz, String name) {
+    try {
+      Field field = clazz.getDeclaredField(name);
+      field.setAccessible(true);
+      return field;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /** 获取分表注解，语句id对应的Mapper接口不存在时视为不分表 */
+  private Optional<TableShard> getTableShard(String id) {
     // 获取Class
     final String className = id.substring(0, id.lastIndexOf("."));
     // 获取方法名
     final String methodName = id.substring(id.lastIndexOf(".") + 1);
 
     // 获取Mapper接口类
-    Class<?> mapperClass = Class.forName(className);
-
-    // 分表注解
-    TableShard tableShard = null;
+    Class<?> mapperClass;
+    try {
+      mapperClass = Class.forName(className);
+    } catch (ClassNotFoundException e) {
+      return Optional.empty();
+    }
 
     // 先查找方法上的注解
     try {
       Method[] methods = mapperClass.getMethods();
       for (Method method : methods) {
         if (method.getName().equals(methodName)) {
-          tableShard = method.getAnnotation(TableShard.class);
+          TableShard tableShard = method.getAnnotation(TableShard.class);
           if (tableShard != null) {
-            return tableShard; // 找到方法上的注解，直接返回
+            return Optional.of(tableShard); // 找到方法上的注解，直接返回
           }
         }
       }
@@ -218,8 +287,8 @@ public class TableShardInterceptor implements Interceptor {
     }
 
     // 如果方法没有设置注解，从Mapper接口上面获取TableShard注解
-    tableShard = mapperClass.getAnnotation(TableShard.class);
-
-    return tableShard;
+    return Optional.ofNullable(mapperClass.getAnnotation(TableShard.class));
   }
+
+  private record SqlKey(String statementId, String shardTableName, String sql) {}
 }
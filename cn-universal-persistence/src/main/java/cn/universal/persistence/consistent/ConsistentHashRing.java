@@ -0,0 +1,101 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.persistence.consistent;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希环，构建后不可变
+ *
+ * <p>虚拟节点按哈希值排序存放在两个数组中，定位时二分查找顺时针方向第一个节点，无锁、无装箱。节点布局与原 TreeMap 实现一致，分表结果不变。
+ *
+ * @author gitee.com/NexIoT
+ */
+public final class ConsistentHashRing {
+
+  private static final String NODE_SALT = "ww048gf52544ea28frece10a1a#";
+
+  /** 虚拟节点哈希值，升序 */
+  private final int[] hashes;
+
+  /** 虚拟节点对应的分表序号 */
+  private final int[] tableNos;
+
+  private ConsistentHashRing(int[] hashes, int[] tableNos) {
+    this.hashes = hashes;
+    this.tableNos = tableNos;
+  }
+
+  /**
+   * @param tableCount 分表数量
+   * @param virtualNode 每张分表的虚拟节点数量
+   */
+  public static ConsistentHashRing build(int tableCount, int virtualNode) {
+    if (tableCount <= 0) {
+      throw new IllegalArgumentException("分表数量必须大于0: " + tableCount);
+    }
+    // 哈希冲突时后写入的覆盖先写入的，与原 TreeMap.put 行为一致
+    TreeMap<Integer, Integer> nodes = new TreeMap<>();
+    for (int i = 0; i < tableCount; i++) {
+      for (int j = 0; j <= virtualNode; j++) {
+        nodes.put(hash(NODE_SALT + i + "_" + j), i);
+      }
+    }
+    int[] hashes = new int[nodes.size()];
+    int[] tableNos = new int[nodes.size()];
+    int index = 0;
+    for (Map.Entry<Integer, Integer> node : nodes.entrySet()) {
+      hashes[index] = node.getKey();
+      tableNos[index] = node.getValue();
+      index++;
+    }
+    return new ConsistentHashRing(hashes, tableNos);
+  }
+
+  /** 顺时针方向第一个虚拟节点的分表序号，超过最大哈希值时回到第一个节点 */
+  public int locate(String key) {
+    int index = Arrays.binarySearch(hashes, hash(key));
+    if (index < 0) {
+      index = -index - 1;
+      if (index == hashes.length) {
+        index = 0;
+      }
+    }
+    return tableNos[index];
+  }
+
+  public int size() {
+    return hashes.length;
+  }
+
+  /** 计算Hash值, 使用FNV1_32_HASH算法 */
+  public static int hash(String str) {
+    final int p = 16777619;
+    int hash = (int) 2166136261L;
+    for (int i = 0; i < str.length(); i++) {
+      hash = (hash ^ str.charAt(i)) * p;
+    }
+    hash += hash << 13;
+    hash ^= hash >> 7;
+    hash += hash << 3;
+    hash ^= hash >> 17;
+    hash += hash << 5;
+
+    if (hash < 0) {
+      hash = Math.abs(hash);
+    }
+    return hash;
+  }
+}
@@ -86,4 +86,12 @@ public interface IoTDeviceLogMetadataShardMapper extends BaseMapper<IoTDeviceLog
    */
   List<String> queryEventTotalByEventAndId(
       @Param("event") String event, @Param("iotId") String iotId);
+
+  /**
+   * 多行插入，一条 insert 写入整批元数据
+   *
+   * @param iotId 用于分表路由，整批元数据须路由到同一分表
+   * @param list 元数据
+   */
+  int batchInsert(@Param("iotId") String iotId, @Param("list") List<IoTDeviceLogMetadata> list);
 }
@@ -65,4 +65,12 @@ public interface IoTDeviceLogShardMapper extends BaseMapper<IoTDeviceLog> {
 
   void updateLogByIdForCtwing(
       @Param("ioTDeviceLog") IoTDeviceLog ioTDeviceLog, @Param("iotId") String iotId);
+
+  /**
+   * 多行插入，一条 insert 写入整批日志
+   *
+   * @param iotId 用于分表路由，整批日志须路由到同一分表
+   * @param list 日志
+   */
+  int batchInsert(@Param("iotId") String iotId, @Param("list") List<IoTDeviceLog> list);
 }
@@ -0,0 +1,163 @@
+package cn.universal.persistence.common.inteceptor;
+
+import cn.hutool.extra.spring.SpringUtil;
+import cn.universal.persistence.consistent.DeviceShardingRouter;
+import cn.universal.persistence.mapper.IoTDeviceLogShardMapper;
+import cn.universal.persistence.mapper.RuleModelMapper;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * 分表拦截器单次查询开销基准：baseline 只执行被拦截方法，sharded 为分表语句，unsharded 为无分表注解的语句
+ *
+ * <p>被拦截方法用 {@link StatementHandler#getBoundSql()} 代替 prepare，不需要数据库连接。每次调用前还原原始SQL，三组都包含这部分开销。
+ *
+ * <p>运行：在IDE中直接执行 main，或 {@code java -cp <test-classpath> ...TableShardInterceptorBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TableShardInterceptorBenchmark {
+
+  private static final String SHARDED_SQL =
+      "SELECT create_time FROM iot_device_log WHERE iot_id = ? AND message_type = 'EVENT'"
+          + " AND `event` = ? ORDER BY id desc LIMIT 1";
+
+  private static final String UNSHARDED_SQL = "SELECT * FROM rule_model WHERE id = ?";
+
+  private static final int DEVICES = 1024;
+
+  private final Field sqlField = sqlField();
+
+  private GenericApplicationContext context;
+  private TableShardInterceptor interceptor;
+  private BoundSql[] shardedSql;
+  private Invocation[] sharded;
+  private BoundSql unshardedSql;
+  private Invocation unsharded;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    context = new GenericApplicationContext();
+    context.registerBean(DeviceShardingRouter.class, () -> new DeviceShardingRouter(true, 8, 100));
+    context.refresh();
+    new SpringUtil().setApplicationContext(context);
+
+    interceptor = new TableShardInterceptor();
+    Configuration configuration = new Configuration();
+    MappedStatement shardedStatement =
+        statement(
+            configuration,
+            IoTDeviceLogShardMapper.class.getName() + ".queryEventTotalByEventAndId",
+            SHARDED_SQL);
+    MappedStatement unshardedStatement =
+        statement(
+            configuration, RuleModelMapper.class.getName() + ".selectByPrimaryKey", UNSHARDED_SQL);
+    Method getBoundSql = StatementHandler.class.getMethod("getBoundSql");
+
+    shardedSql = new BoundSql[DEVICES];
+    sharded = new Invocation[DEVICES];
+    for (int i = 0; i < DEVICES; i++) {
+      MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+      param.put("event", "alarm");
+      param.put("iotId", "iot" + Integer.toHexString(i * 0x9E3779B1));
+      shardedSql[i] = new BoundSql(configuration, SHARDED_SQL, Collections.emptyList(), param);
+      StatementHandler handler = handler(shardedStatement, param, shardedSql[i]);
+      sharded[i] = new Invocation(handler, getBoundSql, new Object[0]);
+    }
+    MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+    param.put("id", 1L);
+    unshardedSql = new BoundSql(configuration, UNSHARDED_SQL, Collections.emptyList(), param);
+    StatementHandler handler = handler(unshardedStatement, param, unshardedSql);
+    unsharded = new Invocation(handler, getBoundSql, new Object[0]);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object baseline() throws Exception {
+    int i = nextDevice();
+    sqlField.set(shardedSql[i], SHARDED_SQL);
+    return sharded[i].proceed();
+  }
+
+  @Benchmark
+  public Object sharded() throws Throwable {
+    int i = nextDevice();
+    sqlField.set(shardedSql[i], SHARDED_SQL);
+    return interceptor.intercept(sharded[i]);
+  }
+
+  @Benchmark
+  public Object unsharded() throws Throwable {
+    sqlField.set(unshardedSql, UNSHARDED_SQL);
+    return interceptor.intercept(unsharded);
+  }
+
+  private int nextDevice() {
+    next = (next + 1) & (DEVICES - 1);
+    return next;
+  }
+
+  private static MappedStatement statement(Configuration configuration, String id, String sql) {
+    return new MappedStatement.Builder(
+            configuration, id, new StaticSqlSource(configuration, sql), SqlCommandType.SELECT)
+        .build();
+  }
+
+  private static StatementHandler handler(
+      MappedStatement statement, Object param, BoundSql boundSql) {
+    return new RoutingStatementHandler(null, statement, param, RowBounds.DEFAULT, null, boundSql);
+  }
+
+  private static Field sqlField() {
+    try {
+      Field field = BoundSql.class.getDeclaredField("sql");
+      field.setAccessible(true);
+      return field;
+    } catch (NoSuchFieldException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(TableShardInterceptorBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
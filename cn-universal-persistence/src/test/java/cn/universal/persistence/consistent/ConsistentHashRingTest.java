@@ -0,0 +1,98 @@
+package cn.universal.persistence.consistent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/** ConsistentHashRing 与原 TreeMap 分表路由的一致性测试 */
+class ConsistentHashRingTest {
+
+  private static final String NODE_SALT = "ww048gf52544ea28frece10a1a#";
+
+  @Test
+  void sameLayoutAsTreeMapRouter() {
+    Random random = new Random(20251210L);
+    int[][] configs = {{1, 0}, {2, 10}, {4, 160}, {16, 100}, {64, 32}};
+    for (int[] config : configs) {
+      int tableCount = config[0];
+      int virtualNode = config[1];
+      ConsistentHashRing ring = ConsistentHashRing.build(tableCount, virtualNode);
+      SortedMap<Integer, Integer> legacy = legacyRing(tableCount, virtualNode);
+      assertEquals(legacy.size(), ring.size());
+
+      // 虚拟节点自身和紧邻的哈希值
+      for (int i = 0; i < tableCount; i++) {
+        for (int j = 0; j <= virtualNode; j++) {
+          String node = NODE_SALT + i + "_" + j;
+          assertEquals(legacyLocate(legacy, node), ring.locate(node), node);
+        }
+      }
+      // 设备iotId形式的随机key
+      for (int k = 0; k < 20_000; k++) {
+        String iotId =
+            switch (k % 3) {
+              case 0 -> UUID.randomUUID().toString().replace("-", "");
+              case 1 -> "pk" + random.nextInt(1000) + "_" + random.nextLong();
+              default -> Long.toString(random.nextLong() & Long.MAX_VALUE);
+            };
+        assertEquals(legacyLocate(legacy, iotId), ring.locate(iotId), iotId);
+      }
+    }
+  }
+
+  @Test
+  void wrapsAroundPastLastNode() {
+    ConsistentHashRing ring = ConsistentHashRing.build(4, 2);
+    SortedMap<Integer, Integer> legacy = legacyRing(4, 2);
+    // 找一个哈希值大于最大虚拟节点的key，应回到第一个节点
+    int lastHash = legacy.lastKey();
+    String key = null;
+    for (int i = 0; key == null; i++) {
+      String candidate = "device-" + i;
+      if (ConsistentHashRing.hash(candidate) > lastHash) {
+        key = candidate;
+      }
+    }
+    assertEquals(legacy.get(legacy.firstKey()), ring.locate(key));
+    assertEquals(legacyLocate(legacy, key), ring.locate(key));
+  }
+
+  @Test
+  void routerUsesRingLayout() {
+    DeviceShardingRouter router = new DeviceShardingRouter(true, 8, 50);
+    SortedMap<Integer, Integer> legacy = legacyRing(8, 50);
+    for (int k = 0; k < 1000; k++) {
+      String iotId = "iot" + k;
+      assertEquals(
+          "iot_device_log_" + legacyLocate(legacy, iotId),
+          router.generateTableName("iot_device_log", iotId));
+    }
+    assertEquals(
+        "iot_device_log",
+        new DeviceShardingRouter(false, 8, 50).generateTableName("iot_device_log", "iot1"));
+  }
+
+  /** 原实现：@PostConstruct 中按相同规则填充的 TreeMap */
+  private static SortedMap<Integer, Integer> legacyRing(int tableCount, int virtualNode) {
+    SortedMap<Integer, Integer> sortedMap = new TreeMap<>();
+    for (int i = 0; i < tableCount; i++) {
+      for (int j = 0; j <= virtualNode; j++) {
+        sortedMap.put(ConsistentHashRing.hash(NODE_SALT + i + "_" + j), i);
+      }
+    }
+    return sortedMap;
+  }
+
+  /** 原实现：tailMap 取顺时针第一个节点，没有时回到第一个节点 */
+  private static int legacyLocate(SortedMap<Integer, Integer> sortedMap, String iotId) {
+    SortedMap<Integer, Integer> subMap = sortedMap.tailMap(ConsistentHashRing.hash(iotId));
+    if (subMap.isEmpty()) {
+      return sortedMap.get(sortedMap.firstKey());
+    }
+    return subMap.get(subMap.firstKey());
+  }
+}
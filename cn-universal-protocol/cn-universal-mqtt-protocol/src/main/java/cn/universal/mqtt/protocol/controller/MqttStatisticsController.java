@@ -309,6 +309,28 @@ public class MqttStatisticsController {
     }
   }
 
+  /** 获取消息分发通道统计 */
+  @GetMapping("/metrics/dispatch")
+  public ResponseEntity<Map<String, Object>> getDispatchMetrics() {
+    try {
+      Map<String, Object> result = new HashMap<>();
+      result.put("success", true);
+      result.put("message", "获取分发通道统计成功");
+      result.put("data", metricsCollector.getDispatchStats());
+      result.put("timestamp", System.currentTimeMillis());
+
+      return ResponseEntity.ok(result);
+    } catch (Exception e) {
+      log.error("[THIRD_MQTT_STATS] 获取分发通道统计失败: ", e);
+
+      Map<String, Object> result = new HashMap<>();
+      result.put("success", false);
+      result.put("message", "获取分发通道统计失败: " + e.getMessage());
+
+      return ResponseEntity.status(500).body(result);
+    }
+  }
+
   /** 重置性能指标 */
   @PostMapping("/metrics/reset")
   public ResponseEntity<Map<String, Object>> resetMetrics() {
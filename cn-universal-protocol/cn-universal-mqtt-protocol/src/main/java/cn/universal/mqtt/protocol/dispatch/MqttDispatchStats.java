@@ -0,0 +1,76 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.dispatch;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * MQTT分发通道统计快照
+ *
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MqttDispatchStats {
+
+  /** 分发器名称 */
+  private String name;
+
+  /** 过载策略 */
+  private String policy;
+
+  /** 通道数 */
+  private int laneCount;
+
+  /** 单通道容量 */
+  private int laneCapacity;
+
+  /** 各通道当前积压 */
+  private int[] laneDepths;
+
+  /** 当前积压总数 */
+  private long queuedCount;
+
+  /** 已入队数 */
+  private long submittedCount;
+
+  /** 已处理数 */
+  private long completedCount;
+
+  /** 通道已满被拒绝的次数 */
+  private long rejectedCount;
+
+  /** 溢写到磁盘的消息数 */
+  private long spilledCount;
+
+  /** 磁盘中待回放的字节数 */
+  private long spillPendingBytes;
+
+  /** 丢弃数 */
+  private long droppedCount;
+
+  /** 入队时发生阻塞的次数 */
+  private long blockedCount;
+
+  /** 平均排队等待时间(ms) */
+  private double averageWaitTime;
+
+  /** 最大排队等待时间(ms) */
+  private double maxWaitTime;
+}
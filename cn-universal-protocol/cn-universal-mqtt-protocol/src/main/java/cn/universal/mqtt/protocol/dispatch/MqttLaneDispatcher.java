@@ -0,0 +1,281 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.dispatch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MQTT有序分发器
+ *
+ * <p>按 productKey/deviceId 哈希到固定数量的有界通道，每个通道一个工作线程顺序消费：
+ *
+ * <ul>
+ *   <li>同一设备的消息始终进入同一通道，保证设备内有序
+ *   <li>不同设备分散到多个通道并行处理，充分利用多核
+ *   <li>通道有界，队列满时按 {@link MqttOverloadPolicy} 反压或丢弃，不会无限堆积
+ * </ul>
+ *
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+@Slf4j(topic = "mqtt")
+public class MqttLaneDispatcher {
+
+  private final String name;
+  private final MqttOverloadPolicy policy;
+  private final int laneCapacity;
+  private final long blockWarnMillis;
+  private final BlockingQueue<LaneTask>[] lanes;
+  private final Thread[] workers;
+
+  private volatile boolean running = true;
+
+  // 统计
+  private final LongAdder submittedCount = new LongAdder();
+  private final LongAdder completedCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder droppedCount = new LongAdder();
+  private final LongAdder blockedCount = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong(0);
+
+  /**
+   * @param name 分发器名称，同时作为工作线程名前缀
+   * @param laneCount 通道数，小于等于0时取CPU核数
+   * @param laneCapacity 单通道容量
+   * @param policy 过载策略
+   * @param blockWarnMillis 阻塞超过该时长打印告警
+   */
+  public MqttLaneDispatcher(
+      String name, int laneCount, int laneCapacity, MqttOverloadPolicy policy, long blockWarnMillis) {
+    this(name, laneCount, laneCapacity, policy, blockWarnMillis, false);
+  }
+
+  /**
+   * @param virtualThreads 通道工作线程是否使用虚拟线程，网络数较多时避免平台线程膨胀
+   */
+  @SuppressWarnings("unchecked")
+  public MqttLaneDispatcher(
+      String name,
+      int laneCount,
+      int laneCapacity,
+      MqttOverloadPolicy policy,
+      long blockWarnMillis,
+      boolean virtualThreads) {
+    int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+    this.name = name;
+    this.policy = policy == null ? MqttOverloadPolicy.BLOCK : policy;
+    this.laneCapacity = Math.max(1, laneCapacity);
+    this.blockWarnMillis = Math.max(1, blockWarnMillis);
+    this.lanes = new BlockingQueue[count];
+    this.workers = new Thread[count];
+    for (int i = 0; i < count; i++) {
+      BlockingQueue<LaneTask> lane = new ArrayBlockingQueue<>(this.laneCapacity);
+      lanes[i] = lane;
+      Thread.Builder builder =
+          virtualThreads
+              ? Thread.ofVirtual().name(name + "-lane-" + i)
+              : Thread.ofPlatform().name(name + "-lane-" + i).daemon(true);
+      workers[i] = builder.start(() -> runLane(lane));
+    }
+    log.info(
+        "[MQTT_DISPATCH] 分发器启动: name={}, lanes={}, capacity={}, policy={}",
+        name,
+        count,
+        this.laneCapacity,
+        this.policy);
+  }
+
+  /**
+   * 分发消息
+   *
+   * @param shardKey 分片键，一般为 productKey:deviceId
+   * @param qos 消息QoS，用于过载策略判断
+   * @param task 处理任务
+   * @return false 表示消息未入队（被丢弃，或SPILL_TO_DISK策略下需由调用方溢写）
+   */
+  public boolean dispatch(String shardKey, int qos, Runnable task) {
+    if (!running) {
+      droppedCount.increment();
+      return false;
+    }
+    BlockingQueue<LaneTask> lane = lanes[laneIndex(shardKey)];
+    LaneTask laneTask = new LaneTask(task, System.nanoTime());
+    if (lane.offer(laneTask)) {
+      submittedCount.increment();
+      return true;
+    }
+    rejectedCount.increment();
+    if (policy == MqttOverloadPolicy.SPILL_TO_DISK) {
+      return false;
+    }
+    if (policy == MqttOverloadPolicy.DROP_QOS0 && qos == 0) {
+      droppedCount.increment();
+      return false;
+    }
+    return blockingOffer(lane, laneTask, shardKey);
+  }
+
+  /** 阻塞分发，不受过载策略影响，用于溢写消息回放 */
+  public boolean dispatchBlocking(String shardKey, Runnable task) {
+    if (!running) {
+      droppedCount.increment();
+      return false;
+    }
+    BlockingQueue<LaneTask> lane = lanes[laneIndex(shardKey)];
+    LaneTask laneTask = new LaneTask(task, System.nanoTime());
+    if (lane.offer(laneTask)) {
+      submittedCount.increment();
+      return true;
+    }
+    return blockingOffer(lane, laneTask, shardKey);
+  }
+
+  /** 记录一条被调用方丢弃的消息 */
+  public void markDropped() {
+    droppedCount.increment();
+  }
+
+  /** 当前积压总数 */
+  public long getQueuedCount() {
+    long queued = 0;
+    for (BlockingQueue<LaneTask> lane : lanes) {
+      queued += lane.size();
+    }
+    return queued;
+  }
+
+  /** 总容量 */
+  public long getTotalCapacity() {
+    return (long) laneCapacity * lanes.length;
+  }
+
+  public MqttOverloadPolicy getPolicy() {
+    return policy;
+  }
+
+  /** 队列已满，阻塞调用线程直到有空位（Paho回调线程被阻塞即暂停读取） */
+  private boolean blockingOffer(BlockingQueue<LaneTask> lane, LaneTask laneTask, String shardKey) {
+    blockedCount.increment();
+    try {
+      while (running) {
+        if (lane.offer(laneTask, blockWarnMillis, TimeUnit.MILLISECONDS)) {
+          submittedCount.increment();
+          return true;
+        }
+        log.warn(
+            "[MQTT_DISPATCH] 通道持续满载，调用线程已阻塞{}ms: name={}, key={}",
+            blockWarnMillis,
+            name,
+            shardKey);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    droppedCount.increment();
+    return false;
+  }
+
+  private int laneIndex(String shardKey) {
+    if (shardKey == null) {
+      return 0;
+    }
+    int h = shardKey.hashCode();
+    h ^= (h >>> 16);
+    return (h & 0x7fffffff) % lanes.length;
+  }
+
+  private void runLane(BlockingQueue<LaneTask> lane) {
+    while (running || !lane.isEmpty()) {
+      LaneTask laneTask;
+      try {
+        laneTask = lane.poll(500, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        // 通道线程只在shutdown时退出，中断后继续消费剩余消息
+        continue;
+      }
+      if (laneTask == null) {
+        continue;
+      }
+      long waitNanos = System.nanoTime() - laneTask.enqueueNanos;
+      totalWaitNanos.add(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+      try {
+        laneTask.task.run();
+      } catch (Throwable e) {
+        log.error("[MQTT_DISPATCH] 通道任务执行异常: name={}", name, e);
+      } finally {
+        completedCount.increment();
+      }
+    }
+  }
+
+  /** 停止分发器，已入队消息处理完后退出 */
+  public void shutdown(long timeoutMillis) {
+    running = false;
+    long deadline = System.currentTimeMillis() + Math.max(0, timeoutMillis);
+    for (Thread worker : workers) {
+      long remain = deadline - System.currentTimeMillis();
+      try {
+        if (remain > 0) {
+          worker.join(remain);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    long left = getQueuedCount();
+    if (left > 0) {
+      log.warn("[MQTT_DISPATCH] 分发器关闭超时，剩余未处理消息: name={}, count={}", name, left);
+    }
+    log.info("[MQTT_DISPATCH] 分发器已关闭: name={}", name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** 获取统计快照 */
+  public MqttDispatchStats getStats() {
+    int[] depths = new int[lanes.length];
+    long queued = 0;
+    for (int i = 0; i < lanes.length; i++) {
+      depths[i] = lanes[i].size();
+      queued += depths[i];
+    }
+    long completed = completedCount.sum();
+    return MqttDispatchStats.builder()
+        .name(name)
+        .policy(policy.name())
+        .laneCount(lanes.length)
+        .laneCapacity(laneCapacity)
+        .laneDepths(depths)
+        .queuedCount(queued)
+        .submittedCount(submittedCount.sum())
+        .completedCount(completed)
+        .rejectedCount(rejectedCount.sum())
+        .droppedCount(droppedCount.sum())
+        .blockedCount(blockedCount.sum())
+        .averageWaitTime(completed == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / completed)
+        .maxWaitTime(maxWaitNanos.get() / 1_000_000.0)
+        .build();
+  }
+
+  private record LaneTask(Runnable task, long enqueueNanos) {}
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.dispatch;
+
+/**
+ * MQTT消息分发过载策略
+ *
+ * <p>当分发通道队列已满时的处理方式
+ *
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+public enum MqttOverloadPolicy {
+
+  /** 阻塞Paho回调线程，Paho停止读取后由TCP/maxInflight反压到Broker */
+  BLOCK,
+
+  /** QoS0消息直接丢弃，QoS1/2仍然阻塞等待 */
+  DROP_QOS0,
+
+  /** 写入本地磁盘，通道空闲后按原顺序回放 */
+  SPILL_TO_DISK;
+
+  public static MqttOverloadPolicy of(String name) {
+    if (name == null || name.isBlank()) {
+      return BLOCK;
+    }
+    for (MqttOverloadPolicy policy : values()) {
+      if (policy.name().equalsIgnoreCase(name.trim())) {
+        return policy;
+      }
+    }
+    return BLOCK;
+  }
+}
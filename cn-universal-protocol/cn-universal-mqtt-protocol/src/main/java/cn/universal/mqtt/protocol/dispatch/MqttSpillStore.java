@@ -0,0 +1,338 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.dispatch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MQTT消息磁盘溢写存储
+ *
+ * <p>通道满载时将原始消息顺序追加到本地文件，负载下降后由 {@link #drain(SpillConsumer)} 按写入顺序回放。 存在待回放数据期间，新消息同样写入磁盘，保证设备内顺序。
+ *
+ * <p>回放遇到消费失败立即停止，失败的消息及其后的消息留在磁盘。文件中的消息全部消费成功后才删除，部分回放的文件记录读取位置（{@code .pos}），
+ * 下次回放和重启后从该位置继续。
+ *
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+@Slf4j(topic = "mqtt")
+public class MqttSpillStore {
+
+  private static final String FILE_PREFIX = "spill-";
+  private static final String FILE_SUFFIX = ".dat";
+  private static final String POSITION_SUFFIX = ".pos";
+  private static final String CORRUPT_SUFFIX = ".corrupt";
+
+  private final File dir;
+  private final long maxBytes;
+  private final AtomicLong sequence = new AtomicLong(0);
+  private final AtomicLong pendingBytes = new AtomicLong(0);
+  private final LongAdder spilledCount = new LongAdder();
+
+  private DataOutputStream writer;
+  private File writingFile;
+  private boolean pending;
+
+  /** 溢写消息回放回调 */
+  @FunctionalInterface
+  public interface SpillConsumer {
+
+    /**
+     * 消费一条消息
+     *
+     * @return false 表示未能处理，回放停止，该消息保留到下次回放
+     */
+    boolean accept(String topic, int qos, byte[] payload);
+  }
+
+  public MqttSpillStore(File dir, long maxBytes) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+    if (!dir.exists() && !dir.mkdirs()) {
+      log.warn("[MQTT_SPILL] 创建溢写目录失败: {}", dir.getAbsolutePath());
+    }
+    // 上次未回放完的文件
+    File[] left = listSpillFiles();
+    for (File file : left) {
+      pendingBytes.addAndGet(file.length() - readPosition(file));
+      sequence.set(Math.max(sequence.get(), parseSequence(file)));
+    }
+    pending = left.length > 0;
+    if (pending) {
+      log.info("[MQTT_SPILL] 发现待回放溢写文件: dir={}, files={}", dir.getAbsolutePath(), left.length);
+    }
+  }
+
+  /** 是否存在待回放数据，存在时新消息也应写入磁盘以保证顺序 */
+  public synchronized boolean hasPending() {
+    return pending;
+  }
+
+  /**
+   * 追加一条消息
+   *
+   * @return false 表示超过磁盘上限或写入失败
+   */
+  public synchronized boolean append(String topic, int qos, byte[] payload) {
+    int recordSize = topic.length() * 3 + payload.length + 10;
+    if (pendingBytes.get() + recordSize > maxBytes) {
+      return false;
+    }
+    try {
+      if (writer == null) {
+        writingFile = new File(dir, FILE_PREFIX + sequence.incrementAndGet() + FILE_SUFFIX);
+        writer =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(writingFile, true)));
+      }
+      int before = writer.size();
+      writer.writeUTF(topic);
+      writer.writeByte(qos);
+      writer.writeInt(payload.length);
+      writer.write(payload);
+      pendingBytes.addAndGet(writer.size() - before);
+      spilledCount.increment();
+      pending = true;
+      return true;
+    } catch (IOException e) {
+      log.error("[MQTT_SPILL] 写入溢写文件失败: {}", writingFile, e);
+      closeWriter();
+      return false;
+    }
+  }
+
+  /**
+   * 按写入顺序回放溢写消息，回放期间新写入的消息也会在本次回放中处理，消费失败时停止
+   *
+   * @return 成功消费的条数
+   */
+  public long drain(SpillConsumer consumer) {
+    long count = 0;
+    while (true) {
+      File file = nextFileToDrain();
+      if (file == null) {
+        return count;
+      }
+      long length = file.length();
+      long start = readPosition(file);
+      Replay replay = replay(file, start, consumer);
+      count += replay.count;
+      pendingBytes.addAndGet(-(replay.position - start));
+      if (!replay.completed) {
+        // 未消费完，记录位置后停止，剩余消息留待下次回放
+        writePosition(file, replay.position);
+        return count;
+      }
+      pendingBytes.addAndGet(-(length - replay.position));
+      deletePosition(file);
+      if (file.exists() && !file.delete()) {
+        log.warn("[MQTT_SPILL] 删除已回放文件失败: {}", file);
+      }
+    }
+  }
+
+  /** 取下一个待回放文件，没有时清除pending标记 */
+  private synchronized File nextFileToDrain() {
+    File[] files = listSpillFiles();
+    if (files.length == 0) {
+      pending = false;
+      pendingBytes.set(0);
+      return null;
+    }
+    File oldest = files[0];
+    if (writingFile != null && oldest.equals(writingFile)) {
+      // 正在写入的文件封口，后续写入新文件
+      closeWriter();
+    }
+    return oldest;
+  }
+
+  /** 从指定位置回放单个文件，position 为第一条未消费消息的位置 */
+  private Replay replay(File file, long start, SpillConsumer consumer) {
+    Replay replay = new Replay(start);
+    try (CountingInputStream counting =
+            new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+        DataInputStream in = new DataInputStream(counting)) {
+      in.skipNBytes(start);
+      while (true) {
+        String topic;
+        try {
+          topic = in.readUTF();
+        } catch (EOFException eof) {
+          replay.completed = true;
+          return replay;
+        }
+        int qos = in.readByte();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        if (!consumer.accept(topic, qos, payload)) {
+          return replay;
+        }
+        replay.count++;
+        replay.position = counting.position;
+      }
+    } catch (EOFException e) {
+      // 进程中断时写了一半的记录
+      log.warn("[MQTT_SPILL] 溢写文件尾部不完整，已回放{}条: {}", replay.count, file);
+      replay.completed = true;
+    } catch (IOException e) {
+      // 无法读取的文件移走保留，避免阻塞后续回放
+      log.error("[MQTT_SPILL] 读取溢写文件失败，已移至{}: {}", CORRUPT_SUFFIX, file, e);
+      if (!file.renameTo(new File(file.getPath() + CORRUPT_SUFFIX))) {
+        log.warn("[MQTT_SPILL] 移动损坏文件失败: {}", file);
+      }
+      replay.completed = true;
+    }
+    return replay;
+  }
+
+  private static long readPosition(File file) {
+    File pos = positionFile(file);
+    if (!pos.exists()) {
+      return 0;
+    }
+    try {
+      long position = Long.parseLong(Files.readString(pos.toPath(), StandardCharsets.UTF_8).trim());
+      return Math.max(0, Math.min(position, file.length()));
+    } catch (IOException | NumberFormatException e) {
+      log.warn("[MQTT_SPILL] 读取回放位置失败，从头回放: {}", pos, e);
+      return 0;
+    }
+  }
+
+  private static void writePosition(File file, long position) {
+    try {
+      Files.writeString(positionFile(file).toPath(), String.valueOf(position));
+    } catch (IOException e) {
+      log.warn("[MQTT_SPILL] 记录回放位置失败，重启后可能重复回放: {}", file, e);
+    }
+  }
+
+  private static void deletePosition(File file) {
+    File pos = positionFile(file);
+    if (pos.exists() && !pos.delete()) {
+      log.warn("[MQTT_SPILL] 删除回放位置文件失败: {}", pos);
+    }
+  }
+
+  private static File positionFile(File file) {
+    return new File(file.getPath() + POSITION_SUFFIX);
+  }
+
+  private File[] listSpillFiles() {
+    File[] files =
+        dir.listFiles((d, n) -> n.startsWith(FILE_PREFIX) && n.endsWith(FILE_SUFFIX));
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files, Comparator.comparingLong(MqttSpillStore::parseSequence));
+    return files;
+  }
+
+  private static long parseSequence(File file) {
+    String n = file.getName();
+    try {
+      return Long.parseLong(n.substring(FILE_PREFIX.length(), n.length() - FILE_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private void closeWriter() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        log.warn("[MQTT_SPILL] 关闭溢写文件失败: {}", writingFile, e);
+      }
+    }
+    writer = null;
+    writingFile = null;
+  }
+
+  /** 关闭存储，未回放文件保留到下次启动 */
+  public synchronized void close() {
+    closeWriter();
+  }
+
+  public long getSpilledCount() {
+    return spilledCount.sum();
+  }
+
+  public long getPendingBytes() {
+    return Math.max(0, pendingBytes.get());
+  }
+
+  /** 单个文件的回放进度 */
+  private static final class Replay {
+
+    private long position;
+    private long count;
+    private boolean completed;
+
+    private Replay(long position) {
+      this.position = position;
+    }
+  }
+
+  /** 记录已读取字节数，用于定位第一条未消费的消息 */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private long position;
+
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        position++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      position += skipped;
+      return skipped;
+    }
+  }
+}
@@ -119,12 +119,15 @@ public class MQTTProductConfig {
   /** 最大在途消息数 */
   @Builder.Default private int maxInflightMessages = 10;
 
-  /** 消息缓冲区大小 */
+  /** 消息缓冲区大小（入站队列容量） */
   @Builder.Default private int messageBufferSize = 1000;
 
-  /** 线程池大小 */
+  /** 线程池大小（入站队列并发通道数） */
   @Builder.Default private int threadPoolSize = 4;
 
+  /** 入站队列过载策略：BLOCK / DROP_QOS0 / SPILL_TO_DISK，为空时使用全局配置 */
+  private String overloadPolicy;
+
   // 监控配置
   /** 是否启用指标统计 */
   @Builder.Default private boolean metricsEnabled = true;
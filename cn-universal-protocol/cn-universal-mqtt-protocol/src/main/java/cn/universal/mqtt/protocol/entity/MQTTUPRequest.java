@@ -80,6 +80,9 @@ public class MQTTUPRequest extends BaseUPRequest {
 
   private MqttConstant.TopicCategory topicCategory;
 
+  /** payload 解码类型（HEX/STRING），HEX 报文按原始字节走二进制解码 */
+  private String decoderType;
+
   /** 编解码上下文 */
   @Builder.Default private Map<String, Object> codecContext = new ConcurrentHashMap<>();
 
@@ -12,9 +12,12 @@
 
 package cn.universal.mqtt.protocol.metrics;
 
+import cn.universal.mqtt.protocol.dispatch.MqttDispatchStats;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -81,6 +84,9 @@ public class MqttMetricsMananer {
   // 错误类型统计
   private final Map<String, AtomicLong> errorTypeCounts = new ConcurrentHashMap<>();
 
+  // 消息分发通道
+  private final Map<String, Supplier<MqttDispatchStats>> dispatchers = new ConcurrentHashMap<>();
+
   /** 基础消息计数 */
   public void incrementMessageCount() {
     totalMessageCount.incrementAndGet();
@@ -254,6 +260,21 @@ public class MqttMetricsMananer {
     errorTypeCounts.computeIfAbsent(errorType, k -> new AtomicLong(0)).incrementAndGet();
   }
 
+  /** 分发通道指标 */
+  public void registerDispatcher(String name, Supplier<MqttDispatchStats> statsSupplier) {
+    dispatchers.put(name, statsSupplier);
+  }
+
+  public void unregisterDispatcher(String name) {
+    dispatchers.remove(name);
+  }
+
+  public Map<String, MqttDispatchStats> getDispatchStats() {
+    Map<String, MqttDispatchStats> stats = new LinkedHashMap<>();
+    dispatchers.forEach((name, supplier) -> stats.put(name, supplier.get()));
+    return stats;
+  }
+
   /** 获取指标快照 */
   public MqttMetricsSnapshot getSnapshot() {
     return MqttMetricsSnapshot.builder()
@@ -375,6 +396,32 @@ public class MqttMetricsMananer {
     stats.append("  正常处理(10-100ms): ").append(normalProcessingCount.get()).append("\n");
     stats.append("  慢速处理(>100ms): ").append(slowProcessingCount.get()).append("\n");
 
+    // 分发通道统计
+    Map<String, MqttDispatchStats> dispatchStats = getDispatchStats();
+    if (!dispatchStats.isEmpty()) {
+      stats.append("分发通道统计:\n");
+      for (MqttDispatchStats ds : dispatchStats.values()) {
+        stats
+            .append("  ")
+            .append(ds.getName())
+            .append(": 积压=")
+            .append(ds.getQueuedCount())
+            .append(", 入队=")
+            .append(ds.getSubmittedCount())
+            .append(", 完成=")
+            .append(ds.getCompletedCount())
+            .append(", 丢弃=")
+            .append(ds.getDroppedCount())
+            .append(", 阻塞=")
+            .append(ds.getBlockedCount())
+            .append(", 平均等待=")
+            .append(String.format("%.2f", ds.getAverageWaitTime()))
+            .append("ms, 最大等待=")
+            .append(String.format("%.2f", ds.getMaxWaitTime()))
+            .append("ms\n");
+      }
+    }
+
     return stats.toString();
   }
 }
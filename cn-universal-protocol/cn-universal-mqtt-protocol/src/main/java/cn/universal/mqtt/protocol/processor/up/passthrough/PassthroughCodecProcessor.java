@@ -17,6 +17,7 @@ import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import cn.universal.common.utils.PayloadCodecUtils.CodecType;
 import cn.universal.dm.device.service.AbstratIoTService;
 import cn.universal.dm.device.service.impl.IoTDeviceShadowService;
 import cn.universal.mqtt.protocol.config.MqttConstant;
@@ -27,6 +28,7 @@ import cn.universal.mqtt.protocol.topic.MQTTTopicManager;
 import cn.universal.persistence.base.BaseUPRequest;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.entity.IoTProduct;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -126,8 +128,7 @@ public class PassthroughCodecProcessor extends AbstratIoTService implements Mqtt
       codecWithShadow(request, ioTProduct);
       log.debug("[{}] 尝试产品编解码器解码 - 产品: {}", getName(), productKey);
       // 调用产品编解码器
-      List<MQTTUPRequest> decodedList =
-          decode(productKey, payload, request.getCodecContext(), MQTTUPRequest.class);
+      List<MQTTUPRequest> decodedList = decodePayload(request, productKey, payload);
 
       if (CollUtil.isNotEmpty(decodedList)) {
         log.debug("[{}] 产品编解码器解码成功，解码数量: {}", getName(), decodedList.size());
@@ -162,6 +163,21 @@ public class PassthroughCodecProcessor extends AbstratIoTService implements Mqtt
     }
   }
 
+  /**
+   * HEX 报文直接以原始字节二进制解码，其余按字符串解码
+   *
+   * <p>编解码未实现 decodeBinary 时内部转为十六进制字符串，与字符串解码结果一致
+   */
+  private List<MQTTUPRequest> decodePayload(
+      MQTTUPRequest request, String productKey, String payload) {
+    byte[] payloadRaw = request.getPayloadRaw();
+    if (payloadRaw != null && CodecType.HEX.name().equals(request.getDecoderType())) {
+      return decodeBinary(
+          productKey, ByteBuffer.wrap(payloadRaw), request.getCodecContext(), MQTTUPRequest.class);
+    }
+    return decode(productKey, payload, request.getCodecContext(), MQTTUPRequest.class);
+  }
+
   /** 编解码是否带影子 */
   private void codecWithShadow(MQTTUPRequest request, IoTProduct ioTProduct) {
     if (StringUtils.isNotEmpty(ioTProduct.getConfiguration())) {
@@ -18,6 +18,8 @@ import cn.universal.common.constant.IoTConstant;
 import cn.universal.common.utils.PayloadCodecUtils;
 import cn.universal.dm.device.service.impl.IoTProductDeviceService;
 import cn.universal.dm.device.service.push.MQTTPushService;
+import cn.universal.mqtt.protocol.dispatch.MqttLaneDispatcher;
+import cn.universal.mqtt.protocol.dispatch.MqttOverloadPolicy;
 import cn.universal.mqtt.protocol.entity.MQTTProductConfig;
 import cn.universal.mqtt.protocol.entity.MQTTUPRequest;
 import cn.universal.mqtt.protocol.metrics.MqttMetricsMananer;
@@ -113,10 +115,28 @@ public class SysMQTTManager
   @Value("${mqtt.cfg.defaultQos:1}")
   private int defaultQos;
 
+  // === 消息分发通道配置 ===
+  /** 通道数，0表示取CPU核数 */
+  @Value("${mqtt.cfg.dispatch.lanes:0}")
+  private int dispatchLanes;
+
+  /** 单通道容量 */
+  @Value("${mqtt.cfg.dispatch.laneCapacity:2000}")
+  private int dispatchLaneCapacity;
+
+  /** 过载策略：BLOCK / DROP_QOS0 */
+  @Value("${mqtt.cfg.dispatch.overloadPolicy:BLOCK}")
+  private String dispatchOverloadPolicy;
+
+  /** 阻塞告警间隔(ms) */
+  @Value("${mqtt.cfg.dispatch.blockWarnMillis:1000}")
+  private long dispatchBlockWarnMillis;
+
   // === 运行时状态 ===
   private MqttAsyncClient systemMqttClient;
   private MQTTProductConfig systemMqttConfig;
   private volatile boolean initialized = false;
+  private volatile MqttLaneDispatcher dispatcher;
 
   /** 系统MQTT回调处理器 */
   private class SystemMqttCallbackHandler implements MqttCallback {
@@ -130,28 +150,24 @@ public class SysMQTTManager
     @Override
     public void messageArrived(String topic, MqttMessage message) throws Exception {
       try {
-        MDC.put(IoTConstant.TRACE_ID, IdUtil.objectId());
-        // 解析产品Key
+        // 回调线程只做主题解析，编解码和处理链交给设备有序通道
         String productKey = mqttTopicManager.extractProductKeyFromTopic(topic);
-        if (productKey != null) {
-          // 根据产品配置获取解码类型并解码 payload
-          String decoderType = iotProductDeviceService.getProductDecoderType(productKey);
-          String payload = PayloadCodecUtils.decode(decoderType, message.getPayload());
-
-          log.info("[MQTT] 收到消息 - 主题: {}, decoderType: {}, 消息: {}", topic, decoderType, payload);
-          // 构建UP请求并处理
-          MQTTUPRequest request = buildMqttUPRequest(topic, payload, productKey);
-          processorChain.process(request);
-          metricsCollector.incrementActiveClientCount();
-        } else {
+        if (productKey == null) {
           log.warn("[MQTT] 无法从主题中提取产品Key: {}", topic);
+          return;
+        }
+        String deviceId = mqttTopicManager.extractDeviceIdFromTopic(topic);
+        boolean accepted =
+            dispatcher.dispatch(
+                productKey + ":" + deviceId,
+                message.getQos(),
+                () -> handleMessage(topic, message.getPayload(), productKey, deviceId));
+        if (!accepted) {
+          log.warn("[MQTT] 分发通道已满，丢弃消息 - 主题: {}, qos: {}", topic, message.getQos());
         }
-
       } catch (Exception e) {
-        log.error("[MQTT] 消息处理异常 - 主题: {}, 异常: ", topic, e);
+        log.error("[MQTT] 消息分发异常 - 主题: {}, 异常: ", topic, e);
         metricsCollector.incrementErrorCount();
-      } finally {
-        MDC.clear();
       }
     }
 
@@ -161,6 +177,29 @@ public class SysMQTTManager
     }
   }
 
+  /** 在分发通道上处理单条消息 */
+  private void handleMessage(String topic, byte[] payloadRaw, String productKey, String deviceId) {
+    try {
+      MDC.put(IoTConstant.TRACE_ID, IdUtil.objectId());
+      // 根据产品配置获取解码类型并解码 payload
+      String decoderType = iotProductDeviceService.getProductDecoderType(productKey);
+      String payload = PayloadCodecUtils.decode(decoderType, payloadRaw);
+
+      log.info("[MQTT] 收到消息 - 主题: {}, decoderType: {}, 消息: {}", topic, decoderType, payload);
+      // 构建UP请求并处理
+      MQTTUPRequest request = buildMqttUPRequest(topic, payload, productKey, deviceId);
+      request.setPayloadRaw(payloadRaw);
+      request.setDecoderType(decoderType);
+      processorChain.process(request);
+      metricsCollector.incrementActiveClientCount();
+    } catch (Exception e) {
+      log.error("[MQTT] 消息处理异常 - 主题: {}, 异常: ", topic, e);
+      metricsCollector.incrementErrorCount();
+    } finally {
+      MDC.clear();
+    }
+  }
+
   /** 初始化系统MQTT */
   public void initialize() {
     // 验证配置是否正确注入
@@ -177,6 +216,9 @@ public class SysMQTTManager
       // 构建配置
       buildSystemMqttConfig();
 
+      // 启动消息分发通道（需先于客户端回调就绪）
+      initializeDispatcher();
+
       // 启动客户端（异步连接，通过回调处理后续操作）
       initializeSystemMqttClient();
 
@@ -190,6 +232,22 @@ public class SysMQTTManager
     }
   }
 
+  /** 初始化消息分发通道 */
+  private void initializeDispatcher() {
+    if (dispatcher != null) {
+      return;
+    }
+    MqttOverloadPolicy policy = MqttOverloadPolicy.of(dispatchOverloadPolicy);
+    if (policy == MqttOverloadPolicy.SPILL_TO_DISK) {
+      log.warn("[MQTT] 系统MQTT不支持溢写磁盘策略，改用BLOCK");
+      policy = MqttOverloadPolicy.BLOCK;
+    }
+    dispatcher =
+        new MqttLaneDispatcher(
+            "sys-mqtt", dispatchLanes, dispatchLaneCapacity, policy, dispatchBlockWarnMillis);
+    metricsCollector.registerDispatcher(dispatcher.getName(), dispatcher::getStats);
+  }
+
   /** 构建系统MQTT配置 */
   private void buildSystemMqttConfig() {
     systemMqttConfig =
@@ -484,17 +542,23 @@ public class SysMQTTManager
         log.error("[MQTT] 关闭系统MQTT客户端异常: ", e);
       }
     }
+    if (dispatcher != null) {
+      metricsCollector.unregisterDispatcher(dispatcher.getName());
+      dispatcher.shutdown(5000);
+      dispatcher = null;
+    }
   }
 
   /** 构建MQTT UP请求 */
-  private MQTTUPRequest buildMqttUPRequest(String topic, String payload, String productKey) {
+  private MQTTUPRequest buildMqttUPRequest(
+      String topic, String payload, String productKey, String deviceId) {
     MQTTUPRequest request =
         MQTTUPRequest.builder()
             .upTopic(topic)
             .productKey(productKey)
             .messageId(IdUtil.simpleUUID())
             .isSysMQTTBroker(true)
-            .deviceId(mqttTopicManager.extractDeviceIdFromTopic(topic))
+            .deviceId(deviceId)
             .build();
     request.setPayload(payload);
     convertProductKey.add(productKey);
@@ -73,6 +73,9 @@ public class ThirdMQTTConfigParser {
               .ssl(
                   getBooleanValue(
                       configMap, "ssl", getBooleanValue(configMap, "sslEnabled", false)))
+              .threadPoolSize(getIntValue(configMap, "threadPoolSize", 4))
+              .messageBufferSize(getIntValue(configMap, "messageBufferSize", 1000))
+              .overloadPolicy(getStringValue(configMap, "overloadPolicy", null))
               .enabled(network.getState())
               .subscribeTopics(parseSubscribeTopics(networkUnionId, configMap));
       if (setTimestamps) {
@@ -0,0 +1,166 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.third;
+
+import cn.universal.mqtt.protocol.dispatch.MqttDispatchStats;
+import cn.universal.mqtt.protocol.dispatch.MqttLaneDispatcher;
+import cn.universal.mqtt.protocol.dispatch.MqttOverloadPolicy;
+import cn.universal.mqtt.protocol.dispatch.MqttSpillStore;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 第三方MQTT单网络入站队列
+ *
+ * <p>每个networkUnionId一个有界分发器，通道数即该网络的并发上限。队列满时按过载策略阻塞Paho线程、丢弃QoS0或溢写磁盘。
+ *
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+@Slf4j(topic = "mqtt")
+public class ThirdMQTTIngestion {
+
+  /** 单条消息处理回调 */
+  @FunctionalInterface
+  public interface MessageHandler {
+
+    void handle(String topic, int qos, byte[] payload);
+  }
+
+  private final String networkUnionId;
+  private final MqttLaneDispatcher dispatcher;
+  private final MqttSpillStore spillStore;
+  private final MessageHandler handler;
+  private final AtomicBoolean draining = new AtomicBoolean(false);
+
+  public ThirdMQTTIngestion(
+      String networkUnionId,
+      int concurrency,
+      int queueCapacity,
+      MqttOverloadPolicy policy,
+      long blockWarnMillis,
+      String spillDir,
+      long spillMaxBytes,
+      MessageHandler handler) {
+    this.networkUnionId = networkUnionId;
+    this.handler = handler;
+    int lanes = Math.max(1, concurrency);
+    this.dispatcher =
+        new MqttLaneDispatcher(
+            "third-mqtt-" + networkUnionId,
+            lanes,
+            Math.max(1, queueCapacity / lanes),
+            policy,
+            blockWarnMillis,
+            true);
+    this.spillStore =
+        policy == MqttOverloadPolicy.SPILL_TO_DISK
+            ? new MqttSpillStore(new File(spillDir, networkUnionId), spillMaxBytes)
+            : null;
+  }
+
+  /**
+   * 提交消息
+   *
+   * @param shardKey 分片键，同一设备的消息保持顺序，为空时按主题分片
+   * @return false 表示消息被丢弃
+   */
+  public boolean submit(String shardKey, String topic, int qos, byte[] payload) {
+    if (spillStore != null && spillStore.hasPending()) {
+      // 磁盘中还有未回放消息，继续溢写以保证顺序
+      return spill(topic, qos, payload);
+    }
+    boolean accepted =
+        dispatcher.dispatch(
+            shardKeyOrTopic(shardKey, topic), qos, () -> handler.handle(topic, qos, payload));
+    if (!accepted && spillStore != null) {
+      return spill(topic, qos, payload);
+    }
+    return accepted;
+  }
+
+  private boolean spill(String topic, int qos, byte[] payload) {
+    if (spillStore.append(topic, qos, payload)) {
+      return true;
+    }
+    log.warn("[THIRD_MQTT] 溢写已达上限，丢弃消息: networkUnionId={}, topic={}", networkUnionId, topic);
+    dispatcher.markDropped();
+    return false;
+  }
+
+  /** 队列水位降到一半以下时回放溢写消息，由调度线程周期调用 */
+  public boolean needDrain() {
+    return spillStore != null
+        && spillStore.hasPending()
+        && !draining.get()
+        && dispatcher.getQueuedCount() < dispatcher.getTotalCapacity() / 2;
+  }
+
+  /** 主题中解析不出设备时按主题分片，避免都落到同一个通道 */
+  private static String shardKeyOrTopic(String shardKey, String topic) {
+    return shardKey != null ? shardKey : topic;
+  }
+
+  /** 回放溢写消息，回放线程阻塞入队不受过载策略影响，分发失败时停止并保留剩余消息 */
+  public void drainSpill(ShardKeyResolver resolver) {
+    if (spillStore == null || !draining.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long count =
+          spillStore.drain(
+              (topic, qos, payload) ->
+                  dispatcher.dispatchBlocking(
+                      shardKeyOrTopic(resolver.resolve(topic), topic),
+                      () -> handler.handle(topic, qos, payload)));
+      if (count > 0) {
+        log.info("[THIRD_MQTT] 溢写消息回放完成: networkUnionId={}, count={}", networkUnionId, count);
+      }
+    } finally {
+      draining.set(false);
+    }
+  }
+
+  /** 回放时根据主题重新计算分片键 */
+  @FunctionalInterface
+  public interface ShardKeyResolver {
+
+    String resolve(String topic);
+  }
+
+  public String getName() {
+    return dispatcher.getName();
+  }
+
+  public MqttLaneDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  public MqttDispatchStats getStats() {
+    MqttDispatchStats stats = dispatcher.getStats();
+    if (spillStore != null) {
+      stats.setSpilledCount(spillStore.getSpilledCount());
+      stats.setSpillPendingBytes(spillStore.getPendingBytes());
+    }
+    return stats;
+  }
+
+  /** 关闭入站队列，已入队消息处理完后退出，未回放的溢写文件保留到下次启动 */
+  public void shutdown(long timeoutMillis) {
+    dispatcher.shutdown(timeoutMillis);
+    if (spillStore != null) {
+      spillStore.close();
+    }
+  }
+}
@@ -18,6 +18,7 @@ import cn.universal.common.config.InstanceIdProvider;
 import cn.universal.common.utils.PayloadCodecUtils;
 import cn.universal.dm.device.service.impl.IoTProductDeviceService;
 import cn.universal.mqtt.protocol.config.MqttConstant;
+import cn.universal.mqtt.protocol.dispatch.MqttOverloadPolicy;
 import cn.universal.mqtt.protocol.entity.MQTTProductConfig;
 import cn.universal.mqtt.protocol.entity.MQTTPublishMessage;
 import cn.universal.mqtt.protocol.entity.MQTTUPRequest;
@@ -106,6 +107,23 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
     @Value("${mqtt.cfg.third.maxInflight:500}")
     private int maxInflight;
 
+    // === 入站队列配置（网络配置中的threadPoolSize/messageBufferSize/overloadPolicy优先） ===
+    /** 默认过载策略：BLOCK / DROP_QOS0 / SPILL_TO_DISK */
+    @Value("${mqtt.cfg.third.dispatch.overloadPolicy:BLOCK}")
+    private String defaultOverloadPolicy;
+
+    /** 阻塞告警间隔(ms) */
+    @Value("${mqtt.cfg.third.dispatch.blockWarnMillis:1000}")
+    private long blockWarnMillis;
+
+    /** 溢写目录 */
+    @Value("${mqtt.cfg.third.dispatch.spillDir:./data/mqtt-spill}")
+    private String spillDir;
+
+    /** 单网络溢写上限(字节) */
+    @Value("${mqtt.cfg.third.dispatch.spillMaxBytes:268435456}")
+    private long spillMaxBytes;
+
     // === 客户端管理 ===
     private final Map<String, MqttAsyncClient> networkClients = new ConcurrentHashMap<>();
     private final Map<String, MQTTProductConfig> networkConfigs = new ConcurrentHashMap<>();
@@ -114,6 +132,9 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
     private final Map<String, Boolean> connectionStatus = new ConcurrentHashMap<>();
     private final Map<String, Long> lastConnectTime = new ConcurrentHashMap<>();
 
+    // === 入站队列：networkUnionId -> 有界分发器 ===
+    private final Map<String, ThirdMQTTIngestion> ingestions = new ConcurrentHashMap<>();
+
     // === 主题分类缓存：productKey -> topicCategory ===
     private final Map<String, MqttConstant.TopicCategory> productKeyToTopicCategoryCache =
             new ConcurrentHashMap<>();
@@ -188,7 +209,27 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
         @Override
         public void messageArrived(String topic, MqttMessage message) throws Exception {
             try {
-                byte[] payloadRaw = message.getPayload();
+                // 回调线程只负责入队，同一设备的消息进入同一通道保持顺序
+                ThirdMQTTIngestion ingestion = getOrCreateIngestion(networkUnionId, mqttProductConfig);
+                String shardKey = mqttTopicManager.extractDeviceIdFromTopic(topic);
+                if (!ingestion.submit(shardKey, topic, message.getQos(), message.getPayload())) {
+                    log.warn(
+                            "[THIRD_MQTT] 入站队列已满，丢弃消息: networkUnionId={}, topic={}, qos={}",
+                            networkUnionId,
+                            topic,
+                            message.getQos());
+                }
+            } catch (Exception e) {
+                log.error("[THIRD_MQTT] 消息入队异常: 产品={}, 主题={}, 异常=", networkUnionId, topic, e);
+                metricsCollector.incrementErrorCount();
+            }
+        }
+
+        /**
+         * 在入站队列通道上处理单条消息
+         */
+        private void handleMessage(String topic, byte[] payloadRaw) {
+            try {
                 // 解析productKey：优先配置映射，缺失时按需加载配置，最终回退topic解析
                 String productKey = resolveProductKey(networkUnionId, topic);
                 // 同时解析主题分类以便后续处理器使用
@@ -225,12 +266,13 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
                 }
                 // 构建UP请求并处理
                 MQTTUPRequest request = buildMqttUPRequest(topic, payload, payloadRaw, productKey);
+                request.setDecoderType(decoderType);
                 if (topicCategory != null) {
                     request.setTopicCategory(topicCategory);
                     request.setContextValue("topicCategory", topicCategory);
                 }
                 // 通过处理链处理
-                executorService.submit(() -> processorChain.process(request));
+                processorChain.process(request);
                 metricsCollector.incrementActiveClientCount();
 
             } catch (Exception e) {
@@ -265,6 +307,62 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
         }
     }
 
+    /**
+     * 获取或创建网络的入站队列，跨重连复用
+     */
+    private ThirdMQTTIngestion getOrCreateIngestion(String networkUnionId, MQTTProductConfig config) {
+        return ingestions.computeIfAbsent(
+                networkUnionId,
+                id -> {
+                    MqttOverloadPolicy policy =
+                            MqttOverloadPolicy.of(
+                                    StrUtil.blankToDefault(config.getOverloadPolicy(), defaultOverloadPolicy));
+                    MqttCallbackHandler handler = new MqttCallbackHandler(id, config);
+                    ThirdMQTTIngestion ingestion =
+                            new ThirdMQTTIngestion(
+                                    id,
+                                    config.getThreadPoolSize(),
+                                    config.getMessageBufferSize(),
+                                    policy,
+                                    blockWarnMillis,
+                                    spillDir,
+                                    spillMaxBytes,
+                                    (topic, qos, payload) -> handler.handleMessage(topic, payload));
+                    metricsCollector.registerDispatcher(ingestion.getName(), ingestion::getStats);
+                    log.info(
+                            "[THIRD_MQTT] 入站队列创建: networkUnionId={}, concurrency={}, capacity={}, policy={}",
+                            id,
+                            config.getThreadPoolSize(),
+                            config.getMessageBufferSize(),
+                            policy);
+                    return ingestion;
+                });
+    }
+
+    /**
+     * 关闭网络的入站队列，同时清理订阅主题前缀树
+     */
+    private void shutdownIngestion(String networkUnionId) {
+        mqttTopicManager.evictNetworkTopicTrie(networkUnionId);
+        ThirdMQTTIngestion ingestion = ingestions.remove(networkUnionId);
+        if (ingestion != null) {
+            metricsCollector.unregisterDispatcher(ingestion.getName());
+            ingestion.shutdown(5000);
+        }
+    }
+
+    /**
+     * 回放溢写到磁盘的消息
+     */
+    private void drainSpilledMessages() {
+        for (ThirdMQTTIngestion ingestion : ingestions.values()) {
+            if (ingestion.needDrain()) {
+                startupExecutor.execute(
+                        () -> ingestion.drainSpill(mqttTopicManager::extractDeviceIdFromTopic));
+            }
+        }
+    }
+
     /**
      * 解析辅助方法：保证启动/重启阶段也能解析productKey
      */
@@ -275,6 +373,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
                 MQTTProductConfig loaded = configService.getConfig(networkUnionId);
                 if (loaded != null && loaded.isValid()) {
                     networkConfigs.put(networkUnionId, loaded);
+                    mqttTopicManager.evictNetworkTopicTrie(networkUnionId);
                 }
                 return loaded;
             } catch (Exception e) {
@@ -292,7 +391,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
         try {
             MQTTProductConfig cfg = ensureConfigLoaded(networkUnionId);
             if (cfg != null && cfg.getSubscribeTopics() != null) {
-                String pk = mqttTopicManager.extractProductKeyFromConfig(topic, cfg.getSubscribeTopics());
+                String pk = mqttTopicManager.extractProductKeyFromConfig(networkUnionId, topic, cfg.getSubscribeTopics());
                 if (StrUtil.isNotBlank(pk)) {
                     return pk;
                 }
@@ -313,7 +412,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
             MQTTProductConfig cfg = networkConfigs.get(networkUnionId);
             if (cfg != null && cfg.getSubscribeTopics() != null) {
                 MqttConstant.TopicCategory cat =
-                        mqttTopicManager.getTopicCategoryFromConfig(topic, cfg.getSubscribeTopics());
+                        mqttTopicManager.getTopicCategoryFromConfig(networkUnionId, topic, cfg.getSubscribeTopics());
                 if (cat != null) {
                     return cat;
                 }
@@ -332,6 +431,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
             // 从配置服务加载所有MQTT配置
             Map<String, MQTTProductConfig> allConfigs = configService.loadAllConfigs();
             networkConfigs.putAll(allConfigs);
+            allConfigs.keySet().forEach(mqttTopicManager::evictNetworkTopicTrie);
 
             // 建立 productKey -> topicCategory 缓存
             buildProductKeyTopicCategoryCache();
@@ -562,6 +662,17 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
                 30,
                 30,
                 TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        drainSpilledMessages();
+                    } catch (Exception e) {
+                        log.error("[THIRD_MQTT] 溢写回放调度异常: ", e);
+                    }
+                },
+                1,
+                1,
+                TimeUnit.SECONDS);
     }
 
     /**
@@ -648,6 +759,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
                                     latestConfig = allConfigs.get(unionId);
                                     if (latestConfig != null) {
                                         networkConfigs.put(unionId, latestConfig);
+                                        mqttTopicManager.evictNetworkTopicTrie(unionId);
                                     } else {
                                         log.error("[THIRD_MQTT] 重连时无法加载配置，停止重连: {}", unionId);
                                         reconnectRetryMap.remove(unionId);
@@ -722,6 +834,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
 
             // 5. 更新缓存配置（使用最新配置）
             networkConfigs.put(unionId, config);
+            mqttTopicManager.evictNetworkTopicTrie(unionId);
 
             // 6. 重建主题分类缓存（因为配置可能已更新）
             buildProductKeyTopicCategoryCache();
@@ -774,6 +887,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
             // 3. 清理所有状态
             connectionStatus.put(unionId, false);
             networkConfigs.remove(unionId);
+            mqttTopicManager.evictNetworkTopicTrie(unionId);
             reconnectRetryMap.remove(unionId);
             reconnectFutures.remove(unionId);
             lastConnectTime.remove(unionId);
@@ -790,6 +904,7 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
             networkClients.remove(unionId);
             connectionStatus.put(unionId, false);
             networkConfigs.remove(unionId);
+            mqttTopicManager.evictNetworkTopicTrie(unionId);
             reconnectRetryMap.remove(unionId);
             reconnectFutures.remove(unionId);
 
@@ -820,8 +935,9 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
     public boolean restartMqttClient(String unionId) {
         log.info("[THIRD_MQTT] 重启客户端: {}", unionId);
 
-        // 先停止客户端
+        // 先停止客户端，入站队列按新配置重建
         stopMqttClient(unionId);
+        shutdownIngestion(unionId);
 
         try {
             Thread.sleep(1000); // 等待片刻
@@ -987,8 +1103,12 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
             for (String unionId : new HashSet<>(networkClients.keySet())) {
                 stopMqttClient(unionId);
             }
+            for (String unionId : new HashSet<>(ingestions.keySet())) {
+                shutdownIngestion(unionId);
+            }
 
             // 清空配置和缓存
+            networkConfigs.keySet().forEach(mqttTopicManager::evictNetworkTopicTrie);
             networkConfigs.clear();
             productKeyToTopicCategoryCache.clear();
 
@@ -1094,6 +1214,11 @@ public class ThirdMQTTServerManager implements ApplicationListener<ApplicationRe
                 stopMqttClient(unionId);
             }
 
+            // 关闭入站队列，已入队消息处理完后退出
+            for (String unionId : new HashSet<>(ingestions.keySet())) {
+                shutdownIngestion(unionId);
+            }
+
             // 关闭系统MQTT
             sysMQTTManager.shutdown();
 
@@ -12,13 +12,6 @@
 
 package cn.universal.mqtt.protocol.topic;
 
-import static cn.universal.mqtt.protocol.config.MqttConstant.OTA_REPORT_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.OTA_UPDATE_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.PASSTHROUGH_DOWN_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.PASSTHROUGH_UP_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.THING_DOWN_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.THING_EVENT_UP_PATTERN;
-import static cn.universal.mqtt.protocol.config.MqttConstant.THING_PROPERTY_UP_PATTERN;
 import static cn.universal.mqtt.protocol.config.MqttConstant.TOPIC_OTA_PREFIX;
 import static cn.universal.mqtt.protocol.config.MqttConstant.TOPIC_THING_PREFIX;
 
@@ -62,6 +55,17 @@ public class MQTTTopicManager {
   // key: networkUnionId, value: Map<topicType, topicPattern>
   private final Map<String, Map<String, String>> thirdPartyTopicTypeMap = new ConcurrentHashMap<>();
 
+  // ========== 预编译主题前缀树 ===========
+  /** 内置标准主题，首层为动态前缀（$thing/$ota/...），按原正则顺序添加 */
+  private static final MQTTTopicTrie<MQTTTopicType> BUILTIN_TOPIC_TRIE = buildBuiltinTopicTrie();
+
+  /** 线程私有的匹配结果容器，匹配过程不分配对象 */
+  private static final ThreadLocal<MQTTTopicTrie.TopicMatch> TOPIC_MATCH =
+      ThreadLocal.withInitial(MQTTTopicTrie.TopicMatch::new);
+
+  /** 第三方MQTT订阅配置前缀树，key: networkUnionId，配置重新加载（列表对象变化）时重建 */
+  private final Map<String, NetworkTopicTrie> networkTopicTries = new ConcurrentHashMap<>();
+
   @Value("${mqtt.cfg.defaultTopics:}")
   private String topicConfigJson;
 
@@ -459,49 +463,45 @@ public class MQTTTopicManager {
   }
 
   public static MqttConstant.TopicCategory matchCategory(String topic) {
-    // 物模型
-    if (THING_PROPERTY_UP_PATTERN.matcher(topic).matches()
-        || THING_EVENT_UP_PATTERN.matcher(topic).matches()
-        || THING_DOWN_PATTERN.matcher(topic).matches()) {
-      return MqttConstant.TopicCategory.THING_MODEL;
-    }
-    // 透传
-    if (PASSTHROUGH_UP_PATTERN.matcher(topic).matches()
-        || PASSTHROUGH_DOWN_PATTERN.matcher(topic).matches()) {
-      return MqttConstant.TopicCategory.PASSTHROUGH;
+    MQTTTopicType type = matchBuiltinTopicType(topic, TOPIC_MATCH.get());
+    return type != null ? type.getCategory() : MqttConstant.TopicCategory.UNKNOWN;
+  }
+
+  private static MQTTTopicTrie<MQTTTopicType> buildBuiltinTopicTrie() {
+    // 顺序与原正则匹配顺序保持一致：$thing/down 优先识别为物模型下行
+    MQTTTopicTrie<MQTTTopicType> trie = new MQTTTopicTrie<>();
+    trie.add("+/up/property/+/+", MQTTTopicType.THING_PROPERTY_UP);
+    trie.add("+/up/event/+/+", MQTTTopicType.THING_EVENT_UP);
+    trie.add("+/down/+/+", MQTTTopicType.THING_DOWN);
+    trie.add("+/up/+/+", MQTTTopicType.PASSTHROUGH_UP);
+    trie.add("+/down/+/+", MQTTTopicType.PASSTHROUGH_DOWN);
+    trie.add("+/report/+/+", MQTTTopicType.OTA_REPORT);
+    trie.add("+/update/+/+", MQTTTopicType.OTA_UPDATE);
+    return trie;
+  }
+
+  /**
+   * 匹配内置标准主题，首层需为 $ 开头的动态前缀
+   *
+   * @return 主题类型，match 中保存层级位置；未匹配返回null
+   */
+  private static MQTTTopicType matchBuiltinTopicType(String topic, MQTTTopicTrie.TopicMatch match) {
+    if (topic == null || topic.length() < 2 || topic.charAt(0) != '$' || topic.charAt(1) == '/') {
+      return null;
     }
-    // 系统级
-    if (OTA_REPORT_PATTERN.matcher(topic).matches()
-        || OTA_UPDATE_PATTERN.matcher(topic).matches()) {
-      return MqttConstant.TopicCategory.SYSTEM_LEVEL;
+    if (!BUILTIN_TOPIC_TRIE.match(topic, match)) {
+      return null;
     }
-    return MqttConstant.TopicCategory.UNKNOWN;
+    return BUILTIN_TOPIC_TRIE.value(match.matchedEntry(0));
   }
 
-  /** 从主题中提取产品Key 支持标准物模型/透传/系统级Topic和历史格式，优先用正则表达式提取。 */
+  /** 从主题中提取产品Key 支持标准物模型/透传/系统级Topic和历史格式，优先用预编译前缀树提取。 */
   public String extractProductKeyFromTopic(String topic) {
     try {
-      java.util.regex.Matcher m;
-      if ((m = THING_PROPERTY_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = THING_EVENT_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = THING_DOWN_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = PASSTHROUGH_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = PASSTHROUGH_DOWN_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = OTA_REPORT_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
-      }
-      if ((m = OTA_UPDATE_PATTERN.matcher(topic)).matches()) {
-        return m.group(1);
+      MQTTTopicTrie.TopicMatch match = TOPIC_MATCH.get();
+      if (matchBuiltinTopicType(topic, match) != null) {
+        // 内置主题均为 前缀/.../productKey/deviceId
+        return match.level(match.getLevelCount() - 2);
       }
       // 历史兼容格式
       String[] parts = topic.split("/");
@@ -518,30 +518,12 @@ public class MQTTTopicManager {
     }
   }
 
-  /** 从主题中提取设备ID 支持标准物模型/透传/系统级Topic和历史格式，优先用正则表达式提取。 */
+  /** 从主题中提取设备ID 支持标准物模型/透传/系统级Topic和历史格式，优先用预编译前缀树提取。 */
   public String extractDeviceIdFromTopic(String topic) {
     try {
-      java.util.regex.Matcher m;
-      if ((m = THING_PROPERTY_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = THING_EVENT_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = THING_DOWN_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = PASSTHROUGH_UP_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = PASSTHROUGH_DOWN_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = OTA_REPORT_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
-      }
-      if ((m = OTA_UPDATE_PATTERN.matcher(topic)).matches()) {
-        return m.group(2);
+      MQTTTopicTrie.TopicMatch match = TOPIC_MATCH.get();
+      if (matchBuiltinTopicType(topic, match) != null) {
+        return match.level(match.getLevelCount() - 1);
       }
       // 历史兼容格式
       String[] parts = topic.split("/");
@@ -744,24 +726,44 @@ public class MQTTTopicManager {
    * @return 是否匹配
    */
   public boolean matchesTopic(String topic, String pattern) {
-    if (topic == null || pattern == null) {
-      return false;
+    return MQTTTopicTrie.matches(topic, pattern);
+  }
+
+  /**
+   * 获取网络订阅配置的预编译前缀树，配置列表对象变化时重建
+   *
+   * <p>每条入站消息都会调用，只比较列表对象，不逐项比较配置。配置加载、更新（包括原地修改列表或其中的配置）时
+   * 需调用 {@link #evictNetworkTopicTrie(String)} 失效
+   *
+   * @param networkUnionId 第三方MQTT唯一标识
+   * @param subscribeTopics 订阅主题配置列表
+   */
+  public MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> getNetworkTopicTrie(
+      String networkUnionId, List<MQTTProductConfig.MqttTopicConfig> subscribeTopics) {
+    NetworkTopicTrie cached = networkTopicTries.get(networkUnionId);
+    if (cached != null && cached.source() == subscribeTopics) {
+      return cached.trie();
     }
-    if (topic.equals(pattern)) {
-      return true;
+    MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> trie = new MQTTTopicTrie<>();
+    for (MQTTProductConfig.MqttTopicConfig topicConfig : subscribeTopics) {
+      if (!topicConfig.isEnabled() || StrUtil.isBlank(topicConfig.getTopic())) {
+        continue;
+      }
+      if (!trie.add(topicConfig.getTopic(), topicConfig)) {
+        log.warn(
+            "[MQTT_TOPIC] 非法订阅主题，已忽略: networkUnionId={}, topic={}",
+            networkUnionId,
+            topicConfig.getTopic());
+      }
     }
+    networkTopicTries.put(networkUnionId, new NetworkTopicTrie(subscribeTopics, trie));
+    log.info("[MQTT_TOPIC] 订阅主题前缀树构建完成: networkUnionId={}, 数量={}", networkUnionId, trie.size());
+    return trie;
+  }
 
-    // 将MQTT通配符转换为正则表达式
-    // + 匹配单个层级，转换为 [^/]+
-    // # 匹配多个层级，转换为 .*
-    String regex = pattern.replace("+", "[^/]+").replace("#", ".*").replace("$", "\\$"); // 转义 $ 符号
-
-    try {
-      return topic.matches(regex);
-    } catch (Exception e) {
-      log.warn("[MQTT_TOPIC] Topic匹配失败: topic={}, pattern={}", topic, pattern, e);
-      return false;
-    }
+  /** 配置加载、更新、删除或网络停止时失效前缀树，下次匹配时按当前配置重建 */
+  public void evictNetworkTopicTrie(String networkUnionId) {
+    networkTopicTries.remove(networkUnionId);
   }
 
   /**
@@ -769,6 +771,73 @@ public class MQTTTopicManager {
    *
    * <p>根据配置的主题映射关系，从实际topic中提取对应的productKey
    *
+   * @param networkUnionId 第三方MQTT唯一标识，用于复用预编译前缀树
+   * @param topic 实际接收到的topic
+   * @param subscribeTopics 订阅主题配置列表
+   * @return productKey，如果未找到返回null
+   */
+  public String extractProductKeyFromConfig(
+      String networkUnionId,
+      String topic,
+      List<MQTTProductConfig.MqttTopicConfig> subscribeTopics) {
+    if (StrUtil.isBlank(topic) || subscribeTopics == null || subscribeTopics.isEmpty()) {
+      return null;
+    }
+    MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> trie =
+        getNetworkTopicTrie(networkUnionId, subscribeTopics);
+    MQTTTopicTrie.TopicMatch match = TOPIC_MATCH.get();
+    if (!trie.match(topic, match)) {
+      return null;
+    }
+    // 按配置顺序取第一个能给出productKey的过滤器
+    for (int k = 0; k < match.getMatchedCount(); k++) {
+      int entry = match.matchedEntry(k);
+      MQTTProductConfig.MqttTopicConfig topicConfig = trie.value(entry);
+      if (StrUtil.isNotBlank(topicConfig.getProductKey())) {
+        return topicConfig.getProductKey();
+      }
+      String extractedKey = extractProductKeyFromMatch(trie, entry, match);
+      if (extractedKey != null) {
+        return extractedKey;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 从配置中获取主题分类（物模型/透传）
+   *
+   * @param networkUnionId 第三方MQTT唯一标识，用于复用预编译前缀树
+   * @param topic 实际接收到的MQTT主题
+   * @param subscribeTopics 订阅主题配置列表
+   * @return 主题分类：THING_MODEL（物模型）或 PASSTHROUGH（透传），如果未找到返回null
+   */
+  public MqttConstant.TopicCategory getTopicCategoryFromConfig(
+      String networkUnionId,
+      String topic,
+      List<MQTTProductConfig.MqttTopicConfig> subscribeTopics) {
+    if (StrUtil.isBlank(topic) || subscribeTopics == null || subscribeTopics.isEmpty()) {
+      return null;
+    }
+    MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> trie =
+        getNetworkTopicTrie(networkUnionId, subscribeTopics);
+    MQTTTopicTrie.TopicMatch match = TOPIC_MATCH.get();
+    if (!trie.match(topic, match)) {
+      return null;
+    }
+    // 第一个匹配的过滤器决定分类
+    MQTTProductConfig.MqttTopicConfig topicConfig = trie.value(match.matchedEntry(0));
+    if (topicConfig.getTopicCategory() != null) {
+      return topicConfig.getTopicCategory();
+    }
+    // 如果没有配置，尝试使用系统内置的匹配逻辑
+    MqttConstant.TopicCategory category = matchCategory(topic);
+    return category != MqttConstant.TopicCategory.UNKNOWN ? category : null;
+  }
+
+  /**
+   * 从第三方MQTT配置中提取productKey（无网络标识，逐条匹配，不使用前缀树）
+   *
    * @param topic 实际接收到的topic
    * @param subscribeTopics 订阅主题配置列表
    * @return productKey，如果未找到返回null
@@ -794,22 +863,12 @@ public class MQTTTopicManager {
       if (matchesTopic(topic, pattern)) {
         // 如果配置了productKey，直接返回
         if (StrUtil.isNotBlank(topicConfig.getProductKey())) {
-          log.debug(
-              "[MQTT_TOPIC] 从配置映射中找到productKey: topic={}, pattern={}, productKey={}",
-              topic,
-              pattern,
-              topicConfig.getProductKey());
           return topicConfig.getProductKey();
         }
 
         // 如果没有配置productKey，尝试从实际topic中自动提取
         String extractedKey = extractProductKeyFromTopicPattern(topic, pattern);
         if (StrUtil.isNotBlank(extractedKey)) {
-          log.debug(
-              "[MQTT_TOPIC] 从topic pattern自动提取productKey: topic={}, pattern={}, productKey={}",
-              topic,
-              pattern,
-              extractedKey);
           return extractedKey;
         }
       }
@@ -819,7 +878,7 @@ public class MQTTTopicManager {
   }
 
   /**
-   * 从配置中获取主题分类（物模型/透传）
+   * 从配置中获取主题分类（无网络标识，逐条匹配，不使用前缀树）
    *
    * @param topic 实际接收到的MQTT主题
    * @param subscribeTopics 订阅主题配置列表
@@ -846,11 +905,6 @@ public class MQTTTopicManager {
       if (matchesTopic(topic, pattern)) {
         // 如果配置了主题分类，直接返回
         if (topicConfig.getTopicCategory() != null) {
-          log.debug(
-              "[MQTT_TOPIC] 从配置映射中找到主题分类: topic={}, pattern={}, category={}",
-              topic,
-              pattern,
-              topicConfig.getTopicCategory());
           return topicConfig.getTopicCategory();
         }
         // 如果没有配置，尝试使用系统内置的匹配逻辑
@@ -865,6 +919,30 @@ public class MQTTTopicManager {
     return null;
   }
 
+  /**
+   * 从前缀树匹配结果中提取productKey：优先取 + 位置的合法值，其次取 # 之前的合法层级
+   *
+   * @return productKey，如果无法提取返回null
+   */
+  private String extractProductKeyFromMatch(
+      MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> trie,
+      int entry,
+      MQTTTopicTrie.TopicMatch match) {
+    String topic = match.getTopic();
+    for (int level : trie.plusLevels(entry)) {
+      if (isValidProductKey(topic, match.levelStart(level), match.levelEnd(level))) {
+        return match.level(level);
+      }
+    }
+    int hashLevel = trie.hashLevel(entry);
+    for (int level = 0; level < hashLevel && level < match.getLevelCount(); level++) {
+      if (isValidProductKey(topic, match.levelStart(level), match.levelEnd(level))) {
+        return match.level(level);
+      }
+    }
+    return null;
+  }
+
   /**
    * 从topic pattern中提取productKey 使用新的匹配模式：先验证topic是否匹配pattern，然后从匹配的位置提取productKey
    *
@@ -940,10 +1018,26 @@ public class MQTTTopicManager {
     if (StrUtil.isBlank(productKey)) {
       return false;
     }
-    // 基本格式检查：长度合理，不包含特殊字符
-    return productKey.length() >= 4
-        && productKey.length() <= 64
-        && productKey.matches("^[a-zA-Z0-9_-]+$");
+    return isValidProductKey(productKey, 0, productKey.length());
+  }
+
+  /** 基本格式检查：长度4~64，仅包含字母、数字、下划线和中划线 */
+  private static boolean isValidProductKey(String s, int start, int end) {
+    int len = end - start;
+    if (len < 4 || len > 64) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if (!((c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || c == '_'
+          || c == '-')) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -1049,6 +1143,11 @@ public class MQTTTopicManager {
     return result;
   }
 
+  /** 网络订阅前缀树缓存项，source 为构建时的配置列表 */
+  private record NetworkTopicTrie(
+      List<MQTTProductConfig.MqttTopicConfig> source,
+      MQTTTopicTrie<MQTTProductConfig.MqttTopicConfig> trie) {}
+
   // 辅助方法
   private String getStringValue(Map<String, Object> map, String key, String defaultValue) {
     Object value = map.get(key);
@@ -0,0 +1,370 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.mqtt.protocol.topic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MQTT主题过滤器前缀树
+ *
+ * <p>按层级预编译订阅过滤器，支持 {@code +}（单层，非空）和 {@code #}（多层，仅允许在末尾）通配符。 一次遍历主题层级即可得到所有匹配的过滤器，
+ * 匹配过程只读取 {@link TopicMatch} 中预分配的数组，不产生临时对象。
+ *
+ * <p>构建完成后只读，可在多线程间共享；{@link TopicMatch} 为线程私有的可复用结果容器。
+ *
+ * @param <T> 过滤器附带的数据
+ * @version 1.0 @Author gitee.com/NexIoT
+ * @since 2025/1/20
+ */
+public class MQTTTopicTrie<T> {
+
+  private final Node root = new Node();
+  private final List<Entry<T>> entries = new ArrayList<>();
+
+  /**
+   * 添加过滤器，添加顺序即匹配优先级
+   *
+   * @return false 表示过滤器非法（# 不在末尾）被忽略
+   */
+  public boolean add(String filter, T value) {
+    if (filter == null || filter.isEmpty()) {
+      return false;
+    }
+    String[] levels = filter.split("/", -1);
+    int hashLevel = -1;
+    int[] plusLevels = new int[levels.length];
+    int plusCount = 0;
+    for (int i = 0; i < levels.length; i++) {
+      if ("#".equals(levels[i])) {
+        if (i != levels.length - 1) {
+          return false;
+        }
+        hashLevel = i;
+      } else if ("+".equals(levels[i])) {
+        plusLevels[plusCount++] = i;
+      }
+    }
+    int index = entries.size();
+    entries.add(new Entry<>(filter, value, Arrays.copyOf(plusLevels, plusCount), hashLevel));
+
+    Node node = root;
+    for (String level : levels) {
+      if ("#".equals(level)) {
+        if (node.hash == null) {
+          node.hash = new Node();
+        }
+        node = node.hash;
+      } else if ("+".equals(level)) {
+        if (node.plus == null) {
+          node.plus = new Node();
+        }
+        node = node.plus;
+      } else {
+        node = node.childOrCreate(level);
+      }
+    }
+    node.addTerminal(index);
+    return true;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public T value(int entryIndex) {
+    return entries.get(entryIndex).value;
+  }
+
+  public String filter(int entryIndex) {
+    return entries.get(entryIndex).filter;
+  }
+
+  /** 过滤器中 + 所在的层级下标 */
+  public int[] plusLevels(int entryIndex) {
+    return entries.get(entryIndex).plusLevels;
+  }
+
+  /** 过滤器中 # 所在的层级下标，-1表示没有 */
+  public int hashLevel(int entryIndex) {
+    return entries.get(entryIndex).hashLevel;
+  }
+
+  /**
+   * 匹配主题
+   *
+   * @param topic 实际主题
+   * @param match 结果容器，匹配到的过滤器按添加顺序排列
+   * @return 是否至少匹配一个过滤器
+   */
+  public boolean match(String topic, TopicMatch match) {
+    match.reset(topic);
+    if (topic == null || topic.isEmpty()) {
+      return false;
+    }
+    walk(root, 0, match);
+    match.sortMatched();
+    return match.matchedCount > 0;
+  }
+
+  private void walk(Node node, int level, TopicMatch match) {
+    if (node.hash != null) {
+      // # 同时匹配父级本身和任意多层子级
+      match.addMatched(node.hash.terminals, node.hash.terminalCount);
+    }
+    if (level == match.levelCount) {
+      match.addMatched(node.terminals, node.terminalCount);
+      return;
+    }
+    int start = match.levelStarts[level];
+    int end = match.levelEnds[level];
+    Node child = node.child(match.topic, start, end);
+    if (child != null) {
+      walk(child, level + 1, match);
+    }
+    if (node.plus != null && end > start) {
+      walk(node.plus, level + 1, match);
+    }
+  }
+
+  /**
+   * 单个过滤器匹配，按层级逐字符比较，不编译正则
+   *
+   * @param topic 实际主题
+   * @param filter 过滤器，支持 + 和 #
+   */
+  public static boolean matches(String topic, String filter) {
+    if (topic == null || filter == null) {
+      return false;
+    }
+    int t = 0;
+    int f = 0;
+    int tLen = topic.length();
+    int fLen = filter.length();
+    while (f < fLen) {
+      int fEnd = filter.indexOf('/', f);
+      if (fEnd < 0) {
+        fEnd = fLen;
+      }
+      if (fEnd - f == 1 && filter.charAt(f) == '#') {
+        return fEnd == fLen;
+      }
+      if (t > tLen) {
+        return false;
+      }
+      int tEnd = topic.indexOf('/', t);
+      if (tEnd < 0) {
+        tEnd = tLen;
+      }
+      if (fEnd - f == 1 && filter.charAt(f) == '+') {
+        if (tEnd == t) {
+          return false;
+        }
+      } else if (fEnd - f != tEnd - t || !topic.regionMatches(t, filter, f, fEnd - f)) {
+        return false;
+      }
+      f = fEnd + 1;
+      t = tEnd + 1;
+    }
+    return t > tLen;
+  }
+
+  private record Entry<T>(String filter, T value, int[] plusLevels, int hashLevel) {}
+
+  /** 前缀树节点，子节点使用开放寻址表，按主题区间直接查找，无需截取子串 */
+  private static final class Node {
+
+    private String[] keys;
+    private Node[] children;
+    private int childCount;
+    private Node plus;
+    private Node hash;
+    private int[] terminals = new int[0];
+    private int terminalCount;
+
+    void addTerminal(int index) {
+      if (terminalCount == terminals.length) {
+        terminals = Arrays.copyOf(terminals, Math.max(1, terminals.length * 2));
+      }
+      terminals[terminalCount++] = index;
+    }
+
+    Node child(String topic, int start, int end) {
+      if (keys == null) {
+        return null;
+      }
+      int len = end - start;
+      int mask = keys.length - 1;
+      int i = spread(hash(topic, start, end)) & mask;
+      String key;
+      while ((key = keys[i]) != null) {
+        if (key.length() == len && topic.regionMatches(start, key, 0, len)) {
+          return children[i];
+        }
+        i = (i + 1) & mask;
+      }
+      return null;
+    }
+
+    Node childOrCreate(String level) {
+      Node existing = child(level, 0, level.length());
+      if (existing != null) {
+        return existing;
+      }
+      if (keys == null) {
+        keys = new String[4];
+        children = new Node[4];
+      } else if ((childCount + 1) * 2 > keys.length) {
+        resize();
+      }
+      Node node = new Node();
+      insert(keys, children, level, node);
+      childCount++;
+      return node;
+    }
+
+    private void resize() {
+      String[] newKeys = new String[keys.length * 2];
+      Node[] newChildren = new Node[keys.length * 2];
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != null) {
+          insert(newKeys, newChildren, keys[i], children[i]);
+        }
+      }
+      keys = newKeys;
+      children = newChildren;
+    }
+
+    private static void insert(String[] keys, Node[] children, String key, Node node) {
+      int mask = keys.length - 1;
+      int i = spread(key.hashCode()) & mask;
+      while (keys[i] != null) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      children[i] = node;
+    }
+
+    /** 与 String.hashCode 计算方式一致，便于区间与完整key对齐 */
+    private static int hash(String s, int start, int end) {
+      int h = 0;
+      for (int i = start; i < end; i++) {
+        h = 31 * h + s.charAt(i);
+      }
+      return h;
+    }
+
+    private static int spread(int h) {
+      return h ^ (h >>> 16);
+    }
+  }
+
+  /**
+   * 可复用的匹配结果容器（非线程安全，建议 ThreadLocal 持有）
+   *
+   * <p>保存主题各层级的起止位置以及匹配到的过滤器下标，取值时才截取字符串
+   */
+  public static final class TopicMatch {
+
+    private String topic;
+    private int[] levelStarts = new int[16];
+    private int[] levelEnds = new int[16];
+    private int levelCount;
+    private int[] matched = new int[8];
+    private int matchedCount;
+
+    void reset(String topic) {
+      this.topic = topic;
+      this.matchedCount = 0;
+      this.levelCount = 0;
+      if (topic == null || topic.isEmpty()) {
+        return;
+      }
+      int start = 0;
+      int len = topic.length();
+      while (true) {
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+          end = len;
+        }
+        if (levelCount == levelStarts.length) {
+          levelStarts = Arrays.copyOf(levelStarts, levelCount * 2);
+          levelEnds = Arrays.copyOf(levelEnds, levelCount * 2);
+        }
+        levelStarts[levelCount] = start;
+        levelEnds[levelCount] = end;
+        levelCount++;
+        if (end == len) {
+          break;
+        }
+        start = end + 1;
+      }
+    }
+
+    void addMatched(int[] entries, int count) {
+      for (int i = 0; i < count; i++) {
+        if (matchedCount == matched.length) {
+          matched = Arrays.copyOf(matched, matchedCount * 2);
+        }
+        matched[matchedCount++] = entries[i];
+      }
+    }
+
+    /** 匹配数通常很少，插入排序即可 */
+    void sortMatched() {
+      for (int i = 1; i < matchedCount; i++) {
+        int v = matched[i];
+        int j = i - 1;
+        while (j >= 0 && matched[j] > v) {
+          matched[j + 1] = matched[j];
+          j--;
+        }
+        matched[j + 1] = v;
+      }
+    }
+
+    public String getTopic() {
+      return topic;
+    }
+
+    public int getLevelCount() {
+      return levelCount;
+    }
+
+    public int levelStart(int level) {
+      return levelStarts[level];
+    }
+
+    public int levelEnd(int level) {
+      return levelEnds[level];
+    }
+
+    /** 截取指定层级内容 */
+    public String level(int level) {
+      if (level < 0 || level >= levelCount) {
+        return null;
+      }
+      return topic.substring(levelStarts[level], levelEnds[level]);
+    }
+
+    public int getMatchedCount() {
+      return matchedCount;
+    }
+
+    /** 第k个匹配的过滤器下标（按添加顺序） */
+    public int matchedEntry(int k) {
+      return matched[k];
+    }
+  }
+}
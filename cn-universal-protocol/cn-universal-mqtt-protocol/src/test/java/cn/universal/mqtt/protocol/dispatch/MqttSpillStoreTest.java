@@ -0,0 +1,69 @@
+package cn.universal.mqtt.protocol.dispatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** MqttSpillStore 回放单元测试 */
+class MqttSpillStoreTest {
+
+  @TempDir File dir;
+
+  @Test
+  void drainStopsOnFailureAndResumesAfterRestart() {
+    MqttSpillStore store = new MqttSpillStore(dir, 1 << 20);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(store.append("t/" + i, 1, ("m" + i).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // 第3条分发失败：只消费前2条，文件保留
+    List<String> received = new ArrayList<>();
+    long count =
+        store.drain(
+            (topic, qos, payload) -> {
+              if (received.size() == 2) {
+                return false;
+              }
+              received.add(new String(payload, StandardCharsets.UTF_8));
+              return true;
+            });
+    assertEquals(2, count);
+    assertEquals(List.of("m0", "m1"), received);
+    assertTrue(store.hasPending());
+    assertTrue(store.getPendingBytes() > 0);
+    store.close();
+
+    // 重启后从记录的位置继续，不重复也不丢失
+    MqttSpillStore restarted = new MqttSpillStore(dir, 1 << 20);
+    assertTrue(restarted.hasPending());
+    List<String> rest = new ArrayList<>();
+    long restCount =
+        restarted.drain(
+            (topic, qos, payload) -> rest.add(new String(payload, StandardCharsets.UTF_8)));
+    assertEquals(3, restCount);
+    assertEquals(List.of("m2", "m3", "m4"), rest);
+    assertFalse(restarted.hasPending());
+    assertEquals(0, restarted.getPendingBytes());
+    assertEquals(0, dir.listFiles().length);
+  }
+
+  @Test
+  void failedFirstRecordKeepsEverything() {
+    MqttSpillStore store = new MqttSpillStore(dir, 1 << 20);
+    store.append("t/a", 0, new byte[] {1});
+    store.append("t/b", 0, new byte[] {2});
+    long pending = store.getPendingBytes();
+
+    assertEquals(0, store.drain((topic, qos, payload) -> false));
+    assertEquals(pending, store.getPendingBytes());
+
+    List<String> topics = new ArrayList<>();
+    assertEquals(2, store.drain((topic, qos, payload) -> topics.add(topic)));
+    assertEquals(List.of("t/a", "t/b"), topics);
+  }
+}
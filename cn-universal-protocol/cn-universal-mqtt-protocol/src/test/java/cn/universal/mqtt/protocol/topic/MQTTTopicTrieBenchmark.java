@@ -0,0 +1,133 @@
+package cn.universal.mqtt.protocol.topic;
+
+import cn.universal.mqtt.protocol.entity.MQTTProductConfig.MqttTopicConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 主题过滤器匹配基准：预编译前缀树 vs 原逐条正则匹配，以及第三方MQTT入站按订阅配置解析productKey的完整路径
+ *
+ * <p>运行：在IDE中直接执行 main，或 {@code java -cp <test-classpath> ...MQTTTopicTrieBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MQTTTopicTrieBenchmark {
+
+  @Param({"10000"})
+  private int filterCount;
+
+  private final MQTTTopicTrie<String> trie = new MQTTTopicTrie<>();
+  private final List<String> filters = new ArrayList<>();
+  private final ThreadLocal<MQTTTopicTrie.TopicMatch> holder =
+      ThreadLocal.withInitial(MQTTTopicTrie.TopicMatch::new);
+  private final MQTTTopicManager manager = new MQTTTopicManager();
+  private final List<MqttTopicConfig> configs = new ArrayList<>();
+  private String[] topics;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < filterCount; i++) {
+      String filter =
+          switch (i % 4) {
+            case 0 -> "tenant" + i + "/up/+/+";
+            case 1 -> "tenant" + i + "/device/+/data";
+            case 2 -> "tenant" + i + "/#";
+            default -> "tenant" + i + "/down/pk" + i + "/+";
+          };
+      filters.add(filter);
+      trie.add(filter, "pk" + i);
+      // 一半配置固定productKey，其余从主题层级中提取
+      configs.add(
+          MqttTopicConfig.builder()
+              .topic(filter)
+              .productKey(i % 2 == 0 ? null : "pk" + i)
+              .build());
+    }
+    topics = new String[1024];
+    for (int i = 0; i < topics.length; i++) {
+      int n = (i * 7919) % filterCount;
+      topics[i] =
+          switch (n % 4) {
+            case 0 -> "tenant" + n + "/up/pk" + n + "/dev" + i;
+            case 1 -> "tenant" + n + "/device/dev" + i + "/data";
+            case 2 -> "tenant" + n + "/a/b/c";
+            default -> "tenant" + n + "/down/pk" + n + "/dev" + i;
+          };
+    }
+  }
+
+  private String nextTopic() {
+    return topics[cursor++ & (topics.length - 1)];
+  }
+
+  @Benchmark
+  public int trie() {
+    MQTTTopicTrie.TopicMatch match = holder.get();
+    trie.match(nextTopic(), match);
+    return match.getMatchedCount() > 0 ? match.matchedEntry(0) : -1;
+  }
+
+  @Benchmark
+  public int linearMatches() {
+    String topic = nextTopic();
+    for (int i = 0; i < filters.size(); i++) {
+      if (MQTTTopicTrie.matches(topic, filters.get(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** 入站消息解析productKey：缓存的网络前缀树，每条消息只做O(1)的缓存有效性检查 */
+  @Benchmark
+  public String extractProductKey() {
+    return manager.extractProductKeyFromConfig("bench", nextTopic(), configs);
+  }
+
+  /** 入站消息解析productKey：无网络标识，逐条配置匹配 */
+  @Benchmark
+  public String extractProductKeyLinear() {
+    return manager.extractProductKeyFromConfig(nextTopic(), configs);
+  }
+
+  /** 原 MQTTTopicManager.matchesTopic 实现：每条过滤器现场编译正则 */
+  @Benchmark
+  public int legacyRegex() {
+    String topic = nextTopic();
+    for (int i = 0; i < filters.size(); i++) {
+      String regex =
+          filters.get(i).replace("+", "[^/]+").replace("#", ".*").replace("$", "\\$");
+      if (topic.matches(regex)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(MQTTTopicTrieBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
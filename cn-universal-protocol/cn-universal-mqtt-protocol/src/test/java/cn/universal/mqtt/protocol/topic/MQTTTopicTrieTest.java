@@ -0,0 +1,76 @@
+package cn.universal.mqtt.protocol.topic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cn.universal.mqtt.protocol.entity.MQTTProductConfig.MqttTopicConfig;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** MQTTTopicTrie 单元测试 */
+class MQTTTopicTrieTest {
+
+  @Test
+  void matchesWildcards() {
+    assertTrue(MQTTTopicTrie.matches("a/b/c", "a/+/c"));
+    assertTrue(MQTTTopicTrie.matches("a/b/c", "a/#"));
+    assertTrue(MQTTTopicTrie.matches("a", "a/#"));
+    assertTrue(MQTTTopicTrie.matches("$thing/up/property/pk/dev", "$thing/up/property/+/+"));
+    assertFalse(MQTTTopicTrie.matches("a//c", "a/+/c"));
+    assertFalse(MQTTTopicTrie.matches("a/b", "a/+/c"));
+    assertFalse(MQTTTopicTrie.matches("a/b/c/d", "a/+/c"));
+    assertFalse(MQTTTopicTrie.matches("a/b/c", "a/b"));
+  }
+
+  @Test
+  void matchOrderAndCaptures() {
+    MQTTTopicTrie<String> trie = new MQTTTopicTrie<>();
+    trie.add("factory/#", "all");
+    trie.add("factory/+/+/data", "data");
+    trie.add("factory/line1/+/data", "line1");
+    assertFalse(trie.add("factory/#/data", "illegal"));
+
+    MQTTTopicTrie.TopicMatch match = new MQTTTopicTrie.TopicMatch();
+    assertTrue(trie.match("factory/line1/pk001/data", match));
+    assertEquals(3, match.getMatchedCount());
+    assertEquals("all", trie.value(match.matchedEntry(0)));
+    assertEquals("data", trie.value(match.matchedEntry(1)));
+    assertEquals("line1", trie.value(match.matchedEntry(2)));
+
+    int entry = match.matchedEntry(1);
+    assertArrayEquals(new int[] {1, 2}, trie.plusLevels(entry));
+    assertEquals("pk001", match.level(trie.plusLevels(entry)[1]));
+
+    assertTrue(trie.match("factory", match));
+    assertEquals(1, match.getMatchedCount());
+    assertFalse(trie.match("plant/line1/pk001/data", match));
+  }
+
+  @Test
+  void networkTrieRebuildsOnNewListOrEviction() {
+    MQTTTopicManager manager = new MQTTTopicManager();
+    List<MqttTopicConfig> topics = new ArrayList<>();
+    topics.add(MqttTopicConfig.builder().topic("a/+/up").productKey("pkA").build());
+    assertEquals("pkA", manager.extractProductKeyFromConfig("net", "a/dev/up", topics));
+    assertNull(manager.extractProductKeyFromConfig("net", "b/dev/up", topics));
+
+    // 同一个列表对象不重建，原地增加、替换和停用配置后需失效
+    MQTTTopicTrie<MqttTopicConfig> built = manager.getNetworkTopicTrie("net", topics);
+    assertSame(built, manager.getNetworkTopicTrie("net", topics));
+    topics.add(MqttTopicConfig.builder().topic("b/+/up").productKey("pkB").build());
+    manager.evictNetworkTopicTrie("net");
+    assertEquals("pkB", manager.extractProductKeyFromConfig("net", "b/dev/up", topics));
+    topics.set(0, MqttTopicConfig.builder().topic("a/+/up").productKey("pkA2").build());
+    manager.evictNetworkTopicTrie("net");
+    assertEquals("pkA2", manager.extractProductKeyFromConfig("net", "a/dev/up", topics));
+    topics.get(1).setEnabled(false);
+    manager.evictNetworkTopicTrie("net");
+    assertNull(manager.extractProductKeyFromConfig("net", "b/dev/up", topics));
+
+    // 重新加载的配置是新的列表对象，直接重建
+    List<MqttTopicConfig> reloaded = new ArrayList<>(topics);
+    reloaded.add(MqttTopicConfig.builder().topic("c/+/up").productKey("pkC").build());
+    assertNotSame(built, manager.getNetworkTopicTrie("net", reloaded));
+    assertEquals("pkC", manager.extractProductKeyFromConfig("net", "c/dev/up", reloaded));
+  }
+}
@@ -0,0 +1,38 @@
+package cn.universal.rule.consumer;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+import cn.universal.common.event.EventMessage;
+import cn.universal.common.event.processer.FenceUpdatedProcessor;
+import cn.universal.rule.fence.index.FenceIndexCache;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 电子围栏变更事件处理：失效本节点的设备围栏索引
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+@Slf4j
+@Component
+public class FenceUpdatedRedisHandler implements FenceUpdatedProcessor {
+
+  @Resource private FenceIndexCache fenceIndexCache;
+
+  @Override
+  public void handleFenceUpdated(EventMessage message) {
+    try {
+      String iotId = Convert.toStr(message.getData());
+      if (StrUtil.isBlank(iotId)) {
+        fenceIndexCache.invalidateAll();
+      } else {
+        fenceIndexCache.invalidate(iotId);
+      }
+    } catch (Exception e) {
+      log.error("处理电子围栏变更事件失败: message={}, error={}", message, e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package cn.universal.rule.consumer;
+
+import cn.hutool.core.convert.Convert;
+import cn.universal.common.event.EventMessage;
+import cn.universal.common.event.processer.RuleUpdatedProcessor;
+import cn.universal.rule.engine.RuleEngine;
+import cn.universal.rule.service.RuleIndex;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 规则变更事件处理：刷新本节点的规则索引和编译缓存
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+@Slf4j
+@Component
+public class RuleUpdatedRedisHandler implements RuleUpdatedProcessor {
+
+  @Resource private RuleIndex ruleIndex;
+
+  @Resource private RuleEngine ruleEngine;
+
+  @Override
+  public void handleRuleUpdated(EventMessage message) {
+    try {
+      Long ruleId = Convert.toLong(message.getData());
+      if (ruleId == null) {
+        log.warn("规则变更事件缺少规则id: {}", message);
+        return;
+      }
+      ruleEngine.invalidate(ruleId);
+      ruleIndex.refresh(ruleId);
+    } catch (Exception e) {
+      log.error("处理规则变更事件失败: message={}, error={}", message, e.getMessage(), e);
+    }
+  }
+}
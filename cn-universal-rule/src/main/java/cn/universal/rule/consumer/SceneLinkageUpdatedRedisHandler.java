@@ -0,0 +1,37 @@
+package cn.universal.rule.consumer;
+
+import cn.hutool.core.convert.Convert;
+import cn.universal.common.event.EventMessage;
+import cn.universal.common.event.processer.SceneLinkageUpdatedProcessor;
+import cn.universal.rule.scene.trigger.SceneTriggerIndex;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 场景联动变更事件处理：刷新本节点的场景联动触发索引
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/9
+ */
+@Slf4j
+@Component
+public class SceneLinkageUpdatedRedisHandler implements SceneLinkageUpdatedProcessor {
+
+  @Resource private SceneTriggerIndex sceneTriggerIndex;
+
+  @Override
+  public void handleSceneLinkageUpdated(EventMessage message) {
+    try {
+      Long id = Convert.toLong(message.getData());
+      if (id == null) {
+        log.warn("场景联动变更事件缺少场景联动id: {}", message);
+        return;
+      }
+      sceneTriggerIndex.refresh(id);
+    } catch (Exception e) {
+      log.error("处理场景联动变更事件失败: message={}, error={}", message, e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.engine;
+
+import cn.universal.rule.model.RuleParserResult;
+import com.ql.util.express.InstructionSet;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 预编译规则：SQL只在规则新增或变更后解析一次，执行时不再依赖SQL文本
+ *
+ * @since 2025/12/3 9:36
+ */
+@Getter
+@AllArgsConstructor
+public class CompiledRule {
+
+  /** 规则版本，取规则的更新时间，版本不一致时重新编译 */
+  private final long version;
+
+  /** from 的第一个主题 */
+  private final String topic;
+
+  private final RuleParserResult model;
+
+  /** where条件编译后的指令集，无条件时为null */
+  private final InstructionSet condition;
+
+  /** 字段投影，select * 时为null */
+  private final List<Projection> projections;
+
+  public enum ProjectionType {
+    constant,
+    function,
+    path
+  }
+
+  /** 预编译的字段投影 */
+  @Getter
+  @AllArgsConstructor
+  public static class Projection {
+
+    private final ProjectionType type;
+
+    /** 输出字段，别名带 . 时拆分为多级 */
+    private final String[] target;
+
+    /** 常量值 */
+    private final Object constant;
+
+    /** json路径 */
+    private final String[] path;
+
+    private final String functionName;
+
+    /** 函数参数，常量为String，json路径为String[] */
+    private final Object[] functionArgs;
+  }
+}
@@ -14,6 +14,8 @@ package cn.universal.rule.engine;
 
 import cn.hutool.json.JSONObject;
 import cn.universal.common.exception.IoTException;
+import cn.universal.rule.engine.CompiledRule.Projection;
+import cn.universal.rule.engine.CompiledRule.ProjectionType;
 import cn.universal.rule.enums.ParserFormat;
 import cn.universal.rule.express.ExpressTemplate;
 import cn.universal.rule.function.RuleFunctionTemplate;
@@ -21,6 +23,10 @@ import cn.universal.rule.model.RuleParserResult;
 import cn.universal.rule.model.RuleParserResult.RuleField;
 import cn.universal.rule.parser.RuleParser;
 import cn.universal.rule.utils.JsonParserUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ql.util.express.InstructionSet;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import java.util.List;
 import java.util.Objects;
@@ -28,48 +34,122 @@ import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 /**
  * 默认规则引擎 @Author gitee.com/NexIoT
  *
+ * <p>规则SQL按规则id缓存编译结果（解析结果、字段投影、where条件指令集），版本变化或规则变更时重新编译
+ *
  * @since 2025/12/3 9:36
  */
 @Component
 @Slf4j
 public class DefaultRuleEngine implements RuleEngine {
 
+  private static final Pattern FUNCTION_PATTERN = Pattern.compile(".*\\(.*\\)");
+
   @Resource private RuleParser ruleParser;
 
   @Resource private ExpressTemplate expressTemplate;
 
   @Resource private RuleFunctionTemplate ruleFunctionTemplate;
 
+  @Value("${rule.compile-cache.max-size:4096}")
+  private long compileCacheMaxSize;
+
+  private Cache<Long, CompiledRule> compiledRules;
+
+  @PostConstruct
+  public void init() {
+    compiledRules = Caffeine.newBuilder().maximumSize(compileCacheMaxSize).build();
+  }
+
   @Override
   public JSONObject executeRule(JSONObject param, String modelDefineString, String appId) {
+    return executeRule(param, compile(modelDefineString, 0L), appId);
+  }
+
+  @Override
+  public JSONObject executeRule(
+      JSONObject param, Long ruleId, long version, String modelDefineString, String appId) {
+    if (Objects.isNull(ruleId)) {
+      return executeRule(param, modelDefineString, appId);
+    }
+    CompiledRule rule = compiledRules.getIfPresent(ruleId);
+    if (rule == null || rule.getVersion() != version) {
+      rule =
+          compiledRules
+              .asMap()
+              .compute(
+                  ruleId,
+                  (id, old) ->
+                      old != null && old.getVersion() == version
+                          ? old
+                          : compile(modelDefineString, version));
+    }
+    return executeRule(param, rule, appId);
+  }
+
+  @Override
+  public void invalidate(Long ruleId) {
+    if (Objects.nonNull(ruleId)) {
+      compiledRules.invalidate(ruleId);
+    }
+  }
+
+  /**
+   * 编译规则SQL
+   *
+   * @param modelDefineString 规则SQL
+   * @param version 规则版本
+   * @return 编译后的规则
+   */
+  public CompiledRule compile(String modelDefineString, long version) {
     RuleParserResult model = ruleParser.parse(ParserFormat.sql, modelDefineString);
 
     if (CollectionUtils.isEmpty(model.getTopics())) {
       throw new IoTException("SQL解析错误：from不能为空", 10021);
     }
-    String topic = model.getTopics().get(0);
+    InstructionSet condition =
+        StringUtils.isEmpty(model.getCondition())
+            ? null
+            : expressTemplate.compile(model.getCondition());
+    List<Projection> projections =
+        "*".equals(model.getFields().get(0).getName().trim())
+            ? null
+            : model.getFields().stream().map(this::compileField).toList();
+    return new CompiledRule(version, model.getTopics().get(0), model, condition, projections);
+  }
+
+  private JSONObject executeRule(JSONObject param, CompiledRule rule, String appId) {
+    String topic = rule.getTopic();
     if ("*".equals(topic) || topic.equals(appId)) {
-      return doExecuteRule(param, modelDefineString);
+      return doExecuteRule(param, rule);
     }
     return null;
   }
 
   public JSONObject doExecuteRule(JSONObject param, String modelDefineString) {
+    CompiledRule rule;
+    try {
+      rule = compile(modelDefineString, 0L);
+    } catch (Exception exception) {
+      throw new IoTException("SQL解析错误:" + exception.getMessage());
+    }
+    return doExecuteRule(param, rule);
+  }
 
+  private JSONObject doExecuteRule(JSONObject param, CompiledRule rule) {
     try {
-      RuleParserResult model = ruleParser.parse(ParserFormat.sql, modelDefineString);
-      if (StringUtils.isEmpty(model.getCondition())) {
-        return convertParam(param, model.getFields());
+      if (rule.getCondition() == null) {
+        return convertParam(param, rule.getProjections());
       }
-      Boolean executeResult = expressTemplate.executeTest(model.getCondition(), param);
+      Boolean executeResult = expressTemplate.executeTest(rule.getCondition(), param);
       if (executeResult) {
-        return convertParam(param, model.getFields());
+        return convertParam(param, rule.getProjections());
       }
     } catch (Exception exception) {
       throw new IoTException("SQL解析错误:" + exception.getMessage());
@@ -77,42 +157,60 @@ public class DefaultRuleEngine implements RuleEngine {
     return null;
   }
 
-  private JSONObject convertParam(JSONObject param, List<RuleField> fields) {
-    if ("*".equals(fields.get(0).getName().trim())) {
+  private Projection compileField(RuleField field) {
+    String name = field.getName();
+    if (isConstant(name)) {
+      String value = getConstant(name);
+      return new Projection(
+          ProjectionType.constant,
+          parseTarget(Objects.nonNull(field.getAlias()) ? field.getAlias() : value),
+          value,
+          null,
+          null,
+          null);
+    }
+    String[] target = parseTarget(Objects.nonNull(field.getAlias()) ? field.getAlias() : name);
+    if (isFunction(name)) {
+      Object[] args =
+          Stream.of(parseFunctionValue(name))
+              .map(String::trim)
+              .map(v -> isConstant(v) ? getConstant(v) : JsonParserUtil.parsePath(v))
+              .toArray();
+      return new Projection(
+          ProjectionType.function, target, null, null, parseFunctionName(name), args);
+    }
+    return new Projection(
+        ProjectionType.path, target, null, JsonParserUtil.parsePath(name), null, null);
+  }
+
+  private JSONObject convertParam(JSONObject param, List<Projection> projections) {
+    if (projections == null) {
       return param;
     }
     JSONObject result = new JSONObject();
-    fields.forEach(
-        field -> {
-          Object value;
-          if (isConstant(field.getName())) {
-            value = getConstant(field.getName());
-            setConvertParamValue(
-                result,
-                Objects.nonNull(field.getAlias()) ? field.getAlias() : value.toString(),
-                value);
-            return;
-          } else if (isFunction(field.getName())) {
-            String functionName = parseFunctionName(field.getName());
-
-            Object[] params =
-                Stream.of(parseFunctionValue(field.getName()))
-                    .map(v -> isConstant(v) ? getConstant(v) : JsonParserUtil.getValue(param, v))
-                    .toArray();
-
-            value = ruleFunctionTemplate.executeFunction(functionName, params);
-          } else {
-            value = JsonParserUtil.getValue(param, field.getName());
-          }
-          setConvertParamValue(
-              result,
-              Objects.nonNull(field.getAlias()) ? field.getAlias() : field.getName(),
-              value);
-        });
-
+    for (Projection projection : projections) {
+      Object value =
+          switch (projection.getType()) {
+            case constant -> projection.getConstant();
+            case function ->
+                ruleFunctionTemplate.executeFunction(
+                    projection.getFunctionName(), resolveArgs(param, projection.getFunctionArgs()));
+            case path -> JsonParserUtil.getValue(param, projection.getPath());
+          };
+      setConvertParamValue(result, projection.getTarget(), value);
+    }
     return result;
   }
 
+  private Object[] resolveArgs(JSONObject param, Object[] args) {
+    Object[] values = new Object[args.length];
+    for (int i = 0; i < args.length; i++) {
+      values[i] =
+          args[i] instanceof String[] path ? JsonParserUtil.getValue(param, path) : args[i];
+    }
+    return values;
+  }
+
   public String getConstant(String filedName) {
     return filedName.substring(1, filedName.length() - 1);
   }
@@ -122,8 +220,7 @@ public class DefaultRuleEngine implements RuleEngine {
   }
 
   public boolean isFunction(String filedName) {
-    String pattern = ".*\\(.*\\)";
-    return Pattern.matches(pattern, filedName);
+    return FUNCTION_PATTERN.matcher(filedName).matches();
   }
 
   public String parseFunctionName(String filedName) {
@@ -147,13 +244,19 @@ public class DefaultRuleEngine implements RuleEngine {
     System.out.println(strings[0]);
   }
 
-  private void setConvertParamValue(JSONObject result, String name, Object value) {
+  private static String[] parseTarget(String name) {
     if (name.contains(".")) {
       String keyName = name.replaceAll("\"", "").replaceAll("'", "");
-      String[] names = keyName.split("\\.");
-      dealKey(result, names, 0, value);
+      return keyName.split("\\.");
+    }
+    return new String[] {name};
+  }
+
+  private void setConvertParamValue(JSONObject result, String[] names, Object value) {
+    if (names.length == 1) {
+      result.set(names[0], value);
     } else {
-      result.set(name, value);
+      dealKey(result, names, 0, value);
     }
   }
 
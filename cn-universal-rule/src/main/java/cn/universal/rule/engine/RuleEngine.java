@@ -22,4 +22,16 @@ import cn.hutool.json.JSONObject;
 public interface RuleEngine {
 
   JSONObject executeRule(JSONObject param, String modelDefineString, String appId);
+
+  /**
+   * 按规则id执行，编译结果按规则id和版本缓存
+   *
+   * @param ruleId 规则id，为空时不缓存
+   * @param version 规则版本，变化后重新编译
+   */
+  JSONObject executeRule(
+      JSONObject param, Long ruleId, long version, String modelDefineString, String appId);
+
+  /** 规则变更后清除编译缓存 */
+  void invalidate(Long ruleId);
 }
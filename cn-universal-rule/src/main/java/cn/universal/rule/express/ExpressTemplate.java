@@ -12,9 +12,11 @@
 
 package cn.universal.rule.express;
 
+import cn.universal.common.exception.IoTException;
 import cn.universal.rule.function.RuleFunctionTemplate;
 import com.ql.util.express.DefaultContext;
 import com.ql.util.express.ExpressRunner;
+import com.ql.util.express.InstructionSet;
 import com.ql.util.express.Operator;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
@@ -79,4 +81,47 @@ public class ExpressTemplate {
   public Boolean executeTest(String express, Map<String, Object> context) {
     return (Boolean) execute(express, context);
   }
+
+  /**
+   * 预编译一段文本，编译结果可多线程复用
+   *
+   * @param express 程序文本
+   * @return InstructionSet 指令集
+   */
+  public InstructionSet compile(String express) {
+    try {
+      return RUNNER.parseInstructionSet(express);
+    } catch (Exception e) {
+      throw new IoTException("SQL解析错误:" + e.getMessage());
+    }
+  }
+
+  /**
+   * 执行预编译的指令集
+   *
+   * @param instructionSet 指令集
+   * @param context 执行上下文
+   * @return Object 执行结果
+   */
+  public Object execute(InstructionSet instructionSet, Map<String, Object> context) {
+    DefaultContext<String, Object> defaultContext = new DefaultContext<>();
+    defaultContext.putAll(context);
+    try {
+      return RUNNER.execute(instructionSet, defaultContext, null, false, false, null);
+    } catch (Exception ignore) {
+
+    }
+    return null;
+  }
+
+  /**
+   * 执行预编译的指令集
+   *
+   * @param instructionSet 指令集
+   * @param context 执行上下文
+   * @return Boolean 执行结果
+   */
+  public Boolean executeTest(InstructionSet instructionSet, Map<String, Object> context) {
+    return (Boolean) execute(instructionSet, context);
+  }
 }
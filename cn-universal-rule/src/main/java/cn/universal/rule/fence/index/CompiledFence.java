@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.fence.index;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import cn.universal.persistence.entity.IoTDeviceGeoFence;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import lombok.Getter;
+
+/**
+ * 预编译的围栏：几何和生效时间、不触发时间段均已解析，判断时不再解析配置文本
+ *
+ * @since 2025/12/8 10:12
+ */
+@Getter
+public final class CompiledFence {
+
+  private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+  private final IoTDeviceGeoFence fence;
+
+  private final FenceGeometry geometry;
+
+  /** 生效星期，为空时不限制星期和时间 */
+  private final String weekTime;
+
+  private final LocalTime beginTime;
+
+  private final LocalTime endTime;
+
+  /** 不触发时间段，每项为 [开始, 结束] */
+  private final LocalTime[][] noTriggerTimes;
+
+  private CompiledFence(
+      IoTDeviceGeoFence fence,
+      FenceGeometry geometry,
+      String weekTime,
+      LocalTime beginTime,
+      LocalTime endTime,
+      LocalTime[][] noTriggerTimes) {
+    this.fence = fence;
+    this.geometry = geometry;
+    this.weekTime = weekTime;
+    this.beginTime = beginTime;
+    this.endTime = endTime;
+    this.noTriggerTimes = noTriggerTimes;
+  }
+
+  /**
+   * 编译围栏的时间配置
+   *
+   * @param fence 围栏
+   * @param geometry 已解析的几何
+   */
+  public static CompiledFence compile(IoTDeviceGeoFence fence, FenceGeometry geometry) {
+    String weekTime = StrUtil.isNotEmpty(fence.getWeekTime()) ? fence.getWeekTime() : null;
+    LocalTime beginTime = null;
+    LocalTime endTime = null;
+    if (weekTime != null) {
+      beginTime = LocalTime.parse(fence.getBeginTime(), TIME_FORMATTER);
+      endTime = LocalTime.parse(fence.getEndTime(), TIME_FORMATTER);
+    }
+    LocalTime[][] noTriggerTimes = new LocalTime[0][];
+    if (StrUtil.isNotEmpty(fence.getNoTriggerTime())) {
+      JSONArray array = JSONUtil.parseArray(fence.getNoTriggerTime());
+      noTriggerTimes = new LocalTime[array.size()][];
+      for (int i = 0; i < array.size(); i++) {
+        String[] time = array.get(i).toString().split("-");
+        noTriggerTimes[i] = new LocalTime[] {LocalTime.parse(time[0]), LocalTime.parse(time[1])};
+      }
+    }
+    return new CompiledFence(fence, geometry, weekTime, beginTime, endTime, noTriggerTimes);
+  }
+
+  public Long getId() {
+    return fence.getId();
+  }
+
+  /** 是否在生效星期内，week 为英文星期全称 */
+  public boolean inWeek(String week) {
+    return weekTime == null || weekTime.contains(week);
+  }
+
+  /** 是否在生效时间内，未配置星期时始终生效 */
+  public boolean inTime(LocalTime now) {
+    return weekTime == null || (now.isAfter(beginTime) && now.isBefore(endTime));
+  }
+
+  /**
+   * 当前所处不触发时间段的结束时间
+   *
+   * @return 不在不触发时间段内时为null
+   */
+  public LocalTime noTriggerEnd(LocalTime now) {
+    for (LocalTime[] range : noTriggerTimes) {
+      if (now.isAfter(range[0]) && now.isBefore(range[1])) {
+        return range[1];
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.fence.index;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import cn.universal.persistence.entity.IoTDeviceGeoFence;
+import cn.universal.rule.fence.enums.FenceType;
+import cn.universal.rule.fence.utils.RegionUtil;
+import lombok.Getter;
+
+/**
+ * 预解析的围栏几何
+ *
+ * <p>圆心、多边形顶点解析为基本类型数组，并预先计算外包矩形。判断点是否在围栏内时先比较外包矩形，命中后再做精确判断。
+ *
+ * @since 2025/12/8 10:12
+ */
+@Getter
+public final class FenceGeometry {
+
+  /** 地球半径，与 {@link RegionUtil} 一致 */
+  private static final double EARTH_RADIUS = 6378137;
+
+  /** 外包矩形留出的余量（度），抵消距离四舍五入带来的误差 */
+  private static final double BOX_MARGIN = 1e-6;
+
+  private final FenceType type;
+
+  private final double centerLng;
+
+  private final double centerLat;
+
+  /** 圆形半径（米） */
+  private final double radius;
+
+  /** 多边形顶点经度 */
+  private final double[] lng;
+
+  /** 多边形顶点纬度 */
+  private final double[] lat;
+
+  private final double minLng;
+
+  private final double minLat;
+
+  private final double maxLng;
+
+  private final double maxLat;
+
+  private FenceGeometry(
+      FenceType type,
+      double centerLng,
+      double centerLat,
+      double radius,
+      double[] lng,
+      double[] lat,
+      double minLng,
+      double minLat,
+      double maxLng,
+      double maxLat) {
+    this.type = type;
+    this.centerLng = centerLng;
+    this.centerLat = centerLat;
+    this.radius = radius;
+    this.lng = lng;
+    this.lat = lat;
+    this.minLng = minLng;
+    this.minLat = minLat;
+    this.maxLng = maxLng;
+    this.maxLat = maxLat;
+  }
+
+  /**
+   * 解析围栏配置，类型不是圆形的按多边形处理，与原判断逻辑一致
+   *
+   * @throws IllegalArgumentException 圆心、半径或多边形顶点缺失
+   */
+  public static FenceGeometry parse(IoTDeviceGeoFence fence) {
+    if (FenceType.circle.name().equals(fence.getType())) {
+      if (fence.getPoint() == null || fence.getRadius() == null) {
+        throw new IllegalArgumentException("圆形围栏缺少圆心或半径");
+      }
+      String[] point = fence.getPoint().split(",");
+      return circle(
+          Double.parseDouble(point[0]),
+          Double.parseDouble(point[1]),
+          fence.getRadius().doubleValue());
+    }
+    JSONArray points = JSONUtil.parseArray(fence.getFence());
+    if (points.isEmpty()) {
+      throw new IllegalArgumentException("多边形围栏没有顶点");
+    }
+    double[] lng = new double[points.size()];
+    double[] lat = new double[points.size()];
+    for (int i = 0; i < points.size(); i++) {
+      String[] arr = points.get(i).toString().split(",");
+      lng[i] = Double.parseDouble(arr[0]);
+      lat[i] = Double.parseDouble(arr[1]);
+    }
+    return polygon(lng, lat);
+  }
+
+  public static FenceGeometry circle(double centerLng, double centerLat, double radius) {
+    // 球面上距圆心不超过半径的点，纬度差不超过 δ，经度差不超过 asin(sin δ / cos φ)
+    double delta = radius / EARTH_RADIUS;
+    double dLat = Math.toDegrees(delta) + BOX_MARGIN;
+    double minLat = centerLat - dLat;
+    double maxLat = centerLat + dLat;
+    double minLng = -180;
+    double maxLng = 180;
+    double sin = Math.sin(delta);
+    double cos = Math.cos(Math.toRadians(centerLat));
+    if (minLat > -90 && maxLat < 90 && sin < cos) {
+      double dLng = Math.toDegrees(Math.asin(sin / cos)) + BOX_MARGIN;
+      if (centerLng - dLng >= -180 && centerLng + dLng <= 180) {
+        minLng = centerLng - dLng;
+        maxLng = centerLng + dLng;
+      }
+    }
+    return new FenceGeometry(
+        FenceType.circle, centerLng, centerLat, radius, null, null, minLng, minLat, maxLng, maxLat);
+  }
+
+  public static FenceGeometry polygon(double[] lng, double[] lat) {
+    double minLng = Double.POSITIVE_INFINITY;
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLng = Double.NEGATIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < lng.length; i++) {
+      minLng = Math.min(minLng, lng[i]);
+      maxLng = Math.max(maxLng, lng[i]);
+      minLat = Math.min(minLat, lat[i]);
+      maxLat = Math.max(maxLat, lat[i]);
+    }
+    return new FenceGeometry(
+        FenceType.polygon, 0, 0, 0, lng, lat, minLng, minLat, maxLng, maxLat);
+  }
+
+  /** 点是否在外包矩形内 */
+  public boolean boxContains(double pointLng, double pointLat) {
+    return pointLng >= minLng && pointLng <= maxLng && pointLat >= minLat && pointLat <= maxLat;
+  }
+
+  /** 点是否在围栏内 */
+  public boolean contains(double pointLng, double pointLat) {
+    if (!boxContains(pointLng, pointLat)) {
+      return false;
+    }
+    if (type == FenceType.circle) {
+      return RegionUtil.isInCircle(pointLng, pointLat, centerLng, centerLat, radius);
+    }
+    return RegionUtil.isInPolygon(pointLng, pointLat, lng, lat);
+  }
+}
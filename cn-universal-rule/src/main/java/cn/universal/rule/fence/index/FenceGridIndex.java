@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.fence.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 围栏网格索引
+ *
+ * <p>按经纬度把平面划分为边长固定（度）的网格，每个围栏登记到其外包矩形覆盖的网格中，查询时只取坐标所在网格的围栏做判断。
+ * 覆盖网格过多的大围栏不登记，每次都作为候选，由外包矩形先行过滤。索引构建后不可变，可被多个线程同时查询。
+ *
+ * @since 2025/12/8 10:12
+ */
+public final class FenceGridIndex {
+
+  private static final FenceGridIndex EMPTY =
+      new FenceGridIndex(Collections.emptyList(), 1, Collections.emptyMap(), new int[0]);
+
+  private final List<CompiledFence> fences;
+
+  private final double cellDegrees;
+
+  /** 网格 -> 围栏下标 */
+  private final Map<Long, int[]> cells;
+
+  /** 未登记网格的大围栏下标 */
+  private final int[] large;
+
+  private FenceGridIndex(
+      List<CompiledFence> fences, double cellDegrees, Map<Long, int[]> cells, int[] large) {
+    this.fences = fences;
+    this.cellDegrees = cellDegrees;
+    this.cells = cells;
+    this.large = large;
+  }
+
+  public static FenceGridIndex empty() {
+    return EMPTY;
+  }
+
+  /**
+   * 构建索引
+   *
+   * @param fences 围栏，查询结果保持此顺序
+   * @param cellDegrees 网格边长（度）
+   * @param maxCellsPerFence 单个围栏最多登记的网格数，超过时作为大围栏处理
+   */
+  public static FenceGridIndex build(
+      List<CompiledFence> fences, double cellDegrees, int maxCellsPerFence) {
+    if (fences.isEmpty()) {
+      return EMPTY;
+    }
+    Map<Long, List<Integer>> building = new HashMap<>();
+    List<Integer> large = new ArrayList<>();
+    for (int i = 0; i < fences.size(); i++) {
+      FenceGeometry geometry = fences.get(i).getGeometry();
+      long x0 = cell(geometry.getMinLng(), cellDegrees);
+      long x1 = cell(geometry.getMaxLng(), cellDegrees);
+      long y0 = cell(geometry.getMinLat(), cellDegrees);
+      long y1 = cell(geometry.getMaxLat(), cellDegrees);
+      if ((x1 - x0 + 1) * (y1 - y0 + 1) > maxCellsPerFence) {
+        large.add(i);
+        continue;
+      }
+      for (long x = x0; x <= x1; x++) {
+        for (long y = y0; y <= y1; y++) {
+          building.computeIfAbsent(key(x, y), k -> new ArrayList<>(2)).add(i);
+        }
+      }
+    }
+    Map<Long, int[]> cells = new HashMap<>(building.size() * 4 / 3 + 1);
+    building.forEach((k, v) -> cells.put(k, toArray(v)));
+    return new FenceGridIndex(List.copyOf(fences), cellDegrees, cells, toArray(large));
+  }
+
+  public int size() {
+    return fences.size();
+  }
+
+  public boolean isEmpty() {
+    return fences.isEmpty();
+  }
+
+  /**
+   * 本次或上次坐标落在外包矩形内的围栏，其余围栏两次都不在范围内，不会触发进入或离开
+   *
+   * @return 候选围栏，保持构建时的顺序
+   */
+  public List<CompiledFence> candidates(double lng, double lat, double lastLng, double lastLat) {
+    if (fences.isEmpty()) {
+      return Collections.emptyList();
+    }
+    BitSet hits = new BitSet(fences.size());
+    mark(hits, cells.get(key(cell(lng, cellDegrees), cell(lat, cellDegrees))));
+    mark(hits, cells.get(key(cell(lastLng, cellDegrees), cell(lastLat, cellDegrees))));
+    mark(hits, large);
+    List<CompiledFence> matched = null;
+    for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+      CompiledFence fence = fences.get(i);
+      FenceGeometry geometry = fence.getGeometry();
+      if (geometry.boxContains(lng, lat) || geometry.boxContains(lastLng, lastLat)) {
+        if (matched == null) {
+          matched = new ArrayList<>(2);
+        }
+        matched.add(fence);
+      }
+    }
+    return matched == null ? Collections.emptyList() : matched;
+  }
+
+  private static void mark(BitSet hits, int[] indexes) {
+    if (indexes != null) {
+      for (int index : indexes) {
+        hits.set(index);
+      }
+    }
+  }
+
+  private static long cell(double degrees, double cellDegrees) {
+    return (long) Math.floor(degrees / cellDegrees);
+  }
+
+  private static long key(long x, long y) {
+    return (x << 32) ^ (y & 0xffffffffL);
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.fence.index;
+
+import cn.universal.persistence.entity.IoTDeviceGeoFence;
+import cn.universal.persistence.mapper.IoTDeviceGeoFenceMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 设备围栏索引缓存
+ *
+ * <p>按设备缓存启用围栏的网格索引，过期后重新查库；围栏几何按围栏id缓存，配置未变化时复用，多个设备共用同一围栏只解析一次。
+ * 围栏或设备绑定变更时由 FenceService 在提交后失效本节点并通知集群其他节点，缓存过期兜底丢失的变更通知。
+ *
+ * @since 2025/12/8 10:12
+ */
+@Slf4j
+@Component
+public class FenceIndexCache {
+
+  /** 围栏启用状态 */
+  private static final int STATUS_ENABLE = 0;
+
+  @Resource private IoTDeviceGeoFenceMapper ioTDeviceGeoFenceMapper;
+
+  @Value("${fence.index.expire-ms:30000}")
+  private long expireMs;
+
+  @Value("${fence.index.max-devices:100000}")
+  private long maxDevices;
+
+  @Value("${fence.index.max-geometries:50000}")
+  private long maxGeometries;
+
+  /** 网格边长（度），默认约1公里 */
+  @Value("${fence.index.cell-degrees:0.01}")
+  private double cellDegrees;
+
+  @Value("${fence.index.max-cells-per-fence:4096}")
+  private int maxCellsPerFence;
+
+  private Cache<String, DeviceFences> devices;
+
+  private Cache<Long, CachedGeometry> geometries;
+
+  @PostConstruct
+  public void init() {
+    devices =
+        Caffeine.newBuilder()
+            .maximumSize(maxDevices)
+            .expireAfterWrite(Duration.ofMillis(expireMs))
+            .build();
+    geometries = Caffeine.newBuilder().maximumSize(maxGeometries).build();
+  }
+
+  /**
+   * 设备关联的启用围栏索引
+   *
+   * @param iotId 设备
+   * @param creatorId 围栏创建人
+   */
+  public FenceGridIndex get(String iotId, String creatorId) {
+    DeviceFences cached = devices.getIfPresent(iotId);
+    if (cached != null && Objects.equals(cached.creatorId(), creatorId)) {
+      return cached.index();
+    }
+    DeviceFences loaded = new DeviceFences(creatorId, load(iotId, creatorId));
+    devices.put(iotId, loaded);
+    return loaded.index();
+  }
+
+  /** 设备围栏变更后失效 */
+  public void invalidate(String iotId) {
+    if (iotId != null) {
+      devices.invalidate(iotId);
+    }
+  }
+
+  /** 围栏本身变更后失效全部设备 */
+  public void invalidateAll() {
+    devices.invalidateAll();
+  }
+
+  private FenceGridIndex load(String iotId, String creatorId) {
+    List<IoTDeviceGeoFence> fences = ioTDeviceGeoFenceMapper.selectByIotId(iotId, creatorId);
+    if (CollectionUtils.isEmpty(fences)) {
+      return FenceGridIndex.empty();
+    }
+    List<CompiledFence> compiled = new ArrayList<>(fences.size());
+    for (IoTDeviceGeoFence fence : fences) {
+      // 关联表中残留的围栏左连接为空行
+      if (fence == null
+          || fence.getId() == null
+          || !Objects.equals(fence.getStatus(), STATUS_ENABLE)) {
+        continue;
+      }
+      try {
+        compiled.add(CompiledFence.compile(fence, geometry(fence)));
+      } catch (Exception e) {
+        log.warn("[围栏索引] 围栏配置解析失败, fenceId={}, err={}", fence.getId(), e.getMessage());
+      }
+    }
+    return FenceGridIndex.build(compiled, cellDegrees, maxCellsPerFence);
+  }
+
+  private FenceGeometry geometry(IoTDeviceGeoFence fence) {
+    CachedGeometry cached = geometries.getIfPresent(fence.getId());
+    if (cached != null && cached.sameAs(fence)) {
+      return cached.geometry();
+    }
+    FenceGeometry geometry = FenceGeometry.parse(fence);
+    geometries.put(
+        fence.getId(),
+        new CachedGeometry(
+            fence.getType(), fence.getPoint(), fence.getRadius(), fence.getFence(), geometry));
+    return geometry;
+  }
+
+  private record DeviceFences(String creatorId, FenceGridIndex index) {}
+
+  private record CachedGeometry(
+      String type, String point, BigDecimal radius, String fence, FenceGeometry geometry) {
+
+    private boolean sameAs(IoTDeviceGeoFence source) {
+      return Objects.equals(type, source.getType())
+          && Objects.equals(point, source.getPoint())
+          && Objects.equals(radius, source.getRadius())
+          && Objects.equals(fence, source.getFence());
+    }
+  }
+}
@@ -14,7 +14,6 @@ package cn.universal.rule.fence.service;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import cn.universal.common.constant.IoTConstant;
@@ -24,6 +23,7 @@ import cn.universal.common.domain.R;
 import cn.universal.common.event.EventTopics;
 import cn.universal.common.event.processer.EventPublisher;
 import cn.universal.common.utils.DelayedTaskUtil;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.core.message.DownRequest;
 import cn.universal.dm.device.constant.DeviceManagerConstant;
 import cn.universal.dm.device.service.IoTUPPushAdapter;
@@ -41,14 +41,16 @@ import cn.universal.persistence.mapper.IoTDeviceGeoFenceMapper;
 import cn.universal.persistence.mapper.IoTDeviceLogMapper;
 import cn.universal.persistence.mapper.IoTDeviceLogShardMapper;
 import cn.universal.rule.fence.enums.FenceTouchWay;
-import cn.universal.rule.fence.enums.FenceType;
-import cn.universal.rule.fence.utils.RegionUtil;
+import cn.universal.rule.fence.index.CompiledFence;
+import cn.universal.rule.fence.index.FenceGeometry;
+import cn.universal.rule.fence.index.FenceGridIndex;
+import cn.universal.rule.fence.index.FenceIndexCache;
 import jakarta.annotation.Resource;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -64,7 +66,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 
 /**
  * 设备围栏 @Author ruoyi
@@ -89,6 +90,7 @@ public class FenceService extends IoTUPPushAdapter {
   @Autowired private IoTProductDeviceService iotProductDeviceService;
   @Resource private StringRedisTemplate stringRedisTemplate;
   @Resource private EventPublisher eventPublisher;
+  @Resource private FenceIndexCache fenceIndexCache;
 
   /** 日志分表是否开启 */
   @Value("${shard.log.enable}")
@@ -130,6 +132,7 @@ public class FenceService extends IoTUPPushAdapter {
     ioTDeviceFenceRelMapper.deleteByPrimaryKey(ins.getId());
 
     ioTDeviceGeoFenceMapper.deleteByPrimaryKey(ins.getFenceId());
+    fenceChanged();
     return R.ok();
   }
 
@@ -151,14 +154,41 @@ public class FenceService extends IoTUPPushAdapter {
       instanceFence.setCreateDate(new Date());
       instanceFence.setCreatorId(ioTDevice.getCreatorId());
       ioTDeviceFenceRelMapper.insertSelective(instanceFence);
+      deviceFenceChanged(ioTDevice.getIotId());
     } else {
       ioTDeviceGeoFence.setCreatorId(ioTDevice.getCreatorId());
       ioTDeviceGeoFence.setUpdateDate(new Date());
       ioTDeviceGeoFenceMapper.updateByPrimaryKeySelective(ioTDeviceGeoFence);
+      fenceChanged();
     }
     return R.ok();
   }
 
+  /** 围栏本身变更（新增、修改、启停、删除）：失效全部设备的围栏索引并通知集群其他节点，事务中在提交后执行 */
+  public void fenceChanged() {
+    TransactionUtils.afterCommit(
+        () -> {
+          fenceIndexCache.invalidateAll();
+          eventPublisher.publishEvent(EventTopics.FENCE_UPDATED, null);
+        });
+  }
+
+  /**
+   * 设备绑定或解绑围栏：失效该设备的围栏索引并通知集群其他节点，事务中在提交后执行
+   *
+   * @param iotId 设备
+   */
+  public void deviceFenceChanged(String iotId) {
+    if (StrUtil.isBlank(iotId)) {
+      return;
+    }
+    TransactionUtils.afterCommit(
+        () -> {
+          fenceIndexCache.invalidate(iotId);
+          eventPublisher.publishEvent(EventTopics.FENCE_UPDATED, iotId);
+        });
+  }
+
   /** 获取电子围栏 */
   public R getFence(IoTDevice ioTDevice, DownRequest downRequest) {
 
@@ -184,130 +214,55 @@ public class FenceService extends IoTUPPushAdapter {
 
   private BaseUPRequest doTestEvent(
       BaseUPRequest downRequest,
-      IoTDeviceLog ioTDeviceLog,
-      IoTDeviceGeoFence ioTDeviceGeoFence,
-      IoTDeviceDTO instanceBO) {
-    if (Objects.isNull(ioTDeviceLog)) {
+      CompiledFence compiledFence,
+      IoTDeviceDTO instanceBO,
+      Track track,
+      String week,
+      LocalTime now) {
+    IoTDeviceGeoFence ioTDeviceGeoFence = compiledFence.getFence();
+    // 判断星期几
+    if (!compiledFence.inWeek(week)) {
+      log.info("定位设备不在判断星期内:{}", week);
       return null;
     }
-    if (!downRequest.getProperties().containsKey(DeviceManagerConstant.COORDINATES)) {
-      return null;
-    }
-    if (StrUtil.isNotEmpty(ioTDeviceGeoFence.getWeekTime())) {
-      // 判断星期几
-      Date date = new Date();
-      SimpleDateFormat format = new SimpleDateFormat("EEEE", Locale.ENGLISH);
-      String week = format.format(date);
-      int w = ioTDeviceGeoFence.getWeekTime().indexOf(week);
-      if (w == -1) {
-        log.info("定位设备不在判断星期内:{}", week);
-        return null;
-      }
-      // 判断时间在不在范围内
-      SimpleDateFormat format1 = new SimpleDateFormat("yyyy-MM-dd");
-      String d = format1.format(date);
-      String beginTime = ioTDeviceGeoFence.getBeginTime();
-      String endTime = ioTDeviceGeoFence.getEndTime();
-      String beginTimeLast = d + " " + beginTime;
-      String endTimeLast = d + " " + endTime;
-      LocalDateTime now = LocalDateTime.now();
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-      LocalDateTime t1 = LocalDateTime.parse(beginTimeLast, formatter);
-      LocalDateTime t2 = LocalDateTime.parse(endTimeLast, formatter);
-      if (!(now.isAfter(t1) && now.isBefore(t2))) {
-        log.info(
-            "定位设备不在判断时间内,fenceId={},deviceId={}",
-            ioTDeviceGeoFence.getId(),
-            instanceBO.getDeviceId());
-        return null;
-      }
-    }
-    // 上次日志
-    JSONObject properties =
-        JSONUtil.parseObj(ioTDeviceLog.getContent()).getJSONObject("properties");
-    double lastLng;
-    double lastLat;
-    if (properties.containsKey(DeviceManagerConstant.COORDINATES)) {
-      String[] coordinate = properties.getStr(DeviceManagerConstant.COORDINATES).split(",");
-      lastLng = Double.parseDouble(coordinate[0]);
-      lastLat = Double.parseDouble(coordinate[1]);
-    } else {
+    // 判断时间在不在范围内
+    if (!compiledFence.inTime(now)) {
+      log.info(
+          "定位设备不在判断时间内,fenceId={},deviceId={}",
+          ioTDeviceGeoFence.getId(),
+          instanceBO.getDeviceId());
       return null;
     }
 
     // 不触发时间判断
-    if (StrUtil.isNotEmpty(ioTDeviceGeoFence.getNoTriggerTime())) {
-      JSONArray noTriggerTime = JSONUtil.parseArray(ioTDeviceGeoFence.getNoTriggerTime());
-      DateTimeFormatter sdf = DateTimeFormatter.ofPattern("HH:mm:ss");
-      LocalTime now = LocalTime.now();
-      int size = noTriggerTime.size();
-      for (int i = 0; i < size; i++) {
-        String[] time = noTriggerTime.get(i).toString().split("-");
-        LocalTime start = LocalTime.parse(time[0]);
-        LocalTime end = LocalTime.parse(time[1]);
-        if (now.isAfter(start) && now.isBefore(end)) {
-          log.info(
-              "定位设备在不触发时间内,fenceId={},deviceId={}",
-              ioTDeviceGeoFence.getId(),
-              instanceBO.getDeviceId());
-          String key =
-              IoTConstant.FENCE_TRIGGER_SIGN
-                  + ":"
-                  + downRequest.getDeviceId()
-                  + ":"
-                  + ioTDeviceGeoFence.getId();
-          if (Boolean.FALSE.equals(stringRedisTemplate.hasKey(key))) {
-            long seconds = Duration.between(now, end).getSeconds();
-            stringRedisTemplate.opsForValue().set(key, "1", seconds, TimeUnit.SECONDS);
-            JSONObject object = new JSONObject();
-            object.set("coordinate", lastLng + "," + lastLat);
-            object.set("fenceId", ioTDeviceGeoFence.getId());
-            object.set("instanceBO", JSONUtil.toJsonStr(instanceBO));
-            eventPublisher.publishEvent(EventTopics.FENCE_EVENT, object, seconds);
-          }
-          return null;
-        }
+    LocalTime end = compiledFence.noTriggerEnd(now);
+    if (end != null) {
+      log.info(
+          "定位设备在不触发时间内,fenceId={},deviceId={}",
+          ioTDeviceGeoFence.getId(),
+          instanceBO.getDeviceId());
+      String key =
+          IoTConstant.FENCE_TRIGGER_SIGN
+              + ":"
+              + downRequest.getDeviceId()
+              + ":"
+              + ioTDeviceGeoFence.getId();
+      if (Boolean.FALSE.equals(stringRedisTemplate.hasKey(key))) {
+        long seconds = Duration.between(now, end).getSeconds();
+        stringRedisTemplate.opsForValue().set(key, "1", seconds, TimeUnit.SECONDS);
+        JSONObject object = new JSONObject();
+        object.set("coordinate", track.lastLng() + "," + track.lastLat());
+        object.set("fenceId", ioTDeviceGeoFence.getId());
+        object.set("instanceBO", JSONUtil.toJsonStr(instanceBO));
+        eventPublisher.publishEvent(EventTopics.FENCE_EVENT, object, seconds);
       }
+      return null;
     }
 
-    boolean thisIn = false;
-    boolean lastIn = false;
-
-    String[] coordinate =
-        downRequest.getProperties().get(DeviceManagerConstant.COORDINATES).toString().split(",");
-    double lng = Double.parseDouble(coordinate[0]);
-    double lat = Double.parseDouble(coordinate[1]);
-
     // 判断是否在范围内
-    if (FenceType.circle.name().equals(ioTDeviceGeoFence.getType())) {
-      String[] point = ioTDeviceGeoFence.getPoint().split(",");
-      thisIn =
-          RegionUtil.isInCircle(
-              lng,
-              lat,
-              Double.parseDouble(point[0]),
-              Double.parseDouble(point[1]),
-              ioTDeviceGeoFence.getRadius().doubleValue());
-
-      lastIn =
-          RegionUtil.isInCircle(
-              lastLng,
-              lastLat,
-              Double.parseDouble(point[0]),
-              Double.parseDouble(point[1]),
-              ioTDeviceGeoFence.getRadius().doubleValue());
-    } else {
-      JSONArray fences = JSONUtil.parseArray(ioTDeviceGeoFence.getFence());
-      double[] fLng = new double[fences.size()];
-      double[] fLat = new double[fences.size()];
-      for (int i = 0; i < fences.size(); i++) {
-        String[] arr = fences.get(i).toString().split(",");
-        fLng[i] = Double.parseDouble(arr[0]);
-        fLat[i] = Double.parseDouble(arr[1]);
-      }
-      thisIn = RegionUtil.isInPolygon(lng, lat, fLng, fLat);
-      lastIn = RegionUtil.isInPolygon(lastLng, lastLat, fLng, fLat);
-    }
+    FenceGeometry geometry = compiledFence.getGeometry();
+    boolean thisIn = geometry.contains(track.lng(), track.lat());
+    boolean lastIn = geometry.contains(track.lastLng(), track.lastLat());
 
     if (ioTDeviceGeoFence.getTouchWay().equals(FenceTouchWay.in.name())
         || ioTDeviceGeoFence.getTouchWay().equals(FenceTouchWay.all.name())) {
@@ -424,14 +379,13 @@ public class FenceService extends IoTUPPushAdapter {
    */
   @Async("taskExecutor")
   public void testFence(BaseUPRequest upRequest, IoTDeviceDTO instanceBO) {
-    List<IoTDeviceGeoFence> ioTDeviceGeoFences =
-        ioTDeviceGeoFenceMapper.selectByIotId(instanceBO.getIotId(), upRequest.getUserUnionId());
-    if (CollectionUtils.isEmpty(ioTDeviceGeoFences)) {
+    if (upRequest.getProperties() == null
+        || !upRequest.getProperties().containsKey(DeviceManagerConstant.COORDINATES)) {
       return;
     }
-    ioTDeviceGeoFences =
-        ioTDeviceGeoFences.stream().filter(f -> f.getStatus() == 0).collect(Collectors.toList());
-    if (CollectionUtils.isEmpty(ioTDeviceGeoFences)) {
+    FenceGridIndex fenceIndex =
+        fenceIndexCache.get(instanceBO.getIotId(), upRequest.getUserUnionId());
+    if (fenceIndex.isEmpty()) {
       return;
     }
     IoTDeviceLog ioTDeviceLog;
@@ -441,15 +395,44 @@ public class FenceService extends IoTUPPushAdapter {
     } else {
       ioTDeviceLog = ioTDeviceLogMapper.queryCoordinatesLogByIotId(instanceBO.getIotId());
     }
-
-    ioTDeviceGeoFences.forEach(
-        f -> {
-          BaseUPRequest request = doTestEvent(upRequest, ioTDeviceLog, f, instanceBO);
-          if (Objects.nonNull(request)) {
-            IoTProduct product = iotProductDeviceService.getProduct(request.getProductKey());
-            iIoTDeviceDataService.saveDeviceLog(request, request.getIoTDeviceDTO(), product);
-            doUp(Stream.of(request).collect(Collectors.toList()));
-          }
-        });
+    if (Objects.isNull(ioTDeviceLog)) {
+      return;
+    }
+    // 上次日志
+    JSONObject properties =
+        JSONUtil.parseObj(ioTDeviceLog.getContent()).getJSONObject("properties");
+    if (!properties.containsKey(DeviceManagerConstant.COORDINATES)) {
+      return;
+    }
+    String[] lastCoordinate = properties.getStr(DeviceManagerConstant.COORDINATES).split(",");
+    String[] coordinate =
+        upRequest.getProperties().get(DeviceManagerConstant.COORDINATES).toString().split(",");
+    Track track =
+        new Track(
+            Double.parseDouble(coordinate[0]),
+            Double.parseDouble(coordinate[1]),
+            Double.parseDouble(lastCoordinate[0]),
+            Double.parseDouble(lastCoordinate[1]));
+
+    // 只判断两次坐标之一落在外包矩形内的围栏
+    List<CompiledFence> candidates =
+        fenceIndex.candidates(track.lng(), track.lat(), track.lastLng(), track.lastLat());
+    if (candidates.isEmpty()) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    String week = now.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+    for (CompiledFence f : candidates) {
+      BaseUPRequest request =
+          doTestEvent(upRequest, f, instanceBO, track, week, now.toLocalTime());
+      if (Objects.nonNull(request)) {
+        IoTProduct product = iotProductDeviceService.getProduct(request.getProductKey());
+        iIoTDeviceDataService.saveDeviceLog(request, request.getIoTDeviceDTO(), product);
+        doUp(Stream.of(request).collect(Collectors.toList()));
+      }
+    }
   }
+
+  /** 本次和上次上报的坐标 */
+  private record Track(double lng, double lat, double lastLng, double lastLat) {}
 }
@@ -12,11 +12,6 @@
 
 package cn.universal.rule.fence.utils;
 
-import java.awt.geom.Point2D;
-import java.awt.geom.Point2D.Double;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * todo @Author gitee.com/NexIoT
  *
@@ -33,7 +28,7 @@ public class RegionUtil {
   }
 
   /**
-   * 判断是否在多边形区域内
+   * 判断是否在多边形区域内，按非零环绕规则判断（与 GeneralPath 默认规则一致），直接遍历顶点数组不创建对象
    *
    * @param pointLon 要判断的点的横坐标 经度
    * @param pointLat 要判断的点的纵坐标 维度
@@ -42,41 +37,30 @@ public class RegionUtil {
    * @return
    */
   public static boolean isInPolygon(double pointLon, double pointLat, double[] lon, double[] lat) {
-    // 将要判断的横纵坐标组成一个点
-    Point2D.Double point = new Point2D.Double(pointLon, pointLat);
-    // 将区域各顶点的横纵坐标放到一个点集合里面
-    List<Point2D.Double> pointList = new ArrayList<Double>();
-    double x = 0.0, y = 0.0;
-    for (int i = 0; i < lon.length; i++) {
-      x = lon[i];
-      y = lat[i];
-      Point2D.Double polygonPoint = new Point2D.Double(x, y);
-      pointList.add(polygonPoint);
+    int n = Math.min(lon.length, lat.length);
+    int winding = 0;
+    // 依次取每条边，最后一条边从末顶点回到首顶点封闭多边形
+    for (int i = 0, j = n - 1; i < n; j = i++) {
+      double x0 = lon[j];
+      double y0 = lat[j];
+      double x1 = lon[i];
+      double y1 = lat[i];
+      if (y0 <= pointLat) {
+        // 向上穿过且点在边左侧
+        if (y1 > pointLat && cross(x0, y0, x1, y1, pointLon, pointLat) > 0) {
+          winding++;
+        }
+      } else if (y1 <= pointLat && cross(x0, y0, x1, y1, pointLon, pointLat) < 0) {
+        // 向下穿过且点在边右侧
+        winding--;
+      }
     }
-    return check(point, pointList);
+    return winding != 0;
   }
 
-  /**
-   * @param point 要判断的点的横纵坐标
-   * @param polygon 组成的顶点坐标集合
-   * @return
-   */
-  private static boolean check(Point2D.Double point, List<Point2D.Double> polygon) {
-    java.awt.geom.GeneralPath peneralPath = new java.awt.geom.GeneralPath();
-
-    Point2D.Double first = polygon.get(0);
-    // 通过移动到指定坐标（以双精度指定），将一个点添加到路径中
-    peneralPath.moveTo(first.x, first.y);
-    polygon.remove(0);
-    for (Point2D.Double d : polygon) {
-      // 通过绘制一条从当前坐标到新指定坐标（以双精度指定）的直线，将一个点添加到路径中。
-      peneralPath.lineTo(d.x, d.y);
-    }
-    // 将几何多边形封闭
-    peneralPath.lineTo(first.x, first.y);
-    peneralPath.closePath();
-    // 测试指定的 Point2D 是否在 Shape 的边界内。
-    return peneralPath.contains(point);
+  /** 点相对边 (x0,y0)->(x1,y1) 的叉积，大于0在左侧 */
+  private static double cross(double x0, double y0, double x1, double y1, double x, double y) {
+    return (x1 - x0) * (y - y0) - (x - x0) * (y1 - y0);
   }
 
   /**
@@ -0,0 +1,133 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.index;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 不可变快照索引基类
+ *
+ * <p>按id保存已编译的条目，并由全部条目构建查询结构。快照变更时复制后整体替换，读取无锁；首次查询时全量加载，
+ * 单条变更通过 {@link #refresh(Long)} 增量更新，子类定时调用 {@link #reload()} 全量重载，兜底丢失的变更通知。
+ *
+ * @param <V> 已编译的条目
+ * @param <D> 查询结构
+ * @since 2025/12/10
+ */
+@Slf4j
+public abstract class SnapshotIndex<V, D> {
+
+  private volatile Snapshot<V, D> snapshot;
+
+  /** 索引名称，用于日志 */
+  protected abstract String name();
+
+  /**
+   * 加载全部条目
+   *
+   * @return id -> 条目，无需索引的条目不放入
+   */
+  protected abstract Map<Long, V> loadAll();
+
+  /**
+   * 加载单个条目
+   *
+   * @param id 条目id
+   * @return 条目，已删除或无需索引时为null
+   */
+  protected abstract V load(Long id);
+
+  /**
+   * 构建查询结构
+   *
+   * @param byId 全部条目，不可修改
+   * @return 查询结构
+   */
+  protected abstract D index(Map<Long, V> byId);
+
+  /** 当前索引版本，每次变更加一 */
+  public long getVersion() {
+    Snapshot<V, D> current = snapshot;
+    return current == null ? 0L : current.version();
+  }
+
+  /**
+   * 当前查询结构，首次调用时全量加载
+   *
+   * @return 查询结构，加载失败时为null
+   */
+  protected D lookup() {
+    Snapshot<V, D> current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          try {
+            doReload();
+          } catch (Exception e) {
+            log.error("[{}] 全量加载失败", name(), e);
+          }
+        }
+        current = snapshot;
+      }
+    }
+    return current == null ? null : current.lookup();
+  }
+
+  /** 全量重载 */
+  public void reload() {
+    try {
+      synchronized (this) {
+        doReload();
+      }
+    } catch (Exception e) {
+      log.error("[{}] 全量重载失败", name(), e);
+    }
+  }
+
+  private void doReload() {
+    Map<Long, V> byId = new HashMap<>(loadAll());
+    publish(byId);
+    log.info("[{}] 全量加载完成, size={}, version={}", name(), byId.size(), getVersion());
+  }
+
+  /**
+   * 增量刷新单个条目，条目被删除或无需索引时移出
+   *
+   * @param id 条目id
+   */
+  public synchronized void refresh(Long id) {
+    if (id == null || snapshot == null) {
+      // 尚未加载，首次查询时会全量加载
+      return;
+    }
+    V value = load(id);
+    Map<Long, V> byId = new HashMap<>(snapshot.byId());
+    if (value == null) {
+      byId.remove(id);
+    } else {
+      byId.put(id, value);
+    }
+    publish(byId);
+    log.info("[{}] 增量刷新, id={}, indexed={}, version={}", name(), id, value != null, getVersion());
+  }
+
+  private void publish(Map<Long, V> byId) {
+    Map<Long, V> frozen = Collections.unmodifiableMap(byId);
+    snapshot = new Snapshot<>(getVersion() + 1, frozen, index(frozen));
+  }
+
+  private record Snapshot<V, D>(long version, Map<Long, V> byId, D lookup) {}
+}
@@ -13,16 +13,15 @@
 package cn.universal.rule.scene.deviceUp;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.util.CollectionUtils;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
@@ -31,13 +30,12 @@ import cn.universal.core.message.UPRequest;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.entity.IoTDeviceRuleLog;
 import cn.universal.persistence.entity.SceneLinkage;
-import cn.universal.persistence.entity.bo.TriggerBO;
-import cn.universal.persistence.mapper.IoTDeviceRuleLogMapper;
-import cn.universal.persistence.mapper.SceneLinkageMapper;
 import cn.universal.rule.enums.RunStatus;
-import cn.universal.rule.express.ExpressTemplate;
 import cn.universal.rule.model.ExeRunContext;
 import cn.universal.rule.scene.deviceDown.SenceIoTDeviceDownService;
+import cn.universal.rule.scene.service.SceneRuleLogWriter;
+import cn.universal.rule.scene.trigger.LinkageTrigger;
+import cn.universal.rule.scene.trigger.SceneTriggerIndex;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,12 +45,11 @@ public abstract class AbstractDeviceUp implements DeviceUp {
   /** 场景联动类型 */
   public byte ruleLogType = 1;
 
-  @Resource private SceneLinkageMapper sceneLinkageMapper;
   @Resource private StringRedisTemplate stringRedisTemplate;
-  @Resource protected ExpressTemplate expressTemplate;
+  @Resource protected SceneTriggerIndex sceneTriggerIndex;
   @Resource private SenceIoTDeviceDownService senceIoTDeviceDownService;
 
-  @Resource private IoTDeviceRuleLogMapper ioTDeviceRuleLogMapper;
+  @Resource private SceneRuleLogWriter sceneRuleLogWriter;
 
   @Override
   public void consumer(UPRequest upRequest, IoTDeviceDTO ioTDeviceDTO) {
@@ -75,31 +72,30 @@ public abstract class AbstractDeviceUp implements DeviceUp {
 
   /** 判断触发条件是否满足 */
   public void doTestTrigger(UPRequest upRequest, IoTDeviceDTO ioTDeviceDTO) {
-    List<SceneLinkage> sceneLinkageList = null;
+    List<LinkageTrigger> triggers = null;
     
     try {
-      // 查询启用的规则
-      sceneLinkageList =
-          sceneLinkageMapper.selectSceneLinkageListByProductKeyAndDeviceId(
-              ioTDeviceDTO.getProductKey(), ioTDeviceDTO.getDeviceId());
+      // 从索引中取出引用了该消息所带属性或事件的启用联动
+      triggers = candidates(ioTDeviceDTO.getProductKey(), ioTDeviceDTO.getDeviceId(), upRequest);
       
       // 是否存在该设备的场景联动
-      if (CollectionUtils.isEmpty(sceneLinkageList)) {
+      if (CollectionUtils.isEmpty(triggers)) {
         log.debug("[场景联动] 未找到设备的场景联动配置，设备ID: {}, 产品Key: {}", 
             ioTDeviceDTO.getDeviceId(), ioTDeviceDTO.getProductKey());
         return;
       }
       
       log.info("[场景联动] 找到 {} 个场景联动配置，设备ID: {}", 
-          sceneLinkageList.size(), ioTDeviceDTO.getDeviceId());
+          triggers.size(), ioTDeviceDTO.getDeviceId());
     } catch (Exception e) {
       log.error("[场景联动] 查询场景联动配置异常，设备ID: {}", ioTDeviceDTO.getDeviceId(), e);
       return;
     }
     
     List<IoTDeviceRuleLog> logRules = new ArrayList<>();
-    sceneLinkageList.forEach(
-        sceneLinkage -> {
+    triggers.forEach(
+        trigger -> {
+          SceneLinkage sceneLinkage = trigger.getLinkage();
           // 创建日志
           IoTDeviceRuleLog logRule =
               IoTDeviceRuleLog.builder()
@@ -111,6 +107,15 @@ public abstract class AbstractDeviceUp implements DeviceUp {
                   .createTime(new Date())
                   .build();
           try {
+            // 是否满足触发条件，先做内存判断，满足后再查沉默周期
+            boolean isTouch = testTrigger(trigger, upRequest);
+            if (!isTouch) {
+              log.debug(
+                  "[场景联动] 不满足触发条件，场景ID: {}, 设备ID: {}",
+                  sceneLinkage.getId(),
+                  ioTDeviceDTO.getDeviceId());
+              return;
+            }
             // 沉默周期判断
             String sleepKey =
                 String.format(
@@ -124,10 +129,8 @@ public abstract class AbstractDeviceUp implements DeviceUp {
               logRule.setContent("处于沉默周期中");
               return;
             }
-            // 是否满足触发条件
-            boolean isTouch = testDeviceTrigger(sceneLinkage, upRequest);
             // 进入沉默周期
-            if (isTouch && !sceneLinkage.getSleepCycle().equals(0)) {
+            if (!sceneLinkage.getSleepCycle().equals(0)) {
               stringRedisTemplate
                   .opsForValue()
                   .set(
@@ -136,13 +139,6 @@ public abstract class AbstractDeviceUp implements DeviceUp {
                       sceneLinkage.getSleepCycle(),
                       TimeUnit.SECONDS);
             }
-            if (!isTouch) {
-              log.debug(
-                  "[场景联动] 不满足触发条件，场景ID: {}, 设备ID: {}",
-                  sceneLinkage.getId(),
-                  ioTDeviceDTO.getDeviceId());
-              return;
-            }
             
             log.info(
                 "[场景联动] 触发条件满足，开始执行动作，场景ID: {}, 设备ID: {}",
@@ -170,47 +166,26 @@ public abstract class AbstractDeviceUp implements DeviceUp {
           }
         });
     if (CollectionUtil.isNotEmpty(logRules)) {
-      try {
-        ioTDeviceRuleLogMapper.insertList(logRules);
-        log.info("[场景联动] 场景联动日志保存成功，共 {} 条日志", logRules.size());
-      } catch (Exception e) {
-        log.error("[场景联动] 保存场景联动日志异常", e);
-      }
+      // 异步批量写入
+      sceneRuleLogWriter.write(logRules);
     }
   }
 
-  /** 判断是否存在设备触发的条件 */
-  public Boolean testDeviceTrigger(SceneLinkage sceneLinkage, UPRequest upRequest) {
-    JSONArray jsonArray = JSONUtil.parseArray(sceneLinkage.getTriggerCondition());
-    if (CollectionUtils.isEmpty(jsonArray)) {
-      log.debug("触发条件为空deviceId={}", upRequest.getDeviceId());
-      return false;
-    }
-
-    List<TriggerBO> triggers =
-        jsonArray.stream()
-            .map(o -> BeanUtil.toBean(o, TriggerBO.class))
-            .filter(
-                o ->
-                    "device".equals(o.getTrigger())
-                        && upRequest.getMessageType().name().equalsIgnoreCase(o.getType()))
-            .collect(Collectors.toList());
-
-    if (CollectionUtils.isEmpty(triggers)) {
-      log.warn("触发行为为空");
-      return false;
-    }
-    String separator = "one".equalsIgnoreCase(sceneLinkage.getTouch()) ? " || " : " && ";
-    log.info(
-        "触发条件执行,id={},touch={},separator={}",
-        sceneLinkage.getId(),
-        sceneLinkage.getTouch(),
-        separator);
-    return testAlarm(triggers, separator, upRequest);
+  /**
+   * 候选场景联动：只返回引用了该消息所带属性或事件的联动
+   *
+   * @param productKey 产品Key
+   * @param deviceId 设备ID
+   * @param upRequest 上行消息
+   * @return 候选联动
+   */
+  protected List<LinkageTrigger> candidates(
+      String productKey, String deviceId, UPRequest upRequest) {
+    return Collections.emptyList();
   }
 
   /** 具体判断事件或属性 */
-  public boolean testAlarm(List<TriggerBO> triggers, String separator, UPRequest upRequest) {
+  public boolean testTrigger(LinkageTrigger trigger, UPRequest upRequest) {
     return false;
   }
 
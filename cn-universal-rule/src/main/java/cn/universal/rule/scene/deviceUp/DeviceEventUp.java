@@ -14,11 +14,8 @@ package cn.universal.rule.scene.deviceUp;
 
 import cn.universal.common.constant.IoTConstant;
 import cn.universal.core.message.UPRequest;
-import cn.universal.persistence.entity.bo.TriggerBO;
-import java.util.HashMap;
+import cn.universal.rule.scene.trigger.LinkageTrigger;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -32,16 +29,13 @@ public class DeviceEventUp extends AbstractDeviceUp implements DeviceUp {
   }
 
   @Override
-  public boolean testAlarm(List<TriggerBO> triggers, String separator, UPRequest upRequest) {
-    String express =
-        triggers.stream()
-            .map(triggerBo -> String.format("'%s'== event", triggerBo.getModelId()))
-            .collect(Collectors.joining(separator));
-    Map<String, Object> content = new HashMap<>(2);
-    content.put("event", upRequest.getEvent());
-    content.put("eventName", upRequest.getEventName());
-    content.put("eventData", upRequest.getData());
-    log.info("执行场景联动条件,express={},properties={}", express, content);
-    return expressTemplate.executeTest(express, content);
+  protected List<LinkageTrigger> candidates(
+      String productKey, String deviceId, UPRequest upRequest) {
+    return sceneTriggerIndex.matchEvent(productKey, deviceId, upRequest.getEvent());
+  }
+
+  @Override
+  public boolean testTrigger(LinkageTrigger trigger, UPRequest upRequest) {
+    return trigger.testEvent(upRequest.getEvent());
   }
 }
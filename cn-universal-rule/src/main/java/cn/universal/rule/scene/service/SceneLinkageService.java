@@ -15,6 +15,9 @@ package cn.universal.rule.scene.service;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.json.JSONUtil;
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.EventPublisher;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.core.message.UPRequest;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.entity.IoTDeviceRuleLog;
@@ -29,6 +32,7 @@ import cn.universal.quartz.service.ISysJobService;
 import cn.universal.rule.model.ExeRunContext;
 import cn.universal.rule.scene.deviceDown.SenceIoTDeviceDownService;
 import cn.universal.rule.scene.deviceUp.DeviceUp;
+import cn.universal.rule.scene.trigger.SceneTriggerIndex;
 import com.github.pagehelper.PageHelper;
 import jakarta.annotation.Resource;
 import java.util.Date;
@@ -66,6 +70,10 @@ public class SceneLinkageService {
 
   @Resource private StringRedisTemplate stringRedisTemplate;
 
+  @Resource private SceneTriggerIndex sceneTriggerIndex;
+
+  @Resource private EventPublisher eventPublisher;
+
   public SceneLinkageService(List<DeviceUp> deviceUps) {
     //    Map<String, DeviceUp> beans = SpringUtil.getBeansOfType(DeviceUp.class);
     deviceUpMap =
@@ -130,6 +138,7 @@ public class SceneLinkageService {
       sceneLinkage.setId(sceneLinkage1.getId());
       // 定时任务结果 -1为没有定时触发  0新增失败 1成功
       addJob(sceneLinkage, sysJob);
+      linkageChanged(sceneLinkage1.getId());
     }
     return rows;
   }
@@ -169,6 +178,7 @@ public class SceneLinkageService {
           pauseJob(sceneLinkage.getId());
         }
       }
+      linkageChanged(sceneLinkage.getId());
     }
     return rows;
   }
@@ -184,6 +194,9 @@ public class SceneLinkageService {
     int rows = sceneLinkageMapper.deleteSceneLinkageByIds(ids);
     if (rows > 0) {
       delJob(ids[0]);
+      for (Long id : ids) {
+        linkageChanged(id);
+      }
     }
     return rows;
   }
@@ -195,7 +208,24 @@ public class SceneLinkageService {
    * @return 结果
    */
   public int deleteSceneLinkageById(Long id) {
-    return sceneLinkageMapper.deleteSceneLinkageById(id);
+    int rows = sceneLinkageMapper.deleteSceneLinkageById(id);
+    if (rows > 0) {
+      linkageChanged(id);
+    }
+    return rows;
+  }
+
+  /**
+   * 场景联动变更：刷新本地触发索引并通知集群其他节点，事务中在提交后执行
+   *
+   * @param id 场景联动ID
+   */
+  private void linkageChanged(Long id) {
+    TransactionUtils.afterCommit(
+        () -> {
+          sceneTriggerIndex.refresh(id);
+          eventPublisher.publishEvent(EventTopics.SCENE_LINKAGE_UPDATED, id);
+        });
   }
 
   /** 执行动作 */
@@ -0,0 +1,153 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.scene.service;
+
+import cn.universal.persistence.entity.IoTDeviceRuleLog;
+import cn.universal.persistence.mapper.IoTDeviceRuleLogMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 场景联动执行日志异步批量写入
+ *
+ * <p>日志先进入有界队列，由后台线程按批量大小或刷新间隔合并为一次 insertList。队列满时由调用线程直接写入，不丢日志
+ *
+ * @since 2023-03-01
+ */
+@Slf4j
+@Component
+public class SceneRuleLogWriter {
+
+  @Resource private IoTDeviceRuleLogMapper ioTDeviceRuleLogMapper;
+
+  @Value("${scene.rule-log.batch-size:200}")
+  private int batchSize;
+
+  @Value("${scene.rule-log.flush-interval-ms:1000}")
+  private long flushIntervalMs;
+
+  @Value("${scene.rule-log.queue-size:10000}")
+  private int queueSize;
+
+  private BlockingQueue<IoTDeviceRuleLog> queue;
+
+  private Thread worker;
+
+  private volatile boolean running;
+
+  private final AtomicLong written = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  @PostConstruct
+  public void start() {
+    queue = new LinkedBlockingQueue<>(Math.max(1, queueSize));
+    running = true;
+    worker = Thread.ofPlatform().name("scene-rule-log-writer").daemon().start(this::loop);
+  }
+
+  /**
+   * 提交日志，异步批量写入
+   *
+   * @param logs 日志
+   */
+  public void write(List<IoTDeviceRuleLog> logs) {
+    List<IoTDeviceRuleLog> overflow = null;
+    for (IoTDeviceRuleLog ruleLog : logs) {
+      if (!running || !queue.offer(ruleLog)) {
+        if (overflow == null) {
+          overflow = new ArrayList<>();
+        }
+        overflow.add(ruleLog);
+      }
+    }
+    if (overflow != null) {
+      flush(overflow);
+    }
+  }
+
+  private void loop() {
+    int size = Math.max(1, batchSize);
+    while (running) {
+      try {
+        IoTDeviceRuleLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        List<IoTDeviceRuleLog> batch = new ArrayList<>(size);
+        batch.add(first);
+        queue.drainTo(batch, size - 1);
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        log.error("[场景联动] 日志写入线程异常", e);
+      }
+    }
+  }
+
+  private void flush(List<IoTDeviceRuleLog> batch) {
+    try {
+      ioTDeviceRuleLogMapper.insertList(batch);
+      written.addAndGet(batch.size());
+      log.debug("[场景联动] 场景联动日志保存成功，共 {} 条日志", batch.size());
+    } catch (Exception e) {
+      failed.addAndGet(batch.size());
+      log.error("[场景联动] 保存场景联动日志异常，共 {} 条日志", batch.size(), e);
+    }
+  }
+
+  /** 停止时写完队列中剩余日志 */
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (worker != null) {
+      worker.interrupt();
+      try {
+        worker.join(flushIntervalMs + 1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<IoTDeviceRuleLog> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    int size = Math.max(1, batchSize);
+    for (int i = 0; i < rest.size(); i += size) {
+      flush(rest.subList(i, Math.min(rest.size(), i + size)));
+    }
+    log.info("[场景联动] 日志写入线程已停止, written={}, failed={}", written.get(), failed.get());
+  }
+
+  public long getWritten() {
+    return written.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  public int getPending() {
+    return queue.size();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.scene.trigger;
+
+import cn.universal.persistence.entity.SceneLinkage;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 场景联动在某个设备上的预编译触发条件
+ *
+ * @since 2025/8/26 18:51
+ */
+@Getter
+@AllArgsConstructor
+public class LinkageTrigger {
+
+  private final SceneLinkage linkage;
+
+  /** touch=one，任意一个条件满足即触发；否则全部满足才触发 */
+  private final boolean any;
+
+  /** 属性触发条件 */
+  private final List<PropertyCondition> conditions;
+
+  /** 事件触发的事件标识 */
+  private final List<String> eventIds;
+
+  /**
+   * 属性上报是否触发，只判断消息中携带的属性，消息未携带任何条件属性时不触发
+   *
+   * @param properties 上报属性
+   * @return 是否触发
+   * @throws IllegalArgumentException 判断到的条件在原表达式中会执行出错时
+   */
+  public boolean testProperties(Map<String, Object> properties) {
+    if (properties == null || properties.isEmpty()) {
+      return false;
+    }
+    boolean tested = false;
+    for (PropertyCondition condition : conditions) {
+      if (!properties.containsKey(condition.getKey())) {
+        continue;
+      }
+      tested = true;
+      boolean matched = condition.test(properties.get(condition.getKey()));
+      if (any && matched) {
+        return true;
+      }
+      if (!any && !matched) {
+        return false;
+      }
+    }
+    return tested && !any;
+  }
+
+  /**
+   * 事件上报是否触发
+   *
+   * @param event 事件标识
+   * @return 是否触发
+   */
+  public boolean testEvent(String event) {
+    if (event == null || eventIds.isEmpty()) {
+      return false;
+    }
+    for (String eventId : eventIds) {
+      boolean matched = event.equals(eventId);
+      if (any && matched) {
+        return true;
+      }
+      if (!any && !matched) {
+        return false;
+      }
+    }
+    return !any;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.scene.trigger;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.universal.persistence.entity.bo.TriggerBO.ConditionFilter;
+import cn.universal.persistence.entity.bo.TriggerBO.Operator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import lombok.Getter;
+
+/**
+ * 预编译的属性过滤条件
+ *
+ * <p>比较语义与原QLExpress表达式 {@code key op value} 一致：条件值为数字时作为数字字面量，否则作为字符串字面量
+ * （单个字符为字符字面量）；属性值或条件值任一为字符串时按字符串比较，两者都是数字时按数值比较；like 按 % 拆分后
+ * 依次查找各段，不锚定首尾。原表达式执行出错的情况（条件值不是表达式能解析的数字、null 做大小比较、数字或字符字面量
+ * 与非字符串属性比较）抛出异常
+ *
+ * @since 2025/8/26 18:51
+ */
+@Getter
+public class PropertyCondition {
+
+  /** 原表达式可解析的数字字面量：整数或小数 */
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("-?\\d+(\\.\\d*)?");
+
+  private final String key;
+
+  private final Operator operator;
+
+  private final String value;
+
+  /** 条件值为数字时的数值，否则为null */
+  private final BigDecimal number;
+
+  /** 条件值在原表达式中的字符串形式，数字为解析后的 Integer/Long/Double 文本；数字无法解析时为null */
+  private final String literal;
+
+  /** 单字符条件值在原表达式中是字符字面量，只能与字符串属性比较 */
+  private final boolean character;
+
+  /** like 条件按 % 拆分后的非空片段，条件值不含 % 时为null */
+  private final String[] likeParts;
+
+  private PropertyCondition(String key, Operator operator, String value) {
+    this.key = key;
+    this.operator = operator;
+    this.value = value == null ? "" : value;
+    if (NumberUtil.isNumber(this.value)) {
+      Number parsed = parseLiteral(this.value);
+      this.number = toNumber(parsed);
+      this.literal = parsed == null ? null : parsed.toString();
+    } else {
+      this.number = null;
+      this.literal = this.value;
+    }
+    this.character = number == null && this.value.length() == 1;
+    this.likeParts = literal != null && literal.contains("%") ? likeParts(literal) : null;
+  }
+
+  /**
+   * 编译过滤条件
+   *
+   * @param filter 过滤条件
+   * @return 编译后的条件
+   * @throws IllegalArgumentException 操作符不支持时
+   */
+  public static PropertyCondition of(ConditionFilter filter) {
+    return new PropertyCondition(
+        filter.getKey(), Operator.valueOf(filter.getOperator()), filter.getValue());
+  }
+
+  private static Number parseLiteral(String value) {
+    if (!NUMBER_LITERAL.matcher(value).matches()) {
+      return null;
+    }
+    try {
+      if (value.indexOf('.') >= 0) {
+        return Double.valueOf(value);
+      }
+      long l = Long.parseLong(value);
+      return l == (int) l ? Integer.valueOf((int) l) : Long.valueOf(l);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static String[] likeParts(String value) {
+    List<String> parts = new ArrayList<>();
+    for (String part : value.split("%")) {
+      if (!part.isEmpty()) {
+        parts.add(part);
+      }
+    }
+    return parts.toArray(new String[0]);
+  }
+
+  private boolean like(String actual) {
+    if (likeParts == null) {
+      return actual.equals(literal);
+    }
+    int from = 0;
+    for (String part : likeParts) {
+      if (from >= actual.length()) {
+        return false;
+      }
+      from = actual.indexOf(part, from);
+      if (from < 0) {
+        return false;
+      }
+      from++;
+    }
+    return true;
+  }
+
+  /**
+   * 判断属性值是否满足条件
+   *
+   * @param actual 属性值
+   * @return 是否满足
+   * @throws IllegalArgumentException 原表达式执行会出错时
+   */
+  public boolean test(Object actual) {
+    if (literal == null) {
+      throw new IllegalArgumentException("条件值不是合法数字, key=" + key + ", value=" + value);
+    }
+    if (actual == null) {
+      if (operator == Operator.eq || operator == Operator.not) {
+        return operator == Operator.not;
+      }
+      throw new IllegalArgumentException("属性值为null, 无法执行 " + operator.getSymbol() + ", key=" + key);
+    }
+    if (operator == Operator.like) {
+      return like(actual.toString());
+    }
+    int compared = compare(actual);
+    return switch (operator) {
+      case eq -> compared == 0;
+      case not -> compared != 0;
+      case gt -> compared > 0;
+      case lt -> compared < 0;
+      case gte -> compared >= 0;
+      case lte -> compared <= 0;
+      case like -> like(actual.toString());
+    };
+  }
+
+  private int compare(Object actual) {
+    if (actual instanceof String str) {
+      return str.compareTo(literal);
+    }
+    if (number == null && !character) {
+      return actual.toString().compareTo(literal);
+    }
+    BigDecimal actualNumber = number != null && actual instanceof Number n ? toNumber(n) : null;
+    if (actualNumber == null) {
+      throw new IllegalArgumentException(
+          "属性值与条件值无法比较, key=" + key + ", actual=" + actual.getClass().getSimpleName());
+    }
+    return actualNumber.compareTo(number);
+  }
+
+  private static BigDecimal toNumber(Number n) {
+    if (n == null) {
+      return null;
+    }
+    if (n instanceof BigDecimal decimal) {
+      return decimal;
+    }
+    if (n instanceof Double || n instanceof Float) {
+      double d = n.doubleValue();
+      return Double.isFinite(d) ? BigDecimal.valueOf(d) : null;
+    }
+    return new BigDecimal(n.toString());
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.scene.trigger;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import cn.universal.common.constant.IoTConstant.MessageType;
+import cn.universal.persistence.entity.SceneLinkage;
+import cn.universal.persistence.entity.bo.TriggerBO;
+import cn.universal.persistence.entity.bo.TriggerBO.ConditionFilter;
+import cn.universal.persistence.entity.bo.TriggerBO.TriggerType;
+import cn.universal.persistence.mapper.SceneLinkageMapper;
+import cn.universal.rule.index.SnapshotIndex;
+import cn.universal.rule.scene.trigger.SceneTriggerIndex.DeviceTriggers;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 场景联动设备触发索引
+ *
+ * <p>启用的场景联动按触发条件中的 productKey + deviceId 编译，再按属性标识、事件标识建立索引。上报消息只取出引用了其所带属性或事件的联动进行判断，
+ * 无需查库和解析触发条件JSON。
+ *
+ * @since 2025/8/26 18:51
+ */
+@Slf4j
+@Component
+public class SceneTriggerIndex
+    extends SnapshotIndex<Map<String, LinkageTrigger>, Map<String, DeviceTriggers>> {
+
+  /** 场景启用状态 */
+  private static final int STATUS_ENABLE = 0;
+
+  private static final String TOUCH_ONE = "one";
+
+  @Resource private SceneLinkageMapper sceneLinkageMapper;
+
+  /**
+   * 引用了上报属性的场景联动
+   *
+   * @return 候选联动，无匹配时为空列表
+   */
+  public List<LinkageTrigger> matchProperties(
+      String productKey, String deviceId, Map<String, Object> properties) {
+    DeviceTriggers triggers = deviceTriggers(productKey, deviceId);
+    if (triggers == null || properties == null || properties.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<LinkageTrigger> matched = null;
+    if (properties.size() <= triggers.byProperty().size()) {
+      for (String key : properties.keySet()) {
+        matched = collect(triggers.byProperty().get(key), matched);
+      }
+    } else {
+      for (Map.Entry<String, List<LinkageTrigger>> entry : triggers.byProperty().entrySet()) {
+        if (properties.containsKey(entry.getKey())) {
+          matched = collect(entry.getValue(), matched);
+        }
+      }
+    }
+    return matched == null ? Collections.emptyList() : matched;
+  }
+
+  /**
+   * 引用了上报事件的场景联动
+   *
+   * @return 候选联动，无匹配时为空列表
+   */
+  public List<LinkageTrigger> matchEvent(String productKey, String deviceId, String event) {
+    DeviceTriggers triggers = deviceTriggers(productKey, deviceId);
+    if (triggers == null || event == null) {
+      return Collections.emptyList();
+    }
+    return triggers.byEvent().getOrDefault(event, Collections.emptyList());
+  }
+
+  private static List<LinkageTrigger> collect(
+      List<LinkageTrigger> triggers, List<LinkageTrigger> matched) {
+    if (triggers == null) {
+      return matched;
+    }
+    for (LinkageTrigger trigger : triggers) {
+      if (matched == null) {
+        matched = new ArrayList<>(2);
+      }
+      if (!matched.contains(trigger)) {
+        matched.add(trigger);
+      }
+    }
+    return matched;
+  }
+
+  private DeviceTriggers deviceTriggers(String productKey, String deviceId) {
+    Map<String, DeviceTriggers> byDevice = lookup();
+    if (byDevice == null || byDevice.isEmpty()) {
+      return null;
+    }
+    return byDevice.get(deviceKey(productKey, deviceId));
+  }
+
+  private static String deviceKey(String productKey, String deviceId) {
+    return productKey + ":" + deviceId;
+  }
+
+  @Override
+  @Scheduled(
+      initialDelayString = "${scene.trigger-index.reload-interval-ms:600000}",
+      fixedDelayString = "${scene.trigger-index.reload-interval-ms:600000}")
+  public void reload() {
+    super.reload();
+  }
+
+  @Override
+  protected String name() {
+    return "场景联动索引";
+  }
+
+  @Override
+  protected Map<Long, Map<String, LinkageTrigger>> loadAll() {
+    Map<Long, Map<String, LinkageTrigger>> byId = new HashMap<>();
+    for (SceneLinkage linkage : sceneLinkageMapper.selectSceneLinkageList(new SceneLinkage())) {
+      Map<String, LinkageTrigger> compiled = compile(linkage);
+      if (!compiled.isEmpty()) {
+        byId.put(linkage.getId(), compiled);
+      }
+    }
+    return byId;
+  }
+
+  @Override
+  protected Map<String, LinkageTrigger> load(Long id) {
+    SceneLinkage linkage = sceneLinkageMapper.selectSceneLinkageById(id);
+    Map<String, LinkageTrigger> compiled = linkage == null ? null : compile(linkage);
+    return compiled == null || compiled.isEmpty() ? null : compiled;
+  }
+
+  @Override
+  protected Map<String, DeviceTriggers> index(Map<Long, Map<String, LinkageTrigger>> byId) {
+    Map<String, Map<String, List<LinkageTrigger>>> byProperty = new HashMap<>();
+    Map<String, Map<String, List<LinkageTrigger>>> byEvent = new HashMap<>();
+    for (Map<String, LinkageTrigger> devices : byId.values()) {
+      devices.forEach(
+          (deviceKey, trigger) -> {
+            Map<String, List<LinkageTrigger>> properties =
+                byProperty.computeIfAbsent(deviceKey, k -> new HashMap<>());
+            trigger
+                .getConditions()
+                .forEach(
+                    condition -> {
+                      List<LinkageTrigger> list =
+                          properties.computeIfAbsent(condition.getKey(), k -> new ArrayList<>(1));
+                      if (!list.contains(trigger)) {
+                        list.add(trigger);
+                      }
+                    });
+            Map<String, List<LinkageTrigger>> events =
+                byEvent.computeIfAbsent(deviceKey, k -> new HashMap<>());
+            trigger
+                .getEventIds()
+                .forEach(
+                    eventId -> {
+                      List<LinkageTrigger> list =
+                          events.computeIfAbsent(eventId, k -> new ArrayList<>(1));
+                      if (!list.contains(trigger)) {
+                        list.add(trigger);
+                      }
+                    });
+          });
+    }
+    Map<String, DeviceTriggers> byDevice = new HashMap<>(byProperty.size());
+    byProperty.forEach(
+        (deviceKey, properties) ->
+            byDevice.put(
+                deviceKey,
+                new DeviceTriggers(
+                    freeze(properties), freeze(byEvent.getOrDefault(deviceKey, Map.of())))));
+    return Collections.unmodifiableMap(byDevice);
+  }
+
+  private static Map<String, List<LinkageTrigger>> freeze(Map<String, List<LinkageTrigger>> map) {
+    Map<String, List<LinkageTrigger>> frozen = new HashMap<>(map.size());
+    map.forEach((k, v) -> frozen.put(k, Collections.unmodifiableList(v)));
+    return Collections.unmodifiableMap(frozen);
+  }
+
+  /**
+   * 按设备编译场景联动的设备触发条件
+   *
+   * @param linkage 场景联动
+   * @return productKey:deviceId -> 触发条件，停用或无设备触发时为空
+   */
+  static Map<String, LinkageTrigger> compile(SceneLinkage linkage) {
+    if (linkage.getStatus() != null && linkage.getStatus() != STATUS_ENABLE) {
+      return Collections.emptyMap();
+    }
+    JSONArray jsonArray;
+    try {
+      jsonArray = JSONUtil.parseArray(linkage.getTriggerCondition());
+    } catch (Exception e) {
+      log.warn("[场景联动索引] 触发条件解析失败, id={}, err={}", linkage.getId(), e.getMessage());
+      return Collections.emptyMap();
+    }
+    if (CollectionUtils.isEmpty(jsonArray)) {
+      return Collections.emptyMap();
+    }
+    boolean any = TOUCH_ONE.equalsIgnoreCase(linkage.getTouch());
+    Map<String, List<PropertyCondition>> conditions = new LinkedHashMap<>();
+    Map<String, List<String>> eventIds = new LinkedHashMap<>();
+    for (Object o : jsonArray) {
+      TriggerBO trigger = BeanUtil.toBean(o, TriggerBO.class);
+      if (!TriggerType.device.name().equals(trigger.getTrigger())
+          || trigger.getProductKey() == null
+          || trigger.getDeviceId() == null) {
+        continue;
+      }
+      String deviceKey = deviceKey(trigger.getProductKey(), trigger.getDeviceId());
+      if (MessageType.PROPERTIES.name().equalsIgnoreCase(trigger.getType())) {
+        List<PropertyCondition> list =
+            conditions.computeIfAbsent(deviceKey, k -> new ArrayList<>());
+        if (trigger.getFilters() != null) {
+          for (ConditionFilter filter : trigger.getFilters()) {
+            try {
+              list.add(PropertyCondition.of(filter));
+            } catch (IllegalArgumentException e) {
+              log.warn(
+                  "[场景联动索引] 不支持的过滤条件, id={}, key={}, operator={}",
+                  linkage.getId(),
+                  filter.getKey(),
+                  filter.getOperator());
+            }
+          }
+        }
+      } else if (MessageType.EVENT.name().equalsIgnoreCase(trigger.getType())
+          && trigger.getModelId() != null) {
+        eventIds.computeIfAbsent(deviceKey, k -> new ArrayList<>()).add(trigger.getModelId());
+      }
+    }
+    Map<String, LinkageTrigger> compiled = new HashMap<>();
+    for (String deviceKey : union(conditions, eventIds)) {
+      List<PropertyCondition> deviceConditions = conditions.getOrDefault(deviceKey, List.of());
+      List<String> deviceEvents = eventIds.getOrDefault(deviceKey, List.of());
+      if (deviceConditions.isEmpty() && deviceEvents.isEmpty()) {
+        continue;
+      }
+      compiled.put(
+          deviceKey,
+          new LinkageTrigger(
+              linkage, any, List.copyOf(deviceConditions), List.copyOf(deviceEvents)));
+    }
+    return compiled;
+  }
+
+  private static List<String> union(Map<String, ?> a, Map<String, ?> b) {
+    List<String> keys = new ArrayList<>(a.keySet());
+    for (String key : b.keySet()) {
+      if (!a.containsKey(key)) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  record DeviceTriggers(
+      Map<String, List<LinkageTrigger>> byProperty, Map<String, List<LinkageTrigger>> byEvent) {}
+}
@@ -0,0 +1,213 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+
+package cn.universal.rule.service;
+
+import cn.hutool.json.JSONUtil;
+import cn.universal.persistence.dto.IoTDeviceDTO;
+import cn.universal.persistence.entity.RuleModel;
+import cn.universal.persistence.entity.RuleModelInstance;
+import cn.universal.persistence.mapper.RuleModelInstanceMapper;
+import cn.universal.persistence.mapper.RuleModelMapper;
+import cn.universal.rule.index.SnapshotIndex;
+import cn.universal.rule.model.RuleConfig;
+import cn.universal.rule.service.RuleIndex.IndexedRule;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 运行中规则的内存索引
+ *
+ * <p>按关联id（productKey / groupId / iotId）索引运行中的规则，规则配置预先反序列化，上行消息匹配规则无需查库。
+ *
+ * @since 2023/1/13 14:34
+ */
+@Slf4j
+@Component
+public class RuleIndex extends SnapshotIndex<IndexedRule, Map<String, List<IndexedRule>>> {
+
+  private static final String STATUS_RUN = "run";
+
+  @Resource private RuleModelMapper ruleModelMapper;
+
+  @Resource private RuleModelInstanceMapper ruleModelInstanceMapper;
+
+  /**
+   * 匹配设备关联的运行中规则，与原 selectRuleByBo 条件一致：创建人相同且关联了产品、设备或设备所在分组
+   *
+   * @param instance 设备
+   * @return 匹配的规则，无匹配时为空列表
+   */
+  public List<IndexedRule> match(IoTDeviceDTO instance) {
+    Map<String, List<IndexedRule>> byRelation = lookup();
+    if (byRelation == null || byRelation.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String creatorId = instance.getUserUnionId();
+    if (creatorId == null) {
+      return Collections.emptyList();
+    }
+    List<IndexedRule> matched = collect(byRelation, instance.getProductKey(), creatorId, null);
+    matched = collect(byRelation, instance.getIotId(), creatorId, matched);
+    if (!CollectionUtils.isEmpty(instance.getDevGroupId())) {
+      for (String groupId : instance.getDevGroupId()) {
+        matched = collect(byRelation, groupId, creatorId, matched);
+      }
+    }
+    return matched == null ? Collections.emptyList() : matched;
+  }
+
+  private static List<IndexedRule> collect(
+      Map<String, List<IndexedRule>> byRelation,
+      String relationId,
+      String creatorId,
+      List<IndexedRule> matched) {
+    if (relationId == null) {
+      return matched;
+    }
+    List<IndexedRule> rules = byRelation.get(relationId);
+    if (rules == null) {
+      return matched;
+    }
+    for (IndexedRule rule : rules) {
+      if (creatorId.equals(rule.getCreatorId())) {
+        if (matched == null) {
+          matched = new ArrayList<>(2);
+        }
+        if (!matched.contains(rule)) {
+          matched.add(rule);
+        }
+      }
+    }
+    return matched;
+  }
+
+  @Override
+  @Scheduled(
+      initialDelayString = "${rule.index.reload-interval-ms:600000}",
+      fixedDelayString = "${rule.index.reload-interval-ms:600000}")
+  public void reload() {
+    super.reload();
+  }
+
+  @Override
+  protected String name() {
+    return "规则索引";
+  }
+
+  @Override
+  protected Map<Long, IndexedRule> loadAll() {
+    List<RuleModel> models = ruleModelMapper.select(RuleModel.builder().status(STATUS_RUN).build());
+    Map<Long, List<String>> relations = new HashMap<>();
+    if (!CollectionUtils.isEmpty(models)) {
+      for (RuleModelInstance instance : ruleModelInstanceMapper.selectAll()) {
+        relations
+            .computeIfAbsent(instance.getModelId(), k -> new ArrayList<>())
+            .add(instance.getRelationId());
+      }
+    }
+    Map<Long, IndexedRule> byId = new HashMap<>();
+    for (RuleModel model : models) {
+      IndexedRule rule = toIndexedRule(model, relations.get(model.getId()));
+      if (rule != null) {
+        byId.put(rule.getId(), rule);
+      }
+    }
+    return byId;
+  }
+
+  @Override
+  protected IndexedRule load(Long ruleId) {
+    RuleModel model = ruleModelMapper.selectByPrimaryKey(ruleId);
+    if (model == null || !STATUS_RUN.equals(model.getStatus())) {
+      return null;
+    }
+    List<String> relationIds =
+        ruleModelInstanceMapper.select(RuleModelInstance.builder().modelId(ruleId).build()).stream()
+            .map(RuleModelInstance::getRelationId)
+            .collect(Collectors.toList());
+    return toIndexedRule(model, relationIds);
+  }
+
+  @Override
+  protected Map<String, List<IndexedRule>> index(Map<Long, IndexedRule> byId) {
+    Map<String, List<IndexedRule>> byRelation = new HashMap<>();
+    for (IndexedRule rule : byId.values()) {
+      for (String relationId : rule.getRelationIds()) {
+        byRelation.computeIfAbsent(relationId, k -> new ArrayList<>(1)).add(rule);
+      }
+    }
+    byRelation.replaceAll((k, v) -> Collections.unmodifiableList(v));
+    return Collections.unmodifiableMap(byRelation);
+  }
+
+  private static IndexedRule toIndexedRule(RuleModel model, List<String> relationIds) {
+    if (CollectionUtils.isEmpty(relationIds)) {
+      return null;
+    }
+    RuleConfig config;
+    try {
+      config = JSONUtil.toBean(model.getConfig(), RuleConfig.class);
+    } catch (Exception e) {
+      log.error("[规则索引] 规则配置解析失败, ruleId={}", model.getId(), e);
+      return null;
+    }
+    Date version =
+        Objects.nonNull(model.getUpdateTime()) ? model.getUpdateTime() : model.getCreateTime();
+    Set<String> relations = new LinkedHashSet<>(relationIds);
+    relations.remove(null);
+    return new IndexedRule(
+        model.getId(),
+        model.getRuleName(),
+        model.getCreatorId(),
+        Objects.isNull(version) ? 0L : version.getTime(),
+        config,
+        config.getSql(),
+        List.copyOf(relations));
+  }
+
+  /** 索引中的规则，配置和SQL已预先解析 */
+  @Getter
+  @AllArgsConstructor
+  public static class IndexedRule {
+
+    private final Long id;
+
+    private final String ruleName;
+
+    private final String creatorId;
+
+    /** 规则版本，取更新时间，未更新过取创建时间 */
+    private final long version;
+
+    private final RuleConfig config;
+
+    private final String sql;
+
+    private final List<String> relationIds;
+  }
+}
@@ -14,7 +14,10 @@ package cn.universal.rule.service;
 
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.EventPublisher;
 import cn.universal.common.exception.IoTException;
+import cn.universal.common.utils.TransactionUtils;
 import cn.universal.core.message.UPRequest;
 import cn.universal.persistence.dto.IoTDeviceDTO;
 import cn.universal.persistence.entity.RuleModel;
@@ -28,6 +31,7 @@ import cn.universal.rule.enums.RuleDataLevel;
 import cn.universal.rule.model.RuleConfig;
 import cn.universal.rule.model.bo.RuleBo;
 import cn.universal.rule.model.bo.RuleTargetTestBO;
+import cn.universal.rule.service.RuleIndex.IndexedRule;
 import cn.universal.rule.transmit.RuleTransmitTemplate;
 import jakarta.annotation.Resource;
 import java.util.Date;
@@ -58,38 +62,43 @@ public class RuleService {
 
   @Resource private RuleEngine ruleEngine;
 
+  @Resource private RuleIndex ruleIndex;
+
+  @Resource private EventPublisher eventPublisher;
+
   @Async("taskExecutor")
   public void rule(UPRequest param, IoTDeviceDTO instance) {
-    doExecuteRule(JSONUtil.parseObj(param), instance);
+    List<IndexedRule> rules = ruleIndex.match(instance);
+    if (rules.isEmpty()) {
+      return;
+    }
+    doExecuteRule(JSONUtil.parseObj(param), instance, rules);
   }
 
   public void doExecuteRule(JSONObject param, IoTDeviceDTO instance) {
-    RuleModelBO ruleModelBo = new RuleModelBO();
-    ruleModelBo.setProductKey(instance.getProductKey());
-    ruleModelBo.setCreatorId(instance.getUserUnionId());
-    ruleModelBo.setGroupIds(instance.getDevGroupId());
-    ruleModelBo.setIotId(instance.getIotId());
-    List<RuleModel> ruleModels = ruleModelMapper.selectRuleByBo(ruleModelBo);
-    if (CollectionUtils.isEmpty(ruleModels)) {
+    doExecuteRule(param, instance, ruleIndex.match(instance));
+  }
+
+  private void doExecuteRule(JSONObject param, IoTDeviceDTO instance, List<IndexedRule> rules) {
+    if (CollectionUtils.isEmpty(rules)) {
       return;
     }
-    ruleModels.forEach(
-        ruleModel -> {
+    rules.forEach(
+        rule -> {
           try {
-            RuleConfig ruleConfig = JSONUtil.toBean(ruleModel.getConfig(), RuleConfig.class);
-
             JSONObject result =
-                ruleEngine.executeRule(param, ruleConfig.getSql(), instance.getAppId());
+                ruleEngine.executeRule(
+                    param, rule.getId(), rule.getVersion(), rule.getSql(), instance.getAppId());
 
             if (Objects.nonNull(result)) {
-              ruleConfig
+              rule.getConfig()
                   .getTargets()
                   .forEach(
                       target -> {
                         try {
                           log.info(
                               "匹配到规则引擎，调用转发ruleId:{},deviceId={}",
-                              ruleModel.getId(),
+                              rule.getId(),
                               instance.getDeviceId());
                           ruleTransmitTemplate.transmit(result, target);
                         } catch (Exception e) {
@@ -97,7 +106,7 @@ public class RuleService {
                               "执行规则错误,调用转发目标失败,deviceId:{},iotId:{},ruleId:{},data:{},target:{}",
                               instance.getDeviceId(),
                               instance.getIotId(),
-                              ruleModel.getId(),
+                              rule.getId(),
                               result,
                               target);
                           log.error("执行规则错误,调用转发目标失败", e);
@@ -109,13 +118,27 @@ public class RuleService {
                 "执行规则错误,deviceId:{},iotId:{},ruleId:{}, ruleName:{}",
                 instance.getDeviceId(),
                 instance.getIotId(),
-                ruleModel.getId(),
-                ruleModel.getRuleName(),
+                rule.getId(),
+                rule.getRuleName(),
                 e);
           }
         });
   }
 
+  /**
+   * 规则变更：清除编译缓存、刷新本地规则索引并通知集群其他节点，事务中在提交后执行
+   *
+   * @param ruleId 规则id
+   */
+  private void ruleChanged(Long ruleId) {
+    TransactionUtils.afterCommit(
+        () -> {
+          ruleEngine.invalidate(ruleId);
+          ruleIndex.refresh(ruleId);
+          eventPublisher.publishEvent(EventTopics.RULE_UPDATED, ruleId);
+        });
+  }
+
   public JSONObject testExecuteRule(RuleBo sqlBo) {
     JSONObject jsonObject;
     try {
@@ -171,6 +194,7 @@ public class RuleService {
     ruleModel.setStatus(ruleModelBo.getStatus());
     ruleModel.setUpdateTime(new Date());
     ruleModelMapper.updateByPrimaryKeySelective(ruleModel);
+    ruleChanged(ruleModel.getId());
   }
 
   /**
@@ -199,6 +223,7 @@ public class RuleService {
     Example example = new Example(RuleModel.class);
     example.createCriteria().andEqualTo("id", id).andEqualTo("creatorId", creator);
     ruleModelMapper.deleteByExample(example);
+    ruleChanged(id);
   }
 
   /**
@@ -263,6 +288,7 @@ public class RuleService {
     ruleModelInstanceMapper.delete(RuleModelInstance.builder().modelId(ruleBo.getId()).build());
 
     saveRuleInstance(ruleBo, ruleModel);
+    ruleChanged(ruleModel.getId());
   }
 
   /**
@@ -294,5 +320,6 @@ public class RuleService {
     ruleModel.setUpdateTime(new Date());
 
     ruleModelMapper.updateByPrimaryKeySelective(ruleModel);
+    ruleChanged(ruleModel.getId());
   }
 }
@@ -14,6 +14,8 @@ package cn.universal.rule.utils;
 
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
@@ -73,6 +75,50 @@ public class JsonParserUtil {
     }
   }
 
+  /**
+   * 解析json节点路径，可提前解析后复用
+   *
+   * @param key 获取数据key，多级用 . 分隔
+   * @return 路径各级节点
+   */
+  public static String[] parsePath(String key) {
+    return key.replaceAll("\"", "").replace("'", "").split("\\.");
+  }
+
+  /**
+   * 按预解析的路径获取指定json节点数据，节点不存在返回null
+   *
+   * @param json json数据
+   * @param path 路径各级节点
+   * @return 数据
+   */
+  public static Object getValue(JSONObject json, String[] path) {
+    Object current = json;
+    for (String name : path) {
+      if (current instanceof Map<?, ?> map) {
+        current = map.get(name);
+      } else if (current instanceof List<?> list && isIndex(name)) {
+        int index = Integer.parseInt(name);
+        current = index < list.size() ? list.get(index) : null;
+      } else {
+        return null;
+      }
+    }
+    return current;
+  }
+
+  private static boolean isIndex(String name) {
+    if (name.isEmpty() || name.length() > 9) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (!Character.isDigit(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static void main(String[] args) {
     JSONObject set =
         new JSONObject().set("a", new JSONObject().set("b", new JSONObject().set("c", "2")));
@@ -0,0 +1,134 @@
+package cn.universal.rule.fence.index;
+
+import cn.universal.persistence.entity.IoTDeviceGeoFence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 围栏判断吞吐基准：1万个围栏（圆形、多边形各半）分布在约100km×100km范围内，逐条处理5万个连续坐标
+ *
+ * <p>每次操作为一次坐标上报（本次、上次坐标都判断），目标单线程不低于5万次/秒。{@code linearScan} 为逐个围栏判断的对照。
+ *
+ * <p>运行：在IDE中直接执行 main，或 {@code java -cp <test-classpath> ...FenceIndexBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class FenceIndexBenchmark {
+
+  private static final int FENCES = 10_000;
+
+  private static final int POSITIONS = 50_000;
+
+  private static final double BASE_LNG = 120.0;
+
+  private static final double BASE_LAT = 30.0;
+
+  private List<CompiledFence> fences;
+  private FenceGridIndex index;
+  private double[] lng;
+  private double[] lat;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    fences = new ArrayList<>(FENCES);
+    for (int i = 0; i < FENCES; i++) {
+      double centerLng = BASE_LNG + random.nextDouble();
+      double centerLat = BASE_LAT + random.nextDouble();
+      FenceGeometry geometry;
+      if (i % 2 == 0) {
+        geometry = FenceGeometry.circle(centerLng, centerLat, 100 + random.nextInt(1900));
+      } else {
+        // 6~12个顶点的不规则多边形，半径约0.5~2km
+        int n = 6 + random.nextInt(7);
+        double[] fLng = new double[n];
+        double[] fLat = new double[n];
+        for (int k = 0; k < n; k++) {
+          double angle = 2 * Math.PI * k / n;
+          double r = 0.005 + random.nextDouble() * 0.015;
+          fLng[k] = centerLng + r * Math.cos(angle);
+          fLat[k] = centerLat + r * Math.sin(angle);
+        }
+        geometry = FenceGeometry.polygon(fLng, fLat);
+      }
+      IoTDeviceGeoFence fence = new IoTDeviceGeoFence();
+      fence.setId((long) i);
+      fences.add(CompiledFence.compile(fence, geometry));
+    }
+    index = FenceGridIndex.build(fences, 0.01, 4096);
+    // 随机游走的连续坐标，相邻两点约几十米
+    lng = new double[POSITIONS];
+    lat = new double[POSITIONS];
+    double x = BASE_LNG + 0.5;
+    double y = BASE_LAT + 0.5;
+    for (int i = 0; i < POSITIONS; i++) {
+      x = Math.min(BASE_LNG + 1, Math.max(BASE_LNG, x + (random.nextDouble() - 0.5) * 0.001));
+      y = Math.min(BASE_LAT + 1, Math.max(BASE_LAT, y + (random.nextDouble() - 0.5) * 0.001));
+      lng[i] = x;
+      lat[i] = y;
+    }
+  }
+
+  /** 下一条坐标下标，与前一条组成本次、上次坐标 */
+  private int next() {
+    int i = cursor + 1;
+    if (i >= POSITIONS) {
+      i = 1;
+    }
+    cursor = i;
+    return i;
+  }
+
+  @Benchmark
+  public int indexed() {
+    int i = next();
+    int changed = 0;
+    for (CompiledFence fence : index.candidates(lng[i], lat[i], lng[i - 1], lat[i - 1])) {
+      FenceGeometry geometry = fence.getGeometry();
+      if (geometry.contains(lng[i], lat[i]) != geometry.contains(lng[i - 1], lat[i - 1])) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  @Benchmark
+  public int linearScan() {
+    int i = next();
+    int changed = 0;
+    for (CompiledFence fence : fences) {
+      FenceGeometry geometry = fence.getGeometry();
+      if (geometry.contains(lng[i], lat[i]) != geometry.contains(lng[i - 1], lat[i - 1])) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(FenceIndexBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,114 @@
+package cn.universal.rule.fence.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.geom.GeneralPath;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** RegionUtil.isInPolygon 与原 GeneralPath 实现的一致性测试 */
+class RegionUtilTest {
+
+  /** 凹多边形（U 形），顶点为整数，边上的点可精确表示 */
+  private static final double[] U_LON = {0, 6, 6, 4, 4, 2, 2, 0};
+
+  private static final double[] U_LAT = {0, 0, 6, 6, 2, 2, 6, 6};
+
+  @Test
+  void matchesGeneralPathOnRandomPolygons() {
+    Random random = new Random(20251210L);
+    for (int polygon = 0; polygon < 500; polygon++) {
+      // 3~12 个顶点，随机顺序可产生凹多边形和自相交多边形
+      int n = 3 + random.nextInt(10);
+      double[] lon = new double[n];
+      double[] lat = new double[n];
+      for (int i = 0; i < n; i++) {
+        lon[i] = coordinate(random, 120.0, 0.1);
+        lat[i] = coordinate(random, 30.0, 0.1);
+      }
+      for (int point = 0; point < 200; point++) {
+        assertSameAsGeneralPath(
+            coordinate(random, 120.0, 0.12), coordinate(random, 30.0, 0.12), lon, lat);
+      }
+    }
+  }
+
+  @Test
+  void matchesGeneralPathOnEdgesAndVertices() {
+    // 所有顶点
+    for (int i = 0; i < U_LON.length; i++) {
+      assertSameAsGeneralPath(U_LON[i], U_LAT[i], U_LON, U_LAT);
+    }
+    // 所有边的中点和四等分点
+    for (int i = 0, j = U_LON.length - 1; i < U_LON.length; j = i++) {
+      for (int k = 1; k < 4; k++) {
+        double t = k / 4.0;
+        assertSameAsGeneralPath(
+            U_LON[j] + (U_LON[i] - U_LON[j]) * t,
+            U_LAT[j] + (U_LAT[i] - U_LAT[j]) * t,
+            U_LON,
+            U_LAT);
+      }
+    }
+    // 凹口内、两臂内、凹口底边上
+    assertFalse(RegionUtil.isInPolygon(3, 4, U_LON, U_LAT));
+    assertTrue(RegionUtil.isInPolygon(1, 4, U_LON, U_LAT));
+    assertTrue(RegionUtil.isInPolygon(5, 4, U_LON, U_LAT));
+    assertSameAsGeneralPath(3, 2, U_LON, U_LAT);
+
+    // 斜边上的整数点
+    double[] lon = {0, 4, 0};
+    double[] lat = {0, 4, 4};
+    for (int i = 0; i <= 4; i++) {
+      assertSameAsGeneralPath(i, i, lon, lat);
+      assertSameAsGeneralPath(i, 4, lon, lat);
+      assertSameAsGeneralPath(0, i, lon, lat);
+    }
+  }
+
+  @Test
+  void matchesGeneralPathAcrossAntiMeridian() {
+    // 跨180度经线的区域按平面坐标处理：经度需连续（181 表示 -179）
+    double[] lon = {179, 181, 181, 179};
+    double[] lat = {-1, -1, 1, 1};
+    for (double x = 178.5; x <= 181.5; x += 0.25) {
+      for (double y = -1.5; y <= 1.5; y += 0.25) {
+        assertSameAsGeneralPath(x, y, lon, lat);
+      }
+    }
+    assertTrue(RegionUtil.isInPolygon(180, 0, lon, lat));
+    assertFalse(RegionUtil.isInPolygon(-179.5, 0, lon, lat));
+
+    // 经度回绕写法（179 -> -179）两种实现都视为覆盖 -179~179 的大区域
+    double[] wrapped = {179, -179, -179, 179};
+    for (double x = -180; x <= 180; x += 0.5) {
+      assertSameAsGeneralPath(x, 0, wrapped, lat);
+    }
+    assertTrue(RegionUtil.isInPolygon(0, 0, wrapped, lat));
+    assertFalse(RegionUtil.isInPolygon(179.5, 0, wrapped, lat));
+  }
+
+  /** 随机坐标取 float 可精确表示的值，排除 GeneralPath 按 float 存储顶点带来的误差 */
+  private static double coordinate(Random random, double center, double spread) {
+    return (float) (center + (random.nextDouble() * 2 - 1) * spread);
+  }
+
+  private static void assertSameAsGeneralPath(double x, double y, double[] lon, double[] lat) {
+    assertEquals(
+        generalPathContains(x, y, lon, lat),
+        RegionUtil.isInPolygon(x, y, lon, lat),
+        () -> "point (" + x + ", " + y + ")");
+  }
+
+  /** 原实现：GeneralPath 依次连接顶点并封闭，按默认的非零环绕规则判断 */
+  private static boolean generalPathContains(double x, double y, double[] lon, double[] lat) {
+    GeneralPath path = new GeneralPath();
+    path.moveTo(lon[0], lat[0]);
+    for (int i = 1; i < lon.length; i++) {
+      path.lineTo(lon[i], lat[i]);
+    }
+    path.lineTo(lon[0], lat[0]);
+    path.closePath();
+    return path.contains(x, y);
+  }
+}
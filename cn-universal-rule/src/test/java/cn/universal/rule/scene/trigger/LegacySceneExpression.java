@@ -0,0 +1,84 @@
+package cn.universal.rule.scene.trigger;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.universal.persistence.entity.bo.TriggerBO;
+import cn.universal.persistence.entity.bo.TriggerBO.Operator;
+import com.ql.util.express.DefaultContext;
+import com.ql.util.express.ExpressRunner;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/** 原 DevicePropertiesUp/DeviceEventUp 拼接QLExpress表达式的判断，用于对照预编译条件的结果 */
+final class LegacySceneExpression {
+
+  private static final ExpressRunner RUNNER = new ExpressRunner();
+
+  private LegacySceneExpression() {}
+
+  /** 原 AbstractDeviceUp 的连接符 */
+  static String separator(boolean any) {
+    return any ? " || " : " && ";
+  }
+
+  /**
+   * 原属性上报判断
+   *
+   * @return 表达式结果，执行出错时为null
+   */
+  static Boolean properties(
+      List<TriggerBO> triggers, String separator, Map<String, Object> properties) {
+    String express =
+        triggers.stream()
+            .map(
+                triggerBo -> {
+                  String filterExpress =
+                      triggerBo.getFilters().stream()
+                          .filter(item -> properties.containsKey(item.getKey()))
+                          .map(
+                              filter ->
+                                  String.format(
+                                      "%s %s %s",
+                                      filter.getKey(),
+                                      Operator.valueOf(filter.getOperator()).getSymbol(),
+                                      NumberUtil.isNumber(filter.getValue())
+                                          ? filter.getValue()
+                                          : String.format("'%s'", filter.getValue())))
+                          .collect(Collectors.joining(separator));
+                  return StrUtil.isEmpty(filterExpress) ? "" : String.format("(%s)", filterExpress);
+                })
+            .filter(StrUtil::isNotEmpty)
+            .collect(Collectors.joining(separator));
+    if (StrUtil.isEmpty(express)) {
+      return false;
+    }
+    return execute(express, properties);
+  }
+
+  /**
+   * 原事件上报判断
+   *
+   * @return 表达式结果，执行出错时为null
+   */
+  static Boolean event(List<TriggerBO> triggers, String separator, String event) {
+    String express =
+        triggers.stream()
+            .map(triggerBo -> String.format("'%s'== event", triggerBo.getModelId()))
+            .collect(Collectors.joining(separator));
+    Map<String, Object> content = new HashMap<>(2);
+    content.put("event", event);
+    return execute(express, content);
+  }
+
+  private static Boolean execute(String express, Map<String, Object> context) {
+    DefaultContext<String, Object> defaultContext = new DefaultContext<>();
+    defaultContext.putAll(context);
+    try {
+      return (Boolean) RUNNER.execute(express, defaultContext, null, false, false);
+    } catch (Exception ignore) {
+      return null;
+    }
+  }
+}
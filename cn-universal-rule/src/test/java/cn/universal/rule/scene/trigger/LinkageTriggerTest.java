@@ -0,0 +1,136 @@
+package cn.universal.rule.scene.trigger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cn.universal.persistence.entity.bo.TriggerBO;
+import cn.universal.persistence.entity.bo.TriggerBO.ConditionFilter;
+import cn.universal.persistence.entity.bo.TriggerBO.Operator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** LinkageTrigger 的 one/all 组合与原QLExpress表达式的一致性测试 */
+class LinkageTriggerTest {
+
+  /** 两个属性触发器：(temp > 30 且/或 hum < 50)，(status == 'ON') */
+  private static final List<TriggerBO> PROPERTY_TRIGGERS =
+      List.of(
+          trigger(filter("temp", Operator.gt, "30"), filter("hum", Operator.lt, "50")),
+          trigger(filter("status", Operator.eq, "ON")));
+
+  @Test
+  void propertiesMatchLegacyExpression() {
+    List<Map<String, Object>> reports =
+        List.of(
+            properties(),
+            properties("other", 1),
+            properties("temp", 31),
+            properties("temp", 20),
+            properties("temp", 31, "hum", 40),
+            properties("temp", 31, "hum", 60),
+            properties("temp", 31, "hum", 40, "status", "ON"),
+            properties("temp", 31, "hum", 40, "status", "OFF"),
+            properties("temp", 20, "status", "ON"),
+            properties("hum", "45", "status", "ON"),
+            properties("temp", null, "status", "ON"),
+            properties("temp", 31, "hum", true),
+            properties("temp", 20, "hum", true),
+            properties("temp", true, "status", "ON"));
+    for (boolean any : new boolean[] {true, false}) {
+      LinkageTrigger trigger = compile(any, PROPERTY_TRIGGERS);
+      for (Map<String, Object> report : reports) {
+        Boolean legacy =
+            LegacySceneExpression.properties(
+                PROPERTY_TRIGGERS, LegacySceneExpression.separator(any), report);
+        assertEquals(legacy, testProperties(trigger, report), () -> "any=" + any + " " + report);
+      }
+    }
+  }
+
+  @Test
+  void missingPropertiesAreSkipped() {
+    // 只判断消息携带的属性，all 也不要求未携带的属性满足
+    assertTrue(compile(false, PROPERTY_TRIGGERS).testProperties(properties("temp", 31)));
+    assertFalse(compile(false, PROPERTY_TRIGGERS).testProperties(properties("other", 1)));
+    assertFalse(compile(true, PROPERTY_TRIGGERS).testProperties(properties("other", 1)));
+  }
+
+  @Test
+  void evaluationStopsAtFirstDecisiveCondition() {
+    // hum 为布尔值无法与数字比较，只有判断到它时才与原表达式一样出错
+    LinkageTrigger one = compile(true, PROPERTY_TRIGGERS);
+    LinkageTrigger all = compile(false, PROPERTY_TRIGGERS);
+    assertTrue(one.testProperties(properties("temp", 31, "hum", true)));
+    assertFalse(all.testProperties(properties("temp", 20, "hum", true)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> all.testProperties(properties("temp", 31, "hum", true)));
+  }
+
+  @Test
+  void eventsMatchLegacyExpression() {
+    List<TriggerBO> triggers = List.of(eventTrigger("alarm"), eventTrigger("offline"));
+    for (boolean any : new boolean[] {true, false}) {
+      LinkageTrigger trigger = compile(any, triggers);
+      for (String event : Arrays.asList("alarm", "offline", "other", null)) {
+        Boolean legacy =
+            LegacySceneExpression.event(triggers, LegacySceneExpression.separator(any), event);
+        assertEquals(legacy, trigger.testEvent(event), () -> "any=" + any + " event=" + event);
+      }
+    }
+  }
+
+  /** 与 SceneTriggerIndex 相同，按触发器顺序展开同一设备的条件 */
+  private static LinkageTrigger compile(boolean any, List<TriggerBO> triggers) {
+    List<PropertyCondition> conditions = new ArrayList<>();
+    List<String> eventIds = new ArrayList<>();
+    for (TriggerBO trigger : triggers) {
+      if (trigger.getModelId() != null) {
+        eventIds.add(trigger.getModelId());
+      } else {
+        trigger.getFilters().forEach(filter -> conditions.add(PropertyCondition.of(filter)));
+      }
+    }
+    return new LinkageTrigger(null, any, conditions, eventIds);
+  }
+
+  /** 新判断的结果，抛出异常时为null，与原表达式执行出错对应 */
+  private static Boolean testProperties(LinkageTrigger trigger, Map<String, Object> report) {
+    try {
+      return trigger.testProperties(report);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static TriggerBO trigger(ConditionFilter... filters) {
+    TriggerBO trigger = new TriggerBO();
+    trigger.setFilters(List.of(filters));
+    return trigger;
+  }
+
+  private static TriggerBO eventTrigger(String modelId) {
+    TriggerBO trigger = new TriggerBO();
+    trigger.setModelId(modelId);
+    return trigger;
+  }
+
+  private static ConditionFilter filter(String key, Operator operator, String value) {
+    ConditionFilter filter = new ConditionFilter();
+    filter.setKey(key);
+    filter.setOperator(operator.name());
+    filter.setValue(value);
+    return filter;
+  }
+
+  private static Map<String, Object> properties(Object... keyValues) {
+    Map<String, Object> properties = new HashMap<>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      properties.put((String) keyValues[i], keyValues[i + 1]);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,133 @@
+package cn.universal.rule.scene.trigger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cn.universal.persistence.entity.bo.TriggerBO;
+import cn.universal.persistence.entity.bo.TriggerBO.ConditionFilter;
+import cn.universal.persistence.entity.bo.TriggerBO.Operator;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** PropertyCondition 与原QLExpress表达式的一致性测试 */
+class PropertyConditionTest {
+
+  private static final String[] VALUES = {
+    "30", "30.5", "30.50", "-1", "0", "007", "5.", "3000000000", "99999999999999999999", "1e3",
+    "+5", ".5", " 30", "", "abc", "ON", "true", "a", "%", "ab%", "%bc", "%b%", "a%c", "%0", "30%",
+    "%aa%a%", "a%%c"
+  };
+
+  private static final Object[] ACTUALS = {
+    30, 30L, 30.0, 30.5f, 30.5, 31.2, new BigDecimal("30.00"), 1000, 3000000000L, -1, 7, 5.0,
+    "30", "31", "30.5", "30.50", "1000", "7", "5.0", "-1", "", "abc", "abd", "xab", "aa", "ca",
+    "ON", "on", "a", true, 'c', List.of(1), null
+  };
+
+  @Test
+  void matchesLegacyExpression() {
+    for (Operator operator : Operator.values()) {
+      for (String value : VALUES) {
+        for (Object actual : ACTUALS) {
+          Boolean legacy = legacy(operator, value, actual);
+          Boolean now = test(operator, value, actual);
+          assertEquals(
+              legacy, now, () -> "t " + operator.getSymbol() + " " + value + ", t=" + actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  void numericValueComparesNumbersByValue() {
+    assertTrue(condition(Operator.eq, "30").test(30));
+    assertTrue(condition(Operator.eq, "30").test(30L));
+    assertTrue(condition(Operator.eq, "30").test(30.0));
+    assertTrue(condition(Operator.eq, "30").test(new BigDecimal("30.00")));
+    assertTrue(condition(Operator.eq, "30.50").test(30.5f));
+    assertTrue(condition(Operator.gt, "30").test(31.2));
+    assertTrue(condition(Operator.lt, "30").test(-1));
+    assertFalse(condition(Operator.gt, "30").test(30));
+  }
+
+  @Test
+  void stringPropertyComparesAsString() {
+    // 原表达式中字符串与数字比较时，数字按解析后的文本参与字符串比较
+    assertTrue(condition(Operator.eq, "30").test("30"));
+    assertTrue(condition(Operator.eq, "30.50").test("30.5"));
+    assertFalse(condition(Operator.eq, "30.50").test("30.50"));
+    assertTrue(condition(Operator.eq, "007").test("7"));
+    assertFalse(condition(Operator.gt, "30").test("1000"));
+    assertTrue(condition(Operator.gt, "30").test("abc"));
+    assertTrue(condition(Operator.lt, "30").test(""));
+    assertTrue(condition(Operator.gt, "ON").test("on"));
+  }
+
+  @Test
+  void likeMatchesSegmentsInOrderWithoutAnchoring() {
+    assertTrue(condition(Operator.like, "ab%").test("abc"));
+    assertTrue(condition(Operator.like, "ab%").test("xab"));
+    assertTrue(condition(Operator.like, "%0").test("30.5"));
+    assertTrue(condition(Operator.like, "%0").test(30.5));
+    assertTrue(condition(Operator.like, "%aa%a%").test("aa"));
+    assertTrue(condition(Operator.like, "%").test(""));
+    assertFalse(condition(Operator.like, "a%c").test("ca"));
+    assertFalse(condition(Operator.like, "ab%").test(""));
+    // 不含 % 时整体相等
+    assertFalse(condition(Operator.like, "ab").test("abc"));
+    assertTrue(condition(Operator.like, "30").test(30));
+  }
+
+  @Test
+  void nullPropertyOnlySupportsEquality() {
+    assertFalse(condition(Operator.eq, "30").test(null));
+    assertTrue(condition(Operator.not, "ON").test(null));
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.gt, "30").test(null));
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.like, "a%").test(null));
+  }
+
+  @Test
+  void incomparableValuesThrow() {
+    // 原表达式无法解析的数字
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.eq, "1e3").test(1000));
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.not, ".5").test("x"));
+    // 数字与布尔
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.not, "1").test(true));
+    // 单字符是字符字面量，只能与字符串比较
+    assertThrows(IllegalArgumentException.class, () -> condition(Operator.eq, "%").test(30));
+    assertTrue(condition(Operator.eq, "a").test("a"));
+    // 多字符字符串与数字按字符串比较
+    assertTrue(condition(Operator.not, "ab").test(30));
+  }
+
+  private static PropertyCondition condition(Operator operator, String value) {
+    ConditionFilter filter = new ConditionFilter();
+    filter.setKey("t");
+    filter.setOperator(operator.name());
+    filter.setValue(value);
+    return PropertyCondition.of(filter);
+  }
+
+  /** 新条件的结果，抛出异常时为null，与原表达式执行出错对应 */
+  private static Boolean test(Operator operator, String value, Object actual) {
+    try {
+      return condition(operator, value).test(actual);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static Boolean legacy(Operator operator, String value, Object actual) {
+    ConditionFilter filter = new ConditionFilter();
+    filter.setKey("t");
+    filter.setOperator(operator.name());
+    filter.setValue(value);
+    TriggerBO trigger = new TriggerBO();
+    trigger.setFilters(List.of(filter));
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("t", actual);
+    return LegacySceneExpression.properties(List.of(trigger), " && ", properties);
+  }
+}
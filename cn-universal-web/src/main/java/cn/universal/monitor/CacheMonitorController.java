@@ -75,6 +75,12 @@ public class CacheMonitorController {
           statMap.put("totalHits", stat.getTotalHits());
           statMap.put("totalMisses", stat.getTotalMisses());
           statMap.put("overallHitRate", stat.getOverallHitRate());
+          statMap.put("loads", stat.getLoads());
+          statMap.put("loadFailures", stat.getLoadFailures());
+          statMap.put("loadsCoalesced", stat.getLoadsCoalesced());
+          statMap.put("negativeHits", stat.getNegativeHits());
+          statMap.put("refreshes", stat.getRefreshes());
+          statMap.put("refreshFailures", stat.getRefreshFailures());
           cacheStats.put(entry.getKey(), statMap);
         }
         result.put("multiLevelCacheStats", cacheStats);
@@ -27,6 +27,7 @@ import cn.universal.persistence.mapper.IoTDeviceGeoFenceMapper;
 import cn.universal.persistence.mapper.IoTDeviceMapper;
 import cn.universal.persistence.query.IoTDeviceQuery;
 import cn.universal.persistence.query.PageBean;
+import cn.universal.rule.fence.service.FenceService;
 import cn.universal.security.BaseController;
 import cn.universal.web.context.IoTInnerAuthContext;
 import com.github.pagehelper.Page;
@@ -76,8 +77,8 @@ public class FenceController extends BaseController {
   /** IoT设备服务 */
   @Resource private IIoTDeviceService iIotDeviceService;
 
-  /** 围栏服务 */
-  //  @Resource private FenceService fenceService;
+  /** 围栏服务，围栏和设备绑定变更后失效围栏索引 */
+  @Resource private FenceService fenceService;
 
   /**
    * 查询围栏列表
@@ -152,6 +153,7 @@ public class FenceController extends BaseController {
     ioTDeviceGeoFence.setCreateDate(new Date());
     ioTDeviceGeoFence.setUpdateDate(new Date());
     ioTDeviceGeoFenceMapper.insert(ioTDeviceGeoFence);
+    fenceService.fenceChanged();
     return R.ok(ioTDeviceGeoFence.getId());
   }
 
@@ -193,6 +195,7 @@ public class FenceController extends BaseController {
     ioTDeviceGeoFence.setDelayTime(jsonObject.getInt("delayTime"));
     ioTDeviceGeoFence.setUpdateDate(new Date());
     Integer result = ioTDeviceGeoFenceMapper.updateFence(ioTDeviceGeoFence);
+    fenceService.fenceChanged();
     return R.ok(result);
   }
 
@@ -210,6 +213,7 @@ public class FenceController extends BaseController {
     IoTDeviceFenceRel ioTDeviceFenceRel = new IoTDeviceFenceRel();
     ioTDeviceFenceRel.setFenceId(Long.parseLong(id));
     ioTDeviceFenceRelMapper.delete(ioTDeviceFenceRel);
+    fenceService.fenceChanged();
     return R.ok(result);
   }
 
@@ -242,6 +246,7 @@ public class FenceController extends BaseController {
     ioTDeviceGeoFence.setUpdateDate(new Date());
     ioTDeviceGeoFence.setName("复制-" + ioTDeviceGeoFence.getName());
     ioTDeviceGeoFenceMapper.insert(ioTDeviceGeoFence);
+    fenceService.fenceChanged();
     return R.ok(ioTDeviceGeoFence);
   }
 
@@ -298,6 +303,7 @@ public class FenceController extends BaseController {
       ioTDeviceFenceRel.setDeviceId(id);
       ioTDeviceFenceRel.setCreatorId(ioTDevice.getCreatorId());
       ioTDeviceFenceRelMapper.insert(ioTDeviceFenceRel);
+      fenceService.deviceFenceChanged(ioTDevice.getIotId());
     }
     return R.ok();
   }
@@ -310,6 +316,14 @@ public class FenceController extends BaseController {
     String[] ids = jsonObject.getStr("deviceIds").split(",");
     for (String id : ids) {
       ioTDeviceFenceRelMapper.deleteDeviceIdAndFenceId(id, fenceId);
+      IoTDevice ioTDevice =
+          ioTDeviceMapper.getOneByDeviceId(IoTDeviceQuery.builder().deviceId(id).build());
+      if (ioTDevice == null) {
+        // 设备已不存在，无法定位缓存，按围栏变更处理
+        fenceService.fenceChanged();
+      } else {
+        fenceService.deviceFenceChanged(ioTDevice.getIotId());
+      }
     }
     return R.ok();
   }
@@ -8,8 +8,10 @@ import cn.universal.web.dto.EmqxAclResponse;
 import cn.universal.web.service.EmqxAclLogService;
 import cn.universal.web.service.EmqxAclQueryService;
 import cn.universal.web.service.EmqxAclService;
+import cn.universal.web.service.impl.EmqxDecisionCache.AclDecision;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -30,6 +32,10 @@ public class EmqxAclServiceImpl implements EmqxAclService {
   private final EmqxAclLogService emqxAclLogService;
   private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder();
 
+  /** ACL 决策缓存，未配置时每次都完整检查 */
+  @Autowired(required = false)
+  private EmqxDecisionCache decisionCache;
+
   @Value("${mqtt.cfg.client.username:admin}")
   private String adminUsername;
 
@@ -76,6 +82,30 @@ public class EmqxAclServiceImpl implements EmqxAclService {
         clientId,
         ipAddress);
 
+    AclDecision decision =
+        decisionCache != null
+            ? decisionCache.checkAcl(
+                username, clientId, topic, action, () -> decide(username, topic, action))
+            : decide(username, topic, action);
+    String aclType = decision.aclType();
+
+    // 记录 ACL 检查结果
+    String result = decision.allowed() ? "allow" : "deny";
+    emqxAclLogService.logAclResult(username, topic, action, clientId, ipAddress, aclType, result);
+
+    log.info(
+        "EMQX ACL 授权完成: username={}, topic={}, action={}, result={}, type={}",
+        username,
+        topic,
+        action,
+        result,
+        aclType);
+
+    return new EmqxAclResponse(result);
+  }
+
+  /** 依次尝试配置账号、产品、应用、用户授权 */
+  private AclDecision decide(String username, String topic, String action) {
     String aclType = null;
     boolean hasPermission = false;
 
@@ -129,19 +159,7 @@ public class EmqxAclServiceImpl implements EmqxAclService {
       }
     }
 
-    // 5. 记录 ACL 检查结果
-    String result = hasPermission ? "allow" : "deny";
-    emqxAclLogService.logAclResult(username, topic, action, clientId, ipAddress, aclType, result);
-
-    log.info(
-        "EMQX ACL 授权完成: username={}, topic={}, action={}, result={}, type={}",
-        username,
-        topic,
-        action,
-        result,
-        aclType);
-
-    return new EmqxAclResponse(result);
+    return new AclDecision(hasPermission, aclType);
   }
 
   /** 检查配置账号 ACL 权限 */
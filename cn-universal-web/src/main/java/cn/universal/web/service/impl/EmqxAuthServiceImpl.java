@@ -19,9 +19,11 @@ import cn.universal.web.dto.EmqxAuthResponse;
 import cn.universal.web.service.EmqxAuthLogService;
 import cn.universal.web.service.EmqxAuthQueryService;
 import cn.universal.web.service.EmqxAuthService;
+import cn.universal.web.service.impl.EmqxDecisionCache.AuthDecision;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -42,6 +44,10 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
   private final EmqxAuthLogService emqxAuthLogService;
   private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder();
 
+  /** 认证决策缓存，未配置时每次都完整认证 */
+  @Autowired(required = false)
+  private EmqxDecisionCache decisionCache;
+
   @Value("${mqtt.cfg.client.username:admin}")
   private String adminUsername;
 
@@ -79,6 +85,28 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
 
     log.info("开始处理 EMQX 认证请求: username={}, clientId={}, ip={}", username, clientId, ipAddress);
 
+    AuthDecision decision =
+        decisionCache != null
+            ? decisionCache.authenticate(username, password, this::decide)
+            : decide(username, password);
+    EmqxAuthResponse response = decision.response();
+    if (!decision.allowed()) {
+      log.warn("所有认证方式都失败: username={}, clientId={}", username, clientId);
+    }
+
+    // 记录认证日志
+    try {
+      emqxAuthLogService.logAuthResult(
+          username, clientId, ipAddress, decision.authType(), response.getResult());
+    } catch (Exception e) {
+      log.error("记录认证日志失败: username={}, error={}", username, e.getMessage(), e);
+    }
+
+    return response;
+  }
+
+  /** 依次尝试配置账号、产品、应用、用户认证 */
+  private AuthDecision decide(String username, String password) {
     EmqxAuthResponse response = null;
     String authType = null;
 
@@ -87,7 +115,7 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
       response = authenticateAdmin(username, password);
       if ("allow".equals(response.getResult())) {
         authType = "ADMIN";
-        log.info("配置账号认证成功: username={}, clientId={}", username, clientId);
+        log.info("配置账号认证成功: username={}", username);
       }
     } catch (Exception e) {
       log.warn("配置账号认证异常: username={}, error={}", username, e.getMessage(), e);
@@ -99,7 +127,7 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
         response = authenticateProduct(username, password);
         if ("allow".equals(response.getResult())) {
           authType = "PRODUCT";
-          log.info("产品认证成功: username={}, clientId={}", username, clientId);
+          log.info("产品认证成功: username={}", username);
         }
       } catch (Exception e) {
         log.warn("产品认证异常: username={}, error={}", username, e.getMessage(), e);
@@ -112,7 +140,7 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
         response = authenticateApplication(username, password);
         if ("allow".equals(response.getResult())) {
           authType = "APPLICATION";
-          log.info("应用认证成功: username={}, clientId={}", username, clientId);
+          log.info("应用认证成功: username={}", username);
         }
       } catch (Exception e) {
         log.warn("应用认证异常: username={}, error={}", username, e.getMessage(), e);
@@ -125,7 +153,7 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
         response = authenticateUser(username, password);
         if ("allow".equals(response.getResult())) {
           authType = "USER";
-          log.info("用户认证成功: username={}, clientId={}", username, clientId);
+          log.info("用户认证成功: username={}", username);
         }
       } catch (Exception e) {
         log.warn("用户认证异常: username={}, error={}", username, e.getMessage(), e);
@@ -134,19 +162,9 @@ public class EmqxAuthServiceImpl implements EmqxAuthService {
 
     // 5. 如果所有认证都失败，返回拒绝
     if (response == null || !"allow".equals(response.getResult())) {
-      response = new EmqxAuthResponse("deny");
-      log.warn("所有认证方式都失败: username={}, clientId={}", username, clientId);
+      return new AuthDecision(new EmqxAuthResponse("deny"), null);
     }
-
-    // 6. 记录认证日志
-    try {
-      emqxAuthLogService.logAuthResult(
-          username, clientId, ipAddress, authType, response.getResult());
-    } catch (Exception e) {
-      log.error("记录认证日志失败: username={}, error={}", username, e.getMessage(), e);
-    }
-
-    return response;
+    return new AuthDecision(response, authType);
   }
 
   /** 配置账号认证 */
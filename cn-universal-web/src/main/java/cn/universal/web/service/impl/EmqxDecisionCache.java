@@ -0,0 +1,175 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+package cn.universal.web.service.impl;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.universal.common.event.EventMessage;
+import cn.universal.common.event.EventTopics;
+import cn.universal.common.event.processer.MqttAuthChangedProcessor;
+import cn.universal.web.dto.EmqxAuthResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * EMQX 认证与 ACL 决策缓存
+ *
+ * <p>Broker 重启后的重连风暴中同一账号（尤其是同产品下的设备共用的 productKey）会被反复认证。认证结果按 (用户名, 密码摘要) 缓存，
+ * ACL 结果按 (用户名, clientId, 主题, 动作) 缓存，同一键并发请求只计算一次。通过的决策缓存 allow-ttl，拒绝的只缓存 deny-ttl，
+ * 既挡住错误密码的反复重试，也让修正后的配置尽快生效。
+ *
+ * <p>产品、应用、用户变更时通过 {@link EventTopics#MQTT_AUTH_CHANGED} 通知集群内所有实例清除。
+ *
+ * @author gitee.com/NexIoT
+ * @version 1.0
+ * @since 2025/1/20
+ */
+@Slf4j
+@Component
+public class EmqxDecisionCache implements MqttAuthChangedProcessor {
+
+  /** 密码摘要的随机盐，仅在本进程内有效，内存中不保留可离线比对的摘要 */
+  private final String salt = IdUtil.fastSimpleUUID();
+
+  private final boolean enabled;
+  private final Cache<AuthKey, AuthDecision> authCache;
+  private final Cache<AclKey, AclDecision> aclCache;
+
+  public EmqxDecisionCache(
+      @Value("${mqtt.auth.cache.enable:true}") boolean enabled,
+      @Value("${mqtt.auth.cache.allow-ttl-seconds:300}") long allowTtlSeconds,
+      @Value("${mqtt.auth.cache.deny-ttl-seconds:5}") long denyTtlSeconds,
+      @Value("${mqtt.auth.cache.maximum-size:100000}") long maximumSize) {
+    this.enabled = enabled;
+    long allowNanos = TimeUnit.SECONDS.toNanos(allowTtlSeconds);
+    long denyNanos = TimeUnit.SECONDS.toNanos(denyTtlSeconds);
+    this.authCache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(expiry(AuthDecision::allowed, allowNanos, denyNanos))
+            .build();
+    this.aclCache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(expiry(AclDecision::allowed, allowNanos, denyNanos))
+            .build();
+    log.info(
+        "EMQX 决策缓存: enable={}, allowTtl={}s, denyTtl={}s, maximumSize={}",
+        enabled,
+        allowTtlSeconds,
+        denyTtlSeconds,
+        maximumSize);
+  }
+
+  /**
+   * 获取认证决策，未命中时调用 loader 计算
+   *
+   * @param username 用户名
+   * @param password 密码，只以加盐摘要参与缓存键
+   * @param loader 认证逻辑
+   */
+  public AuthDecision authenticate(
+      String username, String password, BiFunction<String, String, AuthDecision> loader) {
+    if (!enabled) {
+      return loader.apply(username, password);
+    }
+    AuthKey key = new AuthKey(username, DigestUtil.sha256Hex(salt + password));
+    return authCache.get(key, k -> loader.apply(username, password));
+  }
+
+  /**
+   * 获取 ACL 决策，未命中时调用 loader 计算
+   *
+   * @param loader ACL 判断逻辑
+   */
+  public AclDecision checkAcl(
+      String username, String clientId, String topic, String action, Supplier<AclDecision> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+    return aclCache.get(new AclKey(username, clientId, topic, action), k -> loader.get());
+  }
+
+  /**
+   * 清除用户名相关的决策
+   *
+   * @param username productKey、appId或用户名，为空时清除全部
+   */
+  public void evict(String username) {
+    if (username == null || username.isEmpty()) {
+      authCache.invalidateAll();
+      aclCache.invalidateAll();
+      log.info("EMQX 决策缓存已全部清除");
+      return;
+    }
+    authCache.asMap().keySet().removeIf(key -> username.equals(key.username()));
+    aclCache.asMap().keySet().removeIf(key -> username.equals(key.username()));
+    log.info("EMQX 决策缓存已清除: username={}", username);
+  }
+
+  @Override
+  public void handleMqttAuthChanged(EventMessage message) {
+    Object data = message.getData();
+    evict(data == null ? null : data.toString());
+  }
+
+  public long authSize() {
+    return authCache.estimatedSize();
+  }
+
+  public long aclSize() {
+    return aclCache.estimatedSize();
+  }
+
+  /** 通过的决策与拒绝的决策使用不同的过期时间 */
+  private static <K, V> Expiry<K, V> expiry(Predicate<V> allowed, long allowNanos, long denyNanos) {
+    return new Expiry<>() {
+      @Override
+      public long expireAfterCreate(K key, V value, long currentTime) {
+        return allowed.test(value) ? allowNanos : denyNanos;
+      }
+
+      @Override
+      public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+      }
+
+      @Override
+      public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+      }
+    };
+  }
+
+  private record AuthKey(String username, String passwordDigest) {}
+
+  private record AclKey(String username, String clientId, String topic, String action) {}
+
+  /** 认证决策，authType 为认证通过的方式，拒绝时为null */
+  public record AuthDecision(EmqxAuthResponse response, String authType) {
+
+    public boolean allowed() {
+      return response != null && "allow".equals(response.getResult());
+    }
+  }
+
+  /** ACL 决策，aclType 为授权通过的方式，拒绝时为null */
+  public record AclDecision(boolean allowed, String aclType) {}
+}
@@ -0,0 +1,211 @@
+/*
+ *
+ * Copyright (c) 2025, NexIoT. All Rights Reserved.
+ *
+ * @Description: 本文件由 gitee.com/NexIoT 开发并拥有版权，未经授权严禁擅自商用、复制或传播。
+ * @Author: gitee.com/NexIoT
+ * @Email: wo8335224@gmail.com
+ * @Wechat: outlookFil
+ *
+ *
+ */
+package cn.universal.web.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cn.universal.persistence.entity.IoTProduct;
+import cn.universal.web.dto.EmqxAclRequest;
+import cn.universal.web.dto.EmqxAclResponse;
+import cn.universal.web.dto.EmqxAuthRequest;
+import cn.universal.web.dto.EmqxAuthResponse;
+import cn.universal.web.service.EmqxAclLogService;
+import cn.universal.web.service.EmqxAclQueryService;
+import cn.universal.web.service.EmqxAuthLogService;
+import cn.universal.web.service.EmqxAuthQueryService;
+import cn.universal.web.service.EmqxHeaderValidationService;
+import cn.universal.web.service.impl.EmqxAclServiceImpl;
+import cn.universal.web.service.impl.EmqxAuthServiceImpl;
+import cn.universal.web.service.impl.EmqxDecisionCache;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * EMQX 重连风暴压测：模拟 Broker 重启后大量设备同时重连并发布，回放到 {@link EmqxAuthController}
+ *
+ * <p>查库带模拟延迟，分别在有无决策缓存时统计吞吐和查库次数。规模可用系统属性调整，例如
+ * {@code -Demqx.storm.devices=100000 -Demqx.storm.threads=64 -Demqx.storm.query-delay-ms=5}。
+ */
+@Slf4j
+@DisplayName("EMQX 重连风暴压测")
+class EmqxConnectStormTest {
+
+  private static final int PRODUCTS = Integer.getInteger("emqx.storm.products", 4);
+  private static final int DEVICES = Integer.getInteger("emqx.storm.devices", 4000);
+  private static final int ROUNDS = Integer.getInteger("emqx.storm.rounds", 3);
+  private static final int THREADS = Integer.getInteger("emqx.storm.threads", 32);
+  private static final long QUERY_DELAY_MS = Long.getLong("emqx.storm.query-delay-ms", 1);
+
+  private EmqxAuthQueryService authQueryService;
+  private EmqxAclQueryService aclQueryService;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    authQueryService = mock(EmqxAuthQueryService.class);
+    aclQueryService = mock(EmqxAclQueryService.class);
+    Answer<IoTProduct> productAnswer =
+        invocation -> {
+          TimeUnit.MILLISECONDS.sleep(QUERY_DELAY_MS);
+          String productKey = invocation.getArgument(0);
+          return IoTProduct.builder()
+              .productKey(productKey)
+              .productSecret(secretOf(productKey))
+              .name(productKey)
+              .state((byte) 0)
+              .isDeleted(0)
+              .build();
+        };
+    when(authQueryService.queryProductByKey(anyString())).thenAnswer(productAnswer);
+    when(aclQueryService.queryProductByKey(anyString())).thenAnswer(productAnswer);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("无决策缓存：每次认证和ACL都查库")
+  void stormWithoutCache() throws Exception {
+    EmqxAuthController controller = controller(null);
+
+    replay(controller, "无缓存");
+
+    verify(authQueryService, times(DEVICES * ROUNDS)).queryProductByKey(anyString());
+    verify(aclQueryService, times(DEVICES * ROUNDS)).queryProductByKey(anyString());
+  }
+
+  @Test
+  @DisplayName("有决策缓存：每个产品只认证一次，每个设备主题只授权一次")
+  void stormWithCache() throws Exception {
+    EmqxDecisionCache cache = new EmqxDecisionCache(true, 300, 5, 100_000);
+    EmqxAuthController controller = controller(cache);
+
+    replay(controller, "有缓存");
+
+    verify(authQueryService, times(PRODUCTS)).queryProductByKey(anyString());
+    verify(aclQueryService, times(DEVICES)).queryProductByKey(anyString());
+
+    // 产品变更后重新认证
+    cache.evict(productKey(0));
+    controller.authenticate(authRequest(0), mock(HttpServletRequest.class));
+    verify(authQueryService, times(PRODUCTS + 1)).queryProductByKey(anyString());
+  }
+
+  private EmqxAuthController controller(EmqxDecisionCache cache) {
+    EmqxAuthServiceImpl authService =
+        new EmqxAuthServiceImpl(authQueryService, mock(EmqxAuthLogService.class));
+    EmqxAclServiceImpl aclService =
+        new EmqxAclServiceImpl(aclQueryService, mock(EmqxAclLogService.class));
+    for (Object service : new Object[] {authService, aclService}) {
+      ReflectionTestUtils.setField(service, "adminUsername", "admin");
+      ReflectionTestUtils.setField(service, "adminPassword", "admin123456");
+      ReflectionTestUtils.setField(service, "adminEnable", true);
+      ReflectionTestUtils.setField(service, "thingPrefix", "$thing");
+      ReflectionTestUtils.setField(service, "decisionCache", cache);
+    }
+    EmqxHeaderValidationService headerValidation = mock(EmqxHeaderValidationService.class);
+    when(headerValidation.validateHeader(any())).thenReturn(true);
+
+    EmqxAuthController controller = new EmqxAuthController();
+    ReflectionTestUtils.setField(controller, "emqxAuthService", authService);
+    ReflectionTestUtils.setField(controller, "emqxAclService", aclService);
+    ReflectionTestUtils.setField(controller, "emqxHeaderValidationService", headerValidation);
+    return controller;
+  }
+
+  /** 每轮所有设备并发重连，连上后发布一条属性上报 */
+  private void replay(EmqxAuthController controller, String label) throws Exception {
+    HttpServletRequest httpRequest = mock(HttpServletRequest.class);
+    AtomicInteger denied = new AtomicInteger();
+    long start = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      List<Future<?>> futures = new ArrayList<>(DEVICES);
+      for (int device = 0; device < DEVICES; device++) {
+        int index = device;
+        futures.add(
+            executor.submit(
+                () -> {
+                  EmqxAuthResponse auth = controller.authenticate(authRequest(index), httpRequest);
+                  EmqxAclResponse acl = controller.checkAcl(aclRequest(index), httpRequest);
+                  if (!"allow".equals(auth.getResult()) || !"allow".equals(acl.getResult())) {
+                    denied.incrementAndGet();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    int requests = DEVICES * ROUNDS * 2;
+    log.info(
+        "[{}] devices={}, rounds={}, threads={}, requests={}, elapsed={}ms, throughput={}/s",
+        label,
+        DEVICES,
+        ROUNDS,
+        THREADS,
+        requests,
+        elapsedMs,
+        requests * 1000L / Math.max(1, elapsedMs));
+    assertEquals(0, denied.get());
+  }
+
+  private static EmqxAuthRequest authRequest(int device) {
+    String productKey = productKey(device);
+    EmqxAuthRequest request = new EmqxAuthRequest();
+    request.setUsername(productKey);
+    request.setPassword(secretOf(productKey));
+    request.setClientid("device-" + device);
+    request.setIp_address("10.0." + (device >> 8 & 0xff) + "." + (device & 0xff));
+    return request;
+  }
+
+  private static EmqxAclRequest aclRequest(int device) {
+    String productKey = productKey(device);
+    EmqxAclRequest request = new EmqxAclRequest();
+    request.setUsername(productKey);
+    request.setClientid("device-" + device);
+    request.setTopic("$thing/" + productKey + "/device-" + device + "/up");
+    request.setAction("publish");
+    return request;
+  }
+
+  private static String productKey(int device) {
+    return "storm-product-" + device % PRODUCTS;
+  }
+
+  private static String secretOf(String productKey) {
+    return productKey + "-secret";
+  }
+}